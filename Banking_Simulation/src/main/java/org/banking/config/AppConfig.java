@@ -0,0 +1,80 @@
+package org.banking.config;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Read-only access to application.properties, loaded once per class loader.
+ */
+public final class AppConfig {
+
+    private static final Properties PROPERTIES = new Properties();
+
+    static {
+        try (InputStream input = AppConfig.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (input != null) {
+                PROPERTIES.load(input);
+            } else {
+                System.err.println("application.properties not found on classpath, using defaults");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to load application configuration: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private AppConfig() {}
+
+    public static String get(String key) {
+        return PROPERTIES.getProperty(key);
+    }
+
+    public static String get(String key, String defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid integer for '" + key + "': " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for '" + key + "': " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for '" + key + "': " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
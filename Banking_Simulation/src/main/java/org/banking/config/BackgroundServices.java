@@ -0,0 +1,53 @@
+package org.banking.config;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import org.banking.repository.HotAccountBalances;
+import org.banking.repository.NotificationOutboxRepositoryImpl;
+import org.banking.repository.TransactionAccountNumberBackfill;
+import org.banking.service.NotificationDispatcher;
+import org.banking.service.NotificationOutboxDispatcher;
+import org.banking.service.SmtpTransportPool;
+
+/**
+ * Starts and stops the background workers that are not tied to a request: the
+ * Transactions.account_number backfill, the hot-account slot consolidator, the
+ * notification outbox relay, and the notification queue and SMTP pool they send through.
+ *
+ * Declared in web.xml right after DBConfig, not through @WebListener, because the order
+ * matters: the container starts listeners in declaration order and stops them in reverse,
+ * so these start once the schema is migrated and stop while the pool is still open. The
+ * transfer path (ledger, group commit) lives and dies with the Jersey application instead;
+ * see {@link BankingApplication}.
+ */
+public class BackgroundServices implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        if (!DBConfig.isInitialized()) {
+            System.err.println("Database not initialized; background services not started");
+            return;
+        }
+        try {
+            TransactionAccountNumberBackfill.startShared();
+            HotAccountBalances.startShared();
+            if (NotificationOutboxRepositoryImpl.isEnabled()) {
+                NotificationOutboxDispatcher.startShared();
+            }
+            System.out.println(" -> Background services started");
+        } catch (Exception e) {
+            System.err.println("Failed to start background services: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        // The outbox relay sends through the notification queue and SMTP pool, so it stops first
+        NotificationOutboxDispatcher.shutdownShared();
+        TransactionAccountNumberBackfill.shutdownShared();
+        HotAccountBalances.shutdownShared();
+        NotificationDispatcher.shutdownShared();
+        SmtpTransportPool.shutdownShared();
+    }
+}
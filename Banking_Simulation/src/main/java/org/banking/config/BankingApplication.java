@@ -0,0 +1,173 @@
+package org.banking.config;
+
+import org.banking.controller.AccountController;
+import org.banking.controller.CustomerController;
+import org.banking.controller.TransactionController;
+import org.banking.repository.AccountChangeListener;
+import org.banking.repository.AccountRepository;
+import org.banking.repository.AccountRepositoryImpl;
+import org.banking.repository.CachingAccountRepository;
+import org.banking.repository.CachingCustomerRepository;
+import org.banking.repository.CustomerRepository;
+import org.banking.repository.CustomerRepositoryImpl;
+import org.banking.repository.GroupCommitTransactionRepository;
+import org.banking.repository.InMemoryLedgerTransactionRepository;
+import org.banking.repository.NotificationOutboxRepositoryImpl;
+import org.banking.repository.TransactionRepository;
+import org.banking.repository.TransactionRepositoryImpl;
+import org.banking.repository.UniquenessIndex;
+import org.banking.service.AccountService;
+import org.banking.service.AccountServiceImpl;
+import org.banking.service.CustomerService;
+import org.banking.service.CustomerServiceImpl;
+import org.banking.service.NotificationService;
+import org.banking.service.StripedLockManager;
+import org.banking.service.TransactionService;
+import org.banking.service.TransactionServiceImpl;
+import org.glassfish.jersey.internal.inject.AbstractBinder;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+/**
+ * Jersey application: the resources, JSON support and the object graph behind them.
+ *
+ * Services and repositories are built once here and bound as singletons, so every
+ * request shares the same instances (and any caches or pools they hold). Controllers
+ * stay request-scoped but only receive their service through the constructor.
+ *
+ * The transfer repositories that run threads of their own (in-memory ledger, group
+ * commit) are created here and stopped by {@link TransferPipelineShutdown} when Jersey
+ * shuts down, which the container does before any context listener is destroyed, so
+ * they drain while DBConfig's pool is still open.
+ *
+ * Mounted under /api by the Jersey servlet in web.xml.
+ */
+public class BankingApplication extends ResourceConfig {
+
+    public BankingApplication() {
+        register(JacksonFeature.class);
+
+        register(AccountController.class);
+        register(CustomerController.class);
+        register(TransactionController.class);
+
+        register(new ServiceBinder());
+        register(new TransferPipelineShutdown());
+    }
+
+    /**
+     * Drains the group-commit dispatchers and the ledger (writer, projector, final snapshot).
+     */
+    static class TransferPipelineShutdown implements ContainerLifecycleListener {
+        @Override
+        public void onStartup(Container container) {
+        }
+
+        @Override
+        public void onReload(Container container) {
+        }
+
+        @Override
+        public void onShutdown(Container container) {
+            GroupCommitTransactionRepository.shutdownShared();
+            InMemoryLedgerTransactionRepository.shutdownShared();
+        }
+    }
+
+    static class ServiceBinder extends AbstractBinder {
+        @Override
+        protected void configure() {
+            UniquenessIndex uniquenessIndex = loadUniquenessIndex();
+
+            // Account writes can re-link an account number to another customer, so they reach the customer cache
+            CustomerRepository customerRepository = new CustomerRepositoryImpl(uniquenessIndex);
+            AccountChangeListener accountLinkListener = AccountChangeListener.NONE;
+            if (AppConfig.getBoolean("customer.cache.enabled", true)) {
+                CachingCustomerRepository cachingCustomers = new CachingCustomerRepository(customerRepository,
+                        AppConfig.getInt("customer.cache.maxSize", 10000),
+                        AppConfig.getLong("customer.cache.ttlMs", 60000));
+                bind(cachingCustomers).to(CachingCustomerRepository.class);
+                customerRepository = cachingCustomers;
+                accountLinkListener = cachingCustomers;
+            }
+
+            if (InMemoryLedgerTransactionRepository.isEnabled()) {
+                // The ledger never rereads an account it holds unless told its status changed
+                accountLinkListener = accountLinkListener.andThen(InMemoryLedgerTransactionRepository::refreshShared);
+            }
+
+            // Transfers validate against fresh rows; the cache only serves account lookups
+            AccountRepository accountStore = new AccountRepositoryImpl(accountLinkListener, uniquenessIndex);
+            AccountRepository accountRepository = accountStore;
+            AccountChangeListener accountChangeListener = AccountChangeListener.NONE;
+            if (AppConfig.getBoolean("account.cache.enabled", true)) {
+                CachingAccountRepository cachingAccounts = new CachingAccountRepository(accountStore,
+                        AppConfig.getInt("account.cache.maxSize", 10000),
+                        AppConfig.getLong("account.cache.ttlMs", 30000));
+                bind(cachingAccounts).to(CachingAccountRepository.class);
+                accountRepository = cachingAccounts;
+                accountChangeListener = cachingAccounts;
+            }
+
+            TransactionRepository jdbcTransactions = new TransactionRepositoryImpl(accountChangeListener);
+            TransactionRepository transactionRepository = jdbcTransactions;
+            // Account locks only help plain JDBC transfers; the ledger and group commit already
+            // serialise in-process, and holding stripes across their batching would undo it
+            StripedLockManager accountLocks = StripedLockManager.DISABLED;
+            if (InMemoryLedgerTransactionRepository.isEnabled()) {
+                transactionRepository = startLedger(jdbcTransactions, accountChangeListener);
+            } else if (GroupCommitTransactionRepository.isEnabled()) {
+                transactionRepository = GroupCommitTransactionRepository.shared(jdbcTransactions);
+            } else if (AppConfig.getBoolean("transfer.locks.enabled", true)) {
+                accountLocks = new StripedLockManager(
+                        AppConfig.getInt("transfer.locks.stripes", 1024),
+                        AppConfig.getLong("transfer.locks.timeoutMs", 2000));
+            }
+            // Bound even when disabled, for the lock stats endpoint
+            bind(accountLocks).to(StripedLockManager.class);
+            NotificationService notificationService = new NotificationService();
+
+            bind(transactionRepository).to(TransactionRepository.class);
+            bind(accountRepository).to(AccountRepository.class);
+            bind(customerRepository).to(CustomerRepository.class);
+            bind(notificationService).to(NotificationService.class);
+
+            bind(new AccountServiceImpl(accountRepository)).to(AccountService.class);
+            bind(new CustomerServiceImpl(customerRepository)).to(CustomerService.class);
+            bind(new TransactionServiceImpl(transactionRepository, accountStore, customerRepository,
+                    notificationService, NotificationOutboxRepositoryImpl.isEnabled(), accountLocks)).to(TransactionService.class);
+        }
+
+        // No fallback to plain JDBC transfers: the journal may hold transfers MySQL has not seen yet
+        private static TransactionRepository startLedger(TransactionRepository jdbcTransactions,
+                                                         AccountChangeListener accountChangeListener) {
+            try {
+                return InMemoryLedgerTransactionRepository.shared(jdbcTransactions, accountChangeListener);
+            } catch (Exception e) {
+                throw new IllegalStateException("In-memory ledger failed to start: " + e.getMessage(), e);
+            }
+        }
+
+        private UniquenessIndex loadUniquenessIndex() {
+            if (!AppConfig.getBoolean("uniqueness.filter.enabled", true)) {
+                return UniquenessIndex.DISABLED;
+            }
+            try {
+                long start = System.nanoTime();
+                UniquenessIndex index = UniquenessIndex.load(
+                        AppConfig.getLong("uniqueness.filter.expectedEntries", 100000),
+                        AppConfig.getDouble("uniqueness.filter.falsePositiveRate", 0.01));
+                System.out.println(" -> Uniqueness filters loaded in " + (System.nanoTime() - start) / 1_000_000
+                        + " ms" + System.lineSeparator() + index);
+                bind(index).to(UniquenessIndex.class);
+                return index;
+            } catch (Exception e) {
+                // Without filters every check simply goes to the database
+                System.err.println("Failed to load uniqueness filters: " + e.getMessage());
+                return UniquenessIndex.DISABLED;
+            }
+        }
+    }
+}
@@ -1,41 +1,38 @@
 package org.banking.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
 
-import java.io.InputStream;
+import javax.sql.DataSource;
 import java.sql.*;
-import java.util.Properties;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @WebListener
 public class DBConfig implements ServletContextListener {
-    private static String DB_URL;
-    private static String DB_NAME ;
-    private static String DB_USER ;
-    private static String DB_PASSWORD ;
-    private static Connection connection;
-
-    static {
-        try (InputStream input = DBConfig.class.getClassLoader().getResourceAsStream("application.properties")) {
-            Properties prop = new Properties();
-            prop.load(input);
-
-            DB_URL = prop.getProperty("db.url");
-            DB_USER = prop.getProperty("db.username");
-            DB_PASSWORD = prop.getProperty("db.password");
-            DB_NAME= prop.getProperty("db.name");
+    private static final String DB_URL = AppConfig.get("db.url");
+    private static final String DB_NAME = AppConfig.get("db.name");
+    private static final String DB_USER = AppConfig.get("db.username");
+    private static final String DB_PASSWORD = AppConfig.get("db.password");
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
+    // Shared, bounded pool. Repositories borrow with getConnection() and return by closing.
+    private static volatile DataSource dataSource;
+
+    private static final int ID_BLOCK_SIZE = AppConfig.getInt("db.id.blockSize", 100);
+    private static final Map<String, IdAllocator> ID_ALLOCATORS = new ConcurrentHashMap<>();
+
+    // Set once the database exists and is migrated; BackgroundServices waits on it
+    private static volatile boolean initialized;
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
         System.out.println("WebApp STARTING UP: Initializing database connection...");
         try {
             initializeDatabase();
+            initialized = true;
             System.out.println("WebApp STARTED SUCCESSFULLY");
         } catch (Exception e) {
             System.err.println("Failed to initialize database: " + e.getMessage());
@@ -45,14 +42,13 @@ public class DBConfig implements ServletContextListener {
 
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed successfully.");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        // Runs last: Jersey and BackgroundServices have stopped everything that borrows connections
+        initialized = false;
+        closeDataSource();
+    }
+
+    public static boolean isInitialized() {
+        return initialized;
     }
 
     private void initializeDatabase() throws SQLException, ClassNotFoundException {
@@ -69,119 +65,105 @@ public class DBConfig implements ServletContextListener {
             System.out.println("Database '" + DB_NAME + "' is ready.");
         }
 
-        // Now connect to the specific database
-        connection = DriverManager.getConnection(DB_URL + DB_NAME + "?useSSL=false&serverTimezone=UTC",
-                DB_USER, DB_PASSWORD);
-        connection.setAutoCommit(true);
+        // Now open the pool against the specific database
+        getDataSource();
 
-        // Create tables
-        createTables();
+        // Create or upgrade tables and indexes; already-applied migrations are skipped
+        new MigrationRunner(getDataSource()).migrate();
     }
 
-    private void createTables() throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
-
-            // Customer table
-            String customerTable = """
-                CREATE TABLE IF NOT EXISTS Customer (
-                    customer_id VARCHAR(50) PRIMARY KEY,
-                    name VARCHAR(100) NOT NULL,
-                    phone_number VARCHAR(10) NOT NULL UNIQUE,
-                    email VARCHAR(100) NOT NULL UNIQUE,
-                    address TEXT,
-                    customer_pin VARCHAR(6) NOT NULL,
-                    aadhar_number VARCHAR(12) NOT NULL UNIQUE,
-                    dob DATE NOT NULL,
-                    status VARCHAR(20) DEFAULT 'Active'
-                )
-            """;
-
-
-            String accountTable = "CREATE TABLE IF NOT EXISTS account (" +
-                    "account_id VARCHAR(50) PRIMARY KEY, " +
-                    "customer_id VARCHAR(50) NOT NULL, " +
-                    "created_at DATETIME NOT NULL, " +
-                    "modified_at DATETIME NOT NULL, " +
-                    "balance DECIMAL(15,2) DEFAULT 50.00, " +
-                    "account_type VARCHAR(20) NOT NULL, " +
-                    "account_name VARCHAR(100) NOT NULL, " +
-                    "account_number VARCHAR(20) UNIQUE NOT NULL, " +
-                    "phone_number_linked VARCHAR(15) NOT NULL, " +
-                    "ifsc_code VARCHAR(20) NOT NULL, " +
-                    "bank_name VARCHAR(100) NOT NULL, " +
-                    "status VARCHAR(20) DEFAULT 'ACTIVE', " +
-                    "CONSTRAINT fk_customer FOREIGN KEY (customer_id) REFERENCES customer(customer_id)" +
-                    ")";
-
-
-            // Transaction table
-            String transactionsTable = """
-                CREATE TABLE IF NOT EXISTS Transactions (
-                    transaction_id VARCHAR(50) PRIMARY KEY,
-                    account_id VARCHAR(50) NOT NULL,
-                    transaction_amount DECIMAL(15,2) NOT NULL,
-                    transaction_type VARCHAR(20) NOT NULL,
-                    transaction_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    transaction_mode VARCHAR(50) NOT NULL,
-                    sender_account_number VARCHAR(20),
-                    receiver_account_number VARCHAR(20),
-                    description TEXT,
-                    FOREIGN KEY (account_id) REFERENCES Account(account_id) ON DELETE CASCADE
-                )
-            """;
-
-            stmt.executeUpdate(customerTable);
-            System.out.println(" -> Table 'Customer' is ready.");
-            stmt.executeUpdate(accountTable);
-            System.out.println(" -> Table 'Account' is ready.");
-            stmt.executeUpdate(transactionsTable);
-            System.out.println(" -> Table 'Transactions' is ready.");
-
-            System.out.println("All tables are ready.");
-        } catch (SQLException e) {
-            System.err.println("!!! ERROR: Could not create tables in the database !!!");
-            e.printStackTrace();
-            throw e;
-        }
+    /**
+     * Borrow a connection from the pool. Callers must close it (try-with-resources)
+     * to hand it back; closing never tears down the underlying socket.
+     */
+    public static Connection getConnection() throws SQLException {
+        return getDataSource().getConnection();
     }
 
-    public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(
-                        DB_URL + DB_NAME + "?useSSL=false&serverTimezone=UTC",
-                        DB_USER,
-                        DB_PASSWORD
-                );
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("MySQL Driver not found", e);
+    public static DataSource getDataSource() throws SQLException {
+        DataSource ds = dataSource;
+        if (ds == null) {
+            synchronized (DBConfig.class) {
+                ds = dataSource;
+                if (ds == null) {
+                    ds = createDataSource();
+                    dataSource = ds;
+                }
             }
         }
-        return connection;
+        return ds;
     }
 
-    // Helper method to get next ID for auto-generation
-    public static synchronized int getNextId(String tableName, String idColumn, String prefix) {
-        String query = "SELECT " + idColumn + " FROM " + tableName +
-                " WHERE " + idColumn + " LIKE ? ORDER BY " + idColumn + " DESC LIMIT 1";
+    /**
+     * Serve connections from the given data source instead of the MySQL pool; tests run the
+     * repositories against an in-memory database this way.
+     */
+    public static synchronized void useDataSource(DataSource ds) {
+        closeDataSource();
+        // Blocks reserved from the old database mean nothing in the new one
+        ID_ALLOCATORS.clear();
+        dataSource = ds;
+    }
 
-        try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
+    private static HikariDataSource createDataSource() throws SQLException {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("MySQL Driver not found", e);
+        }
 
-            ps.setString(1, prefix + "%");
-            ResultSet rs = ps.executeQuery();
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("banking-pool");
+        config.setJdbcUrl(DB_URL + DB_NAME + "?useSSL=false&serverTimezone=UTC");
+        config.setUsername(DB_USER);
+        config.setPassword(DB_PASSWORD);
+        config.setAutoCommit(true);
+
+        // Bounds and timeouts
+        config.setMaximumPoolSize(AppConfig.getInt("db.pool.maximumPoolSize", 20));
+        config.setMinimumIdle(AppConfig.getInt("db.pool.minimumIdle", 5));
+        config.setConnectionTimeout(AppConfig.getLong("db.pool.connectionTimeoutMs", 3000));
+        config.setValidationTimeout(AppConfig.getLong("db.pool.validationTimeoutMs", 2000));
+        config.setIdleTimeout(AppConfig.getLong("db.pool.idleTimeoutMs", 600000));
+        config.setMaxLifetime(AppConfig.getLong("db.pool.maxLifetimeMs", 1800000));
+        config.setKeepaliveTime(AppConfig.getLong("db.pool.keepaliveTimeMs", 300000));
+        config.setLeakDetectionThreshold(AppConfig.getLong("db.pool.leakDetectionThresholdMs", 0));
+
+        // Driver-side statement caching, so repeated prepareStatement calls stay cheap
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        // Send addBatch()/executeBatch() groups as multi-row statements
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
 
-            if (rs.next()) {
-                String lastId = rs.getString(1);
-                String numPart = lastId.substring(prefix.length());
-                return Integer.parseInt(numPart) + 1;
-            }
-            return 1; // First ID
+        try {
+            HikariDataSource ds = new HikariDataSource(config);
+            System.out.println("Connection pool started (max " + config.getMaximumPoolSize() + " connections).");
+            return ds;
+        } catch (RuntimeException e) {
+            throw new SQLException("Unable to start connection pool: " + e.getMessage(), e);
+        }
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return 1;
+    private static synchronized void closeDataSource() {
+        if (dataSource instanceof HikariDataSource pool) {
+            pool.close();
+            System.out.println("Connection pool closed successfully.");
         }
+        dataSource = null;
+    }
+
+    /**
+     * Next ID for a table, served from a per-table hi/lo block allocator. Prefixes are the
+     * constants on {@link IdAllocator}.
+     */
+    public static long getNextId(String tableName, String idColumn, String prefix) throws SQLException {
+        return getIdAllocator(tableName, idColumn, prefix).next();
+    }
+
+    public static IdAllocator getIdAllocator(String tableName, String idColumn, String prefix) {
+        return ID_ALLOCATORS.computeIfAbsent(tableName.toLowerCase(),
+                name -> new IdAllocator(name, tableName, idColumn, prefix, ID_BLOCK_SIZE));
     }
-}
\ No newline at end of file
+}
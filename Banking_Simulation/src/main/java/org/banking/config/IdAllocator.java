@@ -0,0 +1,174 @@
+package org.banking.config;
+
+import java.sql.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hi/lo ID allocator backed by the id_sequence table.
+ *
+ * Each node reserves a block of IDs in one short transaction and then hands
+ * them out from an AtomicLong without touching the database or taking a lock.
+ * Blocks never overlap across nodes because the reservation runs under a row
+ * lock on the sequence row. A sequence row is seeded with INSERT IGNORE before
+ * it is locked, so nodes starting together never deadlock on the missing row;
+ * a reservation rolled back by MySQL for a deadlock or lock wait is retried.
+ *
+ * {@link #format(String, long)} pads to the 19 digits of Long.MAX_VALUE, so the
+ * formatted IDs sort as strings in numeric order. IDs issued before that used a
+ * six-digit minimum; migration V11 pads them, and the seed parses either width.
+ */
+public class IdAllocator {
+
+    public static final String CUSTOMER_PREFIX = "CUST_";
+    public static final String ACCOUNT_PREFIX = "ACC_";
+    public static final String TRANSACTION_PREFIX = "TXN_";
+
+    private static final int MAX_RESERVE_ATTEMPTS = 5;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    private final String sequenceName;
+    private final String tableName;
+    private final String idColumn;
+    private final String prefix;
+    private final int blockSize;
+
+    private volatile Block block = new Block(0, 0);
+
+    public IdAllocator(String sequenceName, String tableName, String idColumn, String prefix, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.sequenceName = sequenceName;
+        this.tableName = tableName;
+        this.idColumn = idColumn;
+        this.prefix = prefix;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Next numeric ID for this sequence. Only the thread that finds the current
+     * block exhausted goes to the database; everyone else stays on the CAS path.
+     */
+    public long next() throws SQLException {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            synchronized (this) {
+                if (block == current) {
+                    block = reserveBlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Next ID formatted with this allocator's prefix, e.g. TXN_0000000000000000042.
+     */
+    public String nextFormatted() throws SQLException {
+        return format(prefix, next());
+    }
+
+    public String getPrefix() { return prefix; }
+
+    public static String format(String prefix, long value) {
+        return String.format("%s%019d", prefix, value);
+    }
+
+    private Block reserveBlock() throws SQLException {
+        SQLException last = null;
+        for (int attempt = 1; attempt <= MAX_RESERVE_ATTEMPTS; attempt++) {
+            try (Connection conn = DBConfig.getConnection()) {
+                Block reserved = tryReserve(conn);
+                if (reserved != null) {
+                    return reserved;
+                }
+                // First use of this sequence: seed it and reserve on the next pass
+                seed(conn);
+            } catch (SQLException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                last = e;
+            }
+        }
+        throw new SQLException("Unable to reserve ID block for sequence " + sequenceName, last);
+    }
+
+    // Null if the sequence row does not exist yet
+    private Block tryReserve(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            Long start = null;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT next_value FROM id_sequence WHERE sequence_name = ? FOR UPDATE")) {
+                ps.setString(1, sequenceName);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        start = rs.getLong(1);
+                    }
+                }
+            }
+            if (start == null) {
+                conn.rollback();
+                return null;
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE id_sequence SET next_value = ? WHERE sequence_name = ?")) {
+                ps.setLong(1, start + blockSize);
+                ps.setString(2, sequenceName);
+                ps.executeUpdate();
+            }
+            conn.commit();
+            return new Block(start, start + blockSize);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Continue after the highest ID already in the table. Whoever seeds first wins; the rest are ignored,
+    // and no row lock is held across it, so two nodes starting together cannot deadlock here.
+    private void seed(Connection conn) throws SQLException {
+        long seed = highestExistingId(conn) + 1;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT IGNORE INTO id_sequence (sequence_name, next_value) VALUES (?, ?)")) {
+            ps.setString(1, sequenceName);
+            ps.setLong(2, seed);
+            ps.executeUpdate();
+        }
+    }
+
+    // MySQL rolled the whole transaction back, for a deadlock or a lock wait timeout
+    private static boolean isRetryable(SQLException e) {
+        return e instanceof SQLTransactionRollbackException || e.getErrorCode() == ER_LOCK_DEADLOCK;
+    }
+
+    private long highestExistingId(Connection conn) throws SQLException {
+        // Numeric MAX rather than ORDER BY on the string, so old six-digit IDs and padded ones compare correctly
+        String query = "SELECT MAX(CAST(SUBSTRING(" + idColumn + ", ?) AS UNSIGNED)) FROM " + tableName +
+                " WHERE " + idColumn + " LIKE ?";
+
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, prefix.length() + 1);
+            ps.setString(2, prefix.replace("_", "\\_") + "%");
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.banking.config;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema migrations. Scripts live on the classpath under db/migration, are listed
+ * in order in migrations.list and named V&lt;version&gt;__&lt;description&gt;.sql. Each one is run
+ * once and then recorded in schema_version, so a normal boot costs a single SELECT.
+ *
+ * MySQL commits DDL implicitly, so a script that fails half-way is not rolled back. Scripts
+ * are therefore written to be re-runnable: tables use IF NOT EXISTS, and statements that fail
+ * only because their index or column already exists are skipped. A named lock keeps two
+ * nodes starting together from migrating at the same time.
+ */
+public class MigrationRunner {
+
+    private static final String LOCATION = "db/migration/";
+    private static final String LIST = LOCATION + "migrations.list";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String LOCK_NAME = "banking_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    // Statement already applied by an earlier, interrupted run (or by a pre-migration build)
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    private static final String CREATE_VERSION_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT PRIMARY KEY,
+                description VARCHAR(200) NOT NULL,
+                script VARCHAR(200) NOT NULL,
+                checksum VARCHAR(8) NOT NULL,
+                installed_on DATETIME NOT NULL,
+                execution_ms BIGINT NOT NULL
+            )
+            """;
+
+    private final DataSource dataSource;
+
+    public MigrationRunner(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Apply every script not yet recorded in schema_version.
+     *
+     * @return the number of migrations applied by this call
+     */
+    public int migrate() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(CREATE_VERSION_TABLE);
+            }
+
+            if (pending(migrations, appliedVersions(conn)).isEmpty()) {
+                System.out.println("Schema is up to date (version " + latest(migrations) + ").");
+                return 0;
+            }
+
+            acquireLock(conn);
+            try {
+                // Another node may have finished migrating while we waited for the lock
+                List<Migration> pending = pending(migrations, appliedVersions(conn));
+                for (Migration migration : pending) {
+                    apply(conn, migration);
+                }
+                System.out.println("Schema migrated to version " + latest(migrations) +
+                        " (" + pending.size() + " migration(s) applied).");
+                return pending.size();
+            } finally {
+                releaseLock(conn);
+            }
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : splitStatements(migration.sql())) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != ER_DUP_KEYNAME && e.getErrorCode() != ER_DUP_FIELDNAME) {
+                        throw new SQLException("Migration " + migration.script() + " failed: " + e.getMessage(), e);
+                    }
+                    System.out.println(" -> " + migration.script() + ": skipped, " + e.getMessage());
+                }
+            }
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        String sql = "INSERT INTO schema_version (version, description, script, checksum, installed_on, execution_ms) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, migration.version());
+            ps.setString(2, migration.description());
+            ps.setString(3, migration.script());
+            ps.setString(4, migration.checksum());
+            ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setLong(6, elapsedMs);
+            ps.executeUpdate();
+        }
+        System.out.println(" -> Applied " + migration.script() + " in " + elapsedMs + " ms.");
+    }
+
+    // version -> checksum of every migration already recorded
+    private static Map<Integer, String> appliedVersions(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new TreeMap<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT version, checksum FROM schema_version");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private static List<Migration> pending(List<Migration> migrations, Map<Integer, String> applied) throws SQLException {
+        List<Migration> pending = new ArrayList<>();
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version());
+            if (checksum == null) {
+                pending.add(migration);
+            } else if (!checksum.equals(migration.checksum())) {
+                throw new SQLException("Migration " + migration.script() + " was changed after it was applied " +
+                        "(checksum " + checksum + ", now " + migration.checksum() + "). Add a new migration instead.");
+            }
+        }
+        return pending;
+    }
+
+    private static int latest(List<Migration> migrations) {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version();
+    }
+
+    private static void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock");
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        }
+    }
+
+    private static List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+        for (String line : readResource(LIST).split("\\R")) {
+            String script = line.trim();
+            if (script.isEmpty() || script.startsWith("#")) {
+                continue;
+            }
+            Matcher name = SCRIPT_NAME.matcher(script);
+            if (!name.matches()) {
+                throw new SQLException("Invalid migration name '" + script + "'. Expected V<version>__<description>.sql");
+            }
+            int version = Integer.parseInt(name.group(1));
+            if (!migrations.isEmpty() && version <= latest(migrations)) {
+                throw new SQLException("Migration " + script + " is out of order in " + LIST);
+            }
+            String sql = readResource(LOCATION + script);
+            migrations.add(new Migration(version, name.group(2).replace('_', ' '), script, sql, checksum(sql)));
+        }
+        return migrations;
+    }
+
+    private static String readResource(String path) throws SQLException {
+        try (InputStream in = MigrationRunner.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new SQLException("Migration resource not found: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Failed to read " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Line endings are normalised so a checkout with CRLF does not look like an edited script
+    private static String checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+
+    /**
+     * Split a script on semicolons, ignoring those inside quotes, and drop line and block comments.
+     */
+    private static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            char next = i + 1 < script.length() ? script.charAt(i + 1) : 0;
+
+            if (quote != 0) {
+                current.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '-' && next == '-') {
+                while (i < script.length() && script.charAt(i) != '\n') {
+                    i++;
+                }
+                current.append('\n');
+            } else if (c == '/' && next == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? script.length() : end + 1;
+                current.append(' ');
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String sql = current.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        current.setLength(0);
+    }
+
+    private record Migration(int version, String description, String script, String sql, String checksum) {
+    }
+}
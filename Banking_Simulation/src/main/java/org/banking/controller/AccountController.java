@@ -1,12 +1,15 @@
 package org.banking.controller;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 import org.banking.model.Account;
 import org.banking.model.ApiResponse;
+import org.banking.model.Page;
 import org.banking.service.AccountService;
-import org.banking.service.AccountServiceImpl;
 import org.banking.util.ValidationUtil;
 import java.util.List;
 
@@ -17,12 +20,8 @@ public class AccountController {
 
     private final AccountService accountService;
 
-    // Default constructor for production use
-    public AccountController() {
-        this.accountService = new AccountServiceImpl();
-    }
-
-    // Constructor for testing (allows dependency injection)
+    // Service is a singleton bound in BankingApplication
+    @Inject
     public AccountController(AccountService accountService) {
         this.accountService = accountService;
     }
@@ -236,12 +235,24 @@ public class AccountController {
         }
     }
 
+    /**
+     * GET /api/account/all?limit=100&cursor=...
+     * Newest accounts first; follow "next" for the following page
+     */
     @GET
     @Path("/all")
-    public Response getAllAccounts() {
+    public Response getAllAccounts(@QueryParam("limit") Integer limit,
+                                   @QueryParam("cursor") String cursor,
+                                   @Context UriInfo uriInfo) {
         try {
-            List<Account> accounts = accountService.getAllAccounts();
-            return Response.ok(ApiResponse.success("Accounts retrieved successfully", accounts))
+            int pageSize = Pagination.limit(limit);
+            Page<Account> page = accountService.getAccountsPage(Pagination.timeCursor(cursor), pageSize);
+            return Response.ok(ApiResponse.page("Accounts retrieved successfully", page,
+                            Pagination.nextLink(uriInfo, page, pageSize)))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
                     .build();
         } catch (Exception e) {
             e.printStackTrace();
@@ -1,14 +1,19 @@
 package org.banking.controller;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 import org.banking.model.ApiResponse;
 import org.banking.model.Customer;
+import org.banking.model.Page;
+import org.banking.model.UniqueCustomerField;
 import org.banking.service.CustomerService;
-import org.banking.service.CustomerServiceImpl;
 import org.banking.util.ValidationUtil;
 import java.util.List;
+import java.util.Set;
 
 @Path("/customer")
 @Produces(MediaType.APPLICATION_JSON)
@@ -17,12 +22,8 @@ public class CustomerController {
 
     private CustomerService customerService;
 
-    // Default constructor for production use
-    public CustomerController() {
-        this.customerService = new CustomerServiceImpl();
-    }
-
-    // Constructor for testing (allows dependency injection)
+    // Service is a singleton bound in BankingApplication
+    @Inject
     public CustomerController(CustomerService customerService) {
         this.customerService = customerService;
     }
@@ -68,22 +69,11 @@ public class CustomerController {
                         .build();
             }
 
-            // Check for duplicates
-            if (customerService.isPhoneNumberExists(customer.getPhoneNumber())) {
-                return Response.status(Response.Status.CONFLICT)
-                        .entity(ApiResponse.error("Phone number already exists"))
-                        .build();
-            }
-
-            if (customerService.isEmailExists(customer.getEmail())) {
+            // Check for duplicates (one probe for all three columns; reported in field order)
+            Set<UniqueCustomerField> duplicates = customerService.findDuplicateFields(customer);
+            if (!duplicates.isEmpty()) {
                 return Response.status(Response.Status.CONFLICT)
-                        .entity(ApiResponse.error("Email already exists"))
-                        .build();
-            }
-
-            if (customerService.isAadharExists(customer.getAadharNumber())) {
-                return Response.status(Response.Status.CONFLICT)
-                        .entity(ApiResponse.error("Aadhar number already exists"))
+                        .entity(ApiResponse.error(duplicates.iterator().next().getLabel() + " already exists"))
                         .build();
             }
 
@@ -230,12 +220,24 @@ public class CustomerController {
         }
     }
 
+    /**
+     * GET /api/customer/all?limit=100&cursor=...
+     * Customers in id order; follow "next" for the following page
+     */
     @GET
     @Path("/all")
-    public Response getAllCustomers() {
+    public Response getAllCustomers(@QueryParam("limit") Integer limit,
+                                    @QueryParam("cursor") String cursor,
+                                    @Context UriInfo uriInfo) {
         try {
-            List<Customer> customers = customerService.getAllCustomers();
-            return Response.ok(ApiResponse.success("Customers retrieved successfully", customers))
+            int pageSize = Pagination.limit(limit);
+            Page<Customer> page = customerService.getCustomersPage(Pagination.idCursor(cursor), pageSize);
+            return Response.ok(ApiResponse.page("Customers retrieved successfully", page,
+                            Pagination.nextLink(uriInfo, page, pageSize)))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
                     .build();
         } catch (Exception e) {
             e.printStackTrace();
@@ -0,0 +1,41 @@
+package org.banking.controller;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Optional ?from= / ?to= filter on transaction time. Either bound may be a date (2024-01-31)
+ * or a date-time (2024-01-31T18:00:00). A date as the upper bound covers that whole day.
+ * Invalid input surfaces as IllegalArgumentException, answered with 400.
+ *
+ * @param from inclusive lower bound, or null
+ * @param to   exclusive upper bound, or null
+ */
+record DateRange(LocalDateTime from, LocalDateTime to) {
+
+    static DateRange parse(String from, String to) {
+        LocalDateTime start = parse(from, "from", false);
+        LocalDateTime end = parse(to, "to", true);
+        if (start != null && end != null && !start.isBefore(end)) {
+            throw new IllegalArgumentException("Invalid date range. 'from' must be before 'to'");
+        }
+        return new DateRange(start, end);
+    }
+
+    private static LocalDateTime parse(String value, String name, boolean endOfDay) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+        try {
+            if (text.length() == 10) {
+                LocalDate date = LocalDate.parse(text);
+                return endOfDay ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+            }
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid '" + name + "' date. Use yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.banking.controller;
+
+import jakarta.ws.rs.core.UriInfo;
+import org.banking.config.AppConfig;
+import org.banking.model.Page;
+import org.banking.util.KeysetCursor;
+
+/**
+ * Query-parameter handling shared by the list endpoints. Invalid input surfaces as
+ * IllegalArgumentException with a client-facing message, answered with 400.
+ */
+final class Pagination {
+
+    static final int DEFAULT_LIMIT = AppConfig.getInt("pagination.defaultLimit", 100);
+    static final int MAX_LIMIT = AppConfig.getInt("pagination.maxLimit", 1000);
+
+    private Pagination() {}
+
+    static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (requested < 1 || requested > MAX_LIMIT) {
+            throw new IllegalArgumentException("Invalid limit. Must be between 1 and " + MAX_LIMIT);
+        }
+        return requested;
+    }
+
+    // Cursor for lists ordered by a timestamp, then id
+    static KeysetCursor timeCursor(String cursor) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after != null && after.time() == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return after;
+    }
+
+    // Cursor for lists ordered by id alone
+    static KeysetCursor idCursor(String cursor) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after != null && after.time() != null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return after;
+    }
+
+    // The request URL with cursor (and limit) replaced; null on the last page or outside a request
+    static String nextLink(UriInfo uriInfo, Page<?> page, int limit) {
+        if (uriInfo == null || !page.hasNext()) {
+            return null;
+        }
+        return uriInfo.getRequestUriBuilder()
+                .replaceQueryParam("cursor", page.getNextCursor())
+                .replaceQueryParam("limit", limit)
+                .build()
+                .toString();
+    }
+}
@@ -1,33 +1,60 @@
 package org.banking.controller;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import org.banking.config.AppConfig;
 import org.banking.model.ApiResponse;
+import org.banking.model.CounterpartyDirection;
+import org.banking.model.Money;
+import org.banking.model.Page;
 import org.banking.model.Transaction;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.banking.repository.RowHandler;
+import org.banking.service.StripedLockManager;
 import org.banking.service.TransactionService;
-import org.banking.service.TransactionServiceImpl;
+import org.banking.util.CsvWriter;
+import org.banking.util.JsonStreaming;
+import org.banking.util.KeysetCursor;
 import org.banking.util.ValidationUtil;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
 
 @Path("/transaction")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class TransactionController {
 
+    private static final int MAX_BATCH_INSTRUCTIONS = AppConfig.getInt("transfer.batch.maxInstructions", 5000);
+
+    private static final String[] CSV_HEADER = {
+            "Transaction ID", "SenderAccountNumber", "ReceiverAccountNumber", "Amount", "Type", "Description", "Date & Time"
+    };
+
     private TransactionService transactionService;
+    private final StripedLockManager accountLocks;
 
-    // Default constructor for production use
-    public TransactionController() {
-        this.transactionService = new TransactionServiceImpl();
+    public TransactionController(TransactionService transactionService) {
+        this(transactionService, StripedLockManager.DISABLED);
     }
 
-    // Constructor for testing (allows dependency injection)
-    public TransactionController(TransactionService transactionService) {
+    // Service and account locks are singletons bound in BankingApplication
+    @Inject
+    public TransactionController(TransactionService transactionService, StripedLockManager accountLocks) {
         this.transactionService = transactionService;
+        this.accountLocks = accountLocks;
     }
 
     /**
@@ -88,15 +115,11 @@ public class TransactionController {
                         .build();
             }
 
-            // Convert amount to Double
-            Double amount;
+            // Convert amount to paise; more than two decimal places is rejected, not rounded
+            Money amount;
             try {
-                if (amountObj instanceof Number) {
-                    amount = ((Number) amountObj).doubleValue();
-                } else {
-                    amount = Double.parseDouble(amountObj.toString());
-                }
-            } catch (NumberFormatException e) {
+                amount = Money.parse(amountObj.toString());
+            } catch (IllegalArgumentException e) {
                 return Response.status(Response.Status.BAD_REQUEST)
                         .entity(ApiResponse.error("Invalid amount format"))
                         .build();
@@ -147,7 +170,7 @@ public class TransactionController {
             );
 
             return Response.status(Response.Status.CREATED)
-                    .entity(ApiResponse.success("Transaction processed successfully. Email notifications sent.", transaction))
+                    .entity(ApiResponse.success("Transaction processed successfully.", transaction))
                     .build();
 
         } catch (Exception e) {
@@ -159,15 +182,132 @@ public class TransactionController {
     }
 
     /**
-     * GET /api/transaction/{account_number}
-     * Get all transactions for an account number
+     * POST /api/transaction/batch
+     * Process many transfers in one request, e.g. for settlement jobs
+     *
+     * Request Body: an array of objects with the same fields as /process
+     * [
+     *   { "senderAccountNumber": "...", "senderPin": "...", "receiverAccountNumber": "...",
+     *     "amount": 100.00, "transactionMode": "NEFT", "description": "..." },
+     *   ...
+     * ]
+     *
+     * Each instruction succeeds or fails on its own; data holds one result per instruction, in order.
+     */
+    @POST
+    @Path("/batch")
+    public Response processTransactionBatch(List<TransferInstruction> instructions) {
+        try {
+            if (instructions == null || instructions.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(ApiResponse.error("At least one transfer instruction is required"))
+                        .build();
+            }
+
+            if (instructions.size() > MAX_BATCH_INSTRUCTIONS) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(ApiResponse.error("Too many transfer instructions. Maximum is " + MAX_BATCH_INSTRUCTIONS))
+                        .build();
+            }
+
+            // Field validation has no shared state, so it runs in parallel
+            String[] errors = new String[instructions.size()];
+            IntStream.range(0, instructions.size()).parallel()
+                    .forEach(i -> errors[i] = validateInstruction(instructions.get(i)));
+
+            List<TransferResult> results = new ArrayList<>(Collections.nCopies(instructions.size(), null));
+            List<Integer> validIndexes = new ArrayList<>();
+            List<TransferInstruction> valid = new ArrayList<>();
+            for (int i = 0; i < instructions.size(); i++) {
+                if (errors[i] != null) {
+                    results.set(i, TransferResult.failure(i, errors[i]));
+                } else {
+                    TransferInstruction instruction = instructions.get(i);
+                    instruction.setTransactionMode(instruction.getTransactionMode().toUpperCase());
+                    validIndexes.add(i);
+                    valid.add(instruction);
+                }
+            }
+
+            if (!valid.isEmpty()) {
+                List<TransferResult> processed = transactionService.processTransactionBatch(valid);
+                for (int j = 0; j < processed.size(); j++) {
+                    TransferResult result = processed.get(j);
+                    result.setIndex(validIndexes.get(j));
+                    results.set(validIndexes.get(j), result);
+                }
+            }
+
+            long succeeded = results.stream().filter(TransferResult::isSuccess).count();
+            return Response.ok(ApiResponse.success("Batch processed: " + succeeded + " succeeded, "
+                            + (results.size() - succeeded) + " failed", results))
+                    .build();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Batch transaction failed: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    // Same rules and messages as /process; null when the instruction is well-formed
+    private String validateInstruction(TransferInstruction instruction) {
+        if (instruction == null) {
+            return "Transfer instruction is required";
+        }
+        if (instruction.getSenderPin() == null || instruction.getSenderPin().trim().isEmpty()) {
+            return "Sender PIN is required";
+        }
+        if (instruction.getSenderAccountNumber() == null || instruction.getSenderAccountNumber().trim().isEmpty()) {
+            return "Sender account number is required";
+        }
+        if (instruction.getReceiverAccountNumber() == null || instruction.getReceiverAccountNumber().trim().isEmpty()) {
+            return "Receiver account number is required";
+        }
+        if (instruction.getAmount() == null) {
+            return "Amount is required";
+        }
+        if (instruction.getTransactionMode() == null || instruction.getTransactionMode().trim().isEmpty()) {
+            return "Transaction mode is required";
+        }
+        if (!ValidationUtil.isValidPin(instruction.getSenderPin())) {
+            return "Invalid PIN format. Must be 4-6 digits";
+        }
+        if (!ValidationUtil.isValidAccountNumber(instruction.getReceiverAccountNumber())) {
+            return "Invalid receiver account number. Must be 10-18 digits";
+        }
+        if (!ValidationUtil.isValidAccountNumber(instruction.getSenderAccountNumber())) {
+            return "Invalid sender account number. Must be 10-18 digits";
+        }
+        if (!ValidationUtil.isValidAmount(instruction.getAmount())) {
+            return "Invalid amount. Must be greater than zero";
+        }
+        if (!ValidationUtil.isValidTransactionMode(instruction.getTransactionMode())) {
+            return "Invalid transaction mode. Must be DEBIT, UPI, CREDIT CARD, CASH, TRANSFER, NEFT, IMPS, or RTGS";
+        }
+        return null;
+    }
+
+    /**
+     * GET /api/transaction/{account_number}?limit=100&cursor=...
+     * Transactions for an account, newest first; follow "next" for the following page.
+     *
+     * With export=csv the account's history (optionally limited by from/to) is streamed
+     * as a CSV file instead, gzip-compressed when the client accepts it.
      */
 
     @GET
     @Path("/{account_number}")
     public Response getTransactionsByAccountNumber(
             @PathParam("account_number") String accountNumber,
-            @QueryParam("export") @DefaultValue("json") String exportType) {
+            @QueryParam("export") @DefaultValue("json") String exportType,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+            @Context UriInfo uriInfo) {
 
         try {
             // Validate account number
@@ -177,44 +317,97 @@ public class TransactionController {
                         .build();
             }
 
-            List<Transaction> transactions = transactionService.getTransactionsByAccountNumber(accountNumber);
+            // Check if CSV export is requested
+            if ("csv".equalsIgnoreCase(exportType)) {
+                DateRange range = DateRange.parse(from, to);
+
+                // One-row probe so unknown accounts and empty histories still get a JSON error, not an empty file
+                if (transactionService.getTransactionsPage(accountNumber, null, 1).getItems().isEmpty()) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity(ApiResponse.error("No transactions found for this account"))
+                            .build();
+                }
 
-            if (transactions.isEmpty()) {
+                return csvExport("transactions_" + accountNumber + ".csv", acceptEncoding,
+                        handler -> transactionService.streamTransactions(accountNumber, range.from(), range.to(), handler));
+            }
+
+            // Default: return one page of JSON
+            int pageSize = Pagination.limit(limit);
+            KeysetCursor after = Pagination.timeCursor(cursor);
+            Page<Transaction> page = transactionService.getTransactionsPage(accountNumber, after, pageSize);
+
+            if (after == null && page.getItems().isEmpty()) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity(ApiResponse.error("No transactions found for this account"))
                         .build();
             }
 
-            // Check if CSV export is requested
-            if ("csv".equalsIgnoreCase(exportType)) {
-                StreamingOutput stream = output -> {
-                    String header = "Transaction ID,SenderAccountNumber, ReceiverAccountNumber,Amount,Type,Description,Date & Time\n";
-                    output.write(header.getBytes());
+            return Response.ok(ApiResponse.page("Transactions retrieved successfully", page,
+                            Pagination.nextLink(uriInfo, page, pageSize)))
+                    .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Failed to retrieve transactions: " + e.getMessage()))
+                    .build();
+        }
+    }
 
-                    for (Transaction tx : transactions) {
-                        String row = String.format("%s,%s,%s,%.2f,%s,%s,%s\n",
-                                tx.getTransactionId(),
-                                tx.getSenderAccountNumber(),
-                                tx.getReceiverAccountNumber(),
-                                tx.getTransactionAmount(),
-                                tx.getTransactionType(),
-                                tx.getDescription(),
-                                tx.getTransactionTime());
-                        output.write(row.getBytes());
-                    }
+    /**
+     * GET /api/transaction/{account_number}/counterparty/{counterparty_account_number}?direction=both&limit=100&cursor=...
+     * Transfers between two accounts as seen from the first: direction=sent lists payments to
+     * the counterparty, received lists credits from it, both (default) lists every transfer.
+     * Newest first; follow "next" for the following page.
+     */
+    @GET
+    @Path("/{account_number}/counterparty/{counterparty_account_number}")
+    public Response getCounterpartyTransactions(
+            @PathParam("account_number") String accountNumber,
+            @PathParam("counterparty_account_number") String counterpartyAccountNumber,
+            @QueryParam("direction") String direction,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("cursor") String cursor,
+            @Context UriInfo uriInfo) {
 
-                    output.flush();
-                };
+        try {
+            if (!ValidationUtil.isValidAccountNumber(accountNumber)
+                    || !ValidationUtil.isValidAccountNumber(counterpartyAccountNumber)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(ApiResponse.error("Invalid account number. Must be 10-18 digits"))
+                        .build();
+            }
+            if (accountNumber.equals(counterpartyAccountNumber)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(ApiResponse.error("Account and counterparty account numbers must be different"))
+                        .build();
+            }
 
-                return Response.ok(stream, "text/csv")
-                        .header("Content-Disposition", "attachment; filename=transactions_" + accountNumber + ".csv")
+            CounterpartyDirection side = CounterpartyDirection.fromParam(direction);
+            int pageSize = Pagination.limit(limit);
+            KeysetCursor after = Pagination.timeCursor(cursor);
+            Page<Transaction> page = transactionService.getCounterpartyTransactionsPage(
+                    accountNumber, counterpartyAccountNumber, side, after, pageSize);
+
+            if (after == null && page.getItems().isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(ApiResponse.error("No transactions found between these accounts"))
                         .build();
             }
 
-            // Default: return JSON
-            return Response.ok(ApiResponse.success("Transactions retrieved successfully", transactions))
+            return Response.ok(ApiResponse.page("Transactions retrieved successfully", page,
+                            Pagination.nextLink(uriInfo, page, pageSize)))
                     .build();
 
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             e.printStackTrace();
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -224,18 +417,91 @@ public class TransactionController {
     }
 
     /**
-     * GET /api/transaction/all
-     * Get all transactions
+     * GET /api/transaction/locks?limit=20
+     * Account lock counters for the busiest stripes (by total wait), to spot hot accounts
+     * and tune transfer.locks.*. Empty when account locks are disabled.
+     */
+    @GET
+    @Path("/locks")
+    public Response getAccountLockStats(@QueryParam("limit") @DefaultValue("20") int limit) {
+        if (limit < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error("limit must be positive"))
+                    .build();
+        }
+        List<StripedLockManager.StripeStats> stats = accountLocks.stats();
+        return Response.ok(ApiResponse.success(accountLocks.isEnabled()
+                        ? "Account lock stats retrieved successfully" : "Account locks are disabled",
+                        stats.subList(0, Math.min(limit, stats.size()))))
+                .build();
+    }
+
+    /**
+     * GET /api/transaction/export?from=2024-01-01&to=2024-01-31
+     * Every transaction (optionally limited by from/to) as one JSON response, streamed row
+     * by row from the database. Memory use does not grow with the table; an error mid-way
+     * truncates the data array.
+     */
+    @GET
+    @Path("/export")
+    public Response exportAllTransactions(@QueryParam("from") String from, @QueryParam("to") String to) {
+        DateRange range;
+        try {
+            range = DateRange.parse(from, to);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
+        }
+
+        StreamingOutput stream = output -> {
+            JsonStreaming json = JsonStreaming.start(output, "Transactions exported successfully", Transaction.class);
+            try {
+                transactionService.streamAllTransactions(range.from(), range.to(), json::write);
+            } catch (Exception e) {
+                // Status and headers are already sent; abort so the client sees an incomplete body
+                throw new IOException(e.getMessage(), e);
+            }
+            json.finish();
+        };
+
+        return Response.ok(stream, MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * GET /api/transaction/all?limit=100&cursor=...
+     * All transactions, newest first; follow "next" for the following page.
+     *
+     * With export=csv the whole bank's transactions (optionally limited by from/to) are
+     * streamed as a CSV file instead, gzip-compressed when the client accepts it.
      */
     @GET
     @Path("/all")
-    public Response getAllTransactions() {
+    public Response getAllTransactions(@QueryParam("export") @DefaultValue("json") String exportType,
+                                       @QueryParam("limit") Integer limit,
+                                       @QueryParam("cursor") String cursor,
+                                       @QueryParam("from") String from,
+                                       @QueryParam("to") String to,
+                                       @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+                                       @Context UriInfo uriInfo) {
         try {
-            List<Transaction> transactions = transactionService.getAllTransactions();
+            if ("csv".equalsIgnoreCase(exportType)) {
+                DateRange range = DateRange.parse(from, to);
+                return csvExport("transactions_all.csv", acceptEncoding,
+                        handler -> transactionService.streamAllTransactions(range.from(), range.to(), handler));
+            }
 
-            return Response.ok(ApiResponse.success("Transactions retrieved successfully", transactions))
+            int pageSize = Pagination.limit(limit);
+            Page<Transaction> page = transactionService.getAllTransactionsPage(Pagination.timeCursor(cursor), pageSize);
+
+            return Response.ok(ApiResponse.page("Transactions retrieved successfully", page,
+                            Pagination.nextLink(uriInfo, page, pageSize)))
                     .build();
 
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             e.printStackTrace();
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -243,4 +509,89 @@ public class TransactionController {
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    // Feeds every transaction it reads to the handler
+    @FunctionalInterface
+    private interface TransactionSource {
+        void stream(RowHandler<Transaction> handler) throws Exception;
+    }
+
+    /**
+     * Stream rows from the source straight into a buffered CSV writer, through gzip when the
+     * client's Accept-Encoding allows it. Nothing is collected in memory.
+     */
+    private static Response csvExport(String fileName, String acceptEncoding, TransactionSource source) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingOutput stream = output -> {
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(output, 8192) : null;
+            CsvWriter csv = new CsvWriter(compressed != null ? compressed : output);
+            csv.writeRow(CSV_HEADER);
+            try {
+                source.stream(tx -> csv.writeRow(
+                        tx.getTransactionId(),
+                        tx.getSenderAccountNumber(),
+                        tx.getReceiverAccountNumber(),
+                        tx.getTransactionAmount() == null ? null : tx.getTransactionAmount().toString(),
+                        tx.getTransactionType(),
+                        tx.getDescription(),
+                        tx.getTransactionTime() == null ? null : tx.getTransactionTime().toString()));
+            } catch (Exception e) {
+                // Status and headers are already sent; abort so the client sees an incomplete file
+                throw new IOException(e.getMessage(), e);
+            }
+            csv.flush();
+            if (compressed != null) {
+                // Writes the gzip trailer; the servlet stream itself stays open for Jersey
+                compressed.finish();
+            }
+        };
+
+        Response.ResponseBuilder response = Response.ok(stream, "text/csv")
+                .header("Content-Disposition", "attachment; filename=" + fileName)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.build();
+    }
+
+    /**
+     * Whether Accept-Encoding gives gzip a q-value above zero. An explicit gzip entry decides
+     * on its own, wherever it appears; only without one does "*" stand in for it.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzipQ = -1;
+        double anyQ = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (coding.equalsIgnoreCase("gzip")) {
+                gzipQ = Math.max(gzipQ, qValue(tokens));
+            } else if (coding.equals("*")) {
+                anyQ = Math.max(anyQ, qValue(tokens));
+            }
+        }
+        return gzipQ >= 0 ? gzipQ > 0 : anyQ > 0;
+    }
+
+    // The entry's q parameter, 1 when absent; a malformed one counts as 0, not as a yes
+    private static double qValue(String[] tokens) {
+        for (int i = 1; i < tokens.length; i++) {
+            String parameter = tokens[i].trim();
+            int equals = parameter.indexOf('=');
+            if (equals < 0 || !parameter.substring(0, equals).trim().equalsIgnoreCase("q")) {
+                continue;
+            }
+            String value = parameter.substring(equals + 1).trim();
+            if (!value.matches("0(\\.\\d{0,3})?|1(\\.0{0,3})?")) {
+                return 0;
+            }
+            return Double.parseDouble(value);
+        }
+        return 1;
+    }
+}
@@ -10,7 +10,7 @@ public class Account {
     private LocalDateTime createdAt;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime modifiedAt;
-    private Double balance;
+    private Money balance;
     private String accountType;
     private String accountName;
     private String accountNumber;
@@ -23,6 +23,23 @@ public class Account {
     // Default constructor
     public Account() {}
 
+    // Copy constructor
+    public Account(Account other) {
+        this.accountId = other.accountId;
+        this.customerId = other.customerId;
+        this.createdAt = other.createdAt;
+        this.modifiedAt = other.modifiedAt;
+        this.balance = other.balance;
+        this.accountType = other.accountType;
+        this.accountName = other.accountName;
+        this.accountNumber = other.accountNumber;
+        this.phoneNumberLinked = other.phoneNumberLinked;
+        this.status = other.status;
+        this.ifscCode = other.ifscCode;
+        this.bankName = other.bankName;
+        this.aadharNumber = other.aadharNumber;
+    }
+
     // Getters and Setters
     public String getAccountId() { return accountId; }
     public void setAccountId(String accountId) { this.accountId = accountId; }
@@ -36,8 +53,8 @@ public class Account {
     public LocalDateTime getModifiedAt() { return modifiedAt; }
     public void setModifiedAt(LocalDateTime modifiedAt) { this.modifiedAt = modifiedAt; }
 
-    public Double getBalance() { return balance; }
-    public void setBalance(Double balance) { this.balance = balance; }
+    public Money getBalance() { return balance; }
+    public void setBalance(Money balance) { this.balance = balance; }
 
     public String getAccountType() { return accountType; }
     public void setAccountType(String accountType) { this.accountType = accountType; }
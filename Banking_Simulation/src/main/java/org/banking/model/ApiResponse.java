@@ -2,6 +2,7 @@ package org.banking.model;
 
 import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 public class ApiResponse {
     private boolean success;
@@ -13,6 +14,12 @@ public class ApiResponse {
 //    private LocalDateTime timestamp;
     private String timestamp;
 
+    // Set only on paginated responses: the opaque cursor and ready-made URL of the next page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
+
 
     // Constructors
     public ApiResponse() {
@@ -45,6 +52,13 @@ public class ApiResponse {
         return new ApiResponse(false, message);
     }
 
+    public static ApiResponse page(String message, Page<?> page, String nextLink) {
+        ApiResponse response = new ApiResponse(true, message, page.getItems());
+        response.nextCursor = page.getNextCursor();
+        response.next = page.hasNext() ? nextLink : null;
+        return response;
+    }
+
     // Getters and Setters
     public boolean isSuccess() { return success; }
     public void setSuccess(boolean success) { this.success = success; }
@@ -57,4 +71,10 @@ public class ApiResponse {
 
     public String getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp.toString(); }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
 }
\ No newline at end of file
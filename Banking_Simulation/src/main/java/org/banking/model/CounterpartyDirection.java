@@ -0,0 +1,26 @@
+package org.banking.model;
+
+import java.util.Locale;
+
+/**
+ * Which side of an account's transfers with one counterparty to list.
+ */
+public enum CounterpartyDirection {
+    SENT,       // debits paid to the counterparty
+    RECEIVED,   // credits received from the counterparty
+    BOTH;
+
+    /**
+     * Parse the ?direction= query value; null or blank means BOTH.
+     */
+    public static CounterpartyDirection fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return BOTH;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid direction. Use sent, received or both");
+        }
+    }
+}
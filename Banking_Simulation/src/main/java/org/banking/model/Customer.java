@@ -27,6 +27,19 @@ public class Customer {
     // Default constructor
     public Customer() {}
 
+    // Copy constructor
+    public Customer(Customer other) {
+        this.customerId = other.customerId;
+        this.name = other.name;
+        this.phoneNumber = other.phoneNumber;
+        this.email = other.email;
+        this.address = other.address;
+        this.customerPin = other.customerPin;
+        this.aadharNumber = other.aadharNumber;
+        this.dob = other.dob;
+        this.status = other.status;
+    }
+
     // Getters and Setters
     public String getCustomerId() { return customerId; }
     public void setCustomerId(String customerId) { this.customerId = customerId; }
@@ -0,0 +1,114 @@
+package org.banking.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount in rupees, held as a whole number of paise so arithmetic and comparisons are
+ * exact. Converts to and from BigDecimal only at the edges: DECIMAL(15,2) columns and JSON,
+ * where it is written as a plain number with two decimals (e.g. 1250.50).
+ *
+ * Amounts with fractions of a paisa are rejected rather than rounded.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long paise;
+
+    private Money(long paise) {
+        this.paise = paise;
+    }
+
+    public static Money ofPaise(long paise) {
+        return paise == 0 ? ZERO : new Money(paise);
+    }
+
+    /**
+     * Exact conversion from rupees. Null stays null, so nullable columns and fields map through.
+     *
+     * @throws IllegalArgumentException if the value has more than two decimal places or does not fit
+     */
+    @JsonCreator
+    public static Money of(BigDecimal rupees) {
+        if (rupees == null) {
+            return null;
+        }
+        if (rupees.signum() == 0) {
+            return ZERO;
+        }
+        // Rescaling costs time in the size of the exponent, so settle "1e99999999" and
+        // "1e-99999999" from precision and scale alone before touching the digits
+        if (rupees.scale() < -15 || rupees.precision() - rupees.scale() > 17
+                || (rupees.scale() > 2 && rupees.scale() - 2 >= rupees.precision())) {
+            throw new IllegalArgumentException("Invalid amount: " + rupees);
+        }
+        try {
+            return ofPaise(rupees.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount: " + rupees);
+        }
+    }
+
+    /**
+     * Parse a rupee amount such as "1250.5" or "1e3".
+     *
+     * @throws IllegalArgumentException if the text is not a number with at most two decimal places
+     */
+    public static Money parse(String rupees) {
+        try {
+            return of(new BigDecimal(rupees.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + rupees);
+        }
+    }
+
+    public long toPaise() {
+        return paise;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    public Money plus(Money other) {
+        return ofPaise(Math.addExact(paise, other.paise));
+    }
+
+    public Money minus(Money other) {
+        return ofPaise(Math.subtractExact(paise, other.paise));
+    }
+
+    public boolean isPositive() {
+        return paise > 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return paise < other.paise;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(paise, other.paise);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && paise == other.paise;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(paise);
+    }
+
+    // Plain rupees with two decimals, e.g. "1250.50"; used in messages, CSV and emails
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
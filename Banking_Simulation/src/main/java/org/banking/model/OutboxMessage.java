@@ -0,0 +1,73 @@
+package org.banking.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pending alert from notification_outbox, with the recipient and counterparty
+ * details joined in at claim time.
+ */
+public class OutboxMessage {
+    public static final String DEBIT_ALERT = "DEBIT_ALERT";
+    public static final String CREDIT_ALERT = "CREDIT_ALERT";
+
+    private long outboxId;
+    private String eventType;
+    private String transactionId;
+    private String accountNumber;
+    private String counterpartyAccountNumber;
+    private Money amount;
+    private String transactionMode;
+    private String description;
+    private LocalDateTime transactionTime;
+    private int attempts;
+    private String recipientEmail;
+    private String recipientName;
+    private String counterpartyName;
+    private String lockedBy;
+
+    // Default constructor
+    public OutboxMessage() {}
+
+    // Getters and Setters
+    public long getOutboxId() { return outboxId; }
+    public void setOutboxId(long outboxId) { this.outboxId = outboxId; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public String getAccountNumber() { return accountNumber; }
+    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+
+    public String getCounterpartyAccountNumber() { return counterpartyAccountNumber; }
+    public void setCounterpartyAccountNumber(String counterpartyAccountNumber) { this.counterpartyAccountNumber = counterpartyAccountNumber; }
+
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
+
+    public String getTransactionMode() { return transactionMode; }
+    public void setTransactionMode(String transactionMode) { this.transactionMode = transactionMode; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public LocalDateTime getTransactionTime() { return transactionTime; }
+    public void setTransactionTime(LocalDateTime transactionTime) { this.transactionTime = transactionTime; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getRecipientEmail() { return recipientEmail; }
+    public void setRecipientEmail(String recipientEmail) { this.recipientEmail = recipientEmail; }
+
+    public String getRecipientName() { return recipientName; }
+    public void setRecipientName(String recipientName) { this.recipientName = recipientName; }
+
+    public String getCounterpartyName() { return counterpartyName; }
+    public void setCounterpartyName(String counterpartyName) { this.counterpartyName = counterpartyName; }
+
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+}
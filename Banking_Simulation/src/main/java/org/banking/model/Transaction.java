@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 public class Transaction {
     private String transactionId;
     private String accountId;
-    private Double transactionAmount;
+    private Money transactionAmount;
     private String transactionType;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime transactionTime;
@@ -36,11 +36,11 @@ public class Transaction {
         this.accountId = accountId;
     }
 
-    public Double getTransactionAmount() {
+    public Money getTransactionAmount() {
         return transactionAmount;
     }
 
-    public void setTransactionAmount(Double transactionAmount) {
+    public void setTransactionAmount(Money transactionAmount) {
         this.transactionAmount = transactionAmount;
     }
 
@@ -0,0 +1,32 @@
+package org.banking.model;
+
+/**
+ * Everything processTransactionWithPin needs to validate a transfer, loaded in one query.
+ * Receiver fields are null when the receiver account (or its customer) does not exist.
+ */
+public class TransferContext {
+    private Customer senderCustomer;
+    private Account senderAccount;
+    private Account receiverAccount;
+    private Customer receiverCustomer;
+    private boolean pinValid;
+
+    // Default constructor
+    public TransferContext() {}
+
+    // Getters and Setters
+    public Customer getSenderCustomer() { return senderCustomer; }
+    public void setSenderCustomer(Customer senderCustomer) { this.senderCustomer = senderCustomer; }
+
+    public Account getSenderAccount() { return senderAccount; }
+    public void setSenderAccount(Account senderAccount) { this.senderAccount = senderAccount; }
+
+    public Account getReceiverAccount() { return receiverAccount; }
+    public void setReceiverAccount(Account receiverAccount) { this.receiverAccount = receiverAccount; }
+
+    public Customer getReceiverCustomer() { return receiverCustomer; }
+    public void setReceiverCustomer(Customer receiverCustomer) { this.receiverCustomer = receiverCustomer; }
+
+    public boolean isPinValid() { return pinValid; }
+    public void setPinValid(boolean pinValid) { this.pinValid = pinValid; }
+}
@@ -0,0 +1,41 @@
+package org.banking.model;
+
+public class TransferInstruction {
+    private String senderAccountNumber;
+    private String senderPin;
+    private String receiverAccountNumber;
+    private Money amount;
+    private String transactionMode;
+    private String description;
+
+    // Default constructor
+    public TransferInstruction() {}
+
+    public TransferInstruction(String senderAccountNumber, String receiverAccountNumber, Money amount,
+                               String transactionMode, String description) {
+        this.senderAccountNumber = senderAccountNumber;
+        this.receiverAccountNumber = receiverAccountNumber;
+        this.amount = amount;
+        this.transactionMode = transactionMode;
+        this.description = description;
+    }
+
+    // Getters and Setters
+    public String getSenderAccountNumber() { return senderAccountNumber; }
+    public void setSenderAccountNumber(String senderAccountNumber) { this.senderAccountNumber = senderAccountNumber; }
+
+    public String getSenderPin() { return senderPin; }
+    public void setSenderPin(String senderPin) { this.senderPin = senderPin; }
+
+    public String getReceiverAccountNumber() { return receiverAccountNumber; }
+    public void setReceiverAccountNumber(String receiverAccountNumber) { this.receiverAccountNumber = receiverAccountNumber; }
+
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
+
+    public String getTransactionMode() { return transactionMode; }
+    public void setTransactionMode(String transactionMode) { this.transactionMode = transactionMode; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+}
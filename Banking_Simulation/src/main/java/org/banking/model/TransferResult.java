@@ -0,0 +1,44 @@
+package org.banking.model;
+
+/**
+ * Outcome of one instruction in a multi-transfer request. Failures carry a message
+ * and no transaction; they never affect the other instructions in the same request.
+ */
+public class TransferResult {
+    private int index;
+    private boolean success;
+    private String message;
+    private Transaction transaction;
+
+    // Constructors
+    public TransferResult() {}
+
+    public TransferResult(int index, boolean success, String message, Transaction transaction) {
+        this.index = index;
+        this.success = success;
+        this.message = message;
+        this.transaction = transaction;
+    }
+
+    // Static factory methods
+    public static TransferResult success(int index, Transaction transaction) {
+        return new TransferResult(index, true, "Transaction processed successfully", transaction);
+    }
+
+    public static TransferResult failure(int index, String message) {
+        return new TransferResult(index, false, message, null);
+    }
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public Transaction getTransaction() { return transaction; }
+    public void setTransaction(Transaction transaction) { this.transaction = transaction; }
+}
@@ -0,0 +1,18 @@
+package org.banking.model;
+
+/**
+ * Customer columns that must be unique, with the label used in duplicate errors.
+ */
+public enum UniqueCustomerField {
+    PHONE_NUMBER("Phone number"),
+    EMAIL("Email"),
+    AADHAR_NUMBER("Aadhar number");
+
+    private final String label;
+
+    UniqueCustomerField(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+}
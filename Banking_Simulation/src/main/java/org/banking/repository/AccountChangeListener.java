@@ -0,0 +1,23 @@
+package org.banking.repository;
+
+import java.util.Collection;
+
+/**
+ * Told after a committed write changed the balance of the given accounts, so anything
+ * holding copies of those rows can drop them.
+ */
+@FunctionalInterface
+public interface AccountChangeListener {
+
+    AccountChangeListener NONE = accountNumbers -> {};
+
+    void accountsChanged(Collection<String> accountNumbers);
+
+    // Tell this listener first, then next
+    default AccountChangeListener andThen(AccountChangeListener next) {
+        return accountNumbers -> {
+            accountsChanged(accountNumbers);
+            next.accountsChanged(accountNumbers);
+        };
+    }
+}
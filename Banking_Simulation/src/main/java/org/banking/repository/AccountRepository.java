@@ -1,6 +1,8 @@
 package org.banking.repository;
 
 import org.banking.model.Account;
+import org.banking.model.Page;
+import org.banking.util.KeysetCursor;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -12,7 +14,10 @@ public interface AccountRepository {
     Account update(String accountNumber, Account account) throws SQLException;
     boolean deleteByAccountNumber(String accountNumber) throws SQLException;
     List<Account> findAll() throws SQLException;
+
+    // Newest first, seeking past the cursor on (created_at, account_id); null cursor = first page
+    Page<Account> findPage(KeysetCursor after, int limit) throws SQLException;
     boolean existsByAccountNumber(String accountNumber) throws SQLException;
     String getCustomerIdByAadhar(String aadharNumber) throws SQLException;
-    int getNextId() throws SQLException;
+    long getNextId() throws SQLException;
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package org.banking.repository;
 
 import org.banking.config.DBConfig;
+import org.banking.config.IdAllocator;
 import org.banking.model.Account;
+import org.banking.model.Money;
+import org.banking.model.Page;
+import org.banking.util.KeysetCursor;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -9,6 +13,28 @@ import java.util.List;
 
 public class AccountRepositoryImpl implements AccountRepository {
 
+    // total_balance adds a hot account's balance slots to the row's own balance
+    private static final String SELECT_ACCOUNT =
+            "SELECT a.*, " + HotAccountBalances.balanceOf("a") + " AS total_balance FROM Account a ";
+
+    private final AccountChangeListener accountChangeListener;
+    private final UniquenessIndex uniquenessIndex;
+
+    public AccountRepositoryImpl() {
+        this(AccountChangeListener.NONE);
+    }
+
+    public AccountRepositoryImpl(AccountChangeListener accountChangeListener) {
+        this(accountChangeListener, UniquenessIndex.DISABLED);
+    }
+
+    // The listener hears about accounts created, updated or deleted here, e.g. to drop cached customer links;
+    // the index tracks account numbers for existsByAccountNumber
+    public AccountRepositoryImpl(AccountChangeListener accountChangeListener, UniquenessIndex uniquenessIndex) {
+        this.accountChangeListener = accountChangeListener;
+        this.uniquenessIndex = uniquenessIndex;
+    }
+
     @Override
     public Account save(Account account) throws SQLException {
 //        String sql = "INSERT INTO Account (account_id, customer_id, created_at, modified_at, " +
@@ -26,7 +52,7 @@ public class AccountRepositoryImpl implements AccountRepository {
             ps.setString(2, account.getCustomerId());
             ps.setTimestamp(3, Timestamp.valueOf(account.getCreatedAt()));
             ps.setTimestamp(4, Timestamp.valueOf(account.getModifiedAt()));
-            ps.setDouble(5, account.getBalance());
+            ps.setBigDecimal(5, account.getBalance().toBigDecimal());
             ps.setString(6, account.getAccountType());
             ps.setString(7, account.getAccountName());
             ps.setString(8, account.getAccountNumber());
@@ -37,6 +63,8 @@ public class AccountRepositoryImpl implements AccountRepository {
 
             int rows = ps.executeUpdate();
             if (rows > 0) {
+                uniquenessIndex.accountAdded(account.getAccountNumber());
+                accountChangeListener.accountsChanged(List.of(account.getAccountNumber()));
                 return account;
             }
             throw new SQLException("Failed to insert account");
@@ -45,7 +73,7 @@ public class AccountRepositoryImpl implements AccountRepository {
 
     @Override
     public Account findById(String accountId) throws SQLException {
-        String sql = "SELECT * FROM Account WHERE account_id = ?";
+        String sql = SELECT_ACCOUNT + "WHERE account_id = ?";
 
         try (Connection conn = DBConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -62,7 +90,7 @@ public class AccountRepositoryImpl implements AccountRepository {
 
     @Override
     public Account findByAccountNumber(String accountNumber) throws SQLException {
-        String sql = "SELECT * FROM Account WHERE account_number = ?";
+        String sql = SELECT_ACCOUNT + "WHERE account_number = ?";
 
         try (Connection conn = DBConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -78,7 +106,7 @@ public class AccountRepositoryImpl implements AccountRepository {
     }
 
     public Account findByAccountNumber(String accountNumber,Connection conn) throws SQLException {
-        String sql = "SELECT * FROM Account WHERE account_number = ?";
+        String sql = SELECT_ACCOUNT + "WHERE account_number = ?";
 
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
 
@@ -94,7 +122,7 @@ public class AccountRepositoryImpl implements AccountRepository {
 
     @Override
     public List<Account> findByCustomerId(String customerId) throws SQLException {
-        String sql = "SELECT * FROM Account WHERE customer_id = ? ORDER BY created_at DESC";
+        String sql = SELECT_ACCOUNT + "WHERE customer_id = ? ORDER BY created_at DESC";
         List<Account> accounts = new ArrayList<>();
 
         try (Connection conn = DBConfig.getConnection();
@@ -127,6 +155,7 @@ public class AccountRepositoryImpl implements AccountRepository {
 
             int rows = ps.executeUpdate();
             if (rows > 0) {
+                accountChangeListener.accountsChanged(List.of(accountNumber));
                 return findByAccountNumber(accountNumber);
             }
             return null;
@@ -141,13 +170,18 @@ public class AccountRepositoryImpl implements AccountRepository {
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, accountNumber);
-            return ps.executeUpdate() > 0;
+            boolean deleted = ps.executeUpdate() > 0;
+            if (deleted) {
+                uniquenessIndex.accountRemoved(accountNumber);
+                accountChangeListener.accountsChanged(List.of(accountNumber));
+            }
+            return deleted;
         }
     }
 
     @Override
     public List<Account> findAll() throws SQLException {
-        String sql = "SELECT * FROM Account ORDER BY created_at DESC";
+        String sql = SELECT_ACCOUNT + "ORDER BY created_at DESC";
         List<Account> accounts = new ArrayList<>();
 
         try (Connection conn = DBConfig.getConnection();
@@ -161,8 +195,38 @@ public class AccountRepositoryImpl implements AccountRepository {
         return accounts;
     }
 
+    @Override
+    public Page<Account> findPage(KeysetCursor after, int limit) throws SQLException {
+        String sql = SELECT_ACCOUNT +
+                (after == null ? "" : "WHERE created_at < ? OR (created_at = ? AND account_id < ?) ") +
+                "ORDER BY created_at DESC, account_id DESC LIMIT ?";
+        List<Account> accounts = new ArrayList<>(limit + 1);
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                Timestamp createdAt = Timestamp.valueOf(after.time());
+                ps.setTimestamp(index++, createdAt);
+                ps.setTimestamp(index++, createdAt);
+                ps.setString(index++, after.id());
+            }
+            ps.setInt(index, limit + 1);
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                accounts.add(mapResultSetToAccount(rs));
+            }
+        }
+        return Page.of(accounts, limit, a -> new KeysetCursor(a.getCreatedAt(), a.getAccountId()));
+    }
+
     @Override
     public boolean existsByAccountNumber(String accountNumber) throws SQLException {
+        if (!uniquenessIndex.mightHaveAccountNumber(accountNumber)) {
+            return false;
+        }
         String sql = "SELECT COUNT(*) FROM Account WHERE account_number = ?";
 
         try (Connection conn = DBConfig.getConnection();
@@ -196,8 +260,8 @@ public class AccountRepositoryImpl implements AccountRepository {
     }
 
     @Override
-    public int getNextId() throws SQLException {
-        return DBConfig.getNextId("Account", "account_id", "ACC_");
+    public long getNextId() throws SQLException {
+        return DBConfig.getNextId("Account", "account_id", IdAllocator.ACCOUNT_PREFIX);
     }
 
     private Account mapResultSetToAccount(ResultSet rs) throws SQLException {
@@ -215,7 +279,7 @@ public class AccountRepositoryImpl implements AccountRepository {
             account.setModifiedAt(modifiedTimestamp.toLocalDateTime());
         }
 
-        account.setBalance(rs.getDouble("balance"));
+        account.setBalance(Money.of(rs.getBigDecimal("total_balance")));
         account.setAccountType(rs.getString("account_type"));
         account.setAccountName(rs.getString("account_name"));
         account.setAccountNumber(rs.getString("account_number"));
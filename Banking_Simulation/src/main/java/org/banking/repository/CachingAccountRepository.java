@@ -0,0 +1,150 @@
+package org.banking.repository;
+
+import org.banking.model.Account;
+import org.banking.model.Page;
+import org.banking.util.BoundedLruCache;
+import org.banking.util.KeysetCursor;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of an AccountRepository for single-account lookups.
+ *
+ * Accounts are cached by account number, with a small id -> number index so findById
+ * shares the same entries. Entries are dropped on update and delete, and on every
+ * committed transfer through {@link AccountChangeListener}. A TTL bounds how long a
+ * change made by another node can go unseen. Callers always get their own copy.
+ *
+ * Only for display and lookup paths: the transfer path validates against rows it reads
+ * (and locks) itself, so it is wired to the uncached repository.
+ */
+public class CachingAccountRepository implements AccountRepository, AccountChangeListener {
+
+    private final AccountRepository delegate;
+    private final BoundedLruCache<String, Account> accountsByNumber;
+    private final BoundedLruCache<String, String> numbersById;
+
+    // Bumped on every invalidation; a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingAccountRepository(AccountRepository delegate, int maxSize, long ttlMs) {
+        this.delegate = delegate;
+        this.accountsByNumber = new BoundedLruCache<>(maxSize, ttlMs);
+        this.numbersById = new BoundedLruCache<>(maxSize, 0);
+    }
+
+    @Override
+    public Account findByAccountNumber(String accountNumber) throws SQLException {
+        Account cached = accountsByNumber.get(accountNumber);
+        if (cached != null) {
+            return new Account(cached);
+        }
+
+        long seen = generation.get();
+        Account account = delegate.findByAccountNumber(accountNumber);
+        cache(account, seen);
+        return account;
+    }
+
+    @Override
+    public Account findById(String accountId) throws SQLException {
+        String accountNumber = numbersById.get(accountId);
+        if (accountNumber != null) {
+            Account cached = accountsByNumber.get(accountNumber);
+            if (cached != null) {
+                return new Account(cached);
+            }
+        }
+
+        long seen = generation.get();
+        Account account = delegate.findById(accountId);
+        cache(account, seen);
+        return account;
+    }
+
+    @Override
+    public boolean existsByAccountNumber(String accountNumber) throws SQLException {
+        return accountsByNumber.get(accountNumber) != null || delegate.existsByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public Account update(String accountNumber, Account account) throws SQLException {
+        try {
+            return delegate.update(accountNumber, account);
+        } finally {
+            invalidate(accountNumber);
+        }
+    }
+
+    @Override
+    public boolean deleteByAccountNumber(String accountNumber) throws SQLException {
+        try {
+            return delegate.deleteByAccountNumber(accountNumber);
+        } finally {
+            invalidate(accountNumber);
+        }
+    }
+
+    @Override
+    public void accountsChanged(Collection<String> accountNumbers) {
+        for (String accountNumber : accountNumbers) {
+            invalidate(accountNumber);
+        }
+    }
+
+    public BoundedLruCache<String, Account> getAccountCache() {
+        return accountsByNumber;
+    }
+
+    private void cache(Account account, long seenGeneration) {
+        if (account == null || account.getAccountNumber() == null) {
+            return;
+        }
+        // Skip if anything was invalidated while we were reading; the row may predate it
+        if (generation.get() == seenGeneration) {
+            accountsByNumber.put(account.getAccountNumber(), new Account(account));
+            if (account.getAccountId() != null) {
+                numbersById.put(account.getAccountId(), account.getAccountNumber());
+            }
+        }
+    }
+
+    private void invalidate(String accountNumber) {
+        generation.incrementAndGet();
+        accountsByNumber.invalidate(accountNumber);
+    }
+
+    // Not cached
+
+    @Override
+    public Account save(Account account) throws SQLException {
+        return delegate.save(account);
+    }
+
+    @Override
+    public List<Account> findByCustomerId(String customerId) throws SQLException {
+        return delegate.findByCustomerId(customerId);
+    }
+
+    @Override
+    public List<Account> findAll() throws SQLException {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Page<Account> findPage(KeysetCursor after, int limit) throws SQLException {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public String getCustomerIdByAadhar(String aadharNumber) throws SQLException {
+        return delegate.getCustomerIdByAadhar(aadharNumber);
+    }
+
+    @Override
+    public long getNextId() throws SQLException {
+        return delegate.getNextId();
+    }
+}
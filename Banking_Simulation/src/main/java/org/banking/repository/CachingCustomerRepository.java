@@ -0,0 +1,263 @@
+package org.banking.repository;
+
+import org.banking.model.Account;
+import org.banking.model.Customer;
+import org.banking.model.Page;
+import org.banking.model.TransferContext;
+import org.banking.model.TransferInstruction;
+import org.banking.model.UniqueCustomerField;
+import org.banking.util.BoundedLruCache;
+import org.banking.util.KeysetCursor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache from account number to the owning customer and their PIN credential,
+ * so PIN checks and sender/receiver name resolution skip the Customer/Account join.
+ *
+ * The PIN itself is not kept: entries hold a salted SHA-256 of it and the cached customer
+ * copy has its PIN cleared, so lookups served from here never carry one. Entries are
+ * dropped on customer update and delete, and whenever an account is saved, updated or
+ * deleted (re-linking an account number to another customer). A TTL bounds how long a
+ * PIN change made by another node can go unseen.
+ *
+ * loadTransferContext still reads both Account rows on every call, because balance and
+ * status must be fresh; it only needs that one narrow query once the customers are warm.
+ */
+public class CachingCustomerRepository implements CustomerRepository, AccountChangeListener {
+
+    private final CustomerRepository delegate;
+    private final BoundedLruCache<String, CachedCustomer> customersByAccountNumber;
+    private final byte[] pinSalt = new byte[16];
+
+    // Bumped on every invalidation; a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingCustomerRepository(CustomerRepository delegate, int maxSize, long ttlMs) {
+        this.delegate = delegate;
+        this.customersByAccountNumber = new BoundedLruCache<>(maxSize, ttlMs);
+        new SecureRandom().nextBytes(pinSalt);
+    }
+
+    @Override
+    public Customer findByAccountNumber(String accountNumber) throws SQLException {
+        CachedCustomer cached = lookup(accountNumber);
+        return cached == null ? null : new Customer(cached.customer());
+    }
+
+    @Override
+    public boolean verifyPin(String accountNumber, String pin) throws SQLException {
+        CachedCustomer cached = lookup(accountNumber);
+        return cached != null && cached.pinMatches(pin);
+    }
+
+    @Override
+    public TransferContext loadTransferContext(String senderAccountNumber, String senderPin,
+                                               String receiverAccountNumber) throws SQLException {
+        CachedCustomer sender = lookup(senderAccountNumber);
+        CachedCustomer receiver = lookup(receiverAccountNumber);
+        if (sender == null || receiver == null) {
+            // Unknown account somewhere: let the joined query work out which side is missing
+            return delegate.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber);
+        }
+
+        Account senderAccount = null;
+        Account receiverAccount = null;
+        for (Account account : delegate.findAccountsByNumbers(senderAccountNumber, receiverAccountNumber)) {
+            if (senderAccountNumber.equals(account.getAccountNumber())) {
+                senderAccount = account;
+            }
+            if (receiverAccountNumber.equals(account.getAccountNumber())) {
+                receiverAccount = account;
+            }
+        }
+
+        // The account was deleted or moved to another customer since we cached it
+        if (!ownedBy(senderAccount, sender) || !ownedBy(receiverAccount, receiver)) {
+            invalidate(List.of(senderAccountNumber, receiverAccountNumber));
+            return delegate.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber);
+        }
+
+        TransferContext context = new TransferContext();
+        context.setPinValid(sender.pinMatches(senderPin));
+        context.setSenderCustomer(new Customer(sender.customer()));
+        context.setSenderAccount(senderAccount);
+        context.setReceiverAccount(receiverAccount);
+        context.setReceiverCustomer(new Customer(receiver.customer()));
+        return context;
+    }
+
+    @Override
+    public Customer update(String customerId, Customer customer) throws SQLException {
+        try {
+            return delegate.update(customerId, customer);
+        } finally {
+            invalidateCustomer(customerId);
+        }
+    }
+
+    @Override
+    public boolean deleteById(String customerId) throws SQLException {
+        try {
+            return delegate.deleteById(customerId);
+        } finally {
+            invalidateCustomer(customerId);
+        }
+    }
+
+    @Override
+    public void accountsChanged(Collection<String> accountNumbers) {
+        invalidate(accountNumbers);
+    }
+
+    public BoundedLruCache<String, CachedCustomer> getCustomerCache() {
+        return customersByAccountNumber;
+    }
+
+    private CachedCustomer lookup(String accountNumber) throws SQLException {
+        CachedCustomer cached = customersByAccountNumber.get(accountNumber);
+        if (cached != null) {
+            return cached;
+        }
+
+        long seen = generation.get();
+        Customer customer = delegate.findByAccountNumber(accountNumber);
+        if (customer == null) {
+            return null;
+        }
+
+        Customer stripped = new Customer(customer);
+        stripped.setCustomerPin(null);
+        cached = new CachedCustomer(stripped, digest(customer.getCustomerPin()));
+
+        // Skip if anything was invalidated while we were reading; the row may predate it
+        if (generation.get() == seen) {
+            customersByAccountNumber.put(accountNumber, cached);
+        }
+        return cached;
+    }
+
+    private static boolean ownedBy(Account account, CachedCustomer cached) {
+        return account != null && account.getCustomerId() != null
+                && account.getCustomerId().equals(cached.customer().getCustomerId());
+    }
+
+    private void invalidate(Collection<String> accountNumbers) {
+        generation.incrementAndGet();
+        for (String accountNumber : accountNumbers) {
+            customersByAccountNumber.invalidate(accountNumber);
+        }
+    }
+
+    private void invalidateCustomer(String customerId) {
+        generation.incrementAndGet();
+        customersByAccountNumber.invalidateIf((accountNumber, cached) ->
+                customerId.equals(cached.customer().getCustomerId()));
+    }
+
+    private byte[] digest(String pin) {
+        if (pin == null) {
+            return null;
+        }
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(pinSalt);
+            return sha.digest(pin.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A customer as of load time, without its PIN, plus the salted digest to check PINs against.
+     */
+    public final class CachedCustomer {
+        private final Customer customer;
+        private final byte[] pinDigest;
+
+        private CachedCustomer(Customer customer, byte[] pinDigest) {
+            this.customer = customer;
+            this.pinDigest = pinDigest;
+        }
+
+        public Customer customer() {
+            return customer;
+        }
+
+        boolean pinMatches(String pin) {
+            return pinDigest != null && pin != null && MessageDigest.isEqual(pinDigest, digest(pin));
+        }
+    }
+
+    // Not cached
+
+    @Override
+    public Customer save(Customer customer) throws SQLException {
+        return delegate.save(customer);
+    }
+
+    @Override
+    public Customer findById(String customerId) throws SQLException {
+        return delegate.findById(customerId);
+    }
+
+    @Override
+    public List<Customer> findAll() throws SQLException {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Page<Customer> findPage(KeysetCursor after, int limit) throws SQLException {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public boolean existsByPhoneNumber(String phoneNumber) throws SQLException {
+        return delegate.existsByPhoneNumber(phoneNumber);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) throws SQLException {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public boolean existsByAadharNumber(String aadharNumber) throws SQLException {
+        return delegate.existsByAadharNumber(aadharNumber);
+    }
+
+    @Override
+    public Customer findByAadhar(String aadharNumber) throws SQLException {
+        return delegate.findByAadhar(aadharNumber);
+    }
+
+    @Override
+    public Set<UniqueCustomerField> findTakenUniqueFields(String phoneNumber, String email, String aadharNumber)
+            throws SQLException {
+        return delegate.findTakenUniqueFields(phoneNumber, email, aadharNumber);
+    }
+
+    @Override
+    public List<Account> findAccountsByNumbers(String... accountNumbers) throws SQLException {
+        return delegate.findAccountsByNumbers(accountNumbers);
+    }
+
+    // Already two queries for the whole batch, so there is little for the cache to save
+    @Override
+    public List<TransferContext> loadTransferContexts(List<TransferInstruction> instructions) throws SQLException {
+        return delegate.loadTransferContexts(instructions);
+    }
+
+    @Override
+    public long getNextId() throws SQLException {
+        return delegate.getNextId();
+    }
+}
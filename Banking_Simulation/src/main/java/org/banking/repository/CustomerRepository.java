@@ -1,8 +1,15 @@
 package org.banking.repository;
 
+import org.banking.model.Account;
 import org.banking.model.Customer;
+import org.banking.model.Page;
+import org.banking.model.TransferContext;
+import org.banking.model.TransferInstruction;
+import org.banking.model.UniqueCustomerField;
+import org.banking.util.KeysetCursor;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 
 public interface CustomerRepository {
     Customer save(Customer customer) throws SQLException;
@@ -10,10 +17,13 @@ public interface CustomerRepository {
     Customer update(String customerId, Customer customer) throws SQLException;
     boolean deleteById(String customerId) throws SQLException;
     List<Customer> findAll() throws SQLException;
+
+    // Ordered by customer_id, seeking past the cursor id; null cursor = first page
+    Page<Customer> findPage(KeysetCursor after, int limit) throws SQLException;
     boolean existsByPhoneNumber(String phoneNumber) throws SQLException;
     boolean existsByEmail(String email) throws SQLException;
     boolean existsByAadharNumber(String aadharNumber) throws SQLException;
-    int getNextId() throws SQLException;
+    long getNextId() throws SQLException;
 
     Customer findByAccountNumber(String accountNumber) throws SQLException;
 
@@ -22,4 +32,19 @@ public interface CustomerRepository {
 
     // New method to get customer by Aadhar
     Customer findByAadhar(String aadharNumber) throws SQLException;
+
+    // Sender/receiver accounts and customers plus PIN check in one round trip; null if sender account is unknown
+    TransferContext loadTransferContext(String senderAccountNumber, String senderPin,
+                                        String receiverAccountNumber) throws SQLException;
+
+    // loadTransferContext for every instruction, in instruction order, with one query per table for the
+    // whole list; contexts may share Account and Customer objects, so treat them as read-only
+    List<TransferContext> loadTransferContexts(List<TransferInstruction> instructions) throws SQLException;
+
+    // Which of the given unique values are already taken, in one round trip; null values are not checked
+    Set<UniqueCustomerField> findTakenUniqueFields(String phoneNumber, String email, String aadharNumber)
+            throws SQLException;
+
+    // Account rows only (no customer join), in one round trip; unknown numbers are skipped
+    List<Account> findAccountsByNumbers(String... accountNumbers) throws SQLException;
 }
\ No newline at end of file
@@ -1,13 +1,68 @@
 package org.banking.repository;
 
 import org.banking.config.DBConfig;
+import org.banking.config.IdAllocator;
+import org.banking.model.Account;
 import org.banking.model.Customer;
+import org.banking.model.Money;
+import org.banking.model.Page;
+import org.banking.model.TransferContext;
+import org.banking.model.TransferInstruction;
+import org.banking.model.UniqueCustomerField;
+import org.banking.util.KeysetCursor;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CustomerRepositoryImpl implements CustomerRepository {
 
+    private static final String[] CUSTOMER_COLUMNS = {
+            "customer_id", "name", "phone_number", "email", "address", "aadhar_number", "dob", "status"
+    };
+    private static final String[] ACCOUNT_COLUMNS = {
+            "account_id", "customer_id", "created_at", "modified_at", "balance", "account_type", "account_name",
+            "account_number", "phone_number_linked", "ifsc_code", "bank_name", "status"
+    };
+
+    // Sender side is inner-joined (no row = unknown sender); receiver side is optional.
+    // The PIN is compared in the database and never mapped back.
+    private static final String TRANSFER_CONTEXT_SQL =
+            "SELECT (sc.customer_pin = CAST(? AS BINARY)) AS pin_valid, " +
+            Stream.of(aliased("sc", CUSTOMER_COLUMNS), aliased("sa", ACCOUNT_COLUMNS),
+                    aliased("ra", ACCOUNT_COLUMNS), aliased("rc", CUSTOMER_COLUMNS))
+                    .collect(Collectors.joining(", ")) + " " +
+            "FROM Account sa " +
+            "JOIN Customer sc ON sc.customer_id = sa.customer_id " +
+            "LEFT JOIN Account ra ON ra.account_number = ? " +
+            "LEFT JOIN Customer rc ON rc.customer_id = ra.customer_id " +
+            "WHERE sa.account_number = ?";
+
+    // Each flag is NULL when no row matched that column
+    private static final String TAKEN_UNIQUE_FIELDS_SQL =
+            "SELECT MAX(phone_number = ?), MAX(email = ?), MAX(aadhar_number = ?) FROM Customer " +
+            "WHERE phone_number = ? OR email = ? OR aadhar_number = ?";
+
+    private final UniquenessIndex uniquenessIndex;
+
+    public CustomerRepositoryImpl() {
+        this(UniquenessIndex.DISABLED);
+    }
+
+    // Inserts, updates and deletes keep the index current; exists* checks consult it first
+    public CustomerRepositoryImpl(UniquenessIndex uniquenessIndex) {
+        this.uniquenessIndex = uniquenessIndex;
+    }
+
     @Override
     public Customer save(Customer customer) throws SQLException {
         String sql = "INSERT INTO Customer (customer_id, name, phone_number, email, address, " +
@@ -28,6 +83,8 @@ public class CustomerRepositoryImpl implements CustomerRepository {
 
             int rows = ps.executeUpdate();
             if (rows > 0) {
+                uniquenessIndex.customerAdded(customer.getPhoneNumber(), customer.getEmail(),
+                        customer.getAadharNumber());
                 return customer;
             }
             throw new SQLException("Failed to insert customer");
@@ -104,41 +161,193 @@ public class CustomerRepositoryImpl implements CustomerRepository {
     }
 
     @Override
-    public Customer update(String customerId, Customer customer) throws SQLException {
-        String sql = "UPDATE Customer SET name = ?, phone_number = ?, email = ?, address = ?, " +
-                "customer_pin = ?, aadhar_number = ?, dob = ?, status = ? WHERE customer_id = ?";
+    public TransferContext loadTransferContext(String senderAccountNumber, String senderPin,
+                                               String receiverAccountNumber) throws SQLException {
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(TRANSFER_CONTEXT_SQL)) {
+
+            ps.setString(1, senderPin);
+            ps.setString(2, receiverAccountNumber);
+            ps.setString(3, senderAccountNumber);
+            ResultSet rs = ps.executeQuery();
+
+            if (!rs.next()) {
+                return null;
+            }
+
+            TransferContext context = new TransferContext();
+            context.setPinValid(rs.getBoolean("pin_valid"));
+            context.setSenderCustomer(mapPrefixedCustomer(rs, "sc_"));
+            context.setSenderAccount(mapPrefixedAccount(rs, "sa_"));
+            context.setReceiverAccount(mapPrefixedAccount(rs, "ra_"));
+            context.setReceiverCustomer(mapPrefixedCustomer(rs, "rc_"));
+            return context;
+        }
+    }
+
+    @Override
+    public List<TransferContext> loadTransferContexts(List<TransferInstruction> instructions) throws SQLException {
+        Set<String> accountNumbers = new LinkedHashSet<>();
+        for (TransferInstruction t : instructions) {
+            accountNumbers.add(t.getSenderAccountNumber());
+            accountNumbers.add(t.getReceiverAccountNumber());
+        }
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : findAccountsByNumbers(accountNumbers.toArray(new String[0]))) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        Set<String> customerIds = new HashSet<>();
+        for (Account account : accounts.values()) {
+            customerIds.add(account.getCustomerId());
+        }
+        Map<String, String> pins = new HashMap<>();
+        Map<String, Customer> customers = findCustomersWithPins(customerIds, pins);
+
+        List<TransferContext> contexts = new ArrayList<>(instructions.size());
+        for (TransferInstruction t : instructions) {
+            Account senderAccount = accounts.get(t.getSenderAccountNumber());
+            Customer senderCustomer = senderAccount == null ? null : customers.get(senderAccount.getCustomerId());
+            // Same as the joined query: no context without the sender's account and customer
+            if (senderCustomer == null) {
+                contexts.add(null);
+                continue;
+            }
+            Account receiverAccount = accounts.get(t.getReceiverAccountNumber());
+            TransferContext context = new TransferContext();
+            // Exact comparison, like the joined query's binary one
+            context.setPinValid(t.getSenderPin() != null && t.getSenderPin().equals(pins.get(senderCustomer.getCustomerId())));
+            context.setSenderCustomer(senderCustomer);
+            context.setSenderAccount(senderAccount);
+            context.setReceiverAccount(receiverAccount);
+            context.setReceiverCustomer(receiverAccount == null ? null : customers.get(receiverAccount.getCustomerId()));
+            contexts.add(context);
+        }
+        return contexts;
+    }
+
+    // Customers by id, with each one's PIN put into pins rather than onto the returned object
+    private Map<String, Customer> findCustomersWithPins(Collection<String> customerIds, Map<String, String> pins)
+            throws SQLException {
+        Map<String, Customer> customers = new HashMap<>();
+        if (customerIds.isEmpty()) {
+            return customers;
+        }
+
+        String sql = "SELECT c.customer_pin, " + aliased("c", CUSTOMER_COLUMNS) + " FROM Customer c " +
+                "WHERE c.customer_id IN (" + String.join(", ", Collections.nCopies(customerIds.size(), "?")) + ")";
 
         try (Connection conn = DBConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setString(1, customer.getName());
-            ps.setString(2, customer.getPhoneNumber());
-            ps.setString(3, customer.getEmail());
-            ps.setString(4, customer.getAddress());
-            ps.setString(5, customer.getCustomerPin());
-            ps.setString(6, customer.getAadharNumber());
-            ps.setDate(7, new java.sql.Date(customer.getDob().getTime()));
-            ps.setString(8, customer.getStatus());
-            ps.setString(9, customerId);
+            int i = 1;
+            for (String customerId : customerIds) {
+                ps.setString(i++, customerId);
+            }
+            ResultSet rs = ps.executeQuery();
 
-            int rows = ps.executeUpdate();
-            if (rows > 0) {
-                customer.setCustomerId(customerId);
-                return customer;
+            while (rs.next()) {
+                Customer customer = mapPrefixedCustomer(rs, "c_");
+                customers.put(customer.getCustomerId(), customer);
+                pins.put(customer.getCustomerId(), rs.getString("customer_pin"));
             }
-            return null;
         }
+        return customers;
     }
 
     @Override
-    public boolean deleteById(String customerId) throws SQLException {
-        String sql = "DELETE FROM Customer WHERE customer_id = ?";
+    public List<Account> findAccountsByNumbers(String... accountNumbers) throws SQLException {
+        List<Account> accounts = new ArrayList<>();
+        if (accountNumbers.length == 0) {
+            return accounts;
+        }
+
+        String sql = "SELECT " + aliased("a", ACCOUNT_COLUMNS) + " FROM Account a WHERE a.account_number IN (" +
+                String.join(", ", Collections.nCopies(accountNumbers.length, "?")) + ")";
 
         try (Connection conn = DBConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setString(1, customerId);
-            return ps.executeUpdate() > 0;
+            for (int i = 0; i < accountNumbers.length; i++) {
+                ps.setString(i + 1, accountNumbers[i]);
+            }
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                accounts.add(mapPrefixedAccount(rs, "a_"));
+            }
+        }
+        return accounts;
+    }
+
+    @Override
+    public Customer update(String customerId, Customer customer) throws SQLException {
+        String sql = "UPDATE Customer SET name = ?, phone_number = ?, email = ?, address = ?, " +
+                "customer_pin = ?, aadhar_number = ?, dob = ?, status = ? WHERE customer_id = ?";
+
+        try (Connection conn = DBConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                // Old unique values, locked so the index swaps exactly what the update replaced
+                Customer previous = uniquenessIndex.isEnabled() ? lockUniqueFields(conn, customerId) : null;
+
+                ps.setString(1, customer.getName());
+                ps.setString(2, customer.getPhoneNumber());
+                ps.setString(3, customer.getEmail());
+                ps.setString(4, customer.getAddress());
+                ps.setString(5, customer.getCustomerPin());
+                ps.setString(6, customer.getAadharNumber());
+                ps.setDate(7, new java.sql.Date(customer.getDob().getTime()));
+                ps.setString(8, customer.getStatus());
+                ps.setString(9, customerId);
+
+                int rows = ps.executeUpdate();
+                conn.commit();
+
+                if (rows > 0) {
+                    if (previous != null) {
+                        // Add before remove so no probe sees the new values as absent
+                        uniquenessIndex.customerAdded(customer.getPhoneNumber(), customer.getEmail(),
+                                customer.getAadharNumber());
+                        uniquenessIndex.customerRemoved(previous.getPhoneNumber(), previous.getEmail(),
+                                previous.getAadharNumber());
+                    }
+                    customer.setCustomerId(customerId);
+                    return customer;
+                }
+                return null;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteById(String customerId) throws SQLException {
+        String sql = "DELETE FROM Customer WHERE customer_id = ?";
+
+        try (Connection conn = DBConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                Customer previous = uniquenessIndex.isEnabled() ? lockUniqueFields(conn, customerId) : null;
+
+                ps.setString(1, customerId);
+                boolean deleted = ps.executeUpdate() > 0;
+                conn.commit();
+
+                if (deleted && previous != null) {
+                    uniquenessIndex.customerRemoved(previous.getPhoneNumber(), previous.getEmail(),
+                            previous.getAadharNumber());
+                }
+                return deleted;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
 
@@ -158,8 +367,34 @@ public class CustomerRepositoryImpl implements CustomerRepository {
         return customers;
     }
 
+    @Override
+    public Page<Customer> findPage(KeysetCursor after, int limit) throws SQLException {
+        String sql = "SELECT * FROM Customer " + (after == null ? "" : "WHERE customer_id > ? ") +
+                "ORDER BY customer_id LIMIT ?";
+        List<Customer> customers = new ArrayList<>(limit + 1);
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                ps.setString(index++, after.id());
+            }
+            ps.setInt(index, limit + 1);
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                customers.add(mapResultSetToCustomer(rs));
+            }
+        }
+        return Page.of(customers, limit, c -> new KeysetCursor(null, c.getCustomerId()));
+    }
+
     @Override
     public boolean existsByPhoneNumber(String phoneNumber) throws SQLException {
+        if (!uniquenessIndex.mightHavePhoneNumber(phoneNumber)) {
+            return false;
+        }
         String sql = "SELECT COUNT(*) FROM Customer WHERE phone_number = ?";
 
         try (Connection conn = DBConfig.getConnection();
@@ -177,6 +412,9 @@ public class CustomerRepositoryImpl implements CustomerRepository {
 
     @Override
     public boolean existsByEmail(String email) throws SQLException {
+        if (!uniquenessIndex.mightHaveEmail(email)) {
+            return false;
+        }
         String sql = "SELECT COUNT(*) FROM Customer WHERE email = ?";
 
         try (Connection conn = DBConfig.getConnection();
@@ -194,6 +432,9 @@ public class CustomerRepositoryImpl implements CustomerRepository {
 
     @Override
     public boolean existsByAadharNumber(String aadharNumber) throws SQLException {
+        if (!uniquenessIndex.mightHaveAadharNumber(aadharNumber)) {
+            return false;
+        }
         String sql = "SELECT COUNT(*) FROM Customer WHERE aadhar_number = ?";
 
         try (Connection conn = DBConfig.getConnection();
@@ -210,8 +451,47 @@ public class CustomerRepositoryImpl implements CustomerRepository {
     }
 
     @Override
-    public int getNextId() throws SQLException {
-        return DBConfig.getNextId("Customer", "customer_id", "CUST_");
+    public Set<UniqueCustomerField> findTakenUniqueFields(String phoneNumber, String email, String aadharNumber)
+            throws SQLException {
+        // Only values the filters cannot rule out are sent to the database
+        String phone = uniquenessIndex.mightHavePhoneNumber(phoneNumber) ? phoneNumber : null;
+        String mail = uniquenessIndex.mightHaveEmail(email) ? email : null;
+        String aadhar = uniquenessIndex.mightHaveAadharNumber(aadharNumber) ? aadharNumber : null;
+
+        Set<UniqueCustomerField> taken = EnumSet.noneOf(UniqueCustomerField.class);
+        if (phone == null && mail == null && aadhar == null) {
+            return taken;
+        }
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(TAKEN_UNIQUE_FIELDS_SQL)) {
+
+            ps.setString(1, phone);
+            ps.setString(2, mail);
+            ps.setString(3, aadhar);
+            ps.setString(4, phone);
+            ps.setString(5, mail);
+            ps.setString(6, aadhar);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                if (rs.getBoolean(1)) {
+                    taken.add(UniqueCustomerField.PHONE_NUMBER);
+                }
+                if (rs.getBoolean(2)) {
+                    taken.add(UniqueCustomerField.EMAIL);
+                }
+                if (rs.getBoolean(3)) {
+                    taken.add(UniqueCustomerField.AADHAR_NUMBER);
+                }
+            }
+        }
+        return taken;
+    }
+
+    @Override
+    public long getNextId() throws SQLException {
+        return DBConfig.getNextId("Customer", "customer_id", IdAllocator.CUSTOMER_PREFIX);
     }
 
     private Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
@@ -228,4 +508,78 @@ public class CustomerRepositoryImpl implements CustomerRepository {
         customer.setStatus(rs.getString("status"));
         return customer;
     }
-}
\ No newline at end of file
+
+    private static Customer lockUniqueFields(Connection conn, String customerId) throws SQLException {
+        String sql = "SELECT phone_number, email, aadhar_number FROM Customer WHERE customer_id = ? FOR UPDATE";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, customerId);
+            ResultSet rs = ps.executeQuery();
+
+            if (!rs.next()) {
+                return null;
+            }
+            Customer previous = new Customer();
+            previous.setPhoneNumber(rs.getString("phone_number"));
+            previous.setEmail(rs.getString("email"));
+            previous.setAadharNumber(rs.getString("aadhar_number"));
+            return previous;
+        }
+    }
+
+    // An account's balance includes its hot-account balance slots, if it has any
+    private static String aliased(String alias, String[] columns) {
+        return Stream.of(columns)
+                .map(column -> ("balance".equals(column) ? HotAccountBalances.balanceOf(alias) : alias + "." + column)
+                        + " AS " + alias + "_" + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    // Returns null when the LEFT JOIN found no row for this side
+    private Customer mapPrefixedCustomer(ResultSet rs, String prefix) throws SQLException {
+        String customerId = rs.getString(prefix + "customer_id");
+        if (customerId == null) {
+            return null;
+        }
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setName(rs.getString(prefix + "name"));
+        customer.setPhoneNumber(rs.getString(prefix + "phone_number"));
+        customer.setEmail(rs.getString(prefix + "email"));
+        customer.setAddress(rs.getString(prefix + "address"));
+        customer.setAadharNumber(rs.getString(prefix + "aadhar_number"));
+        customer.setDob(rs.getDate(prefix + "dob"));
+        customer.setStatus(rs.getString(prefix + "status"));
+        return customer;
+    }
+
+    private Account mapPrefixedAccount(ResultSet rs, String prefix) throws SQLException {
+        String accountId = rs.getString(prefix + "account_id");
+        if (accountId == null) {
+            return null;
+        }
+        Account account = new Account();
+        account.setAccountId(accountId);
+        account.setCustomerId(rs.getString(prefix + "customer_id"));
+
+        Timestamp createdTimestamp = rs.getTimestamp(prefix + "created_at");
+        if (createdTimestamp != null) {
+            account.setCreatedAt(createdTimestamp.toLocalDateTime());
+        }
+
+        Timestamp modifiedTimestamp = rs.getTimestamp(prefix + "modified_at");
+        if (modifiedTimestamp != null) {
+            account.setModifiedAt(modifiedTimestamp.toLocalDateTime());
+        }
+
+        account.setBalance(Money.of(rs.getBigDecimal(prefix + "balance")));
+        account.setAccountType(rs.getString(prefix + "account_type"));
+        account.setAccountName(rs.getString(prefix + "account_name"));
+        account.setAccountNumber(rs.getString(prefix + "account_number"));
+        account.setPhoneNumberLinked(rs.getString(prefix + "phone_number_linked"));
+        account.setIfscCode(rs.getString(prefix + "ifsc_code"));
+        account.setBankName(rs.getString(prefix + "bank_name"));
+        account.setStatus(rs.getString(prefix + "status"));
+        return account;
+    }
+}
@@ -0,0 +1,264 @@
+package org.banking.repository;
+
+import org.banking.config.AppConfig;
+import org.banking.model.Account;
+import org.banking.model.CounterpartyDirection;
+import org.banking.model.Money;
+import org.banking.model.Page;
+import org.banking.model.Transaction;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.banking.util.KeysetCursor;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit front for a TransactionRepository.
+ *
+ * processMoneyTransfer parks the caller on a future and queues the transfer. Dispatcher
+ * threads collect whatever arrives within the window (or up to the batch cap), apply it
+ * through {@link TransactionRepository#processMoneyTransfers} as one DB transaction and
+ * complete each caller with its own result. Reads go straight to the delegate.
+ *
+ * Enabled with transfer.groupCommit.enabled; window and cap are configurable.
+ */
+public class GroupCommitTransactionRepository implements TransactionRepository, AutoCloseable {
+
+    private static volatile GroupCommitTransactionRepository shared;
+
+    private final TransactionRepository delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingTransfer> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> dispatchers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public GroupCommitTransactionRepository(TransactionRepository delegate, long windowMicros,
+                                            int maxBatchSize, int dispatcherThreads) {
+        if (maxBatchSize < 1 || dispatcherThreads < 1) {
+            throw new IllegalArgumentException("maxBatchSize and dispatcherThreads must be positive");
+        }
+        this.delegate = delegate;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+
+        for (int i = 0; i < dispatcherThreads; i++) {
+            Thread thread = new Thread(this::dispatchLoop, "transfer-group-commit-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            dispatchers.add(thread);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return AppConfig.getBoolean("transfer.groupCommit.enabled", false);
+    }
+
+    /**
+     * Process-wide instance, created on first use over the given delegate.
+     */
+    public static GroupCommitTransactionRepository shared(TransactionRepository delegate) {
+        GroupCommitTransactionRepository instance = shared;
+        if (instance == null) {
+            synchronized (GroupCommitTransactionRepository.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new GroupCommitTransactionRepository(
+                            delegate,
+                            AppConfig.getLong("transfer.groupCommit.windowMicros", 2000),
+                            AppConfig.getInt("transfer.groupCommit.maxBatchSize", 64),
+                            AppConfig.getInt("transfer.groupCommit.dispatcherThreads", 2));
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    @Override
+    public Transaction processMoneyTransfer(String senderAccountNumber, String receiverAccountNumber,
+                                            Account senderAccount, Account receiverAccount,
+                                            Money amount, String transactionMode, String description) throws SQLException {
+        if (!running) {
+            throw new SQLException("Transfer dispatcher is shut down");
+        }
+
+        PendingTransfer pending = new PendingTransfer(new TransferInstruction(
+                senderAccountNumber, receiverAccountNumber, amount, transactionMode, description));
+        queue.add(pending);
+
+        TransferResult result;
+        try {
+            result = pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for transfer commit", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof SQLException sql ? sql : new SQLException("Transaction failed: " + cause.getMessage(), cause);
+        }
+
+        if (!result.isSuccess()) {
+            throw new SQLException("Transaction failed: " + result.getMessage());
+        }
+        return result.getTransaction();
+    }
+
+    @Override
+    public List<TransferResult> processMoneyTransfers(List<TransferInstruction> instructions) throws SQLException {
+        // Already a batch; no need to queue it behind single transfers
+        return delegate.processMoneyTransfers(instructions);
+    }
+
+    private void dispatchLoop() {
+        List<PendingTransfer> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingTransfer next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                // Never strand callers whose transfers were already taken off the queue
+                for (PendingTransfer pending : batch) {
+                    pending.result.completeExceptionally(new SQLException("Transfer dispatcher is shut down"));
+                }
+                if (!running) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingTransfer> batch) {
+        List<TransferInstruction> instructions = new ArrayList<>(batch.size());
+        for (PendingTransfer pending : batch) {
+            instructions.add(pending.instruction);
+        }
+
+        try {
+            List<TransferResult> results = delegate.processMoneyTransfers(instructions);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (Exception e) {
+            for (PendingTransfer pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatchers.forEach(Thread::interrupt);
+
+        PendingTransfer pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new SQLException("Transfer dispatcher is shut down"));
+        }
+    }
+
+    // Reads are not batched
+
+    @Override
+    public Transaction save(Transaction transaction) throws SQLException {
+        return delegate.save(transaction);
+    }
+
+    @Override
+    public Transaction findById(String transactionId) throws SQLException {
+        return delegate.findById(transactionId);
+    }
+
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber) throws SQLException {
+        return delegate.findByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public List<Transaction> findBySenderAccountNumber(String senderAccountNumber) throws SQLException {
+        return delegate.findBySenderAccountNumber(senderAccountNumber);
+    }
+
+    @Override
+    public List<Transaction> findByReceiverAccountNumber(String receiverAccountNumber) throws SQLException {
+        return delegate.findByReceiverAccountNumber(receiverAccountNumber);
+    }
+
+    @Override
+    public List<Transaction> findAll() throws SQLException {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void streamAll(LocalDateTime from, LocalDateTime to, RowHandler<Transaction> handler)
+            throws SQLException, IOException {
+        delegate.streamAll(from, to, handler);
+    }
+
+    @Override
+    public void streamByAccountNumber(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                      RowHandler<Transaction> handler) throws SQLException, IOException {
+        delegate.streamByAccountNumber(accountNumber, from, to, handler);
+    }
+
+    @Override
+    public Page<Transaction> findPage(KeysetCursor after, int limit) throws SQLException {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public Page<Transaction> findPageByAccountNumber(String accountNumber, KeysetCursor after, int limit)
+            throws SQLException {
+        return delegate.findPageByAccountNumber(accountNumber, after, limit);
+    }
+
+    @Override
+    public Page<Transaction> findPageWithCounterparty(String accountNumber, String counterpartyAccountNumber,
+                                                      CounterpartyDirection direction, KeysetCursor after, int limit)
+            throws SQLException {
+        return delegate.findPageWithCounterparty(accountNumber, counterpartyAccountNumber, direction, after, limit);
+    }
+
+    @Override
+    public long getNextId() throws SQLException {
+        return delegate.getNextId();
+    }
+
+    private static final class PendingTransfer {
+        final TransferInstruction instruction;
+        final CompletableFuture<TransferResult> result = new CompletableFuture<>();
+
+        PendingTransfer(TransferInstruction instruction) {
+            this.instruction = instruction;
+        }
+    }
+}
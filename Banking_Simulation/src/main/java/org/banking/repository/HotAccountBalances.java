@@ -0,0 +1,230 @@
+package org.banking.repository;
+
+import org.banking.config.AppConfig;
+import org.banking.config.DBConfig;
+import org.banking.model.Money;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Balance sub-slots for the few accounts, typically merchants, that receive most of the credits.
+ *
+ * A flagged account's balance is its Account row plus its rows in account_balance_slot. A
+ * credit to it never locks the Account row exclusively: the transfer holds the row shared,
+ * and it then adds to one of N slots picked at random, so up to N credits to
+ * the same account commit side by side instead of queueing on one row lock. Reads add the
+ * slots in SQL. A debit the Account row alone cannot cover sweeps the slots into it first; it
+ * holds the row exclusively by then and locks the slot rows, which waits out every credit in
+ * flight. The consolidator thread sweeps every account's slots back into its row every
+ * interval, so neither reads nor debits have much to add.
+ *
+ * Flagged with balance.slots.accounts. Unflagging an account, or turning the feature off,
+ * folds whatever its slots still hold back into the row.
+ */
+public class HotAccountBalances implements AutoCloseable {
+
+    private static final int SLOT_COUNT = AppConfig.getInt("balance.slots.count", 8);
+
+    // Read once from balance.slots.*; only tests change them after startup
+    private static volatile boolean enabled = AppConfig.getBoolean("balance.slots.enabled", false);
+    private static volatile Set<String> hotAccounts = Stream.of(AppConfig.get("balance.slots.accounts", "").split(","))
+            .map(String::trim)
+            .filter(accountNumber -> !accountNumber.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+
+    private static final String CREDIT_SLOT_SQL = "INSERT INTO account_balance_slot (account_number, slot, balance) " +
+            "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance)";
+    private static final String LOCK_ACCOUNT_SQL = "SELECT 1 FROM Account WHERE account_number = ? FOR UPDATE";
+    // Locks the rows and leaves the sum to Java; aggregates cannot be read FOR UPDATE everywhere
+    private static final String LOCK_SLOTS_SQL =
+            "SELECT balance FROM account_balance_slot WHERE account_number = ? FOR UPDATE";
+    private static final String MOVE_TO_ACCOUNT_SQL = "UPDATE Account SET balance = balance + ? WHERE account_number = ?";
+    // Flagged accounts keep their rows so the next credit is an update, not an insert
+    private static final String EMPTY_SLOTS_SQL =
+            "UPDATE account_balance_slot SET balance = 0 WHERE account_number = ? AND balance <> 0";
+    private static final String DELETE_SLOTS_SQL = "DELETE FROM account_balance_slot WHERE account_number = ?";
+    private static final String SLOTTED_ACCOUNTS_SQL =
+            "SELECT account_number, MAX(balance <> 0) AS holds_funds FROM account_balance_slot GROUP BY account_number";
+
+    private static volatile HotAccountBalances shared;
+
+    private final long intervalMs;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public HotAccountBalances(long intervalMs) {
+        this.intervalMs = intervalMs;
+        this.worker = new Thread(this::run, "hot-account-consolidator");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Start the process-wide consolidator from balance.slots.* properties. With the feature
+     * off, folds any slots left from when it was on, once, and starts nothing.
+     */
+    public static synchronized HotAccountBalances startShared() {
+        if (!enabled) {
+            try {
+                consolidateAll();
+            } catch (SQLException e) {
+                System.err.println("Failed to fold leftover balance slots: " + e.getMessage());
+            }
+            return null;
+        }
+        if (shared == null) {
+            shared = new HotAccountBalances(AppConfig.getLong("balance.slots.consolidateIntervalMs", 1000));
+            System.out.println(" -> Balance slots: " + hotAccounts.size() + " hot accounts x " + SLOT_COUNT + " slots");
+        }
+        return shared;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * True if credits to this account go to its balance slots.
+     */
+    public static boolean isHot(String accountNumber) {
+        return enabled && accountNumber != null && hotAccounts.contains(accountNumber);
+    }
+
+    /**
+     * Replace the balance.slots.enabled and balance.slots.accounts settings. For tests: SQL
+     * built from {@link #balanceOf(String)} before the call keeps the old setting.
+     */
+    static void configure(boolean slotsEnabled, Set<String> hotAccountNumbers) {
+        hotAccounts = Set.copyOf(hotAccountNumbers);
+        enabled = slotsEnabled;
+    }
+
+    /**
+     * SQL for the full balance of the Account row under the given alias.
+     */
+    static String balanceOf(String alias) {
+        if (!enabled) {
+            return alias + ".balance";
+        }
+        return "(" + alias + ".balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slot s " +
+                "WHERE s.account_number = " + alias + ".account_number), 0))";
+    }
+
+    /**
+     * Add to one of the account's slots. The caller holds at least a shared lock on its Account row.
+     */
+    static void credit(Connection conn, String accountNumber, Money amount) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(CREDIT_SLOT_SQL)) {
+            ps.setString(1, accountNumber);
+            ps.setInt(2, ThreadLocalRandom.current().nextInt(SLOT_COUNT));
+            ps.setBigDecimal(3, amount.toBigDecimal());
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Move everything in the account's slots into its Account row. The caller holds the row
+     * exclusively, so no credit is in flight and the total does not change under it.
+     *
+     * @return paise moved into the row
+     */
+    static long sweep(Connection conn, String accountNumber) throws SQLException {
+        long paise = 0;
+        try (PreparedStatement ps = conn.prepareStatement(LOCK_SLOTS_SQL)) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    paise = Math.addExact(paise, Money.of(rs.getBigDecimal(1)).toPaise());
+                }
+            }
+        }
+
+        if (paise != 0) {
+            try (PreparedStatement ps = conn.prepareStatement(MOVE_TO_ACCOUNT_SQL)) {
+                ps.setBigDecimal(1, Money.ofPaise(paise).toBigDecimal());
+                ps.setString(2, accountNumber);
+                ps.executeUpdate();
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(isHot(accountNumber) ? EMPTY_SLOTS_SQL : DELETE_SLOTS_SQL)) {
+            ps.setString(1, accountNumber);
+            ps.executeUpdate();
+        }
+        return paise;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMs);
+                consolidateAll();
+            } catch (SQLException e) {
+                System.err.println("Balance slot consolidation failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // One short transaction per account, so a debit or credit never waits behind the whole pass
+    static void consolidateAll() throws SQLException {
+        List<String> accountNumbers = new ArrayList<>();
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SLOTTED_ACCOUNTS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String accountNumber = rs.getString("account_number");
+                if (rs.getBoolean("holds_funds") || !isHot(accountNumber)) {
+                    accountNumbers.add(accountNumber);
+                }
+            }
+        }
+
+        for (String accountNumber : accountNumbers) {
+            try {
+                consolidate(accountNumber);
+            } catch (SQLException e) {
+                // A deadlock or lock wait only delays this account to the next pass
+                System.err.println("Balance slots of " + accountNumber + " not folded: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void consolidate(String accountNumber) throws SQLException {
+        try (Connection conn = DBConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Account row first, then its slots: the order every transfer takes them in
+                try (PreparedStatement ps = conn.prepareStatement(LOCK_ACCOUNT_SQL)) {
+                    ps.setString(1, accountNumber);
+                    ps.executeQuery().close();
+                }
+                sweep(conn, accountNumber);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+}
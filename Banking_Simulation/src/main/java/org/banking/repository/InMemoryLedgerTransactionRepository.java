@@ -0,0 +1,910 @@
+package org.banking.repository;
+
+import org.banking.config.AppConfig;
+import org.banking.config.DBConfig;
+import org.banking.config.IdAllocator;
+import org.banking.model.Account;
+import org.banking.model.CounterpartyDirection;
+import org.banking.model.Money;
+import org.banking.model.Page;
+import org.banking.model.Transaction;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.banking.util.KeysetCursor;
+import org.banking.util.RingBuffer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Transfers applied by an in-memory ledger instead of row locks in MySQL.
+ *
+ * Every account balance lives in {@link LedgerAccounts}, and exactly one writer thread
+ * touches it. Callers publish their transfers to a lock-free {@link RingBuffer} and wait.
+ * The writer drains whatever has queued up. It checks each transfer against the balances
+ * it holds, appends the accepted ones to a memory-mapped {@link LedgerJournal} and moves
+ * the balances. It then flushes the journal once for the whole drain and only then
+ * answers the callers. If that flush fails, the whole drain is taken back, balances and
+ * journal alike, its callers are told their transfers failed, and the ledger takes no more.
+ * MySQL is brought up to date asynchronously by a {@link LedgerProjector}.
+ *
+ * The writer also copies its state into a {@link LedgerSnapshotStore} every so often,
+ * together with the journal position it reflects. On startup the newest snapshot is
+ * loaded and only the journal after it is replayed. Accounts that were modified since
+ * the snapshot get their status reread, and accounts deleted since are dropped, which
+ * takes one scan of the account number index. Startup time therefore depends on activity
+ * since the last snapshot far more than on the number of accounts. Without a usable snapshot, balances
+ * are read from Account and the entries the projector had not committed are replayed.
+ * Either way, nothing acknowledged is lost. Journal segments that both MySQL and the newest
+ * snapshot on disk already cover are deleted as the writer goes.
+ *
+ * The ledger must be the only thing moving balances: run it on a single node. Reads go
+ * to MySQL through the delegate and trail acknowledged transfers by the projector's lag.
+ * Enabled with ledger.enabled.
+ */
+public class InMemoryLedgerTransactionRepository implements TransactionRepository, AutoCloseable {
+
+    // Balances include anything still in hot-account balance slots; the projector only ever adds to the row
+    private static final String LOAD_ACCOUNTS_SQL = "SELECT a.account_id, a.account_number, a.status, " +
+            HotAccountBalances.balanceOf("a") + " AS balance FROM Account a";
+    private static final String LOAD_ACCOUNT_SQL = "SELECT a.account_id, a.status, " +
+            HotAccountBalances.balanceOf("a") + " AS balance FROM Account a WHERE a.account_number = ?";
+    private static final String MODIFIED_SINCE_SQL =
+            "SELECT account_number, account_id, status FROM Account WHERE modified_at >= ?";
+    private static final String ACCOUNT_NUMBERS_SQL = "SELECT account_number FROM Account";
+
+    private static final int SPINS_BEFORE_PARK = 200;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static volatile InMemoryLedgerTransactionRepository shared;
+
+    private final TransactionRepository delegate;
+    private final LedgerJournal journal;
+    private final LedgerProjector projector;
+    private final boolean fsync;
+    private final int maxBatchSize;
+    private final long offerTimeoutNanos;
+    private final RingBuffer<Command> ring;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Null when snapshots are disabled
+    private final LedgerSnapshotStore snapshots;
+    private final ExecutorService snapshotWriter;
+    private final AtomicBoolean snapshotInFlight = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    // Journal position of the newest snapshot known to be on disk
+    private volatile long persistedSnapshotPosition = -1;
+
+    // Set by recovery; from then on only the writer changes it, and others may only read balances
+    private LedgerAccounts accounts;
+
+    // Writer thread only, once recovery has finished
+    private String failure;
+    private final DrainUndo undo = new DrainUndo();
+    private long nextSnapshotAt;
+    private long snapshotPosition = -1;
+    // Accounts were dropped since the last snapshot, which moves no journal position
+    private boolean removedSinceSnapshot;
+
+    public InMemoryLedgerTransactionRepository(TransactionRepository delegate, AccountChangeListener accountChangeListener,
+                                               Path journalPath, int journalRegionSize, boolean fsync,
+                                               int ringSize, int maxBatchSize, long offerTimeoutMs,
+                                               int projectorBatchSize, long projectorIdleMs,
+                                               LedgerSnapshotStore snapshots) throws SQLException {
+        this(delegate, accountChangeListener, openJournal(journalPath, journalRegionSize), fsync,
+                ringSize, maxBatchSize, offerTimeoutMs, projectorBatchSize, projectorIdleMs, snapshots);
+    }
+
+    InMemoryLedgerTransactionRepository(TransactionRepository delegate, AccountChangeListener accountChangeListener,
+                                        LedgerJournal journal, boolean fsync,
+                                        int ringSize, int maxBatchSize, long offerTimeoutMs,
+                                        int projectorBatchSize, long projectorIdleMs,
+                                        LedgerSnapshotStore snapshots) throws SQLException {
+        if (maxBatchSize < 1) {
+            closeJournal(journal);
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.delegate = delegate;
+        this.fsync = fsync;
+        this.maxBatchSize = maxBatchSize;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        this.ring = new RingBuffer<>(ringSize);
+        this.snapshots = snapshots;
+        this.journal = journal;
+        try {
+            long start = System.nanoTime();
+            long projected = LedgerProjector.projectedPosition(journal.id());
+            LedgerSnapshot snapshot = snapshots == null ? null : snapshots.loadLatest(journal.id());
+            long end = snapshot == null ? -1 : recoverFromSnapshot(snapshot, projected);
+            if (end < 0) {
+                end = recoverFromDatabase(projected);
+            }
+            System.out.println(" -> Ledger recovered " + accounts.size() + " accounts"
+                    + (snapshotPosition >= 0 ? " from snapshot at journal position " + snapshotPosition : " from Account")
+                    + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+
+            this.projector = new LedgerProjector(journal, projected, accountChangeListener,
+                    projectorBatchSize, projectorIdleMs);
+            if (end > projected) {
+                System.out.println(" -> Ledger projector catching up on " + (end - projected) + " journal bytes.");
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            closeJournal(journal);
+            throw e instanceof SQLException sql ? sql
+                    : new SQLException("Ledger recovery failed: " + e.getMessage(), e);
+        }
+
+        this.snapshotWriter = snapshots == null ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Rebuilding from Account was the slow path; make sure the next start is not
+        nextSnapshotAt = snapshotPosition >= 0 && !removedSinceSnapshot
+                ? System.nanoTime() + snapshotIntervalNanos() : System.nanoTime();
+
+        this.writer = new Thread(this::writeLoop, "ledger-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private static LedgerJournal openJournal(Path journalPath, int journalRegionSize) throws SQLException {
+        try {
+            return LedgerJournal.open(journalPath, journalRegionSize);
+        } catch (IOException e) {
+            throw new SQLException("Cannot open ledger journal " + journalPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return AppConfig.getBoolean("ledger.enabled", false);
+    }
+
+    /**
+     * Process-wide instance from ledger.* properties, created (and recovered) on first use.
+     */
+    public static InMemoryLedgerTransactionRepository shared(TransactionRepository delegate,
+                                                             AccountChangeListener accountChangeListener) throws SQLException {
+        InMemoryLedgerTransactionRepository instance = shared;
+        if (instance == null) {
+            synchronized (InMemoryLedgerTransactionRepository.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new InMemoryLedgerTransactionRepository(
+                            delegate,
+                            accountChangeListener,
+                            Path.of(AppConfig.get("ledger.journal.path", "data/ledger.journal")),
+                            AppConfig.getInt("ledger.journal.regionMb", 64) * 1024 * 1024,
+                            AppConfig.getBoolean("ledger.journal.fsync", true),
+                            AppConfig.getInt("ledger.ringSize", 65536),
+                            AppConfig.getInt("ledger.maxBatchSize", 1024),
+                            AppConfig.getLong("ledger.offerTimeoutMs", 1000),
+                            AppConfig.getInt("ledger.projector.batchSize", 500),
+                            AppConfig.getLong("ledger.projector.idleMs", 5),
+                            AppConfig.getBoolean("ledger.snapshot.enabled", true)
+                                    ? new LedgerSnapshotStore(
+                                            Path.of(AppConfig.get("ledger.snapshot.directory", "data/ledger-snapshots")),
+                                            AppConfig.getInt("ledger.snapshot.retain", 2),
+                                            AppConfig.getLong("ledger.snapshot.intervalMs", 60000))
+                                    : null);
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Account listener for writes made outside the ledger (status changes, deletes). The
+     * ledger rereads those accounts' status; it never rereads a balance it already holds.
+     */
+    public static void refreshShared(Collection<String> accountNumbers) {
+        InMemoryLedgerTransactionRepository instance = shared;
+        if (instance != null) {
+            instance.refresh(accountNumbers);
+        }
+    }
+
+    @Override
+    public Transaction processMoneyTransfer(String senderAccountNumber, String receiverAccountNumber,
+                                            Account senderAccount, Account receiverAccount,
+                                            Money amount, String transactionMode, String description) throws SQLException {
+        TransferResult result = submit(List.of(new TransferInstruction(
+                senderAccountNumber, receiverAccountNumber, amount, transactionMode, description))).get(0);
+        if (!result.isSuccess()) {
+            throw new SQLException("Transaction failed: " + result.getMessage());
+        }
+        return result.getTransaction();
+    }
+
+    /**
+     * The balance the writer holds, which Account only catches up with once projected.
+     */
+    @Override
+    public Money heldBalance(String accountNumber) {
+        Long paise = accounts.currentBalance(accountNumber);
+        return paise == null ? null : Money.ofPaise(paise);
+    }
+
+    /**
+     * Applied in order as one unit on the writer thread; each instruction succeeds or fails on its own.
+     */
+    @Override
+    public List<TransferResult> processMoneyTransfers(List<TransferInstruction> instructions) throws SQLException {
+        if (instructions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return submit(instructions);
+    }
+
+    private List<TransferResult> submit(List<TransferInstruction> instructions) throws SQLException {
+        if (!running) {
+            throw new SQLException("Transaction failed: ledger is shut down");
+        }
+
+        // Served from the node's reserved ID block, off the writer thread
+        IdAllocator transactionIds = DBConfig.getIdAllocator("Transactions", "transaction_id", IdAllocator.TRANSACTION_PREFIX);
+        String[] legIds = new String[instructions.size() * 2];
+        for (int i = 0; i < legIds.length; i++) {
+            legIds[i] = transactionIds.nextFormatted();
+        }
+
+        TransferBatch batch = new TransferBatch(instructions, legIds, loadNewAccounts(instructions),
+                new CompletableFuture<>());
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        while (!ring.offer(batch)) {
+            if (!running || System.nanoTime() - deadline > 0) {
+                throw new SQLException("Transaction failed: ledger is busy, try again");
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+
+        try {
+            return batch.results().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the ledger", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof SQLException sql ? sql : new SQLException("Transaction failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Read the accounts the ledger does not hold yet (opened since startup) here on the caller's
+     * thread, so the writer never waits on MySQL. The writer adopts a row only if the account is
+     * still unknown by then; otherwise what it holds is newer.
+     *
+     * @return account number to row (null if no such account), or null if every account is held
+     */
+    private Map<String, AccountRow> loadNewAccounts(List<TransferInstruction> instructions) throws SQLException {
+        Map<String, AccountRow> rows = null;
+        for (TransferInstruction t : instructions) {
+            for (String accountNumber : new String[]{t.getSenderAccountNumber(), t.getReceiverAccountNumber()}) {
+                if (accountNumber == null || accounts.contains(accountNumber)
+                        || (rows != null && rows.containsKey(accountNumber))) {
+                    continue;
+                }
+                if (rows == null) {
+                    rows = new HashMap<>();
+                }
+                rows.put(accountNumber, loadAccount(accountNumber));
+            }
+        }
+        return rows;
+    }
+
+    private static AccountRow loadAccount(String accountNumber) throws SQLException {
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(LOAD_ACCOUNT_SQL)) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new AccountRow(rs.getString("account_id"), rs.getString("status"),
+                        Money.of(rs.getBigDecimal("balance")).toPaise()) : null;
+            }
+        }
+    }
+
+    /**
+     * Reread the changed accounts here on the listener's thread, like {@link #loadNewAccounts},
+     * and hand the rows to the writer. Accounts the ledger does not hold are skipped.
+     */
+    private void refresh(Collection<String> accountNumbers) {
+        Map<String, AccountRow> rows = new HashMap<>();
+        for (String accountNumber : accountNumbers) {
+            if (!accounts.contains(accountNumber)) {
+                continue;
+            }
+            try {
+                // A null row means the account was deleted
+                rows.put(accountNumber, loadAccount(accountNumber));
+            } catch (SQLException e) {
+                System.err.println("Ledger could not refresh account " + accountNumber + ": " + e.getMessage());
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        AccountRefresh refresh = new AccountRefresh(rows);
+        // A status change must not be dropped, so wait for room however long it takes
+        while (running && !ring.offer(refresh)) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void writeLoop() {
+        List<Command> drained = new ArrayList<>(maxBatchSize);
+        List<TransferBatch> answered = new ArrayList<>(maxBatchSize);
+        int idle = 0;
+        while (running) {
+            if (snapshots != null && System.nanoTime() - nextSnapshotAt >= 0) {
+                takeSnapshot();
+            }
+            releaseJournal();
+            if (ring.drainTo(drained, maxBatchSize) == 0) {
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+
+            // A ledger that has failed appends nothing more, so there is nothing to flush either
+            boolean accepting = failure == null;
+            long drainStart = journal.appendPosition();
+            undo.clear();
+            for (Command command : drained) {
+                if (command instanceof TransferBatch batch) {
+                    apply(batch);
+                    answered.add(batch);
+                } else if (command instanceof AccountRefresh refresh) {
+                    reload(refresh.rows());
+                }
+            }
+
+            // One flush covers every transfer in this drain; nobody hears back before it
+            try {
+                if (accepting) {
+                    journal.force(fsync);
+                }
+                for (TransferBatch batch : answered) {
+                    batch.results().complete(batch.outcomes());
+                }
+            } catch (RuntimeException e) {
+                failure = "ledger journal could not be flushed: " + e.getMessage();
+                System.err.println("Ledger stopped accepting transfers, " + failure);
+                rollBack(drainStart);
+                for (TransferBatch batch : answered) {
+                    batch.results().completeExceptionally(new SQLException("Transaction failed: " + failure, e));
+                }
+            }
+            drained.clear();
+            answered.clear();
+        }
+    }
+
+    private void apply(TransferBatch batch) {
+        List<TransferInstruction> instructions = batch.instructions();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < instructions.size(); i++) {
+            TransferInstruction t = instructions.get(i);
+            String rejection = failure != null ? failure : validate(t);
+            if (rejection != null) {
+                batch.outcomes().add(TransferResult.failure(i, rejection));
+                continue;
+            }
+
+            int sender = slotFor(t.getSenderAccountNumber(), batch.newAccounts());
+            int receiver = slotFor(t.getReceiverAccountNumber(), batch.newAccounts());
+            rejection = check(t, sender, receiver);
+            if (rejection != null) {
+                batch.outcomes().add(TransferResult.failure(i, rejection));
+                continue;
+            }
+
+            long paise = t.getAmount().toPaise();
+            String debitId = batch.legIds()[i * 2];
+            String creditId = batch.legIds()[i * 2 + 1];
+            try {
+                journal.append(new LedgerEntry(debitId, creditId,
+                        t.getSenderAccountNumber(), accounts.accountId(sender),
+                        t.getReceiverAccountNumber(), accounts.accountId(receiver),
+                        paise, now, t.getTransactionMode(), t.getDescription()));
+            } catch (IOException e) {
+                // Nothing was applied for this one; later transfers cannot be made durable either
+                failure = "ledger journal write failed: " + e.getMessage();
+                System.err.println("Ledger stopped accepting transfers, " + failure);
+                batch.outcomes().add(TransferResult.failure(i, failure));
+                continue;
+            }
+            accounts.add(sender, -paise);
+            accounts.add(receiver, paise);
+            undo.record(sender, receiver, paise);
+
+            batch.outcomes().add(TransferResult.success(i, TransactionRepositoryImpl.buildDebitTransaction(debitId,
+                    accounts.accountId(sender), t.getAmount(), now, t.getTransactionMode(),
+                    t.getReceiverAccountNumber(), t.getSenderAccountNumber(), t.getDescription())));
+        }
+    }
+
+    /**
+     * Take back every transfer of a drain whose flush failed. None of them was published,
+     * so the projector has not seen them and no caller was told they succeeded.
+     */
+    private void rollBack(long drainStart) {
+        for (int i = undo.count - 1; i >= 0; i--) {
+            accounts.add(undo.senders[i], undo.paise[i]);
+            accounts.add(undo.receivers[i], -undo.paise[i]);
+        }
+        undo.clear();
+        try {
+            journal.truncate(drainStart);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to drop unflushed ledger journal entries after position " + drainStart
+                    + "; they may be replayed on restart: " + e.getMessage());
+        }
+    }
+
+    private static String validate(TransferInstruction t) {
+        if (t.getSenderAccountNumber() == null || t.getReceiverAccountNumber() == null)
+            return "Sender and receiver account numbers are required";
+        if (t.getAmount() == null || !t.getAmount().isPositive())
+            return "Transaction amount must be greater than zero";
+        if (t.getSenderAccountNumber().equals(t.getReceiverAccountNumber()))
+            return "Sender and receiver account numbers must be different";
+        return null;
+    }
+
+    private String check(TransferInstruction t, int sender, int receiver) {
+        if (sender < 0)
+            return "Sender account not found: " + t.getSenderAccountNumber();
+        if (receiver < 0)
+            return "Receiver account not found: " + t.getReceiverAccountNumber();
+        if (!accounts.isActive(sender))
+            return "Sender account is not active";
+        if (!accounts.isActive(receiver))
+            return "Receiver account is not active";
+        if (accounts.balance(sender) < t.getAmount().toPaise())
+            return "Insufficient balance in account " + t.getSenderAccountNumber();
+        return null;
+    }
+
+    // Accounts opened after startup arrive with the first transfer that names them, read by its caller
+    private int slotFor(String accountNumber, Map<String, AccountRow> newAccounts) {
+        int slot = accounts.slotOf(accountNumber);
+        if (slot >= 0 || newAccounts == null) {
+            return slot;
+        }
+        AccountRow row = newAccounts.get(accountNumber);
+        return row == null ? -1 : accounts.put(accountNumber, row.accountId(), row.status(), row.balancePaise());
+    }
+
+    // Replay runs before the writer starts, so it reads MySQL inline
+    private int replaySlotFor(String accountNumber) {
+        int slot = accounts.slotOf(accountNumber);
+        if (slot >= 0) {
+            return slot;
+        }
+        try {
+            AccountRow row = loadAccount(accountNumber);
+            return row == null ? -1 : accounts.put(accountNumber, row.accountId(), row.status(), row.balancePaise());
+        } catch (SQLException e) {
+            // Skipping the entry would lose it from the balances for good
+            throw new IllegalStateException("cannot load account " + accountNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Rows were read by refresh(); the writer only applies them
+    private void reload(Map<String, AccountRow> rows) {
+        for (Map.Entry<String, AccountRow> entry : rows.entrySet()) {
+            int slot = accounts.slotOf(entry.getKey());
+            if (slot < 0) {
+                continue;
+            }
+            AccountRow row = entry.getValue();
+            if (row != null) {
+                accounts.refresh(slot, row.accountId(), row.status());
+            } else {
+                accounts.remove(entry.getKey());
+                // The snapshot on disk still holds it, so replace that soon
+                removedSinceSnapshot = true;
+                nextSnapshotAt = System.nanoTime();
+            }
+        }
+    }
+
+    // Spin briefly, then park: an idle ledger costs next to no CPU, a busy one never sleeps
+    private static int idle(int idle) {
+        if (idle < SPINS_BEFORE_PARK) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return idle + 1;
+    }
+
+    private static LedgerAccounts loadAccounts() throws SQLException {
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(LOAD_ACCOUNTS_SQL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Stream rows instead of buffering the whole table in the driver
+            ps.setFetchSize(Integer.MIN_VALUE);
+            LedgerAccounts loaded = new LedgerAccounts(countAccounts());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    loaded.put(rs.getString("account_number"), rs.getString("account_id"), rs.getString("status"),
+                            Money.of(rs.getBigDecimal("balance")).toPaise());
+                }
+            }
+            return loaded;
+        }
+    }
+
+    private static int countAccounts() throws SQLException {
+        try (Connection conn = DBConfig.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Account")) {
+            return rs.next() ? (int) Math.min(Integer.MAX_VALUE / 2, rs.getLong(1)) : 0;
+        }
+    }
+
+    private long recoverFromSnapshot(LedgerSnapshot snapshot, long projected) throws SQLException, IOException {
+        if (snapshot.journalPosition() < journal.firstPosition()) {
+            // Its own newer snapshot was lost or is damaged, and the journal after this one is gone
+            System.err.println("Ledger snapshot at journal position " + snapshot.journalPosition()
+                    + " predates the journal's first segment, rebuilding from Account");
+            return -1;
+        }
+        accounts = new LedgerAccounts(snapshot);
+        long end = replayJournal(snapshot.journalPosition(), projected);
+        if (end < snapshot.journalPosition()) {
+            // Possible only if journal pages were lost without fsync; the snapshot counts entries that are gone
+            System.err.println("Ledger snapshot at journal position " + snapshot.journalPosition()
+                    + " is ahead of the intact journal (ends at " + end + "), rebuilding from Account");
+            return -1;
+        }
+        snapshotPosition = snapshot.journalPosition();
+        persistedSnapshotPosition = snapshotPosition;
+
+        // Status changes since the snapshot; the balances are already right
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(MODIFIED_SINCE_SQL)) {
+            // modified_at holds whole seconds
+            ps.setTimestamp(1, Timestamp.valueOf(snapshot.takenAt().minusSeconds(1)));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int slot = accounts.slotOf(rs.getString("account_number"));
+                    if (slot >= 0) {
+                        accounts.refresh(slot, rs.getString("account_id"), rs.getString("status"));
+                    }
+                }
+            }
+        }
+        dropDeletedAccounts();
+        return end;
+    }
+
+    // A deleted row leaves no modified_at behind, so look for the accounts that are missing
+    private void dropDeletedAccounts() throws SQLException {
+        boolean[] exists = new boolean[accounts.slotCount()];
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(ACCOUNT_NUMBERS_SQL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int slot = accounts.slotOf(rs.getString(1));
+                    if (slot >= 0 && slot < exists.length) {
+                        exists[slot] = true;
+                    }
+                }
+            }
+        }
+
+        int dropped = 0;
+        for (int slot = 0; slot < exists.length; slot++) {
+            String accountNumber = accounts.accountNumber(slot);
+            if (!exists[slot] && accountNumber != null) {
+                accounts.remove(accountNumber);
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            System.out.println(" -> Ledger dropped " + dropped + " accounts deleted since its snapshot.");
+            removedSinceSnapshot = true;
+        }
+    }
+
+    private long recoverFromDatabase(long projected) throws SQLException, IOException {
+        accounts = loadAccounts();
+        return replayJournal(projected, projected);
+    }
+
+    /**
+     * Replay the journal over freshly loaded accounts. Accounts already held reflect every
+     * entry before loadedAt. Accounts read from MySQL along the way reflect every entry the
+     * projector committed, i.e. before projected. Each is moved only by entries it has not seen.
+     */
+    private long replayJournal(long loadedAt, long projected) throws IOException {
+        int loadedSlots = accounts.slotCount();
+        long from = Math.min(loadedAt, projected);
+        long end = journal.recover(from, (entry, position) -> {
+            // Validated when it was journaled, so it is applied as is
+            int sender = replaySlotFor(entry.senderAccountNumber());
+            int receiver = replaySlotFor(entry.receiverAccountNumber());
+            if (sender < 0 || receiver < 0) {
+                // Only possible if the account was deleted since; the projector's update will match no row either
+                System.err.println("Ledger replay skipped " + entry.debitId() + ": account no longer exists");
+                return;
+            }
+            if (position >= (sender < loadedSlots ? loadedAt : projected)) {
+                accounts.add(sender, -entry.amountPaise());
+            }
+            if (position >= (receiver < loadedSlots ? loadedAt : projected)) {
+                accounts.add(receiver, entry.amountPaise());
+            }
+        });
+        if (end > from) {
+            System.out.println(" -> Ledger replayed journal positions " + from + " to " + end + ".");
+        }
+        return end;
+    }
+
+    // Recovery replays from the projector's position or the newest snapshot's, whichever is older
+    private void releaseJournal() {
+        long needed = projector.position();
+        if (snapshots != null && persistedSnapshotPosition >= 0) {
+            needed = Math.min(needed, persistedSnapshotPosition);
+        }
+        try {
+            int released = journal.release(needed);
+            if (released > 0) {
+                System.out.println(" -> Ledger released " + released + " journal segment(s) before position "
+                        + journal.firstPosition() + ".");
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to release ledger journal segments: " + e.getMessage());
+        }
+    }
+
+    private long snapshotIntervalNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(snapshots.intervalMs());
+    }
+
+    // Copy the state here, on the writer thread, and leave the file to the snapshot thread
+    private void takeSnapshot() {
+        nextSnapshotAt = System.nanoTime() + snapshotIntervalNanos();
+        long position = journal.durablePosition();
+        if (failure != null || (position == snapshotPosition && !removedSinceSnapshot)
+                || !snapshotInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        LedgerSnapshot snapshot = accounts.snapshot(journal.id(), position, LocalDateTime.now());
+        snapshotPosition = position;
+        removedSinceSnapshot = false;
+        snapshotWriter.execute(() -> {
+            try {
+                writeSnapshot(snapshot);
+            } finally {
+                snapshotInFlight.set(false);
+            }
+        });
+    }
+
+    private void writeSnapshot(LedgerSnapshot snapshot) {
+        long start = System.nanoTime();
+        try {
+            snapshots.write(snapshot);
+            persistedSnapshotPosition = snapshot.journalPosition();
+            System.out.println(" -> Ledger snapshot of " + snapshot.balances().length + " accounts at journal position "
+                    + snapshot.journalPosition() + " written in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } catch (IOException e) {
+            System.err.println("Failed to write ledger snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop taking transfers, fail any still queued, then let the projector catch up.
+     */
+    @Override
+    public void close() {
+        // A second close would write its final snapshot again, over a newer one
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        running = false;
+        if (!stopWriter()) {
+            // Draining here would make a second consumer on the ring, and the writer may still append
+            System.err.println("Ledger writer did not stop; its queue and journal are left to it");
+            projector.close();
+            return;
+        }
+
+        // The writer has exited, so it is safe to drain from here
+        List<Command> stranded = new ArrayList<>();
+        ring.drainTo(stranded, ring.capacity());
+        for (Command command : stranded) {
+            if (command instanceof TransferBatch batch) {
+                batch.results().completeExceptionally(new SQLException("Transaction failed: ledger is shut down"));
+            }
+        }
+
+        // A final snapshot makes the next start replay nothing
+        if (snapshots != null) {
+            snapshotWriter.shutdown();
+            try {
+                snapshotWriter.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure == null
+                    && (journal.durablePosition() != snapshotPosition || removedSinceSnapshot)) {
+                writeSnapshot(accounts.snapshot(journal.id(), journal.durablePosition(), LocalDateTime.now()));
+            }
+        }
+
+        projector.close();
+        closeJournal(journal);
+    }
+
+    // Wait for the writer to see running go false, then once more after waking it from a park
+    private boolean stopWriter() {
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !writer.isAlive();
+    }
+
+    private static void closeJournal(LedgerJournal journal) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close ledger journal: " + e.getMessage());
+        }
+    }
+
+    // Reads come from MySQL
+
+    @Override
+    public Transaction save(Transaction transaction) throws SQLException {
+        return delegate.save(transaction);
+    }
+
+    @Override
+    public Transaction findById(String transactionId) throws SQLException {
+        return delegate.findById(transactionId);
+    }
+
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber) throws SQLException {
+        return delegate.findByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public List<Transaction> findBySenderAccountNumber(String senderAccountNumber) throws SQLException {
+        return delegate.findBySenderAccountNumber(senderAccountNumber);
+    }
+
+    @Override
+    public List<Transaction> findByReceiverAccountNumber(String receiverAccountNumber) throws SQLException {
+        return delegate.findByReceiverAccountNumber(receiverAccountNumber);
+    }
+
+    @Override
+    public List<Transaction> findAll() throws SQLException {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void streamAll(LocalDateTime from, LocalDateTime to, RowHandler<Transaction> handler)
+            throws SQLException, IOException {
+        delegate.streamAll(from, to, handler);
+    }
+
+    @Override
+    public void streamByAccountNumber(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                      RowHandler<Transaction> handler) throws SQLException, IOException {
+        delegate.streamByAccountNumber(accountNumber, from, to, handler);
+    }
+
+    @Override
+    public Page<Transaction> findPage(KeysetCursor after, int limit) throws SQLException {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public Page<Transaction> findPageByAccountNumber(String accountNumber, KeysetCursor after, int limit)
+            throws SQLException {
+        return delegate.findPageByAccountNumber(accountNumber, after, limit);
+    }
+
+    @Override
+    public Page<Transaction> findPageWithCounterparty(String accountNumber, String counterpartyAccountNumber,
+                                                      CounterpartyDirection direction, KeysetCursor after, int limit)
+            throws SQLException {
+        return delegate.findPageWithCounterparty(accountNumber, counterpartyAccountNumber, direction, after, limit);
+    }
+
+    @Override
+    public long getNextId() throws SQLException {
+        return delegate.getNextId();
+    }
+
+    private sealed interface Command permits TransferBatch, AccountRefresh {
+    }
+
+    // outcomes is filled by the writer, then handed over through results
+    private record TransferBatch(List<TransferInstruction> instructions, String[] legIds,
+                                 Map<String, AccountRow> newAccounts,
+                                 CompletableFuture<List<TransferResult>> results,
+                                 List<TransferResult> outcomes) implements Command {
+        TransferBatch(List<TransferInstruction> instructions, String[] legIds, Map<String, AccountRow> newAccounts,
+                      CompletableFuture<List<TransferResult>> results) {
+            this(instructions, legIds, newAccounts, results, new ArrayList<>(instructions.size()));
+        }
+    }
+
+    private record AccountRow(String accountId, String status, long balancePaise) {
+    }
+
+    // Account number to its reread row, null where the account was deleted
+    private record AccountRefresh(Map<String, AccountRow> rows) implements Command {
+    }
+
+    // Transfers applied in the current drain, as slot pairs and amounts, in order
+    private static final class DrainUndo {
+        int[] senders = new int[64];
+        int[] receivers = new int[64];
+        long[] paise = new long[64];
+        int count;
+
+        void record(int sender, int receiver, long amountPaise) {
+            if (count == paise.length) {
+                senders = Arrays.copyOf(senders, count * 2);
+                receivers = Arrays.copyOf(receivers, count * 2);
+                paise = Arrays.copyOf(paise, count * 2);
+            }
+            senders[count] = sender;
+            receivers[count] = receiver;
+            paise[count] = amountPaise;
+            count++;
+        }
+
+        void clear() {
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.banking.repository;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Account state held by the in-memory ledger: balances in paise and the few fields a
+ * transfer checks, in parallel primitive arrays indexed by a slot per account number.
+ * Owned by the ledger's writer thread; only {@link #contains(String)} and
+ * {@link #currentBalance(String)} may be called from others.
+ */
+class LedgerAccounts {
+
+    // Balances are written with release and read from other threads with acquire
+    private static final VarHandle BALANCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Map<String, Integer> slots;
+    private String[] accountNumbers;
+    private String[] accountIds;
+    private boolean[] active;
+    private volatile long[] balances;
+    private int size;
+
+    LedgerAccounts(int expectedAccounts) {
+        int capacity = Math.max(16, expectedAccounts);
+        this.slots = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        this.accountNumbers = new String[capacity];
+        this.accountIds = new String[capacity];
+        this.active = new boolean[capacity];
+        this.balances = new long[capacity];
+    }
+
+    LedgerAccounts(LedgerSnapshot snapshot) {
+        this(snapshot.balances().length);
+        for (int i = 0; i < snapshot.balances().length; i++) {
+            int slot = size++;
+            slots.put(snapshot.accountNumbers()[i], slot);
+            accountNumbers[slot] = snapshot.accountNumbers()[i];
+            accountIds[slot] = snapshot.accountIds()[i];
+            active[slot] = snapshot.active()[i];
+            balances[slot] = snapshot.balances()[i];
+        }
+    }
+
+    /**
+     * Copy of every loaded account, as of the given journal position. Costs a few array
+     * copies on the writer thread; writing the copy out can then happen anywhere.
+     */
+    LedgerSnapshot snapshot(String journalId, long journalPosition, LocalDateTime takenAt) {
+        int count = slots.size();
+        String[] numbers = new String[count];
+        String[] ids = new String[count];
+        boolean[] flags = new boolean[count];
+        long[] paise = new long[count];
+        int i = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (accountNumbers[slot] != null) {
+                numbers[i] = accountNumbers[slot];
+                ids[i] = accountIds[slot];
+                flags[i] = active[slot];
+                paise[i] = balances[slot];
+                i++;
+            }
+        }
+        return new LedgerSnapshot(journalId, journalPosition, takenAt, numbers, ids, flags, paise);
+    }
+
+    /**
+     * True if the account is loaded. Safe from any thread.
+     */
+    boolean contains(String accountNumber) {
+        return slots.containsKey(accountNumber);
+    }
+
+    /**
+     * The account's balance in paise as the writer last left it, or null if it is not loaded.
+     * Safe from any thread, and possibly stale by the time it is used.
+     */
+    Long currentBalance(String accountNumber) {
+        Integer slot = slots.get(accountNumber);
+        long[] current = balances;
+        if (slot == null || slot >= current.length) {
+            return null;
+        }
+        return (long) BALANCE.getAcquire(current, (int) slot);
+    }
+
+    /**
+     * @return the account's slot, or -1 if it is not loaded
+     */
+    int slotOf(String accountNumber) {
+        Integer slot = slots.get(accountNumber);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Load an account, or overwrite everything held for it.
+     *
+     * @return its slot
+     */
+    int put(String accountNumber, String accountId, String status, long balancePaise) {
+        int slot = slotOf(accountNumber);
+        if (slot < 0) {
+            if (size == balances.length) {
+                grow();
+            }
+            slot = size++;
+            slots.put(accountNumber, slot);
+            accountNumbers[slot] = accountNumber;
+        }
+        accountIds[slot] = accountId;
+        active[slot] = "Active".equalsIgnoreCase(status);
+        BALANCE.setRelease(balances, slot, balancePaise);
+        return slot;
+    }
+
+    // Status and id only: the balance is the ledger's own
+    void refresh(int slot, String accountId, String status) {
+        accountIds[slot] = accountId;
+        active[slot] = "Active".equalsIgnoreCase(status);
+    }
+
+    void remove(String accountNumber) {
+        Integer slot = slots.remove(accountNumber);
+        if (slot != null) {
+            accountNumbers[slot] = null;
+            active[slot] = false;
+        }
+    }
+
+    String accountNumber(int slot) {
+        return accountNumbers[slot];
+    }
+
+    String accountId(int slot) {
+        return accountIds[slot];
+    }
+
+    boolean isActive(int slot) {
+        return active[slot];
+    }
+
+    long balance(int slot) {
+        return balances[slot];
+    }
+
+    void add(int slot, long deltaPaise) {
+        long[] current = balances;
+        BALANCE.setRelease(current, slot, Math.addExact(current[slot], deltaPaise));
+    }
+
+    // Accounts currently loaded
+    int size() {
+        return slots.size();
+    }
+
+    // Slots handed out so far; slots are never reused, so a new account always gets slotCount()
+    int slotCount() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = balances.length * 2;
+        accountNumbers = Arrays.copyOf(accountNumbers, capacity);
+        accountIds = Arrays.copyOf(accountIds, capacity);
+        active = Arrays.copyOf(active, capacity);
+        balances = Arrays.copyOf(balances, capacity);
+    }
+}
@@ -0,0 +1,13 @@
+package org.banking.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One applied transfer as recorded in the ledger journal: everything the projector needs
+ * to write both legs, move both balances and queue both alerts without another lookup.
+ */
+record LedgerEntry(String debitId, String creditId,
+                   String senderAccountNumber, String senderAccountId,
+                   String receiverAccountNumber, String receiverAccountId,
+                   long amountPaise, LocalDateTime time, String transactionMode, String description) {
+}
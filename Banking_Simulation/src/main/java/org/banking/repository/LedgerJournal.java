@@ -0,0 +1,447 @@
+package org.banking.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped write-ahead journal of {@link LedgerEntry} records.
+ *
+ * The journal is a small header file plus one segment file per fixed-size region, named
+ * after the header with the region index appended, each mapped whole. Positions run on
+ * across segments, so position / regionSize picks the segment. Each record is
+ * [payload length][CRC32 of payload][payload] and never spans two regions: a record that
+ * does not fit ends the region with a skip marker and starts the next one. The length is
+ * written last, so a record torn by a crash reads as the end of the journal.
+ *
+ * Segments nobody will read again, because MySQL and a snapshot both cover them, are
+ * deleted by {@link #release(long)}, so the journal does not grow forever.
+ *
+ * One writer thread appends and calls {@link #force(boolean)}; only what force has published
+ * through {@link #durablePosition()} is visible to readers such as the projector.
+ * The header carries a random journal id, so progress recorded against one file can
+ * never be applied to another.
+ */
+class LedgerJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x4C444A31; // "LDJ1"
+    // Version 1 kept every region in the header file and could not release any
+    private static final int FORMAT_VERSION = 2;
+    static final int HEADER_SIZE = 32;
+
+    private static final int RECORD_HEADER = 8;
+    private static final int SKIP_TO_NEXT_REGION = -1;
+
+    private final Path path;
+    private final int regionSize;
+    private final String id;
+    // Mapped segments by region index; changes under the map's lock
+    private final Map<Integer, MappedByteBuffer> regions = new ConcurrentHashMap<>();
+    private volatile int firstRegion;
+
+    // Writer thread only
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private long appendPosition = -1;
+    private int dirtyFromRegion;
+
+    private volatile long durablePosition;
+
+    private LedgerJournal(Path path, int regionSize, String id, int firstRegion) {
+        this.path = path;
+        this.regionSize = regionSize;
+        this.id = id;
+        this.firstRegion = firstRegion;
+        this.durablePosition = firstPosition();
+    }
+
+    /**
+     * Open the journal at path, creating it (and its directory) if it does not exist yet.
+     * An existing journal keeps the region size it was created with.
+     */
+    static LedgerJournal open(Path path, int regionSize) throws IOException {
+        if (regionSize < 64 * 1024) {
+            throw new IllegalArgumentException("regionSize must be at least 64 KB");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                UUID id = UUID.randomUUID();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(regionSize).putInt(0)
+                        .putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).flip();
+                channel.write(header, 0);
+                channel.force(true);
+                return new LedgerJournal(path, regionSize, id.toString(), 0);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a ledger journal (or an unsupported version): " + path);
+            }
+            int storedRegionSize = header.getInt();
+            header.getInt();
+            UUID id = new UUID(header.getLong(), header.getLong());
+            List<Integer> segments = segmentsOf(path);
+            return new LedgerJournal(path, storedRegionSize, id.toString(), segments.isEmpty() ? 0 : segments.get(0));
+        }
+    }
+
+    String id() {
+        return id;
+    }
+
+    /**
+     * Position of the first record of a new journal.
+     */
+    static long start() {
+        return 0;
+    }
+
+    /**
+     * Lowest position still held; everything before it was released.
+     */
+    long firstPosition() {
+        return (long) firstRegion * regionSize;
+    }
+
+    /**
+     * Hand every intact record from the given position to the consumer, along with the
+     * position it starts at, then make the end of that run the append position. Anything
+     * after it (a torn record, or pages the OS wrote out of order before a crash) is wiped.
+     * Must be called before the first append.
+     *
+     * @return the position after the last intact record
+     */
+    long recover(long from, ObjLongConsumer<LedgerEntry> consumer) throws IOException {
+        if (from < firstPosition()) {
+            throw new IOException("Cannot replay the ledger journal from position " + from
+                    + ": everything before " + firstPosition() + " was released");
+        }
+        long position = from;
+        while (true) {
+            position = skipToRecord(position, Long.MAX_VALUE);
+            long at = position;
+            long next = readRecord(position, entry -> consumer.accept(entry, at));
+            if (next < 0) {
+                break;
+            }
+            position = next;
+        }
+
+        MappedByteBuffer region = region(regionOf(position));
+        for (int i = offsetIn(position); i < regionSize; i++) {
+            region.put(i, (byte) 0);
+        }
+        region.force();
+        // Later segments hold only what a crash left behind, which must not be read as records later
+        for (int index : segmentsOf(path)) {
+            if (index > regionOf(position)) {
+                drop(index);
+            }
+        }
+
+        appendPosition = position;
+        dirtyFromRegion = regionOf(position);
+        durablePosition = position;
+        return position;
+    }
+
+    /**
+     * Write one entry. It becomes durable and visible to readers at the next force().
+     */
+    void append(LedgerEntry entry) throws IOException {
+        if (appendPosition < 0) {
+            throw new IllegalStateException("recover() must run before the first append");
+        }
+        ByteBuffer payload = encode(entry);
+        int length = payload.remaining();
+        if (RECORD_HEADER + length > regionSize) {
+            throw new IOException("Ledger entry of " + length + " bytes does not fit a journal region");
+        }
+
+        if (offsetIn(appendPosition) + RECORD_HEADER + length > regionSize) {
+            if (regionSize - offsetIn(appendPosition) >= 4) {
+                region(regionOf(appendPosition)).putInt(offsetIn(appendPosition), SKIP_TO_NEXT_REGION);
+            }
+            appendPosition = (long) (regionOf(appendPosition) + 1) * regionSize;
+        }
+
+        crc.reset();
+        crc.update(payload.duplicate());
+        MappedByteBuffer region = region(regionOf(appendPosition));
+        int offset = offsetIn(appendPosition);
+        region.putInt(offset + 4, (int) crc.getValue());
+        region.put(offset + RECORD_HEADER, payload, 0, length);
+        // Written last: until this lands the record does not exist
+        region.putInt(offset, length);
+        appendPosition += RECORD_HEADER + length;
+    }
+
+    /**
+     * Flush appended records to the device (when sync is set) and publish them to readers.
+     */
+    void force(boolean sync) {
+        if (sync) {
+            int last = regionOf(appendPosition);
+            for (int i = dirtyFromRegion; i <= last; i++) {
+                MappedByteBuffer region = regions.get(i);
+                if (region != null) {
+                    region.force();
+                }
+            }
+            dirtyFromRegion = last;
+        }
+        durablePosition = appendPosition;
+    }
+
+    long durablePosition() {
+        return durablePosition;
+    }
+
+    /**
+     * Where the next record will be written. Writer thread only.
+     */
+    long appendPosition() {
+        return appendPosition;
+    }
+
+    /**
+     * Drop every record appended at or after position, none of which force() has published,
+     * as if it had never been written. The bytes are zeroed, so dirty pages the OS writes
+     * back later hold nothing a restart would replay.
+     */
+    void truncate(long position) throws IOException {
+        if (position < durablePosition || position > appendPosition) {
+            throw new IllegalArgumentException("Cannot truncate the journal to " + position
+                    + " (published up to " + durablePosition + ", appended up to " + appendPosition + ")");
+        }
+        long at = position;
+        while (at < appendPosition) {
+            int index = regionOf(at);
+            int end = index == regionOf(appendPosition) ? offsetIn(appendPosition) : regionSize;
+            MappedByteBuffer region = region(index);
+            for (int i = offsetIn(at); i < end; i++) {
+                region.put(i, (byte) 0);
+            }
+            at = (long) (index + 1) * regionSize;
+        }
+        appendPosition = position;
+        dirtyFromRegion = Math.min(dirtyFromRegion, regionOf(position));
+    }
+
+    /**
+     * Read published records from the given position, at most max of them. Safe from any thread.
+     *
+     * @return the position after the last record read
+     */
+    long read(long from, int max, List<LedgerEntry> into) throws IOException {
+        long position = from;
+        long limit = durablePosition;
+        for (int i = 0; i < max; i++) {
+            position = skipToRecord(position, limit);
+            if (position >= limit) {
+                break;
+            }
+            long next = readRecord(position, into::add);
+            if (next < 0) {
+                throw new IOException("Ledger journal is corrupt at position " + position);
+            }
+            position = next;
+        }
+        return position;
+    }
+
+    // Follow skip markers (and region tails too short for a record) below limit
+    private long skipToRecord(long position, long limit) throws IOException {
+        while (position < limit) {
+            int offset = offsetIn(position);
+            if (offset + RECORD_HEADER <= regionSize
+                    && region(regionOf(position)).getInt(offset) != SKIP_TO_NEXT_REGION) {
+                break;
+            }
+            position = (long) (regionOf(position) + 1) * regionSize;
+        }
+        return position;
+    }
+
+    // Position after the record at position, or -1 if there is no intact record there
+    private long readRecord(long position, Consumer<LedgerEntry> consumer) throws IOException {
+        MappedByteBuffer region = region(regionOf(position));
+        int offset = offsetIn(position);
+        int length = region.getInt(offset);
+        if (length <= 0 || offset + RECORD_HEADER + length > regionSize) {
+            return -1;
+        }
+        ByteBuffer payload = region.slice(offset + RECORD_HEADER, length);
+        // Readers run beside the writer, so they keep their own checksum state
+        CRC32 check = new CRC32();
+        check.update(payload.duplicate());
+        if ((int) check.getValue() != region.getInt(offset + 4)) {
+            return -1;
+        }
+        consumer.accept(decode(payload));
+        return position + RECORD_HEADER + length;
+    }
+
+    /**
+     * Delete every segment that lies wholly before position. Nothing may read
+     * below position afterwards; the caller guarantees that. Writer thread only.
+     *
+     * @return the number of segments deleted
+     */
+    int release(long position) throws IOException {
+        // Never the segment being appended to
+        int below = Math.min(regionOf(position), regionOf(durablePosition));
+        int released = 0;
+        while (firstRegion < below) {
+            int index = firstRegion;
+            firstRegion = index + 1;
+            drop(index);
+            released++;
+        }
+        return released;
+    }
+
+    // The mapping is left to the GC, like in close(): a reader may still be inside it, and
+    // unmapping under it would crash the JVM. The file's blocks are freed once it is collected
+    private void drop(int index) throws IOException {
+        synchronized (regions) {
+            regions.remove(index);
+        }
+        Files.deleteIfExists(segment(path, index));
+    }
+
+    private MappedByteBuffer region(int index) throws IOException {
+        MappedByteBuffer region = regions.get(index);
+        if (region != null) {
+            return region;
+        }
+        synchronized (regions) {
+            if (index < firstRegion) {
+                throw new IOException("Ledger journal position " + (long) index * regionSize + " was released");
+            }
+            region = regions.get(index);
+            if (region == null) {
+                try (FileChannel channel = FileChannel.open(segment(path, index), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    // Mapping past the end grows the file; the mapping outlives the channel
+                    region = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+                }
+                regions.put(index, region);
+            }
+        }
+        return region;
+    }
+
+    private static Path segment(Path path, int index) {
+        return path.resolveSibling(path.getFileName() + "." + String.format("%010d", index));
+    }
+
+    // Region indexes of the segment files next to the header, lowest first
+    private static List<Integer> segmentsOf(Path path) throws IOException {
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(path.toAbsolutePath().getParent())) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d{10}"))
+                    .map(name -> Integer.parseInt(name.substring(prefix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private int regionOf(long position) {
+        return (int) (position / regionSize);
+    }
+
+    private int offsetIn(long position) {
+        return (int) (position % regionSize);
+    }
+
+    private ByteBuffer encode(LedgerEntry entry) {
+        scratch.clear();
+        putString(entry.debitId());
+        putString(entry.creditId());
+        putString(entry.senderAccountNumber());
+        putString(entry.senderAccountId());
+        putString(entry.receiverAccountNumber());
+        putString(entry.receiverAccountId());
+        ensureRoom(20);
+        scratch.putLong(entry.amountPaise());
+        scratch.putLong(entry.time().toEpochSecond(ZoneOffset.UTC));
+        scratch.putInt(entry.time().getNano());
+        putString(entry.transactionMode());
+        putString(entry.description());
+        return scratch.flip();
+    }
+
+    private static LedgerEntry decode(ByteBuffer in) {
+        String debitId = getString(in);
+        String creditId = getString(in);
+        String senderAccountNumber = getString(in);
+        String senderAccountId = getString(in);
+        String receiverAccountNumber = getString(in);
+        String receiverAccountId = getString(in);
+        long amountPaise = in.getLong();
+        LocalDateTime time = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        return new LedgerEntry(debitId, creditId, senderAccountNumber, senderAccountId, receiverAccountNumber,
+                receiverAccountId, amountPaise, time, getString(in), getString(in));
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensureRoom(4);
+            scratch.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRoom(4 + bytes.length);
+        scratch.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void ensureRoom(int bytes) {
+        if (scratch.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes));
+            scratch.flip();
+            bigger.put(scratch);
+            scratch = bigger;
+        }
+    }
+
+    // Mappings are left to the GC: a reader that outlived its owner may still be inside one
+    @Override
+    public void close() throws IOException {
+        regions.clear();
+    }
+}
@@ -0,0 +1,329 @@
+package org.banking.repository;
+
+import org.banking.config.DBConfig;
+import org.banking.model.Money;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Copies ledger journal entries into MySQL behind the in-memory ledger.
+ *
+ * Each batch of entries becomes one DB transaction: both legs of every transfer, their
+ * outbox alerts, one net balance update per account touched and the new journal position
+ * in ledger_projection. Since the position commits with the rows, a restart resumes
+ * exactly where the last commit stopped. A batch that fails is retried with backoff;
+ * entries simply wait in the journal until MySQL takes them.
+ *
+ * A constraint violation is different: retrying the same rows can never succeed, and one
+ * such entry (say, for an account deleted while it was in flight) would stall every entry
+ * behind it. The batch is then projected entry by entry, and any entry MySQL rejects is
+ * moved to ledger_dead_letter, in the same transaction, for someone to reconcile by hand.
+ */
+class LedgerProjector implements AutoCloseable {
+
+    private static final String APPLY_BALANCE_SQL =
+            "UPDATE Account SET balance = balance + ?, modified_at = ? WHERE account_number = ?";
+    private static final String SAVE_POSITION_SQL = "INSERT INTO ledger_projection (journal_id, position, updated_at) " +
+            "VALUES (?, ?, NOW(3)) ON DUPLICATE KEY UPDATE position = VALUES(position), updated_at = VALUES(updated_at)";
+    private static final String DEAD_LETTER_SQL = "INSERT INTO ledger_dead_letter (journal_id, debit_id, credit_id, " +
+            "sender_account_number, receiver_account_number, amount, transaction_mode, description, transaction_time, " +
+            "error) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final long MAX_BACKOFF_MS = 5000;
+    private static final long DRAIN_TIMEOUT_MS = 10000;
+
+    private final LedgerJournal journal;
+    private final AccountChangeListener accountChangeListener;
+    private final int batchSize;
+    private final long idleMs;
+    private final Thread worker;
+    private volatile long position;
+    private volatile boolean running = true;
+
+    LedgerProjector(LedgerJournal journal, long position, AccountChangeListener accountChangeListener,
+                    int batchSize, long idleMs) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.journal = journal;
+        this.position = position;
+        this.accountChangeListener = accountChangeListener;
+        this.batchSize = batchSize;
+        this.idleMs = idleMs;
+        this.worker = new Thread(this::run, "ledger-projector");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Journal position up to which MySQL is current, or the journal start if nothing was projected yet.
+     */
+    static long projectedPosition(String journalId) throws SQLException {
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT position FROM ledger_projection WHERE journal_id = ?")) {
+            ps.setString(1, journalId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : LedgerJournal.start();
+            }
+        }
+    }
+
+    long position() {
+        return position;
+    }
+
+    // Journal bytes not yet in MySQL
+    long lag() {
+        return journal.durablePosition() - position;
+    }
+
+    private void run() {
+        List<LedgerEntry> entries = new ArrayList<>(batchSize);
+        int failures = 0;
+        // After close() keep going until caught up, so a clean shutdown leaves nothing to replay
+        while (running || position < journal.durablePosition()) {
+            try {
+                long next = journal.read(position, batchSize, entries);
+                if (entries.isEmpty()) {
+                    Thread.sleep(idleMs);
+                    continue;
+                }
+                project(entries, next);
+                position = next;
+                failures = 0;
+            } catch (SQLException | IOException e) {
+                failures++;
+                System.err.println("Ledger projection at position " + position + " failed (attempt " + failures
+                        + "): " + e.getMessage());
+                if (!running) {
+                    return;
+                }
+                try {
+                    Thread.sleep(Math.min(MAX_BACKOFF_MS, 100L << Math.min(failures, 16)));
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            } finally {
+                entries.clear();
+            }
+        }
+    }
+
+    private void project(List<LedgerEntry> entries, long next) throws SQLException {
+        try {
+            projectBatch(entries, next);
+        } catch (SQLException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            System.err.println("Ledger projection at position " + position + " violates a constraint, "
+                    + "projecting its " + entries.size() + " entries one by one: " + e.getMessage());
+            projectEach(entries, next);
+        }
+    }
+
+    private void projectBatch(List<LedgerEntry> entries, long next) throws SQLException {
+        // Net movement per account, applied in account-number order like every other balance writer
+        Map<String, Long> netPaise = new TreeMap<>();
+        for (LedgerEntry e : entries) {
+            netPaise.merge(e.senderAccountNumber(), -e.amountPaise(), Long::sum);
+            netPaise.merge(e.receiverAccountNumber(), e.amountPaise(), Long::sum);
+        }
+        Timestamp modifiedAt = Timestamp.valueOf(entries.get(entries.size() - 1).time());
+
+        try (Connection conn = DBConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(APPLY_BALANCE_SQL)) {
+                    for (Map.Entry<String, Long> account : netPaise.entrySet()) {
+                        ps.setBigDecimal(1, Money.ofPaise(account.getValue()).toBigDecimal());
+                        ps.setTimestamp(2, modifiedAt);
+                        ps.setString(3, account.getKey());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+
+                try (PreparedStatement ps = conn.prepareStatement(TransactionRepositoryImpl.INSERT_LEG_SQL)) {
+                    for (LedgerEntry e : entries) {
+                        Money amount = Money.ofPaise(e.amountPaise());
+                        Timestamp time = Timestamp.valueOf(e.time());
+                        TransactionRepositoryImpl.bindLeg(ps, e.debitId(), e.senderAccountId(), e.senderAccountNumber(),
+                                amount, "DEBITED", time, e.transactionMode(), e.receiverAccountNumber(),
+                                e.senderAccountNumber(), e.description());
+                        ps.addBatch();
+                        TransactionRepositoryImpl.bindLeg(ps, e.creditId(), e.receiverAccountId(), e.receiverAccountNumber(),
+                                amount, "CREDITED", time, e.transactionMode(), e.receiverAccountNumber(),
+                                e.senderAccountNumber(), e.description());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+
+                if (TransactionRepositoryImpl.WRITE_OUTBOX) {
+                    try (PreparedStatement ps = conn.prepareStatement(NotificationOutboxRepositoryImpl.INSERT_ALERT_SQL)) {
+                        for (LedgerEntry e : entries) {
+                            TransactionRepositoryImpl.addAlerts(ps, e.debitId(), e.creditId(), e.senderAccountNumber(),
+                                    e.receiverAccountNumber(), Money.ofPaise(e.amountPaise()), e.transactionMode(),
+                                    e.description(), Timestamp.valueOf(e.time()));
+                        }
+                        ps.executeBatch();
+                    }
+                }
+
+                savePosition(conn, next);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        accountChangeListener.accountsChanged(netPaise.keySet());
+    }
+
+    // Each entry behind a savepoint, so a rejected one is undone alone and dead-lettered
+    private void projectEach(List<LedgerEntry> entries, long next) throws SQLException {
+        Set<String> changed = new TreeSet<>();
+        try (Connection conn = DBConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement balances = conn.prepareStatement(APPLY_BALANCE_SQL);
+                 PreparedStatement legs = conn.prepareStatement(TransactionRepositoryImpl.INSERT_LEG_SQL);
+                 PreparedStatement alerts = TransactionRepositoryImpl.WRITE_OUTBOX
+                         ? conn.prepareStatement(NotificationOutboxRepositoryImpl.INSERT_ALERT_SQL) : null;
+                 PreparedStatement deadLetters = conn.prepareStatement(DEAD_LETTER_SQL)) {
+                for (LedgerEntry e : entries) {
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        projectEntry(e, balances, legs, alerts);
+                        changed.add(e.senderAccountNumber());
+                        changed.add(e.receiverAccountNumber());
+                    } catch (SQLException ex) {
+                        if (!isConstraintViolation(ex)) {
+                            throw ex;
+                        }
+                        conn.rollback(savepoint);
+                        deadLetter(deadLetters, e, ex.getMessage());
+                        System.err.println("Ledger entry " + e.debitId() + " (" + e.senderAccountNumber() + " -> "
+                                + e.receiverAccountNumber() + ") moved to ledger_dead_letter: " + ex.getMessage());
+                    }
+                }
+                savePosition(conn, next);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        accountChangeListener.accountsChanged(changed);
+    }
+
+    private static void projectEntry(LedgerEntry e, PreparedStatement balances, PreparedStatement legs,
+                                     PreparedStatement alerts) throws SQLException {
+        Money amount = Money.ofPaise(e.amountPaise());
+        Timestamp time = Timestamp.valueOf(e.time());
+        // An account that is gone would silently drop its side of the transfer
+        if (applyBalance(balances, e.senderAccountNumber(), Money.ofPaise(-e.amountPaise()), time) == 0
+                || applyBalance(balances, e.receiverAccountNumber(), amount, time) == 0) {
+            throw new SQLIntegrityConstraintViolationException("Account no longer exists", "23000");
+        }
+
+        TransactionRepositoryImpl.bindLeg(legs, e.debitId(), e.senderAccountId(), e.senderAccountNumber(),
+                amount, "DEBITED", time, e.transactionMode(), e.receiverAccountNumber(),
+                e.senderAccountNumber(), e.description());
+        legs.executeUpdate();
+        TransactionRepositoryImpl.bindLeg(legs, e.creditId(), e.receiverAccountId(), e.receiverAccountNumber(),
+                amount, "CREDITED", time, e.transactionMode(), e.receiverAccountNumber(),
+                e.senderAccountNumber(), e.description());
+        legs.executeUpdate();
+
+        if (alerts != null) {
+            alerts.clearBatch();
+            TransactionRepositoryImpl.addAlerts(alerts, e.debitId(), e.creditId(), e.senderAccountNumber(),
+                    e.receiverAccountNumber(), amount, e.transactionMode(), e.description(), time);
+            alerts.executeBatch();
+        }
+    }
+
+    private static int applyBalance(PreparedStatement ps, String accountNumber, Money delta, Timestamp modifiedAt)
+            throws SQLException {
+        ps.setBigDecimal(1, delta.toBigDecimal());
+        ps.setTimestamp(2, modifiedAt);
+        ps.setString(3, accountNumber);
+        return ps.executeUpdate();
+    }
+
+    private void deadLetter(PreparedStatement ps, LedgerEntry e, String error) throws SQLException {
+        ps.setString(1, journal.id());
+        ps.setString(2, e.debitId());
+        ps.setString(3, e.creditId());
+        ps.setString(4, e.senderAccountNumber());
+        ps.setString(5, e.receiverAccountNumber());
+        ps.setBigDecimal(6, Money.ofPaise(e.amountPaise()).toBigDecimal());
+        ps.setString(7, e.transactionMode());
+        ps.setString(8, e.description());
+        ps.setTimestamp(9, Timestamp.valueOf(e.time()));
+        ps.setString(10, error == null || error.length() <= 255 ? error : error.substring(0, 255));
+        ps.executeUpdate();
+    }
+
+    private void savePosition(Connection conn, long next) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SAVE_POSITION_SQL)) {
+            ps.setString(1, journal.id());
+            ps.setLong(2, next);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Integrity violations (SQLState class 23): the same rows will be rejected every time.
+     */
+    static boolean isConstraintViolation(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLIntegrityConstraintViolationException
+                    || t instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stop once everything the journal has published is in MySQL, waiting at most a few seconds.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            worker.join(DRAIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            System.err.println("Ledger projector stopped " + lag() + " journal bytes behind; they are replayed on restart");
+            worker.interrupt();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.banking.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Every account the in-memory ledger holds, as of one journal position. The arrays are
+ * parallel, one element per account.
+ *
+ * @param journalPosition every journal entry before it is reflected in the balances
+ * @param takenAt         wall-clock time of the copy, compared with Account.modified_at
+ */
+record LedgerSnapshot(String journalId, long journalPosition, LocalDateTime takenAt,
+                      String[] accountNumbers, String[] accountIds, boolean[] active, long[] balances) {
+}
@@ -0,0 +1,192 @@
+package org.banking.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Ledger snapshots on local disk, one file per snapshot named after its journal position.
+ *
+ * A file is the snapshot header, one record per account and a CRC32 of everything before
+ * it. Files are written under a temporary name, flushed to the device and renamed, so a
+ * crash mid-write leaves the previous snapshot intact. Loading maps the file read-only and
+ * checks the CRC before trusting a single balance. The newest few files are kept.
+ */
+class LedgerSnapshotStore {
+
+    private static final int MAGIC = 0x4C534E31; // "LSN1"
+    private static final int FORMAT_VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int retain;
+    private final long intervalMs;
+
+    LedgerSnapshotStore(Path directory, int retain, long intervalMs) {
+        if (retain < 1) {
+            throw new IllegalArgumentException("retain must be at least 1");
+        }
+        this.directory = directory;
+        this.retain = retain;
+        this.intervalMs = intervalMs;
+    }
+
+    // How often the ledger writes one while anything is changing
+    long intervalMs() {
+        return intervalMs;
+    }
+
+    void write(LedgerSnapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, snapshot.journalPosition(), SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(file, 256 * 1024), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, snapshot.journalId());
+            out.writeLong(snapshot.journalPosition());
+            out.writeLong(snapshot.takenAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(snapshot.takenAt().getNano());
+            out.writeInt(snapshot.balances().length);
+            for (int i = 0; i < snapshot.balances().length; i++) {
+                writeString(out, snapshot.accountNumbers()[i]);
+                writeString(out, snapshot.accountIds()[i]);
+                out.writeBoolean(snapshot.active()[i]);
+                out.writeLong(snapshot.balances()[i]);
+            }
+            out.flush();
+            // The checksum itself is not part of what it covers
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prune();
+    }
+
+    /**
+     * The newest intact snapshot taken from the given journal, or null if there is none.
+     */
+    LedgerSnapshot loadLatest(String journalId) {
+        List<Path> files;
+        try {
+            files = list();
+        } catch (IOException e) {
+            System.err.println("Cannot list ledger snapshots in " + directory + ": " + e.getMessage());
+            return null;
+        }
+        for (int i = files.size() - 1; i >= 0; i--) {
+            Path file = files.get(i);
+            try {
+                LedgerSnapshot snapshot = read(file);
+                if (journalId.equals(snapshot.journalId())) {
+                    return snapshot;
+                }
+                System.err.println("Ignoring ledger snapshot " + file.getFileName() + ": taken from another journal");
+            } catch (IOException e) {
+                System.err.println("Ignoring ledger snapshot " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static LedgerSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 8 || size > Integer.MAX_VALUE) {
+                throw new IOException("unexpected size " + size);
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int body = (int) size - 4;
+            CRC32 crc = new CRC32();
+            crc.update(in.slice(0, body));
+            if ((int) crc.getValue() != in.getInt(body)) {
+                throw new IOException("checksum mismatch");
+            }
+
+            ByteBuffer records = in.slice(0, body);
+            if (records.getInt() != MAGIC || records.getInt() != FORMAT_VERSION) {
+                throw new IOException("not a ledger snapshot, or an unsupported version");
+            }
+            String journalId = readString(records);
+            long position = records.getLong();
+            LocalDateTime takenAt = LocalDateTime.ofEpochSecond(records.getLong(), records.getInt(), ZoneOffset.UTC);
+            int count = records.getInt();
+            String[] numbers = new String[count];
+            String[] ids = new String[count];
+            boolean[] active = new boolean[count];
+            long[] balances = new long[count];
+            for (int i = 0; i < count; i++) {
+                numbers[i] = readString(records);
+                ids[i] = readString(records);
+                active[i] = records.get() != 0;
+                balances[i] = records.getLong();
+            }
+            return new LedgerSnapshot(journalId, position, takenAt, numbers, ids, active, balances);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("truncated or malformed", e);
+        }
+    }
+
+    // Oldest first; the zero-padded position in the name makes that plain name order
+    private List<Path> list() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private void prune() throws IOException {
+        List<Path> files = list();
+        for (int i = 0; i < files.size() - retain; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,18 @@
+package org.banking.repository;
+
+import org.banking.model.OutboxMessage;
+import java.sql.SQLException;
+import java.util.List;
+
+public interface NotificationOutboxRepository {
+
+    // Claim up to limit due messages for this node; they stay leased for leaseMs under the lockedBy they carry
+    List<OutboxMessage> claimBatch(int limit, long leaseMs) throws SQLException;
+
+    // Only rows still leased to lockedBy are settled; returns how many were
+    int markSent(String lockedBy, List<Long> outboxIds) throws SQLException;
+
+    // Release for another attempt after retryDelayMs, or park as FAILED when giveUp is set; false if the lease was lost
+    boolean markFailed(long outboxId, String lockedBy, String error, long retryDelayMs, boolean giveUp)
+            throws SQLException;
+}
@@ -0,0 +1,171 @@
+package org.banking.repository;
+
+import org.banking.config.AppConfig;
+import org.banking.config.DBConfig;
+import org.banking.model.Money;
+import org.banking.model.OutboxMessage;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC access to notification_outbox.
+ *
+ * Rows are written by the transfer transaction itself (see {@link #bindAlert}), so an
+ * alert exists if and only if its transfer committed. Dispatchers on any node claim
+ * due rows with FOR UPDATE SKIP LOCKED, which lets them share the table without
+ * blocking on each other, and lease them as IN_FLIGHT under a fresh locked_by. A node
+ * that dies mid-send simply lets its lease expire and another node picks the rows up
+ * again, so delivery is at-least-once. Rows are only settled by the claim still
+ * holding them: a stalled dispatcher that wakes up after its lease expired cannot mark
+ * SENT (or back to PENDING) an alert another node has taken over.
+ */
+public class NotificationOutboxRepositoryImpl implements NotificationOutboxRepository {
+
+    static final String INSERT_ALERT_SQL = "INSERT INTO notification_outbox (event_type, transaction_id, " +
+            "account_number, counterparty_account_number, amount, transaction_mode, description, " +
+            "transaction_time, status, available_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'PENDING', NOW(3))";
+
+    private static final String CLAIM_SQL = "SELECT o.*, rc.email AS recipient_email, rc.name AS recipient_name, " +
+            "cc.name AS counterparty_name " +
+            "FROM notification_outbox o " +
+            "LEFT JOIN Account ra ON ra.account_number = o.account_number " +
+            "LEFT JOIN Customer rc ON rc.customer_id = ra.customer_id " +
+            "LEFT JOIN Account ca ON ca.account_number = o.counterparty_account_number " +
+            "LEFT JOIN Customer cc ON cc.customer_id = ca.customer_id " +
+            "WHERE o.status IN ('PENDING', 'IN_FLIGHT') AND o.available_at <= NOW(3) " +
+            "ORDER BY o.available_at LIMIT ? " +
+            "FOR UPDATE OF o SKIP LOCKED";
+
+    public static boolean isEnabled() {
+        return AppConfig.getBoolean("notification.outbox.enabled", true);
+    }
+
+    /**
+     * Bind one alert row on a statement prepared from INSERT_ALERT_SQL. Callers add it
+     * to the batch of their own transfer transaction.
+     */
+    static void bindAlert(PreparedStatement ps, String eventType, String transactionId, String accountNumber,
+                          String counterpartyAccountNumber, Money amount, String transactionMode,
+                          String description, Timestamp transactionTime) throws SQLException {
+        ps.setString(1, eventType);
+        ps.setString(2, transactionId);
+        ps.setString(3, accountNumber);
+        ps.setString(4, counterpartyAccountNumber);
+        ps.setBigDecimal(5, amount.toBigDecimal());
+        ps.setString(6, transactionMode);
+        ps.setString(7, description);
+        ps.setTimestamp(8, transactionTime);
+    }
+
+    @Override
+    public List<OutboxMessage> claimBatch(int limit, long leaseMs) throws SQLException {
+        try (Connection conn = DBConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<OutboxMessage> claimed = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(CLAIM_SQL)) {
+                    ps.setInt(1, limit);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            claimed.add(mapResultSetToOutboxMessage(rs));
+                        }
+                    }
+                }
+
+                if (!claimed.isEmpty()) {
+                    String lease = UUID.randomUUID().toString();
+                    String sql = "UPDATE notification_outbox SET status = 'IN_FLIGHT', attempts = attempts + 1, " +
+                            "locked_by = ?, available_at = TIMESTAMPADD(MICROSECOND, ?, NOW(3)) WHERE outbox_id IN (" +
+                            placeholders(claimed.size()) + ")";
+                    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                        ps.setString(1, lease);
+                        ps.setLong(2, leaseMs * 1000);
+                        for (int i = 0; i < claimed.size(); i++) {
+                            ps.setLong(i + 3, claimed.get(i).getOutboxId());
+                        }
+                        ps.executeUpdate();
+                    }
+                    for (OutboxMessage message : claimed) {
+                        message.setAttempts(message.getAttempts() + 1);
+                        message.setLockedBy(lease);
+                    }
+                }
+
+                conn.commit();
+                return claimed;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public int markSent(String lockedBy, List<Long> outboxIds) throws SQLException {
+        if (outboxIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE notification_outbox SET status = 'SENT', sent_at = NOW(3), last_error = NULL " +
+                "WHERE outbox_id IN (" + placeholders(outboxIds.size()) + ") " +
+                "AND status = 'IN_FLIGHT' AND locked_by = ?";
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < outboxIds.size(); i++) {
+                ps.setLong(i + 1, outboxIds.get(i));
+            }
+            ps.setString(outboxIds.size() + 1, lockedBy);
+            return ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public boolean markFailed(long outboxId, String lockedBy, String error, long retryDelayMs, boolean giveUp)
+            throws SQLException {
+        String sql = "UPDATE notification_outbox SET status = ?, last_error = ?, " +
+                "available_at = TIMESTAMPADD(MICROSECOND, ?, NOW(3)) " +
+                "WHERE outbox_id = ? AND status = 'IN_FLIGHT' AND locked_by = ?";
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, giveUp ? "FAILED" : "PENDING");
+            ps.setString(2, error != null && error.length() > 255 ? error.substring(0, 255) : error);
+            ps.setLong(3, retryDelayMs * 1000);
+            ps.setLong(4, outboxId);
+            ps.setString(5, lockedBy);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private OutboxMessage mapResultSetToOutboxMessage(ResultSet rs) throws SQLException {
+        OutboxMessage message = new OutboxMessage();
+        message.setOutboxId(rs.getLong("outbox_id"));
+        message.setEventType(rs.getString("event_type"));
+        message.setTransactionId(rs.getString("transaction_id"));
+        message.setAccountNumber(rs.getString("account_number"));
+        message.setCounterpartyAccountNumber(rs.getString("counterparty_account_number"));
+        message.setAmount(Money.of(rs.getBigDecimal("amount")));
+        message.setTransactionMode(rs.getString("transaction_mode"));
+        message.setDescription(rs.getString("description"));
+
+        Timestamp transactionTime = rs.getTimestamp("transaction_time");
+        if (transactionTime != null) {
+            message.setTransactionTime(transactionTime.toLocalDateTime());
+        }
+
+        message.setAttempts(rs.getInt("attempts"));
+        message.setRecipientEmail(rs.getString("recipient_email"));
+        message.setRecipientName(rs.getString("recipient_name"));
+        message.setCounterpartyName(rs.getString("counterparty_name"));
+        return message;
+    }
+}
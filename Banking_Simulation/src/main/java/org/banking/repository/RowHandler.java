@@ -0,0 +1,11 @@
+package org.banking.repository;
+
+import java.io.IOException;
+
+/**
+ * Receives rows one at a time from a streaming read, typically to write them straight out.
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+    void handle(T row) throws IOException;
+}
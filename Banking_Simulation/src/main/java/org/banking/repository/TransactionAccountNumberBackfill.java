@@ -0,0 +1,141 @@
+package org.banking.repository;
+
+import org.banking.config.AppConfig;
+import org.banking.config.DBConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Background job that fills Transactions.account_number for rows written before the column
+ * existed (migration V4).
+ *
+ * It walks the primary key in chunks, each one a short autocommitted UPDATE ... JOIN Account,
+ * and pauses between chunks so transfers are not starved of locks. Until a pass finds no
+ * NULLs left, history reads keep resolving the account through Account.account_id, so
+ * results are complete while the backfill is still running.
+ */
+public class TransactionAccountNumberBackfill implements AutoCloseable {
+
+    private static final String NEXT_CHUNK_END_SQL = "SELECT MAX(transaction_id) FROM (" +
+            "SELECT transaction_id FROM Transactions WHERE transaction_id > ? ORDER BY transaction_id LIMIT ?) chunk";
+    private static final String FILL_CHUNK_SQL = "UPDATE Transactions t JOIN Account a ON a.account_id = t.account_id " +
+            "SET t.account_number = a.account_number " +
+            "WHERE t.transaction_id > ? AND t.transaction_id <= ? AND t.account_number IS NULL";
+    private static final String ANY_MISSING_SQL = "SELECT 1 FROM Transactions WHERE account_number IS NULL LIMIT 1";
+
+    // Rows written by an older build during the walk get another pass; orphans would never fill
+    private static final int MAX_PASSES = 3;
+
+    private static volatile TransactionAccountNumberBackfill shared;
+    private static volatile boolean complete;
+
+    private final int chunkSize;
+    private final long pauseMs;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public TransactionAccountNumberBackfill(int chunkSize, long pauseMs) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.worker = new Thread(this::run, "transaction-account-number-backfill");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Start the process-wide backfill from transaction.backfill.* properties. No-op if already running.
+     */
+    public static synchronized TransactionAccountNumberBackfill startShared() {
+        if (shared == null) {
+            shared = new TransactionAccountNumberBackfill(
+                    AppConfig.getInt("transaction.backfill.chunkSize", 1000),
+                    AppConfig.getLong("transaction.backfill.pauseMs", 50));
+        }
+        return shared;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * True once every Transactions row is known to carry its account_number.
+     */
+    public static boolean isComplete() {
+        return complete;
+    }
+
+    private void run() {
+        try {
+            for (int pass = 1; running; pass++) {
+                if (!anyMissing()) {
+                    complete = true;
+                    System.out.println("Transactions.account_number backfill complete.");
+                    return;
+                }
+                if (pass > MAX_PASSES) {
+                    System.err.println("Transactions.account_number still has unfilled rows; " +
+                            "history reads keep resolving accounts through Account");
+                    return;
+                }
+                long filled = fillAll();
+                System.out.println("Transactions.account_number backfill pass " + pass + ": " + filled + " rows filled.");
+            }
+        } catch (SQLException e) {
+            System.err.println("Transactions.account_number backfill stopped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long fillAll() throws SQLException, InterruptedException {
+        long filled = 0;
+        String lastId = "";
+        while (running) {
+            try (Connection conn = DBConfig.getConnection()) {
+                String chunkEnd;
+                try (PreparedStatement ps = conn.prepareStatement(NEXT_CHUNK_END_SQL)) {
+                    ps.setString(1, lastId);
+                    ps.setInt(2, chunkSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        chunkEnd = rs.next() ? rs.getString(1) : null;
+                    }
+                }
+                if (chunkEnd == null) {
+                    break;
+                }
+                try (PreparedStatement ps = conn.prepareStatement(FILL_CHUNK_SQL)) {
+                    ps.setString(1, lastId);
+                    ps.setString(2, chunkEnd);
+                    filled += ps.executeUpdate();
+                }
+                lastId = chunkEnd;
+            }
+            Thread.sleep(pauseMs);
+        }
+        return filled;
+    }
+
+    private static boolean anyMissing() throws SQLException {
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(ANY_MISSING_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+}
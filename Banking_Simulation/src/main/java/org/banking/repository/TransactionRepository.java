@@ -1,8 +1,16 @@
 package org.banking.repository;
 
 import org.banking.model.Account;
+import org.banking.model.CounterpartyDirection;
+import org.banking.model.Money;
+import org.banking.model.Page;
 import org.banking.model.Transaction;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.banking.util.KeysetCursor;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionRepository {
@@ -12,11 +20,36 @@ public interface TransactionRepository {
     List<Transaction> findBySenderAccountNumber(String senderAccountNumber) throws SQLException;
     List<Transaction> findByReceiverAccountNumber(String receiverAccountNumber) throws SQLException;
     List<Transaction> findAll() throws SQLException;
-    int getNextId() throws SQLException;
+
+    // Newest first, handed over row by row as MySQL streams them; nothing is buffered.
+    // from is inclusive, to exclusive; either may be null.
+    void streamAll(LocalDateTime from, LocalDateTime to, RowHandler<Transaction> handler)
+            throws SQLException, IOException;
+    void streamByAccountNumber(String accountNumber, LocalDateTime from, LocalDateTime to,
+                               RowHandler<Transaction> handler) throws SQLException, IOException;
+
+    // Newest first, seeking past the cursor on (transaction_time, transaction_id); null cursor = first page
+    Page<Transaction> findPage(KeysetCursor after, int limit) throws SQLException;
+    Page<Transaction> findPageByAccountNumber(String accountNumber, KeysetCursor after, int limit) throws SQLException;
+
+    // accountNumber's own legs of its transfers with the counterparty, same order and cursor as above
+    Page<Transaction> findPageWithCounterparty(String accountNumber, String counterpartyAccountNumber,
+                                               CounterpartyDirection direction, KeysetCursor after, int limit)
+            throws SQLException;
+    long getNextId() throws SQLException;
 
     // Process complete money transfer with database transaction
     Transaction processMoneyTransfer(String senderAccountNumber, String receiverAccountNumber,
                                      Account senderAccount, Account receiverAccount,
-                                     Double amount, String transactionMode, String description
+                                     Money amount, String transactionMode, String description
                                      ) throws SQLException;
+
+    // Apply several transfers in one database transaction; results are in instruction order
+    List<TransferResult> processMoneyTransfers(List<TransferInstruction> instructions) throws SQLException;
+
+    // The balance transfers are checked against, when this repository holds balances itself and
+    // Account may trail them; null means Account's balance is the one to use
+    default Money heldBalance(String accountNumber) {
+        return null;
+    }
 }
\ No newline at end of file
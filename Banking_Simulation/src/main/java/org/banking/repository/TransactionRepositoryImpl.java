@@ -1,33 +1,95 @@
 package org.banking.repository;
 
+import org.banking.config.AppConfig;
 import org.banking.config.DBConfig;
+import org.banking.config.IdAllocator;
 import org.banking.model.Account;
+import org.banking.model.CounterpartyDirection;
+import org.banking.model.Money;
+import org.banking.model.OutboxMessage;
+import org.banking.model.Page;
 import org.banking.model.Transaction;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.banking.util.KeysetCursor;
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
 public class TransactionRepositoryImpl implements TransactionRepository {
 
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+    private static final int MAX_TRANSFER_ATTEMPTS = AppConfig.getInt("transfer.retry.maxAttempts", 5);
+    private static final long RETRY_BASE_BACKOFF_MS = AppConfig.getLong("transfer.retry.baseBackoffMs", 10);
+    private static final long RETRY_MAX_BACKOFF_MS = AppConfig.getLong("transfer.retry.maxBackoffMs", 200);
+
+    // Alerts are written with the ledger rows so they commit or roll back together
+    static final boolean WRITE_OUTBOX = NotificationOutboxRepositoryImpl.isEnabled();
+
+    private static final String LOCK_ACCOUNT_SQL =
+            "SELECT account_id, status, balance FROM Account WHERE account_number = ? FOR UPDATE";
+    // Credits to a hot account go to its balance slots, so its row is only held shared; see executeTransfer
+    private static final String SHARE_LOCK_ACCOUNT_SQL =
+            "SELECT account_id, status, balance FROM Account WHERE account_number = ? FOR SHARE";
+    private static final String DEBIT_SQL =
+            "UPDATE Account SET balance = balance - ?, modified_at = ? WHERE account_number = ? AND balance >= ?";
+    private static final String CREDIT_SQL =
+            "UPDATE Account SET balance = balance + ?, modified_at = ? WHERE account_number = ?";
+    // The batch path's one update per account: its net movement over every accepted transfer
+    private static final String APPLY_NET_SQL =
+            "UPDATE Account SET balance = balance + ?, modified_at = ? WHERE account_number = ? AND balance + ? >= 0";
+    static final String INSERT_LEG_SQL = "INSERT INTO Transactions (transaction_id, account_id, transaction_amount, " +
+            "transaction_type, transaction_time, transaction_mode, receiver_account_number, sender_account_number, description, " +
+            "account_number) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Rows strictly after the cursor in (transaction_time DESC, transaction_id DESC) order
+    private static final String TRANSACTION_SEEK =
+            "(t.transaction_time < ? OR (t.transaction_time = ? AND t.transaction_id < ?))";
+
+    private final AccountChangeListener accountChangeListener;
+
+    public TransactionRepositoryImpl() {
+        this(AccountChangeListener.NONE);
+    }
+
+    // The listener hears about every committed balance change, e.g. to drop cached accounts
+    public TransactionRepositoryImpl(AccountChangeListener accountChangeListener) {
+        this.accountChangeListener = accountChangeListener;
+    }
+
     @Override
     public Transaction save(Transaction transaction) throws SQLException {
         String sql = "INSERT INTO Transactions (transaction_id, account_id, transaction_amount, " +
-                "transaction_type, transaction_time, transaction_mode, receiver_account_number, sender_account_number,description) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                "transaction_type, transaction_time, transaction_mode, receiver_account_number, sender_account_number,description, " +
+                "account_number) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, (SELECT account_number FROM Account WHERE account_id = ?))";
 
         try (Connection conn = DBConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, transaction.getTransactionId());
             ps.setString(2, transaction.getAccountId());
-            ps.setDouble(3, transaction.getTransactionAmount());
+            ps.setBigDecimal(3, transaction.getTransactionAmount().toBigDecimal());
             ps.setString(4, transaction.getTransactionType());
             ps.setTimestamp(5, Timestamp.valueOf(transaction.getTransactionTime()));
             ps.setString(6, transaction.getTransactionMode());
             ps.setString(7, transaction.getReceiverAccountNumber());
             ps.setString(8, transaction.getSenderAccountNumber());
             ps.setString(9,transaction.getDescription());
+            ps.setString(10, transaction.getAccountId());
 
             int rows = ps.executeUpdate();
             if (rows > 0) {
@@ -57,8 +119,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     @Override
     public List<Transaction> findByAccountNumber(String accountNumber) throws SQLException {
         String sql = "SELECT t.* FROM Transactions t " +
-                "JOIN Account a ON t.account_id = a.account_id " +
-                "WHERE a.account_number = ? " +
+                "WHERE " + ownedBy() + " " +
                 "ORDER BY t.transaction_time DESC";
 
         List<Transaction> transactions = new ArrayList<>();
@@ -79,8 +140,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     @Override
     public List<Transaction> findBySenderAccountNumber(String senderAccountNumber) throws SQLException {
         String sql = "SELECT t.* FROM Transactions t " +
-                "JOIN Account a ON t.account_id = a.account_id " +
-                "WHERE a.account_number = ? AND t.transaction_type = 'DEBITED' " +
+                "WHERE " + ownedBy() + " AND t.transaction_type = 'DEBITED' " +
                 "ORDER BY t.transaction_time DESC";
 
         List<Transaction> transactions = new ArrayList<>();
@@ -101,7 +161,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     @Override
     public List<Transaction> findByReceiverAccountNumber(String receiverAccountNumber) throws SQLException {
         String sql = "SELECT t.* FROM Transactions t " +
-                "WHERE t.receiver_details LIKE ? AND t.transaction_type = 'CREDITED' " +
+                "WHERE t.receiver_account_number = ? AND t.transaction_type = 'CREDITED' " +
                 "ORDER BY t.transaction_time DESC";
 
         List<Transaction> transactions = new ArrayList<>();
@@ -109,7 +169,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
         try (Connection conn = DBConfig.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setString(1, "%" + receiverAccountNumber + "%");
+            ps.setString(1, receiverAccountNumber);
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
@@ -136,138 +196,644 @@ public class TransactionRepositoryImpl implements TransactionRepository {
     }
 
     @Override
-    public int getNextId() throws SQLException {
-        return DBConfig.getNextId("Transactions", "transaction_id", "TXN_");
+    public void streamAll(LocalDateTime from, LocalDateTime to, RowHandler<Transaction> handler)
+            throws SQLException, IOException {
+        // Same order as the idx_txn_time_id index, so rows flow without a filesort first
+        String sql = "SELECT * FROM Transactions t WHERE 1 = 1" + timeRange(from, to) +
+                " ORDER BY t.transaction_time DESC, t.transaction_id DESC";
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = streamingStatement(conn, sql)) {
+
+            bindTimeRange(ps, 1, from, to);
+            stream(ps, handler);
+        }
+    }
+
+    @Override
+    public void streamByAccountNumber(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                      RowHandler<Transaction> handler) throws SQLException, IOException {
+        String sql = "SELECT t.* FROM Transactions t " +
+                "WHERE " + ownedBy() + timeRange(from, to) +
+                " ORDER BY t.transaction_time DESC, t.transaction_id DESC";
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = streamingStatement(conn, sql)) {
+
+            ps.setString(1, accountNumber);
+            bindTimeRange(ps, 2, from, to);
+            stream(ps, handler);
+        }
+    }
+
+    /**
+     * Rows belonging to the account number bound at this position. Reads the denormalised
+     * column once the backfill has filled it for every row; until then the account id is
+     * looked up so rows written before the column existed are not missed.
+     */
+    private static String ownedBy() {
+        return TransactionAccountNumberBackfill.isComplete()
+                ? "t.account_number = ?"
+                : "t.account_id = (SELECT account_id FROM Account WHERE account_number = ?)";
+    }
+
+    // Connector/J streams rows one at a time instead of buffering the whole result
+    private static PreparedStatement streamingStatement(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(Integer.MIN_VALUE);
+        return ps;
+    }
+
+    private void stream(PreparedStatement ps, RowHandler<Transaction> handler) throws SQLException, IOException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                handler.handle(mapResultSetToTransaction(rs));
+            }
+        }
+    }
+
+    private static String timeRange(LocalDateTime from, LocalDateTime to) {
+        return (from == null ? "" : " AND t.transaction_time >= ?") + (to == null ? "" : " AND t.transaction_time < ?");
+    }
+
+    private static void bindTimeRange(PreparedStatement ps, int index, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+        if (from != null) {
+            ps.setTimestamp(index++, Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(to));
+        }
+    }
+
+    @Override
+    public Page<Transaction> findPage(KeysetCursor after, int limit) throws SQLException {
+        String sql = "SELECT * FROM Transactions t " +
+                (after == null ? "" : "WHERE " + TRANSACTION_SEEK + " ") +
+                "ORDER BY t.transaction_time DESC, t.transaction_id DESC LIMIT ?";
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                index = bindSeek(ps, index, after);
+            }
+            ps.setInt(index, limit + 1);
+            return readPage(ps, limit);
+        }
+    }
+
+    @Override
+    public Page<Transaction> findPageByAccountNumber(String accountNumber, KeysetCursor after, int limit)
+            throws SQLException {
+        String sql = "SELECT t.* FROM Transactions t " +
+                "WHERE " + ownedBy() + " " +
+                (after == null ? "" : "AND " + TRANSACTION_SEEK + " ") +
+                "ORDER BY t.transaction_time DESC, t.transaction_id DESC LIMIT ?";
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, accountNumber);
+            int index = 2;
+            if (after != null) {
+                index = bindSeek(ps, index, after);
+            }
+            ps.setInt(index, limit + 1);
+            return readPage(ps, limit);
+        }
+    }
+
+    /**
+     * A transfer writes a DEBITED leg for the sender and a CREDITED leg for the receiver.
+     * Only accountNumber's legs are returned, so each transfer appears once. Each direction
+     * is one range read on idx_txn_counterparty; BOTH merges the two newest-first reads.
+     */
+    @Override
+    public Page<Transaction> findPageWithCounterparty(String accountNumber, String counterpartyAccountNumber,
+                                                      CounterpartyDirection direction, KeysetCursor after, int limit)
+            throws SQLException {
+        String sent = legsBetween("DEBITED", after);
+        String received = legsBetween("CREDITED", after);
+        String sql = switch (direction) {
+            case SENT -> sent;
+            case RECEIVED -> received;
+            case BOTH -> "(" + sent + ") UNION ALL (" + received + ") " +
+                    "ORDER BY transaction_time DESC, transaction_id DESC LIMIT ?";
+        };
+
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (direction != CounterpartyDirection.RECEIVED) {
+                index = bindLegsBetween(ps, index, accountNumber, counterpartyAccountNumber, after, limit);
+            }
+            if (direction != CounterpartyDirection.SENT) {
+                index = bindLegsBetween(ps, index, counterpartyAccountNumber, accountNumber, after, limit);
+            }
+            if (direction == CounterpartyDirection.BOTH) {
+                ps.setInt(index, limit + 1);
+            }
+            return readPage(ps, limit);
+        }
+    }
+
+    private static String legsBetween(String transactionType, KeysetCursor after) {
+        return "SELECT t.* FROM Transactions t " +
+                "WHERE t.sender_account_number = ? AND t.receiver_account_number = ? " +
+                "AND t.transaction_type = '" + transactionType + "' " +
+                (after == null ? "" : "AND " + TRANSACTION_SEEK + " ") +
+                "ORDER BY t.transaction_time DESC, t.transaction_id DESC LIMIT ?";
+    }
+
+    private static int bindLegsBetween(PreparedStatement ps, int index, String senderAccountNumber,
+                                       String receiverAccountNumber, KeysetCursor after, int limit) throws SQLException {
+        ps.setString(index++, senderAccountNumber);
+        ps.setString(index++, receiverAccountNumber);
+        if (after != null) {
+            index = bindSeek(ps, index, after);
+        }
+        ps.setInt(index++, limit + 1);
+        return index;
+    }
+
+    private Page<Transaction> readPage(PreparedStatement ps, int limit) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>(limit + 1);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                transactions.add(mapResultSetToTransaction(rs));
+            }
+        }
+        return Page.of(transactions, limit, t -> new KeysetCursor(t.getTransactionTime(), t.getTransactionId()));
+    }
+
+    private static int bindSeek(PreparedStatement ps, int index, KeysetCursor after) throws SQLException {
+        Timestamp time = Timestamp.valueOf(after.time());
+        ps.setTimestamp(index++, time);
+        ps.setTimestamp(index++, time);
+        ps.setString(index++, after.id());
+        return index;
+    }
+
+    @Override
+    public long getNextId() throws SQLException {
+        return DBConfig.getNextId("Transactions", "transaction_id", IdAllocator.TRANSACTION_PREFIX);
     }
 
+    /**
+     * Moves money with relative, guarded balance updates. Both account rows are
+     * locked in account-number order before either is written, so two transfers
+     * over the same pair can never deadlock on each other. Deadlocks and lock-wait
+     * timeouts against other writers are retried with bounded, jittered backoff.
+     *
+     * The Account arguments are only the caller's pre-validation snapshot; balances
+     * and account ids are taken from the locked rows.
+     *
+     * A hot receiver (see {@link HotAccountBalances}) is share-locked in the same order,
+     * then credited through one of its balance slots, so credits to it do not queue on
+     * each other. Its row lock is taken with the others rather than left to the credit
+     * leg's foreign key check, which would take it after the sender's and could deadlock
+     * with a transfer the other way.
+     */
     @Override
     public Transaction processMoneyTransfer(String senderAccountNumber, String receiverAccountNumber,
                                             Account senderAccount, Account receiverAccount,
-                                            Double amount, String transactionMode, String description) throws SQLException {
+                                            Money amount, String transactionMode, String description) throws SQLException {
+
+        // Served from the node's reserved ID block, normally without a DB call
+        IdAllocator transactionIds = DBConfig.getIdAllocator("Transactions", "transaction_id", IdAllocator.TRANSACTION_PREFIX);
+        String debitId = transactionIds.nextFormatted();
+        String creditId = transactionIds.nextFormatted();
 
-        Connection conn = null;
-        PreparedStatement psUpdateSender = null;
-        PreparedStatement psUpdateReceiver = null;
-        PreparedStatement psInsertDebit = null;
-        PreparedStatement psInsertCredit = null;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Transaction debitTxn = executeTransfer(debitId, creditId, senderAccountNumber, receiverAccountNumber,
+                        amount, transactionMode, description);
+                accountChangeListener.accountsChanged(List.of(senderAccountNumber, receiverAccountNumber));
+                System.out.println("Transaction success: Debit=" + debitId + " | Credit=" + creditId);
+                return debitTxn;
+            } catch (SQLException e) {
+                if (!isRetryable(e) || attempt >= MAX_TRANSFER_ATTEMPTS) {
+                    System.err.println("Transaction rolled back due to error: " + e.getMessage());
+                    throw new SQLException("Transaction failed: " + e.getMessage(), e);
+                }
+                System.err.println("Transfer " + debitId + " hit lock contention (attempt " + attempt + "), retrying");
+                backoff(attempt);
+            }
+        }
+    }
 
-        int baseId = getNextId(); // Only one DB call
-        String debitId = String.format("TXN_%06d", baseId);
-        String creditId = String.format("TXN_%06d", baseId + 1);
+    private Transaction executeTransfer(String debitId, String creditId,
+                                        String senderAccountNumber, String receiverAccountNumber,
+                                        Money amount, String transactionMode, String description) throws SQLException {
 
-        try {
-            // Get new connection
-            conn = DBConfig.getConnection();
+        try (Connection conn = DBConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Step 1: Lock both rows in a deterministic order, a hot receiver's shared
+                boolean hotReceiver = HotAccountBalances.isHot(receiverAccountNumber);
+                Map<String, LockedAccount> locked = lockAccounts(conn,
+                        hotReceiver ? Set.of(receiverAccountNumber) : Set.of(),
+                        senderAccountNumber, receiverAccountNumber);
+                LockedAccount sender = locked.get(senderAccountNumber);
+                LockedAccount receiver = locked.get(receiverAccountNumber);
+                if (sender == null)
+                    throw new SQLException("Sender account not found: " + senderAccountNumber);
+                if (receiver == null)
+                    throw new SQLException("Receiver account not found: " + receiverAccountNumber);
+                if (!"Active".equalsIgnoreCase(sender.status))
+                    throw new SQLException("Sender account is not active");
+                if (!"Active".equalsIgnoreCase(receiver.status))
+                    throw new SQLException("Receiver account is not active");
+
+                LocalDateTime now = LocalDateTime.now();
+                Timestamp timestamp = Timestamp.valueOf(now);
+
+                // Step 2: Debit sender only if the balance still covers the amount, sweeping
+                // a hot sender's slots into its row first if the row alone falls short
+                if (HotAccountBalances.isHot(senderAccountNumber) && sender.balancePaise < amount.toPaise()) {
+                    sender.balancePaise += HotAccountBalances.sweep(conn, senderAccountNumber);
+                }
+                BigDecimal rupees = amount.toBigDecimal();
+                try (PreparedStatement ps = conn.prepareStatement(DEBIT_SQL)) {
+                    ps.setBigDecimal(1, rupees);
+                    ps.setTimestamp(2, timestamp);
+                    ps.setString(3, senderAccountNumber);
+                    ps.setBigDecimal(4, rupees);
+                    if (ps.executeUpdate() == 0)
+                        throw new SQLException("Insufficient balance in account " + senderAccountNumber);
+                }
+
+                // Step 3: Credit receiver; a hot one after its leg, below
+                if (!hotReceiver) {
+                    try (PreparedStatement ps = conn.prepareStatement(CREDIT_SQL)) {
+                        ps.setBigDecimal(1, rupees);
+                        ps.setTimestamp(2, timestamp);
+                        ps.setString(3, receiverAccountNumber);
+                        if (ps.executeUpdate() == 0)
+                            throw new SQLException("Failed to update receiver account balance");
+                    }
+                }
+
+                // Step 4: Insert DEBIT and CREDIT legs in one round trip
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_LEG_SQL)) {
+                    bindLeg(ps, debitId, sender.accountId, senderAccountNumber, amount, "DEBITED", timestamp,
+                            transactionMode, receiverAccountNumber, senderAccountNumber, description);
+                    ps.addBatch();
+                    bindLeg(ps, creditId, receiver.accountId, receiverAccountNumber, amount, "CREDITED", timestamp,
+                            transactionMode, receiverAccountNumber, senderAccountNumber, description);
+                    ps.addBatch();
+                    for (int count : ps.executeBatch()) {
+                        if (count == 0)
+                            throw new SQLException("Failed to create transaction records");
+                    }
+                }
+
+                // The hot receiver's row has been held shared since step 1, so a sweep, which holds it
+                // exclusively, is waited out before any slot is touched: row first, then slot, the order
+                // the sweep takes them in
+                if (hotReceiver) {
+                    HotAccountBalances.credit(conn, receiverAccountNumber, amount);
+                }
 
-            if (conn == null || conn.isClosed()) {
-                throw new SQLException("Unable to get database connection");
+                // Step 5: Queue both alerts in the outbox
+                if (WRITE_OUTBOX) {
+                    try (PreparedStatement ps = conn.prepareStatement(NotificationOutboxRepositoryImpl.INSERT_ALERT_SQL)) {
+                        addAlerts(ps, debitId, creditId, senderAccountNumber, receiverAccountNumber, amount,
+                                transactionMode, description, timestamp);
+                        ps.executeBatch();
+                    }
+                }
+
+                // Commit only if everything succeeded
+                conn.commit();
+
+                return buildDebitTransaction(debitId, sender.accountId, amount, now, transactionMode,
+                        receiverAccountNumber, senderAccountNumber, description);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        }
+    }
 
-            // Begin transaction
-            conn.setAutoCommit(false);
+    /**
+     * Group-commit path: every instruction is checked against the locked balances in
+     * order, and each account touched by the accepted ones gets a single update by its
+     * net movement, so a transfer may spend money credited earlier in the same batch.
+     * The legs are written with one batched statement and everything is committed once.
+     * A rejected instruction only fails its own result. If the batch as a whole cannot
+     * be committed, each instruction is replayed on its own so one bad row cannot
+     * fail its neighbours.
+     */
+    @Override
+    public List<TransferResult> processMoneyTransfers(List<TransferInstruction> instructions) throws SQLException {
+        if (instructions.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-            // Step 1: Update sender balance
-            String updateSenderSql = "UPDATE Account SET balance = ?, modified_at = ? WHERE account_number = ?";
-            psUpdateSender = conn.prepareStatement(updateSenderSql);
-            psUpdateSender.setDouble(1, senderAccount.getBalance() - amount);
-            psUpdateSender.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
-            psUpdateSender.setString(3, senderAccountNumber);
-            if (psUpdateSender.executeUpdate() == 0)
-                throw new SQLException("Failed to update sender account balance");
-
-            // Step 2: Update receiver balance
-            String updateReceiverSql = "UPDATE Account SET balance = ?, modified_at = ? WHERE account_number = ?";
-            psUpdateReceiver = conn.prepareStatement(updateReceiverSql);
-            psUpdateReceiver.setDouble(1, receiverAccount.getBalance() + amount);
-            psUpdateReceiver.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
-            psUpdateReceiver.setString(3, receiverAccountNumber);
-            if (psUpdateReceiver.executeUpdate() == 0)
-                throw new SQLException("Failed to update receiver account balance");
-
-            // Step 3: Generate unique transaction IDs safely
-//            int baseId = getNextId(); // Only one DB call
-//            String debitId = String.format("TXN_%06d", baseId);
-//            String creditId = String.format("TXN_%06d", baseId + 1);
-
-            LocalDateTime now = LocalDateTime.now();
-
-            // Step 4: Insert DEBIT transaction
-            String insertSql = "INSERT INTO Transactions (transaction_id, account_id, transaction_amount, " +
-                    "transaction_type, transaction_time, transaction_mode, receiver_account_number, sender_account_number,description) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?,?)";
-
-            psInsertDebit = conn.prepareStatement(insertSql);
-            psInsertDebit.setString(1, debitId);
-            psInsertDebit.setString(2, senderAccount.getAccountId());
-            psInsertDebit.setDouble(3, amount);
-            psInsertDebit.setString(4, "DEBITED");
-            psInsertDebit.setTimestamp(5, Timestamp.valueOf(now));
-            psInsertDebit.setString(6, transactionMode);
-            psInsertDebit.setString(7, receiverAccountNumber);
-            psInsertDebit.setString(8, senderAccountNumber);
-            psInsertDebit.setString(9,description);
-            if (psInsertDebit.executeUpdate() == 0)
-                throw new SQLException("Failed to create debit transaction");
-
-            // Step 5: Insert CREDIT transaction
-            psInsertCredit = conn.prepareStatement(insertSql);
-            psInsertCredit.setString(1, creditId);
-            psInsertCredit.setString(2, receiverAccount.getAccountId());
-            psInsertCredit.setDouble(3, amount);
-            psInsertCredit.setString(4, "CREDITED");
-            psInsertCredit.setTimestamp(5, Timestamp.valueOf(now));
-            psInsertCredit.setString(6, transactionMode);
-            psInsertCredit.setString(7, receiverAccountNumber);
-            psInsertCredit.setString(8, senderAccountNumber);
-            psInsertCredit.setString(9,description);
-            if (psInsertCredit.executeUpdate() == 0)
-                throw new SQLException("Failed to create credit transaction");
-
-            // Commit only if everything succeeded
-            conn.commit();
-
-            System.out.println("Transaction success: Debit=" + debitId + " | Credit=" + creditId);
-
-            // Build and return debit transaction
-            Transaction debitTxn = new Transaction();
-            debitTxn.setTransactionId(debitId);
-            debitTxn.setAccountId(senderAccount.getAccountId());
-            debitTxn.setTransactionAmount(amount);
-            debitTxn.setTransactionType("DEBITED");
-            debitTxn.setTransactionTime(now);
-            debitTxn.setTransactionMode(transactionMode);
-            debitTxn.setReceiverAccountNumber(receiverAccountNumber);
-            debitTxn.setSenderAccountNumber(senderAccountNumber);
-            debitTxn.setDescription(description);
-
-            return debitTxn;
+        IdAllocator transactionIds = DBConfig.getIdAllocator("Transactions", "transaction_id", IdAllocator.TRANSACTION_PREFIX);
+        String[] legIds = new String[instructions.size() * 2];
+        for (int i = 0; i < legIds.length; i++) {
+            legIds[i] = transactionIds.nextFormatted();
         }
-        catch (Exception e) {
-            // Rollback only if connection is still open
+
+        for (int attempt = 1; ; attempt++) {
             try {
-                if (conn != null && !conn.isClosed()) {
-                    conn.rollback();
-                    System.err.println("Transaction rolled back due to error: " + e.getMessage());
+                return executeTransferBatch(instructions, legIds);
+            } catch (SQLException e) {
+                if (isRetryable(e) && attempt < MAX_TRANSFER_ATTEMPTS) {
+                    backoff(attempt);
+                    continue;
                 }
-            } catch (SQLException rbEx) {
-                throw new SQLException("Transaction failed and rollback failed: " + rbEx.getMessage());
+                System.err.println("Batch of " + instructions.size() + " transfers rolled back (" + e.getMessage()
+                        + "), replaying individually");
+                return processIndividually(instructions);
             }
+        }
+    }
+
+    private List<TransferResult> executeTransferBatch(List<TransferInstruction> instructions,
+                                                      String[] legIds) throws SQLException {
+        List<TransferResult> results = new ArrayList<>(instructions.size());
+        List<Integer> accepted = new ArrayList<>(instructions.size());
+
+        try (Connection conn = DBConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Step 1: Lock every account touched by the batch, in account-number order
+                String[] accountNumbers = instructions.stream()
+                        .flatMap(t -> Stream.of(t.getSenderAccountNumber(), t.getReceiverAccountNumber()))
+                        .toArray(String[]::new);
+                Map<String, LockedAccount> locked = lockAccounts(conn, Set.of(), accountNumbers);
+
+                // Every row is held exclusively here, so hot accounts are simply swept up front and
+                // then debited and credited on their rows like any other
+                for (Map.Entry<String, LockedAccount> account : locked.entrySet()) {
+                    if (HotAccountBalances.isHot(account.getKey())) {
+                        account.getValue().balancePaise += HotAccountBalances.sweep(conn, account.getKey());
+                    }
+                }
+
+                // Step 2: Validate in arrival order against running balances, kept in paise on the locked rows
+                for (int i = 0; i < instructions.size(); i++) {
+                    TransferInstruction t = instructions.get(i);
+                    String rejection = validate(t, locked);
+                    if (rejection != null) {
+                        results.add(TransferResult.failure(i, rejection));
+                        continue;
+                    }
+                    long paise = t.getAmount().toPaise();
+                    locked.get(t.getSenderAccountNumber()).balancePaise -= paise;
+                    locked.get(t.getReceiverAccountNumber()).balancePaise += paise;
+                    accepted.add(i);
+                    results.add(null);
+                }
 
-            throw new SQLException("Transaction failed: " + e.getMessage(), e);
+                LocalDateTime now = LocalDateTime.now();
+                Timestamp timestamp = Timestamp.valueOf(now);
+
+                // Step 3: One net balance update per account, then every leg, one batch each
+                if (!accepted.isEmpty()) {
+                    Map<String, Long> netPaise = new TreeMap<>();
+                    for (int i : accepted) {
+                        TransferInstruction t = instructions.get(i);
+                        long paise = t.getAmount().toPaise();
+                        netPaise.merge(t.getSenderAccountNumber(), -paise, Long::sum);
+                        netPaise.merge(t.getReceiverAccountNumber(), paise, Long::sum);
+                    }
+
+                    try (PreparedStatement net = conn.prepareStatement(APPLY_NET_SQL);
+                         PreparedStatement legs = conn.prepareStatement(INSERT_LEG_SQL)) {
+
+                        for (Map.Entry<String, Long> account : netPaise.entrySet()) {
+                            BigDecimal rupees = Money.ofPaise(account.getValue()).toBigDecimal();
+                            net.setBigDecimal(1, rupees);
+                            net.setTimestamp(2, timestamp);
+                            net.setString(3, account.getKey());
+                            net.setBigDecimal(4, rupees);
+                            net.addBatch();
+                        }
+
+                        for (int i : accepted) {
+                            TransferInstruction t = instructions.get(i);
+                            bindLeg(legs, legIds[i * 2], locked.get(t.getSenderAccountNumber()).accountId,
+                                    t.getSenderAccountNumber(), t.getAmount(), "DEBITED", timestamp, t.getTransactionMode(),
+                                    t.getReceiverAccountNumber(), t.getSenderAccountNumber(), t.getDescription());
+                            legs.addBatch();
+                            bindLeg(legs, legIds[i * 2 + 1], locked.get(t.getReceiverAccountNumber()).accountId,
+                                    t.getReceiverAccountNumber(), t.getAmount(), "CREDITED", timestamp, t.getTransactionMode(),
+                                    t.getReceiverAccountNumber(), t.getSenderAccountNumber(), t.getDescription());
+                            legs.addBatch();
+                        }
+
+                        // Rows are locked and every running balance stayed non-negative in Step 2,
+                        // so each net update matches its row; a zero count means the data moved under us
+                        for (int count : net.executeBatch()) {
+                            if (count == 0)
+                                throw new SQLException("Balance guard failed inside locked batch");
+                        }
+                        for (int count : legs.executeBatch()) {
+                            if (count == 0)
+                                throw new SQLException("Failed to create transaction records");
+                        }
+                    }
+
+                    if (WRITE_OUTBOX) {
+                        try (PreparedStatement alerts = conn.prepareStatement(NotificationOutboxRepositoryImpl.INSERT_ALERT_SQL)) {
+                            for (int i : accepted) {
+                                TransferInstruction t = instructions.get(i);
+                                addAlerts(alerts, legIds[i * 2], legIds[i * 2 + 1], t.getSenderAccountNumber(),
+                                        t.getReceiverAccountNumber(), t.getAmount(), t.getTransactionMode(),
+                                        t.getDescription(), timestamp);
+                            }
+                            alerts.executeBatch();
+                        }
+                    }
+                }
+
+                // Step 4: One commit for the whole group
+                conn.commit();
+
+                Set<String> changed = new HashSet<>();
+                for (int i : accepted) {
+                    changed.add(instructions.get(i).getSenderAccountNumber());
+                    changed.add(instructions.get(i).getReceiverAccountNumber());
+                }
+                if (!changed.isEmpty()) {
+                    accountChangeListener.accountsChanged(changed);
+                }
+
+                for (int i : accepted) {
+                    TransferInstruction t = instructions.get(i);
+                    results.set(i, TransferResult.success(i, buildDebitTransaction(legIds[i * 2],
+                            locked.get(t.getSenderAccountNumber()).accountId, t.getAmount(), now,
+                            t.getTransactionMode(), t.getReceiverAccountNumber(), t.getSenderAccountNumber(),
+                            t.getDescription())));
+                }
+                System.out.println("Batch committed: " + accepted.size() + " of " + instructions.size() + " transfers");
+                return results;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
-        finally {
-            // Clean up properly
-            try { if (psUpdateSender != null) psUpdateSender.close(); } catch (SQLException ignored) {}
-            try { if (psUpdateReceiver != null) psUpdateReceiver.close(); } catch (SQLException ignored) {}
-            try { if (psInsertDebit != null) psInsertDebit.close(); } catch (SQLException ignored) {}
-            try { if (psInsertCredit != null) psInsertCredit.close(); } catch (SQLException ignored) {}
+    }
 
+    private String validate(TransferInstruction t, Map<String, LockedAccount> locked) {
+        LockedAccount sender = locked.get(t.getSenderAccountNumber());
+        LockedAccount receiver = locked.get(t.getReceiverAccountNumber());
+        if (t.getSenderAccountNumber() == null || t.getReceiverAccountNumber() == null)
+            return "Sender and receiver account numbers are required";
+        if (t.getAmount() == null || !t.getAmount().isPositive())
+            return "Transaction amount must be greater than zero";
+        if (t.getSenderAccountNumber().equals(t.getReceiverAccountNumber()))
+            return "Sender and receiver account numbers must be different";
+        if (sender == null)
+            return "Sender account not found: " + t.getSenderAccountNumber();
+        if (receiver == null)
+            return "Receiver account not found: " + t.getReceiverAccountNumber();
+        if (!"Active".equalsIgnoreCase(sender.status))
+            return "Sender account is not active";
+        if (!"Active".equalsIgnoreCase(receiver.status))
+            return "Receiver account is not active";
+        if (sender.balancePaise < t.getAmount().toPaise())
+            return "Insufficient balance in account " + t.getSenderAccountNumber();
+        return null;
+    }
+
+    private List<TransferResult> processIndividually(List<TransferInstruction> instructions) {
+        List<TransferResult> results = new ArrayList<>(instructions.size());
+        for (int i = 0; i < instructions.size(); i++) {
+            TransferInstruction t = instructions.get(i);
             try {
-                if (conn != null && !conn.isClosed()) {
-                    conn.setAutoCommit(true);
-                    conn.close(); // Explicitly close connection after transaction
+                results.add(TransferResult.success(i, processMoneyTransfer(t.getSenderAccountNumber(),
+                        t.getReceiverAccountNumber(), null, null, t.getAmount(), t.getTransactionMode(),
+                        t.getDescription())));
+            } catch (SQLException e) {
+                Throwable reason = e.getCause() != null ? e.getCause() : e;
+                results.add(TransferResult.failure(i, reason.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    static Transaction buildDebitTransaction(String transactionId, String accountId, Money amount,
+                                             LocalDateTime time, String transactionMode,
+                                             String receiverAccountNumber, String senderAccountNumber,
+                                             String description) {
+        Transaction debitTxn = new Transaction();
+        debitTxn.setTransactionId(transactionId);
+        debitTxn.setAccountId(accountId);
+        debitTxn.setTransactionAmount(amount);
+        debitTxn.setTransactionType("DEBITED");
+        debitTxn.setTransactionTime(time);
+        debitTxn.setTransactionMode(transactionMode);
+        debitTxn.setReceiverAccountNumber(receiverAccountNumber);
+        debitTxn.setSenderAccountNumber(senderAccountNumber);
+        debitTxn.setDescription(description);
+        return debitTxn;
+    }
+
+    /**
+     * SELECT ... FOR UPDATE each account, lowest account number first; accounts in
+     * shared are locked FOR SHARE instead.
+     */
+    private Map<String, LockedAccount> lockAccounts(Connection conn, Set<String> shared,
+                                                    String... accountNumbers) throws SQLException {
+        SortedSet<String> ordered = new TreeSet<>();
+        for (String accountNumber : accountNumbers) {
+            if (accountNumber != null) {
+                ordered.add(accountNumber);
+            }
+        }
+
+        Map<String, LockedAccount> locked = new HashMap<>();
+        try (PreparedStatement exclusive = conn.prepareStatement(LOCK_ACCOUNT_SQL);
+             PreparedStatement share = shared.isEmpty() ? null : conn.prepareStatement(SHARE_LOCK_ACCOUNT_SQL)) {
+            for (String accountNumber : ordered) {
+                PreparedStatement ps = shared.contains(accountNumber) ? share : exclusive;
+                ps.setString(1, accountNumber);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        locked.put(accountNumber, new LockedAccount(rs.getString("account_id"), rs.getString("status"),
+                                Money.of(rs.getBigDecimal("balance")).toPaise()));
+                    }
+                }
+            }
+        }
+        return locked;
+    }
+
+    static void bindLeg(PreparedStatement ps, String transactionId, String accountId, String accountNumber,
+                        Money amount, String transactionType, Timestamp time, String transactionMode,
+                        String receiverAccountNumber, String senderAccountNumber, String description) throws SQLException {
+        ps.setString(1, transactionId);
+        ps.setString(2, accountId);
+        ps.setBigDecimal(3, amount.toBigDecimal());
+        ps.setString(4, transactionType);
+        ps.setTimestamp(5, time);
+        ps.setString(6, transactionMode);
+        ps.setString(7, receiverAccountNumber);
+        ps.setString(8, senderAccountNumber);
+        ps.setString(9, description);
+        ps.setString(10, accountNumber);
+    }
+
+    static void addAlerts(PreparedStatement ps, String debitId, String creditId,
+                          String senderAccountNumber, String receiverAccountNumber, Money amount,
+                          String transactionMode, String description, Timestamp time) throws SQLException {
+        NotificationOutboxRepositoryImpl.bindAlert(ps, OutboxMessage.DEBIT_ALERT, debitId, senderAccountNumber,
+                receiverAccountNumber, amount, transactionMode, description, time);
+        ps.addBatch();
+        NotificationOutboxRepositoryImpl.bindAlert(ps, OutboxMessage.CREDIT_ALERT, creditId, receiverAccountNumber,
+                senderAccountNumber, amount, transactionMode, description, time);
+        ps.addBatch();
+    }
+
+    /**
+     * Deadlock victims (1213) and lock-wait timeouts (1205) are safe to replay: InnoDB
+     * rolled the statement or transaction back and nothing was committed.
+     */
+    static boolean isRetryable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                if (sql.getErrorCode() == MYSQL_DEADLOCK || sql.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT
+                        || "40001".equals(sql.getSQLState()) || sql instanceof SQLTransactionRollbackException) {
+                    return true;
                 }
-            } catch (SQLException ignored) {}
+            }
+        }
+        return false;
+    }
+
+    private static void backoff(int attempt) throws SQLException {
+        long ceiling = Math.min(RETRY_MAX_BACKOFF_MS, RETRY_BASE_BACKOFF_MS << Math.min(attempt - 1, 20));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while retrying transfer", ie);
+        }
+    }
+
+    // A row held FOR UPDATE; the batch path debits and credits balancePaise as it validates
+    private static final class LockedAccount {
+        final String accountId;
+        final String status;
+        long balancePaise;
+
+        LockedAccount(String accountId, String status, long balancePaise) {
+            this.accountId = accountId;
+            this.status = status;
+            this.balancePaise = balancePaise;
         }
     }
 
@@ -275,7 +841,7 @@ public class TransactionRepositoryImpl implements TransactionRepository {
         Transaction transaction = new Transaction();
         transaction.setTransactionId(rs.getString("transaction_id"));
         transaction.setAccountId(rs.getString("account_id"));
-        transaction.setTransactionAmount(rs.getDouble("transaction_amount"));
+        transaction.setTransactionAmount(Money.of(rs.getBigDecimal("transaction_amount")));
         transaction.setTransactionType(rs.getString("transaction_type"));
 
         Timestamp timestamp = rs.getTimestamp("transaction_time");
@@ -0,0 +1,204 @@
+package org.banking.repository;
+
+import org.banking.config.DBConfig;
+import org.banking.util.CountingBloomFilter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom-filter pre-checks for the unique columns probed during onboarding: customer phone
+ * number, email and Aadhar number, and account number.
+ *
+ * Filters are filled from a streaming scan at startup and kept current by the repositories
+ * on insert, update and delete. A "definitely absent" answer lets the caller skip MySQL;
+ * "maybe present" still goes to the database. Rows inserted by other nodes after startup
+ * are not seen here, so the UNIQUE constraints remain the final word on duplicates.
+ *
+ * Values are trimmed and lower-cased before hashing so that anything the case-insensitive
+ * column collation treats as equal also collides here.
+ *
+ * A delete of a row this node never added, typically one another node inserted, would take
+ * from counters that belong to other values and could make them look absent. Where that is
+ * detectable the removal is skipped, and the column stops answering "definitely absent",
+ * sending every probe to MySQL, until the filters are reloaded on the next start.
+ */
+public class UniquenessIndex {
+
+    // Answers "maybe" to everything, so callers always ask the database
+    public static final UniquenessIndex DISABLED = new UniquenessIndex();
+
+    private final Column phoneNumbers;
+    private final Column emails;
+    private final Column aadharNumbers;
+    private final Column accountNumbers;
+
+    private UniquenessIndex() {
+        this.phoneNumbers = null;
+        this.emails = null;
+        this.aadharNumbers = null;
+        this.accountNumbers = null;
+    }
+
+    public UniquenessIndex(long customerCapacity, long accountCapacity, double falsePositiveRate) {
+        this.phoneNumbers = new Column("phone_number", customerCapacity, falsePositiveRate);
+        this.emails = new Column("email", customerCapacity, falsePositiveRate);
+        this.aadharNumbers = new Column("aadhar_number", customerCapacity, falsePositiveRate);
+        this.accountNumbers = new Column("account_number", accountCapacity, falsePositiveRate);
+    }
+
+    /**
+     * Size the filters for at least minCapacity rows (or twice the current row count, if larger,
+     * to leave room for growth) and fill them from the Customer and Account tables.
+     */
+    public static UniquenessIndex load(long minCapacity, double falsePositiveRate) throws SQLException {
+        long customers = countRows("Customer");
+        long accounts = countRows("Account");
+        UniquenessIndex index = new UniquenessIndex(Math.max(minCapacity, customers * 2),
+                Math.max(minCapacity, accounts * 2), falsePositiveRate);
+
+        try (Connection conn = DBConfig.getConnection()) {
+            try (PreparedStatement ps = streaming(conn, "SELECT phone_number, email, aadhar_number FROM Customer");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    index.phoneNumbers.add(rs.getString(1));
+                    index.emails.add(rs.getString(2));
+                    index.aadharNumbers.add(rs.getString(3));
+                }
+            }
+            try (PreparedStatement ps = streaming(conn, "SELECT account_number FROM Account");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    index.accountNumbers.add(rs.getString(1));
+                }
+            }
+        }
+        return index;
+    }
+
+    public boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    public boolean mightHavePhoneNumber(String phoneNumber) {
+        return phoneNumbers == null || phoneNumbers.mightContain(phoneNumber);
+    }
+
+    public boolean mightHaveEmail(String email) {
+        return emails == null || emails.mightContain(email);
+    }
+
+    public boolean mightHaveAadharNumber(String aadharNumber) {
+        return aadharNumbers == null || aadharNumbers.mightContain(aadharNumber);
+    }
+
+    public boolean mightHaveAccountNumber(String accountNumber) {
+        return accountNumbers == null || accountNumbers.mightContain(accountNumber);
+    }
+
+    public void customerAdded(String phoneNumber, String email, String aadharNumber) {
+        if (isEnabled()) {
+            phoneNumbers.add(phoneNumber);
+            emails.add(email);
+            aadharNumbers.add(aadharNumber);
+        }
+    }
+
+    public void customerRemoved(String phoneNumber, String email, String aadharNumber) {
+        if (isEnabled()) {
+            phoneNumbers.remove(phoneNumber);
+            emails.remove(email);
+            aadharNumbers.remove(aadharNumber);
+        }
+    }
+
+    public void accountAdded(String accountNumber) {
+        if (isEnabled()) {
+            accountNumbers.add(accountNumber);
+        }
+    }
+
+    public void accountRemoved(String accountNumber) {
+        if (isEnabled()) {
+            accountNumbers.remove(accountNumber);
+        }
+    }
+
+    /**
+     * One line per filter: size, memory, current false-positive rate and how many probes it answered.
+     */
+    @Override
+    public String toString() {
+        if (!isEnabled()) {
+            return "uniqueness filters disabled";
+        }
+        return String.join(System.lineSeparator(), phoneNumbers.toString(), emails.toString(),
+                aadharNumbers.toString(), accountNumbers.toString());
+    }
+
+    private static long countRows(String table) throws SQLException {
+        try (Connection conn = DBConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM " + table);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Connector/J streams rows one at a time instead of buffering the whole table
+    private static PreparedStatement streaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(Integer.MIN_VALUE);
+        return ps;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Column {
+        private final String name;
+        private final CountingBloomFilter filter;
+        private final LongAdder definitelyAbsent = new LongAdder();
+        private final LongAdder maybePresent = new LongAdder();
+        // Set once a removal found a value this node never added; counters may have been taken from others
+        private volatile boolean suspect;
+
+        Column(String name, long capacity, double falsePositiveRate) {
+            this.name = name;
+            this.filter = new CountingBloomFilter(Math.max(1, capacity), falsePositiveRate);
+        }
+
+        void add(String value) {
+            if (value != null) {
+                filter.add(normalize(value));
+            }
+        }
+
+        void remove(String value) {
+            if (value != null && !filter.remove(normalize(value)) && !suspect) {
+                suspect = true;
+                System.err.println("Uniqueness filter " + name + " removed a value it never held;"
+                        + " checking MySQL for every " + name + " until restart");
+            }
+        }
+
+        boolean mightContain(String value) {
+            if (value == null) {
+                return false;
+            }
+            boolean maybe = suspect || filter.mightContain(normalize(value));
+            (maybe ? maybePresent : definitelyAbsent).increment();
+            return maybe;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + filter + ", skipped=" + definitelyAbsent.sum() + ", probed=" + maybePresent.sum()
+                    + (suspect ? ", bypassed after a removal it never held" : "");
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.banking.service;
 
 import org.banking.model.Account;
+import org.banking.model.Page;
+import org.banking.util.KeysetCursor;
 import java.util.List;
 
 public interface AccountService {
@@ -12,5 +14,6 @@ public interface AccountService {
     Account updateAccount(String accountNumber, Account account) throws Exception;
     boolean deleteAccount(String accountNumber) throws Exception;
     List<Account> getAllAccounts() throws Exception;
+    Page<Account> getAccountsPage(KeysetCursor after, int limit) throws Exception;
     boolean isAccountNumberExists(String accountNumber) throws Exception;
 }
\ No newline at end of file
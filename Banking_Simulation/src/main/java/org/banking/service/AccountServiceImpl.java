@@ -1,8 +1,11 @@
 package org.banking.service;
 
+import org.banking.config.IdAllocator;
 import org.banking.model.Account;
+import org.banking.model.Money;
+import org.banking.model.Page;
 import org.banking.repository.AccountRepository;
-import org.banking.repository.AccountRepositoryImpl;
+import org.banking.util.KeysetCursor;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -10,12 +13,7 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
 
-    // Default constructor for production use
-    public AccountServiceImpl() {
-        this.accountRepository = new AccountRepositoryImpl();
-    }
-
-    // Constructor for testing (allows dependency injection)
+    // Repository is wired in BankingApplication
     public AccountServiceImpl(AccountRepository accountRepository) {
         this.accountRepository = accountRepository;
     }
@@ -34,8 +32,8 @@ public class AccountServiceImpl implements AccountService {
             account.setCustomerId(customerId);
 
             // Generate account ID
-            int nextId = accountRepository.getNextId();
-            String accountId = String.format("ACC_%06d", nextId);
+            long nextId = accountRepository.getNextId();
+            String accountId = IdAllocator.format(IdAllocator.ACCOUNT_PREFIX, nextId);
             account.setAccountId(accountId);
 
             // Set timestamps
@@ -45,7 +43,7 @@ public class AccountServiceImpl implements AccountService {
 
             // Default values
             if (account.getBalance() == null) {
-                account.setBalance(50.00);
+                account.setBalance(Money.parse("50.00"));
             }
 
             if (account.getStatus() == null || account.getStatus().isEmpty()) {
@@ -85,6 +83,15 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
+    @Override
+    public Page<Account> getAccountsPage(KeysetCursor after, int limit) throws Exception {
+        try {
+            return accountRepository.findPage(after, limit);
+        } catch (Exception e) {
+            throw new Exception("Failed to retrieve accounts: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public List<Account> getAccountsByAadhar(String aadharNumber) throws Exception {
         try {
@@ -1,8 +1,12 @@
 package org.banking.service;
 
 import org.banking.model.Customer;
+import org.banking.model.Page;
+import org.banking.model.UniqueCustomerField;
+import org.banking.util.KeysetCursor;
 
 import java.util.List;
+import java.util.Set;
 
 public interface CustomerService {
     Customer createCustomer(Customer customer) throws Exception;
@@ -11,6 +15,7 @@ public interface CustomerService {
     Customer updateCustomer(String customerId, Customer customer) throws Exception;
     boolean deleteCustomer(String customerId) throws Exception;
     List<Customer> getAllCustomers() throws Exception;
+    Page<Customer> getCustomersPage(KeysetCursor after, int limit) throws Exception;
 
     boolean isPhoneNumberExists(String phoneNumber) throws Exception;
 
@@ -18,6 +23,9 @@ public interface CustomerService {
 
     boolean isAadharExists(String aadharNumber) throws Exception;
 
+    // Phone number, email and Aadhar number checked together; empty when none is taken
+    Set<UniqueCustomerField> findDuplicateFields(Customer customer) throws Exception;
+
 
 //    boolean validatePhoneNumber(String phoneNumber);
 //    String generateCustomerId() throws Exception;
@@ -1,20 +1,19 @@
 package org.banking.service;
 
+import org.banking.config.IdAllocator;
 import org.banking.model.Customer;
+import org.banking.model.Page;
+import org.banking.model.UniqueCustomerField;
 import org.banking.repository.CustomerRepository;
-import org.banking.repository.CustomerRepositoryImpl;
+import org.banking.util.KeysetCursor;
 import java.util.List;
+import java.util.Set;
 
 public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerRepository customerRepository;
 
-    // Default constructor for production use
-    public CustomerServiceImpl() {
-        this.customerRepository = new CustomerRepositoryImpl();
-    }
-
-    // Constructor for testing (allows dependency injection)
+    // Repository is wired in BankingApplication
     public CustomerServiceImpl(CustomerRepository customerRepository) {
         this.customerRepository = customerRepository;
     }
@@ -23,8 +22,8 @@ public class CustomerServiceImpl implements CustomerService {
     public Customer createCustomer(Customer customer) throws Exception {
         try {
             // Generate customer ID
-            int nextId = customerRepository.getNextId();
-            String customerId = String.format("CUST_%06d", nextId);
+            long nextId = customerRepository.getNextId();
+            String customerId = IdAllocator.format(IdAllocator.CUSTOMER_PREFIX, nextId);
             customer.setCustomerId(customerId);
 
             // Default status to Inactive if not provided
@@ -82,6 +81,15 @@ public class CustomerServiceImpl implements CustomerService {
         }
     }
 
+    @Override
+    public Page<Customer> getCustomersPage(KeysetCursor after, int limit) throws Exception {
+        try {
+            return customerRepository.findPage(after, limit);
+        } catch (Exception e) {
+            throw new Exception("Failed to retrieve customers: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public boolean isPhoneNumberExists(String phoneNumber) throws Exception {
         try {
@@ -109,6 +117,16 @@ public class CustomerServiceImpl implements CustomerService {
         }
     }
 
+    @Override
+    public Set<UniqueCustomerField> findDuplicateFields(Customer customer) throws Exception {
+        try {
+            return customerRepository.findTakenUniqueFields(customer.getPhoneNumber(), customer.getEmail(),
+                    customer.getAadharNumber());
+        } catch (Exception e) {
+            throw new Exception("Failed to check duplicate customer details: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public Customer getCustomerByAadhar(String aadharNumber) throws Exception {
         try {
@@ -0,0 +1,215 @@
+package org.banking.service;
+
+import org.banking.config.AppConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process queue that delivers notifications on a small worker pool.
+ *
+ * submit never blocks for longer than the configured offer timeout: when the queue
+ * is full the notification is dropped and counted, so a slow mail server cannot hold
+ * up transfers. Failed sends are retried with jittered exponential backoff; the retry
+ * is scheduled on a timer rather than slept on, so one bad recipient does not occupy
+ * a worker.
+ */
+public class NotificationDispatcher implements AutoCloseable {
+
+    /**
+     * A single delivery attempt. Throwing marks the attempt as failed.
+     */
+    @FunctionalInterface
+    public interface Delivery {
+        void send() throws Exception;
+    }
+
+    private static volatile NotificationDispatcher shared;
+
+    private final BlockingQueue<Task> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final long offerTimeoutMs;
+    private final NotificationMetrics metrics;
+    private volatile boolean running = true;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    public NotificationDispatcher(int workerThreads, int queueCapacity, int maxAttempts,
+                                  long baseBackoffMs, long maxBackoffMs, long offerTimeoutMs,
+                                  NotificationMetrics metrics) {
+        if (workerThreads < 1 || queueCapacity < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("workerThreads, queueCapacity and maxAttempts must be positive");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.metrics = metrics != null ? metrics : NotificationMetrics.NOOP;
+
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < workerThreads; i++) {
+            Thread thread = new Thread(this::workLoop, "notification-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(thread);
+        }
+    }
+
+    /**
+     * Process-wide dispatcher configured from notification.* properties, created on first use.
+     */
+    public static NotificationDispatcher shared() {
+        NotificationDispatcher instance = shared;
+        if (instance == null) {
+            synchronized (NotificationDispatcher.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new NotificationDispatcher(
+                            AppConfig.getInt("notification.workers", 2),
+                            AppConfig.getInt("notification.queue.capacity", 1000),
+                            AppConfig.getInt("notification.retry.maxAttempts", 3),
+                            AppConfig.getLong("notification.retry.baseBackoffMs", 500),
+                            AppConfig.getLong("notification.retry.maxBackoffMs", 10000),
+                            AppConfig.getLong("notification.queue.offerTimeoutMs", 0),
+                            NotificationMetrics.NOOP);
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Queue a delivery. Returns false if it was dropped.
+     */
+    public boolean submit(String description, Delivery delivery) {
+        return enqueue(new Task(description, delivery), offerTimeoutMs);
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public long getSentCount() { return sent.get(); }
+    public long getFailedCount() { return failed.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public long getRetriedCount() { return retried.get(); }
+
+    private boolean enqueue(Task task, long timeoutMs) {
+        if (!running) {
+            drop(task, "dispatcher shut down");
+            return false;
+        }
+
+        boolean accepted;
+        try {
+            accepted = timeoutMs > 0 ? queue.offer(task, timeoutMs, TimeUnit.MILLISECONDS) : queue.offer(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+
+        if (!accepted) {
+            drop(task, "queue full");
+            return false;
+        }
+        metrics.onEnqueued(queue.size());
+        return true;
+    }
+
+    private void workLoop() {
+        while (running) {
+            Task task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+                continue;
+            }
+            attempt(task);
+        }
+    }
+
+    private void attempt(Task task) {
+        task.attempts++;
+        try {
+            task.delivery.send();
+            sent.incrementAndGet();
+            metrics.onSent(System.nanoTime() - task.enqueuedAtNanos, task.attempts);
+        } catch (Exception e) {
+            if (task.attempts >= maxAttempts || !running) {
+                failed.incrementAndGet();
+                metrics.onFailed(task.attempts, e);
+                System.err.println("Giving up on notification " + task.description + " after "
+                        + task.attempts + " attempt(s): " + e.getMessage());
+                return;
+            }
+
+            long backoffMs = backoff(task.attempts);
+            retried.incrementAndGet();
+            metrics.onRetry(task.attempts, backoffMs, e);
+            retryScheduler.schedule(() -> enqueue(task, 0), backoffMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private void drop(Task task, String reason) {
+        dropped.incrementAndGet();
+        metrics.onDropped(reason);
+        System.err.println("Dropped notification " + task.description + ": " + reason);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        retryScheduler.shutdownNow();
+        workers.forEach(Thread::interrupt);
+
+        Task task;
+        while ((task = queue.poll()) != null) {
+            drop(task, "dispatcher shut down");
+        }
+    }
+
+    private static final class Task {
+        final String description;
+        final Delivery delivery;
+        final long enqueuedAtNanos = System.nanoTime();
+        int attempts;
+
+        Task(String description, Delivery delivery) {
+            this.description = description;
+            this.delivery = delivery;
+        }
+    }
+}
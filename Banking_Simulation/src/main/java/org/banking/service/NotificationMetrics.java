@@ -0,0 +1,35 @@
+package org.banking.service;
+
+/**
+ * Hook for observing the notification pipeline. Methods are called from request
+ * and worker threads, so implementations must be thread-safe and cheap.
+ */
+public interface NotificationMetrics {
+
+    NotificationMetrics NOOP = new NotificationMetrics() {};
+
+    /**
+     * A notification was accepted; queueDepth includes it.
+     */
+    default void onEnqueued(int queueDepth) {}
+
+    /**
+     * A notification was delivered. latencyNanos runs from enqueue to successful send.
+     */
+    default void onSent(long latencyNanos, int attempts) {}
+
+    /**
+     * A send attempt failed and will be retried after backoffMs.
+     */
+    default void onRetry(int attempt, long backoffMs, Exception cause) {}
+
+    /**
+     * A notification was given up on after its last attempt.
+     */
+    default void onFailed(int attempts, Exception cause) {}
+
+    /**
+     * A notification was discarded because the queue was full or the dispatcher was shut down.
+     */
+    default void onDropped(String reason) {}
+}
@@ -0,0 +1,160 @@
+package org.banking.service;
+
+import org.banking.config.AppConfig;
+import org.banking.model.OutboxMessage;
+import org.banking.repository.NotificationOutboxRepository;
+import org.banking.repository.NotificationOutboxRepositoryImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background threads that drain notification_outbox.
+ *
+ * Each pass claims a batch of due alerts (other nodes skip the locked rows), sends
+ * them through NotificationService on this thread and marks the delivered ones SENT
+ * in one update. Failed sends go back to PENDING with exponential backoff until
+ * maxAttempts, then stay FAILED for inspection. A crash between send and mark means
+ * the lease expires and the alert is sent again: at-least-once, never lost.
+ */
+public class NotificationOutboxDispatcher implements AutoCloseable {
+
+    private static volatile NotificationOutboxDispatcher shared;
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final int batchSize;
+    private final long leaseMs;
+    private final long pollIntervalMs;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public NotificationOutboxDispatcher(NotificationOutboxRepository outboxRepository,
+                                        NotificationService notificationService,
+                                        int threads, int batchSize, long leaseMs, long pollIntervalMs,
+                                        int maxAttempts, long baseBackoffMs, long maxBackoffMs) {
+        if (threads < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("threads, batchSize and maxAttempts must be positive");
+        }
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.batchSize = batchSize;
+        this.leaseMs = leaseMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::pollLoop, "notification-outbox-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(thread);
+        }
+    }
+
+    /**
+     * Start the process-wide dispatcher from notification.outbox.* properties. No-op if already running.
+     */
+    public static synchronized NotificationOutboxDispatcher startShared() {
+        if (shared == null) {
+            shared = new NotificationOutboxDispatcher(
+                    new NotificationOutboxRepositoryImpl(),
+                    new NotificationService(),
+                    AppConfig.getInt("notification.outbox.threads", 1),
+                    AppConfig.getInt("notification.outbox.batchSize", 50),
+                    AppConfig.getLong("notification.outbox.leaseMs", 120000),
+                    AppConfig.getLong("notification.outbox.pollIntervalMs", 500),
+                    AppConfig.getInt("notification.outbox.maxAttempts", 8),
+                    AppConfig.getLong("notification.retry.baseBackoffMs", 500),
+                    AppConfig.getLong("notification.retry.maxBackoffMs", 10000));
+        }
+        return shared;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    private void pollLoop() {
+        while (running) {
+            int handled = 0;
+            try {
+                handled = dispatchBatch();
+            } catch (Exception e) {
+                System.err.println("Notification outbox pass failed: " + e.getMessage());
+            }
+
+            // A full batch means there is probably more waiting; go again straight away
+            if (handled < batchSize) {
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim, send and settle one batch. Returns the number of alerts claimed.
+     */
+    int dispatchBatch() throws Exception {
+        List<OutboxMessage> batch = outboxRepository.claimBatch(batchSize, leaseMs);
+        List<Long> sent = new ArrayList<>(batch.size());
+
+        for (OutboxMessage alert : batch) {
+            if (!running) {
+                // Unsent alerts keep their lease and are picked up again once it expires
+                break;
+            }
+            if (alert.getRecipientEmail() == null) {
+                outboxRepository.markFailed(alert.getOutboxId(), alert.getLockedBy(), "No customer email for account "
+                        + alert.getAccountNumber(), 0, true);
+                continue;
+            }
+
+            try {
+                notificationService.deliverAlert(alert);
+                sent.add(alert.getOutboxId());
+            } catch (Exception e) {
+                boolean giveUp = alert.getAttempts() >= maxAttempts;
+                if (!outboxRepository.markFailed(alert.getOutboxId(), alert.getLockedBy(), e.getMessage(),
+                        backoff(alert.getAttempts()), giveUp)) {
+                    System.err.println("Alert " + alert.getOutboxId() + " lease expired; left to its new claim");
+                    continue;
+                }
+                System.err.println("Alert " + alert.getOutboxId() + " for " + alert.getTransactionId()
+                        + (giveUp ? " failed permanently: " : " will be retried: ") + e.getMessage());
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            // One claim, so one lease for the whole batch
+            int settled = outboxRepository.markSent(batch.get(0).getLockedBy(), sent);
+            if (settled < sent.size()) {
+                System.err.println((sent.size() - settled) + " alert(s) sent after their lease expired; "
+                        + "left to the claim that took them over");
+            }
+        }
+        return batch.size();
+    }
+
+    private long backoff(int attempt) {
+        return Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+}
@@ -1,23 +1,37 @@
 package org.banking.service;
 
+import jakarta.activation.DataHandler;
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import org.banking.model.Money;
+import org.banking.model.OutboxMessage;
+import org.banking.util.EmailTemplate;
+import org.banking.util.RenderedHtml;
+
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Properties;
 
 public class NotificationService {
 
-    private static String SMTP_HOST;
-    private static String SMTP_PORT;
-    private static String SMTP_USERNAME;
-    private static String SMTP_PASSWORD;
+    static final String[] ALERT_PLACEHOLDERS = {
+            "name", "amount", "transactionId", "transactionTime",
+            "transactionMode", "counterpartyName", "counterpartyAccount", "description"
+    };
+
+    // Parsed once; rendering only appends segments
+    static final EmailTemplate DEBIT_ALERT_TEMPLATE =
+            EmailTemplate.fromClasspath("templates/email/debit-alert.html", ALERT_PLACEHOLDERS);
+    static final EmailTemplate CREDIT_ALERT_TEMPLATE =
+            EmailTemplate.fromClasspath("templates/email/credit-alert.html", ALERT_PLACEHOLDERS);
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MMM-yyyy hh:mm:ss a");
+
     private static String FROM_EMAIL;
     private static String FROM_NAME;
-    private static boolean SMTP_AUTH;
-    private static boolean SMTP_STARTTLS;
 
     static {
         try (InputStream input = NotificationService.class.getClassLoader()
@@ -25,14 +39,8 @@ public class NotificationService {
             Properties prop = new Properties();
             prop.load(input);
 
-            SMTP_HOST = prop.getProperty("mail.smtp.host");
-            SMTP_PORT = prop.getProperty("mail.smtp.port");
-            SMTP_USERNAME = prop.getProperty("mail.username");
-            SMTP_PASSWORD = prop.getProperty("mail.password");
             FROM_EMAIL = prop.getProperty("mail.from.email");
             FROM_NAME = prop.getProperty("mail.from.name");
-            SMTP_AUTH = Boolean.parseBoolean(prop.getProperty("mail.smtp.auth"));
-            SMTP_STARTTLS = Boolean.parseBoolean(prop.getProperty("mail.smtp.starttls.enable"));
 
         } catch (Exception e) {
             System.err.println("Failed to load email configuration: " + e.getMessage());
@@ -40,40 +48,45 @@ public class NotificationService {
         }
     }
 
+    private final NotificationDispatcher dispatcher;
+    private final SmtpTransportPool transportPool;
+
+    // Default constructor for production use
+    public NotificationService() {
+        this(NotificationDispatcher.shared(), SmtpTransportPool.shared());
+    }
+
+    public NotificationService(NotificationDispatcher dispatcher, SmtpTransportPool transportPool) {
+        this.dispatcher = dispatcher;
+        this.transportPool = transportPool;
+    }
+
     /**
-     * Send notification email
+     * Queue a notification email. Returns immediately; delivery and retries
+     * happen on the dispatcher's worker threads.
      */
     public void sendNotification(String toEmail, String subject, String body) {
-        try {
-            Properties props = new Properties();
-            props.put("mail.smtp.host", SMTP_HOST);
-            props.put("mail.smtp.port", SMTP_PORT);
-            props.put("mail.smtp.auth", String.valueOf(SMTP_AUTH));
-            props.put("mail.smtp.starttls.enable", String.valueOf(SMTP_STARTTLS));
-
-            // Create session with authenticator
-            Session session = Session.getInstance(props, new Authenticator() {
-                @Override
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(SMTP_USERNAME, SMTP_PASSWORD);
-                }
-            });
+        dispatcher.submit("to " + toEmail, () -> deliver(toEmail, subject, body));
+    }
 
-            // Create message
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(FROM_EMAIL, FROM_NAME));
-            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(toEmail));
-            message.setSubject(subject);
-            message.setContent(body, "text/html; charset=utf-8");
+    /**
+     * Send an email over a pooled SMTP connection on the calling thread. Throws so the dispatcher can retry.
+     */
+    void deliver(String toEmail, String subject, String body) throws MessagingException, UnsupportedEncodingException {
+        Message message = createMessage(toEmail, subject);
+        message.setContent(body, "text/html; charset=utf-8");
 
-            // Send email
-            Transport.send(message);
-            System.out.println("Email sent successfully to: " + toEmail);
+        // Send over a pooled connection
+        transportPool.send(message);
+        System.out.println("Email sent successfully to: " + toEmail);
+    }
 
-        } catch (Exception e) {
-            System.err.println("Failed to send email to " + toEmail + ": " + e.getMessage());
-            e.printStackTrace();
-        }
+    private Message createMessage(String toEmail, String subject) throws MessagingException, UnsupportedEncodingException {
+        Message message = new MimeMessage(transportPool.getSession());
+        message.setFrom(new InternetAddress(FROM_EMAIL, FROM_NAME));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(toEmail));
+        message.setSubject(subject);
+        return message;
     }
 
     /**
@@ -81,14 +94,14 @@ public class NotificationService {
      */
     public void sendEmailAlertToSender(String senderEmail, String senderName,
                                        String receiverName, String receiverAccountNumber,
-                                       double amount, String transactionId,
+                                       Money amount, String transactionId,
                                        LocalDateTime transactionTime, String transactionMode,String description) {
 
         String subject = "Transaction Successful - Money Debited";
-        String body = generateSenderEmailTemplate(senderName, receiverName, receiverAccountNumber,
-                amount, transactionId, transactionTime, transactionMode,description);
+        String[] values = alertValues(senderName, amount, transactionId, transactionTime, transactionMode,
+                receiverName, receiverAccountNumber, description);
 
-        sendNotification(senderEmail, subject, body);
+        sendTemplate(senderEmail, subject, DEBIT_ALERT_TEMPLATE, values);
     }
 
     /**
@@ -96,171 +109,62 @@ public class NotificationService {
      */
     public void sendEmailAlertToReceiver(String receiverEmail, String receiverName,
                                          String senderName, String senderAccountNumber,
-                                         double amount, String transactionId,
+                                         Money amount, String transactionId,
                                          LocalDateTime transactionTime, String transactionMode, String description) {
 
         String subject = "Transaction Successful - Money Credited";
-        String body = generateReceiverEmailTemplate(receiverName, senderName, senderAccountNumber,
-                amount, transactionId, transactionTime, transactionMode, description);
+        String[] values = alertValues(receiverName, amount, transactionId, transactionTime, transactionMode,
+                senderName, senderAccountNumber, description);
 
-        sendNotification(receiverEmail, subject, body);
+        sendTemplate(receiverEmail, subject, CREDIT_ALERT_TEMPLATE, values);
     }
 
     /**
-     * Generate sender email template
+     * Queue a templated email. The body is rendered on the worker thread, straight
+     * into its reusable buffer, and handed to the message without an extra copy.
      */
-    private String generateSenderEmailTemplate(String senderName, String receiverName,
-                                               String receiverAccountNumber, double amount,
-                                               String transactionId, LocalDateTime transactionTime,
-                                               String transactionMode, String description) {
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MMM-yyyy hh:mm:ss a");
-        String formattedTime = transactionTime.format(formatter);
-
-        return """
-        <!DOCTYPE html>
-        <html>
-        <head>
-            <style>
-                body { font-family: Arial, sans-serif; background-color: #f4f4f4; margin: 0; padding: 20px; }
-                .container { max-width: 600px; margin: 0 auto; background-color: #ffffff; padding: 20px; border-radius: 8px; box-shadow: 0 2px 4px rgba(0,0,0,0.1); }
-                .header { background-color: rgb(16, 134, 231); color: white; padding: 20px; text-align: center; border-radius: 8px 8px 0 0; }
-                .content { padding: 20px; }
-                .transaction-details { background-color: #f9f9f9; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                .detail-row { display: flex; justify-content: space-between; padding: 8px 0; border-bottom: 1px solid #e0e0e0; }
-                .label { font-weight: bold; color: #555; }
-                .value { color: #333; }
-                .amount { font-size: 24px; color: #d32f2f; font-weight: bold; text-align: center; margin: 20px 0; }
-                .footer { text-align: center; color: #888; font-size: 12px; margin-top: 20px; padding-top: 20px; border-top: 1px solid #e0e0e0; }
-            </style>
-        </head>
-        <body>
-            <div class="container">
-                <div class="header">
-                    <h2>💸 Money Debited</h2>
-                </div>
-                <div class="content">
-                    <p>Dear <strong>%s</strong>,</p>
-                    <p>Your transaction has been processed successfully. Money has been debited from your account.</p>
-                    
-                    <div class="amount">- ₹ %.2f</div>
-                    
-                    <div class="transaction-details">
-                        <div class="detail-row">
-                            <span class="label">Transaction ID:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Date & Time:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Transaction Mode:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Receiver Name:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Receiver Account:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Description:</span>
-                            <span class="value">%s</span>
-                        </div>
-                    </div>
-                    
-                    <p style="color: #888; font-size: 14px;">If you did not authorize this transaction, please contact customer support immediately.</p>
-                </div>
-                <div class="footer">
-                    <p>This is an automated email. Please do not reply.</p>
-                    <p>&copy; 2025 Banking Simulation System. All rights reserved.</p>
-                </div>
-            </div>
-        </body>
-        </html>
-        """.formatted(senderName, amount, transactionId, formattedTime, transactionMode,
-                receiverName, receiverAccountNumber, description);
+    private void sendTemplate(String toEmail, String subject, EmailTemplate template, String[] values) {
+        dispatcher.submit("to " + toEmail, () -> deliverTemplate(toEmail, subject, template, values));
     }
 
     /**
-     * Generate receiver email template
+     * Render and send one outbox alert on the calling thread. Throws so the outbox can retry it.
      */
-    private String generateReceiverEmailTemplate(String receiverName, String senderName,
-                                                 String senderAccountNumber, double amount,
-                                                 String transactionId, LocalDateTime transactionTime,
-                                                 String transactionMode, String description) {
+    public void deliverAlert(OutboxMessage alert) throws MessagingException, UnsupportedEncodingException {
+        boolean debit = OutboxMessage.DEBIT_ALERT.equals(alert.getEventType());
+        String[] values = alertValues(alert.getRecipientName(), alert.getAmount(), alert.getTransactionId(),
+                alert.getTransactionTime(), alert.getTransactionMode(), alert.getCounterpartyName(),
+                alert.getCounterpartyAccountNumber(), alert.getDescription());
+
+        deliverTemplate(alert.getRecipientEmail(),
+                debit ? "Transaction Successful - Money Debited" : "Transaction Successful - Money Credited",
+                debit ? DEBIT_ALERT_TEMPLATE : CREDIT_ALERT_TEMPLATE,
+                values);
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MMM-yyyy hh:mm:ss a");
-        String formattedTime = transactionTime.format(formatter);
+    private void deliverTemplate(String toEmail, String subject, EmailTemplate template, String[] values)
+            throws MessagingException, UnsupportedEncodingException {
+        Message message = createMessage(toEmail, subject);
+        message.setDataHandler(new DataHandler(RenderedHtml.forCurrentThread().render(template, values)));
+        transportPool.send(message);
+        System.out.println("Email sent successfully to: " + toEmail);
+    }
 
-        return """
-        <!DOCTYPE html>
-        <html>
-        <head>
-            <style>
-                body { font-family: Arial, sans-serif; background-color: #f4f4f4; margin: 0; padding: 20px; }
-                .container { max-width: 600px; margin: 0 auto; background-color: #ffffff; padding: 20px; border-radius: 8px; box-shadow: 0 2px 4px rgba(0,0,0,0.1); }
-                .header { background-color: rgb(16, 134, 231); color: white; padding: 20px; text-align: center; border-radius: 8px 8px 0 0; }
-                .content { padding: 20px; }
-                .transaction-details { background-color: #f9f9f9; padding: 15px; border-radius: 5px; margin: 20px 0; }
-                .detail-row { display: flex; justify-content: space-between; padding: 8px 0; border-bottom: 1px solid #e0e0e0; }
-                .label { font-weight: bold; color: #555; }
-                .value { color: #333; }
-                .amount { font-size: 24px; color: #4caf50; font-weight: bold; text-align: center; margin: 20px 0; }
-                .footer { text-align: center; color: #888; font-size: 12px; margin-top: 20px; padding-top: 20px; border-top: 1px solid #e0e0e0; }
-            </style>
-        </head>
-        <body>
-            <div class="container">
-                <div class="header">
-                    <h2>💰 Money Credited</h2>
-                </div>
-                <div class="content">
-                    <p>Dear <strong>%s</strong>,</p>
-                    <p>Your account has been credited with money. Transaction completed successfully.</p>
-                    
-                    <div class="amount">+ ₹ %.2f</div>
-                    
-                    <div class="transaction-details">
-                        <div class="detail-row">
-                            <span class="label">Transaction ID:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Date & Time:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Transaction Mode:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Sender Name:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Sender Account:</span>
-                            <span class="value">%s</span>
-                        </div>
-                        <div class="detail-row">
-                            <span class="label">Description:</span>
-                            <span class="value">%s</span>
-                        </div>
-                    </div>
-                    
-                    <p style="color: #888; font-size: 14px;">Thank you for banking with us!</p>
-                </div>
-                <div class="footer">
-                    <p>This is an automated email. Please do not reply.</p>
-                    <p>&copy; 2025 Banking Simulation System. All rights reserved.</p>
-                </div>
-            </div>
-        </body>
-        </html>
-        """.formatted(receiverName, amount, transactionId, formattedTime, transactionMode,
-                senderName, senderAccountNumber, description);
+    /**
+     * Placeholder values for the alert templates, in ALERT_PLACEHOLDERS order
+     */
+    static String[] alertValues(String name, Money amount, String transactionId, LocalDateTime transactionTime,
+                                String transactionMode, String counterpartyName, String counterpartyAccount,
+                                String description) {
+        return new String[] {
+                name,
+                amount.toString(),
+                transactionId,
+                TIME_FORMATTER.format(transactionTime),
+                transactionMode,
+                counterpartyName,
+                counterpartyAccount,
+                description
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,185 @@
+package org.banking.service;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import org.banking.config.AppConfig;
+
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One mail Session and a small pool of connected, authenticated SMTP Transports.
+ *
+ * Each connection carries many messages, so the TCP connect, STARTTLS handshake and
+ * AUTH are paid once per connection instead of once per email. A connection is
+ * replaced when it has sat idle past the idle timeout (servers drop quiet clients),
+ * after maxMessagesPerConnection sends, or when a send fails at the connection level.
+ */
+public class SmtpTransportPool implements AutoCloseable {
+
+    private static volatile SmtpTransportPool shared;
+
+    private final Session session;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final long idleTimeoutNanos;
+    private final int maxMessagesPerConnection;
+    private final BlockingQueue<PooledTransport> idle;
+    private volatile boolean open = true;
+
+    public SmtpTransportPool(Session session, String host, int port, String username, String password,
+                             int maxIdle, long idleTimeoutMs, int maxMessagesPerConnection) {
+        if (maxIdle < 1 || maxMessagesPerConnection < 1) {
+            throw new IllegalArgumentException("maxIdle and maxMessagesPerConnection must be positive");
+        }
+        this.session = session;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Process-wide pool configured from mail.* properties, created on first use.
+     */
+    public static SmtpTransportPool shared() {
+        SmtpTransportPool instance = shared;
+        if (instance == null) {
+            synchronized (SmtpTransportPool.class) {
+                instance = shared;
+                if (instance == null) {
+                    Properties props = new Properties();
+                    props.put("mail.smtp.host", AppConfig.get("mail.smtp.host", "localhost"));
+                    props.put("mail.smtp.port", AppConfig.get("mail.smtp.port", "25"));
+                    props.put("mail.smtp.auth", AppConfig.get("mail.smtp.auth", "false"));
+                    props.put("mail.smtp.starttls.enable", AppConfig.get("mail.smtp.starttls.enable", "false"));
+                    props.put("mail.smtp.connectiontimeout", AppConfig.get("mail.smtp.connectiontimeout", "10000"));
+                    props.put("mail.smtp.timeout", AppConfig.get("mail.smtp.timeout", "10000"));
+
+                    instance = new SmtpTransportPool(
+                            Session.getInstance(props),
+                            AppConfig.get("mail.smtp.host", "localhost"),
+                            AppConfig.getInt("mail.smtp.port", 25),
+                            AppConfig.get("mail.username"),
+                            AppConfig.get("mail.password"),
+                            AppConfig.getInt("mail.pool.maxIdle", AppConfig.getInt("notification.workers", 2)),
+                            AppConfig.getLong("mail.pool.idleTimeoutMs", 60000),
+                            AppConfig.getInt("mail.pool.maxMessagesPerConnection", 100));
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Send a message over a pooled connection. If a reused connection turns out to be
+     * dead, the send is retried once on a fresh one before the failure is reported.
+     */
+    public void send(Message message) throws MessagingException {
+        message.saveChanges();
+
+        PooledTransport pooled = borrow();
+        try {
+            sendOn(pooled, message);
+        } catch (SendFailedException e) {
+            // Rejected recipient; the connection itself is fine
+            release(pooled);
+            throw e;
+        } catch (MessagingException e) {
+            boolean wasReused = pooled.messagesSent > 0;
+            discard(pooled);
+            if (!wasReused) {
+                throw e;
+            }
+
+            PooledTransport fresh = connect();
+            try {
+                sendOn(fresh, message);
+            } catch (MessagingException retryFailure) {
+                discard(fresh);
+                throw retryFailure;
+            }
+            release(fresh);
+            return;
+        }
+        release(pooled);
+    }
+
+    private void sendOn(PooledTransport pooled, Message message) throws MessagingException {
+        pooled.transport.sendMessage(message, message.getAllRecipients());
+        pooled.messagesSent++;
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            if (System.nanoTime() - pooled.lastUsedNanos < idleTimeoutNanos) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return connect();
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = session.getTransport("smtp");
+        transport.connect(host, port, username, password);
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport pooled) {
+        pooled.lastUsedNanos = System.nanoTime();
+        if (!open || pooled.messagesSent >= maxMessagesPerConnection || !idle.offer(pooled)) {
+            discard(pooled);
+        }
+    }
+
+    private void discard(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            // Already broken; nothing left to release
+        }
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private static final class PooledTransport {
+        final Transport transport;
+        int messagesSent;
+        long lastUsedNanos = System.nanoTime();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
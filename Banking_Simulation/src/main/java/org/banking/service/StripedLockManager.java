@@ -0,0 +1,204 @@
+package org.banking.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-JVM locks over account numbers, hashed onto a fixed set of stripes.
+ *
+ * A transfer takes the stripes of every account it touches before it borrows a
+ * connection, so transfers on the same hot account queue here, cheaply, instead of
+ * each holding a pooled connection inside an InnoDB lock wait. Stripes are always
+ * taken in ascending index order, so two callers can never deadlock on each other;
+ * a caller that cannot get all of them within the timeout gives up and holds none.
+ *
+ * This only orders transfers within one JVM; the row locks in MySQL still protect
+ * balances against other nodes. Per-stripe counters record acquisitions, how many had
+ * to wait, time spent waiting and timeouts; see {@link #stats()}, served at
+ * GET /api/transaction/locks.
+ */
+public class StripedLockManager {
+
+    // Locks nothing and records nothing
+    public static final StripedLockManager DISABLED = new StripedLockManager();
+
+    private static final Held NOTHING_HELD = () -> {};
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutNanos;
+
+    private final AtomicLongArray acquisitions;
+    private final AtomicLongArray contended;
+    private final AtomicLongArray timeouts;
+    private final AtomicLongArray waitNanos;
+    private final AtomicLongArray maxWaitNanos;
+
+    public StripedLockManager(int stripeCount, long timeoutMs) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = stripeCount - 1;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.acquisitions = new AtomicLongArray(stripeCount);
+        this.contended = new AtomicLongArray(stripeCount);
+        this.timeouts = new AtomicLongArray(stripeCount);
+        this.waitNanos = new AtomicLongArray(stripeCount);
+        this.maxWaitNanos = new AtomicLongArray(stripeCount);
+    }
+
+    private StripedLockManager() {
+        this.stripes = null;
+        this.mask = 0;
+        this.timeoutNanos = 0;
+        this.acquisitions = null;
+        this.contended = null;
+        this.timeouts = null;
+        this.waitNanos = null;
+        this.maxWaitNanos = null;
+    }
+
+    /**
+     * Lock the stripes of every given account number (nulls are ignored). Close the
+     * returned handle to release them.
+     *
+     * @throws TimeoutException if the stripes could not all be taken within the timeout;
+     *                          nothing is held in that case
+     */
+    public Held lock(Collection<String> accountNumbers) throws TimeoutException, InterruptedException {
+        if (stripes == null) {
+            return NOTHING_HELD;
+        }
+
+        int[] indexes = stripesOf(accountNumbers);
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (int i = 0; i < indexes.length; i++) {
+            try {
+                acquire(indexes[i], deadline);
+            } catch (TimeoutException | InterruptedException e) {
+                release(indexes, i);
+                throw e;
+            }
+        }
+        return () -> release(indexes, indexes.length);
+    }
+
+    public Held lock(String... accountNumbers) throws TimeoutException, InterruptedException {
+        return lock(Arrays.asList(accountNumbers));
+    }
+
+    public boolean isEnabled() {
+        return stripes != null;
+    }
+
+    private void acquire(int stripe, long deadline) throws TimeoutException, InterruptedException {
+        ReentrantLock lock = stripes[stripe];
+        if (lock.tryLock()) {
+            acquisitions.incrementAndGet(stripe);
+            return;
+        }
+
+        // Contended: only now is it worth reading the clock
+        contended.incrementAndGet(stripe);
+        long start = System.nanoTime();
+        boolean locked = lock.tryLock(Math.max(0, deadline - start), TimeUnit.NANOSECONDS);
+        long waited = System.nanoTime() - start;
+        waitNanos.addAndGet(stripe, waited);
+        maxWaitNanos.accumulateAndGet(stripe, waited, Math::max);
+        if (!locked) {
+            timeouts.incrementAndGet(stripe);
+            throw new TimeoutException("Timed out after " + TimeUnit.NANOSECONDS.toMillis(waited)
+                    + " ms waiting for account lock stripe " + stripe);
+        }
+        acquisitions.incrementAndGet(stripe);
+    }
+
+    // Unlock the first count stripes, newest first
+    private void release(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    // Distinct stripe indexes in ascending order, the one order every caller takes them in
+    private int[] stripesOf(Collection<String> accountNumbers) {
+        int[] indexes = new int[accountNumbers.size()];
+        int count = 0;
+        for (String accountNumber : accountNumbers) {
+            if (accountNumber != null) {
+                indexes[count++] = stripeOf(accountNumber);
+            }
+        }
+        Arrays.sort(indexes, 0, count);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || indexes[distinct - 1] != indexes[i]) {
+                indexes[distinct++] = indexes[i];
+            }
+        }
+        return Arrays.copyOf(indexes, distinct);
+    }
+
+    int stripeOf(String accountNumber) {
+        int h = accountNumber.hashCode();
+        // Spread the high bits down; account numbers often differ only in their last digits
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Counters for every stripe that has been used, busiest (by total wait) first.
+     */
+    public List<StripeStats> stats() {
+        List<StripeStats> stats = new ArrayList<>();
+        if (stripes == null) {
+            return stats;
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            long acquired = acquisitions.get(i);
+            long timedOut = timeouts.get(i);
+            if (acquired > 0 || timedOut > 0) {
+                stats.add(new StripeStats(i, acquired, contended.get(i), timedOut,
+                        waitNanos.get(i), maxWaitNanos.get(i), stripes[i].getQueueLength()));
+            }
+        }
+        stats.sort((a, b) -> Long.compare(b.totalWaitNanos(), a.totalWaitNanos()));
+        return stats;
+    }
+
+    /**
+     * Releases every stripe it holds; closing it twice is not allowed.
+     */
+    @FunctionalInterface
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * @param contended acquisitions that found the stripe taken and had to wait (including timeouts)
+     * @param queued    threads waiting on the stripe right now
+     */
+    public record StripeStats(int stripe, long acquisitions, long contended, long timeouts,
+                              long totalWaitNanos, long maxWaitNanos, int queued) {
+
+        public double contentionRate() {
+            long attempts = acquisitions + timeouts;
+            return attempts == 0 ? 0 : (double) contended / attempts;
+        }
+
+        public long averageWaitMicros() {
+            return contended == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / contended);
+        }
+    }
+}
@@ -1,18 +1,44 @@
 package org.banking.service;
 
+import org.banking.model.CounterpartyDirection;
+import org.banking.model.Money;
+import org.banking.model.Page;
 import org.banking.model.Transaction;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.banking.repository.RowHandler;
+import org.banking.util.KeysetCursor;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionService {
     Transaction processTransaction(String senderAccountNumber, String receiverAccountNumber,
-                                   Double amount, String transactionMode, String description) throws Exception;
+                                   Money amount, String transactionMode, String description) throws Exception;
 
     // New method with PIN verification and email notifications
     Transaction processTransactionWithPin(String senderAccountNumber, String senderPin,
-                                          String receiverAccountNumber, Double amount,
+                                          String receiverAccountNumber, Money amount,
                                           String transactionMode, String description) throws Exception;
 
+    // Many PIN-verified transfers in one call; one result per instruction, in order
+    List<TransferResult> processTransactionBatch(List<TransferInstruction> instructions) throws Exception;
+
     Transaction getTransactionById(String transactionId) throws Exception;
     List<Transaction> getTransactionsByAccountNumber(String accountNumber) throws Exception;
     List<Transaction> getAllTransactions() throws Exception;
+
+    // Exports without materialising the table; rows go to the handler as they are read.
+    // from is inclusive, to exclusive; either may be null.
+    void streamAllTransactions(LocalDateTime from, LocalDateTime to, RowHandler<Transaction> handler) throws Exception;
+    void streamTransactions(String accountNumber, LocalDateTime from, LocalDateTime to,
+                            RowHandler<Transaction> handler) throws Exception;
+
+    // Keyset-paginated, newest first; a null cursor starts at the first page
+    Page<Transaction> getTransactionsPage(String accountNumber, KeysetCursor after, int limit) throws Exception;
+    Page<Transaction> getAllTransactionsPage(KeysetCursor after, int limit) throws Exception;
+
+    // Transfers between accountNumber and one counterparty, as seen from accountNumber
+    Page<Transaction> getCounterpartyTransactionsPage(String accountNumber, String counterpartyAccountNumber,
+                                                      CounterpartyDirection direction, KeysetCursor after,
+                                                      int limit) throws Exception;
 }
\ No newline at end of file
@@ -1,96 +1,224 @@
 package org.banking.service;
 
+import org.banking.config.AppConfig;
 import org.banking.model.Account;
+import org.banking.model.CounterpartyDirection;
 import org.banking.model.Customer;
+import org.banking.model.Money;
+import org.banking.model.Page;
 import org.banking.model.Transaction;
+import org.banking.model.TransferContext;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
 import org.banking.repository.AccountRepository;
-import org.banking.repository.AccountRepositoryImpl;
 import org.banking.repository.CustomerRepository;
-import org.banking.repository.CustomerRepositoryImpl;
+import org.banking.repository.HotAccountBalances;
+import org.banking.repository.RowHandler;
 import org.banking.repository.TransactionRepository;
-import org.banking.repository.TransactionRepositoryImpl;
+import org.banking.util.KeysetCursor;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final int BATCH_CHUNK_SIZE = AppConfig.getInt("transfer.batch.chunkSize", 200);
+    // A chunk holds the stripes of every account in it, and one timeout fails all of it
+    private static final int LOCKED_BATCH_CHUNK_SIZE = AppConfig.getInt("transfer.locks.batchChunkSize", 16);
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final CustomerRepository customerRepository;
     private final NotificationService notificationService;
+    // When set, the transfer transaction writes the alerts to the outbox and nothing is sent from here
+    private final boolean alertsViaOutbox;
+    // Queues transfers on the same accounts in the JVM before they borrow a connection
+    private final StripedLockManager accountLocks;
 
-    // Default constructor for production use
-    public TransactionServiceImpl() {
-        this.transactionRepository = new TransactionRepositoryImpl();
-        this.accountRepository = new AccountRepositoryImpl();
-        this.customerRepository = new CustomerRepositoryImpl();
-        this.notificationService = new NotificationService();
+    // Sends alerts directly; repositories and services are wired in BankingApplication
+    public TransactionServiceImpl(TransactionRepository transactionRepository,
+                                  AccountRepository accountRepository,
+                                  CustomerRepository customerRepository,
+                                  NotificationService notificationService) {
+        this(transactionRepository, accountRepository, customerRepository, notificationService, false);
     }
 
-    // Constructor for testing (allows dependency injection)
     public TransactionServiceImpl(TransactionRepository transactionRepository,
                                   AccountRepository accountRepository,
                                   CustomerRepository customerRepository,
-                                  NotificationService notificationService) {
+                                  NotificationService notificationService,
+                                  boolean alertsViaOutbox) {
+        this(transactionRepository, accountRepository, customerRepository, notificationService, alertsViaOutbox,
+                StripedLockManager.DISABLED);
+    }
+
+    public TransactionServiceImpl(TransactionRepository transactionRepository,
+                                  AccountRepository accountRepository,
+                                  CustomerRepository customerRepository,
+                                  NotificationService notificationService,
+                                  boolean alertsViaOutbox,
+                                  StripedLockManager accountLocks) {
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
         this.customerRepository = customerRepository;
         this.notificationService = notificationService;
+        this.alertsViaOutbox = alertsViaOutbox;
+        this.accountLocks = accountLocks;
     }
 
     @Override
     public Transaction processTransactionWithPin(String senderAccountNumber, String senderPin,
-                                                 String receiverAccountNumber, Double amount,
+                                                 String receiverAccountNumber, Money amount,
                                                  String transactionMode, String description) throws Exception {
 
-        // Step 1: Verify PIN
-        boolean isPinValid = customerRepository.verifyPin(senderAccountNumber, senderPin);
-        if (!isPinValid) {
-            throw new Exception("Invalid PIN. Transaction denied.");
+        // Steps 1-8: PIN, accounts, customers, status, balance and amount
+        TransferContext context = loadValidatedContext(senderAccountNumber, senderPin, receiverAccountNumber, amount);
+
+        // Step 9: Process transaction in database, holding both accounts' locks only around the write
+        Transaction transaction;
+        try (StripedLockManager.Held held = accountLocks.lock(senderAccountNumber, creditLock(receiverAccountNumber))) {
+            transaction = transactionRepository.processMoneyTransfer(
+                    senderAccountNumber,
+                    receiverAccountNumber,
+                    context.getSenderAccount(),
+                    context.getReceiverAccount(),
+                    amount,
+                    transactionMode,
+                    description
+            );
+        } catch (Exception e) {
+            throw new Exception("Transaction failed: " + e.getMessage(), e);
         }
 
-        // Step 2: Get sender customer details
-        Customer senderCustomer = customerRepository.findByAccountNumber(senderAccountNumber);
-        if (senderCustomer == null) {
-            throw new Exception("Sender customer not found with Account Number: " + senderAccountNumber);
+        // Step 10: Queue email notifications (delivered off this thread - don't fail transaction if email fails)
+        if (!alertsViaOutbox) {
+            sendTransferAlerts(context, transaction, amount, transactionMode, description);
+        }
+
+        return transaction;
+    }
+
+    @Override
+    public List<TransferResult> processTransactionBatch(List<TransferInstruction> instructions) throws Exception {
+        TransferResult[] results = new TransferResult[instructions.size()];
+        List<Integer> accepted = new ArrayList<>();
+        List<TransferContext> contexts = new ArrayList<>();
+
+        // Every instruction's accounts and customers in one query per table
+        List<TransferContext> loaded;
+        try {
+            loaded = customerRepository.loadTransferContexts(instructions);
+        } catch (Exception e) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = TransferResult.failure(i, "Transaction failed: " + e.getMessage());
+            }
+            return Arrays.asList(results);
         }
 
-        // Step 3: Get sender's accounts
-        List<Account> senderAccounts = accountRepository.findByCustomerId(senderCustomer.getCustomerId());
-        if (senderAccounts.isEmpty()) {
-            throw new Exception("No accounts found for sender");
+        // Same checks as a single transfer; a failing instruction only fails itself
+        for (int i = 0; i < instructions.size(); i++) {
+            TransferInstruction t = instructions.get(i);
+            try {
+                contexts.add(validateContext(loaded.get(i), t.getSenderAccountNumber(),
+                        t.getReceiverAccountNumber(), t.getAmount()));
+                accepted.add(i);
+            } catch (Exception e) {
+                results[i] = TransferResult.failure(i, e.getMessage());
+            }
         }
 
-        // Use the first active account (you can modify this logic as needed)
-        Account senderAccount = senderAccounts.stream()
-                .filter(acc -> "Active".equalsIgnoreCase(acc.getStatus()))
-                .findFirst()
-                .orElseThrow(() -> new Exception("No active account found for sender"));
+        // Write accepted instructions in chunks, each one DB transaction with batched statements
+        int chunkSize = accountLocks.isEnabled() ? LOCKED_BATCH_CHUNK_SIZE : BATCH_CHUNK_SIZE;
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + chunkSize, accepted.size()));
+            List<TransferInstruction> chunkInstructions = new ArrayList<>(chunk.size());
+            List<String> chunkAccounts = new ArrayList<>(chunk.size() * 2);
+            for (int index : chunk) {
+                TransferInstruction t = instructions.get(index);
+                chunkInstructions.add(t);
+                chunkAccounts.add(t.getSenderAccountNumber());
+                chunkAccounts.add(t.getReceiverAccountNumber());
+            }
 
+            List<TransferResult> chunkResults;
+            try (StripedLockManager.Held held = accountLocks.lock(chunkAccounts)) {
+                chunkResults = transactionRepository.processMoneyTransfers(chunkInstructions);
+            } catch (Exception e) {
+                for (int index : chunk) {
+                    results[index] = TransferResult.failure(index, "Transaction failed: " + e.getMessage());
+                }
+                continue;
+            }
 
-        // Step 4: Validate accounts are different
-        if (senderAccountNumber.equals(receiverAccountNumber)) {
-            throw new Exception("Sender and receiver account numbers must be different");
+            for (int j = 0; j < chunk.size(); j++) {
+                int index = chunk.get(j);
+                TransferResult result = chunkResults.get(j);
+                result.setIndex(index);
+                results[index] = result;
+
+                if (result.isSuccess() && !alertsViaOutbox) {
+                    TransferInstruction t = instructions.get(index);
+                    sendTransferAlerts(contexts.get(from + j), result.getTransaction(), t.getAmount(),
+                            t.getTransactionMode(), t.getDescription());
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    // Single credits to a hot account land in its balance slots and run side by side; only lock it as a sender.
+    // Batches still lock it: the batch path holds every row it touches exclusively.
+    private static String creditLock(String receiverAccountNumber) {
+        return HotAccountBalances.isHot(receiverAccountNumber) ? null : receiverAccountNumber;
+    }
+
+    private TransferContext loadValidatedContext(String senderAccountNumber, String senderPin,
+                                                 String receiverAccountNumber, Money amount) throws Exception {
+
+        // Step 1: Load sender, receiver and PIN check in a single round trip
+        TransferContext context = customerRepository.loadTransferContext(
+                senderAccountNumber, senderPin, receiverAccountNumber);
+        return validateContext(context, senderAccountNumber, receiverAccountNumber, amount);
+    }
+
+    private TransferContext validateContext(TransferContext context, String senderAccountNumber,
+                                            String receiverAccountNumber, Money amount) throws Exception {
+        if (context == null || !context.isPinValid()) {
+            throw new Exception("Invalid PIN. Transaction denied.");
         }
 
-        //Account senderAccount = accountRepository.findByAccountNumber(senderAccountNumber);
+        // Step 2: Sender customer and account
+        Customer senderCustomer = context.getSenderCustomer();
+        if (senderCustomer == null) {
+            throw new Exception("Sender customer not found with Account Number: " + senderAccountNumber);
+        }
+
+        Account senderAccount = context.getSenderAccount();
         if (senderAccount == null) {
             throw new Exception("Sender account not found: " + senderAccountNumber);
         }
 
-        // Step 5: Get receiver account
-        Account receiverAccount = accountRepository.findByAccountNumber(receiverAccountNumber);
+        // Step 3: Validate accounts are different
+        if (senderAccountNumber.equals(receiverAccountNumber)) {
+            throw new Exception("Sender and receiver account numbers must be different");
+        }
+
+        // Step 4: Receiver account
+        Account receiverAccount = context.getReceiverAccount();
         if (receiverAccount == null) {
             throw new Exception("Receiver account not found: " + receiverAccountNumber);
         }
 
-        // Step 6: Get receiver customer details
-        Customer receiverCustomer = customerRepository.findById(receiverAccount.getCustomerId());
+        // Step 5: Receiver customer details
+        Customer receiverCustomer = context.getReceiverCustomer();
         if (receiverCustomer == null) {
             throw new Exception("Receiver customer not found");
         }
 
-        // Step 7: Validate both accounts are active
+        // Step 6: Validate both accounts are active
         if (!"Active".equalsIgnoreCase(senderAccount.getStatus())) {
             throw new Exception("Sender account is not active");
         }
@@ -99,41 +227,37 @@ public class TransactionServiceImpl implements TransactionService {
             throw new Exception("Receiver account is not active");
         }
 
-        // Step 8: Check insufficient balance
-        if (senderAccount.getBalance() < amount) {
-            throw new Exception("Insufficient balance. Available balance: " + senderAccount.getBalance());
+        // Step 7: Check insufficient balance
+        Money available = availableBalance(senderAccount);
+        if (available.isLessThan(amount)) {
+            throw new Exception("Insufficient balance. Available balance: " + available);
         }
 
-        // Step 9: Validate amount
-        if (amount <= 0) {
+        // Step 8: Validate amount
+        if (!amount.isPositive()) {
             throw new Exception("Transaction amount must be greater than zero");
         }
 
+        return context;
+    }
 
-        // Step 11: Process transaction in database
-        Transaction transaction;
-        try {
-            transaction = transactionRepository.processMoneyTransfer(
-                    senderAccountNumber,
-                    receiverAccountNumber,
-                    senderAccount,
-                    receiverAccount,
-                    amount,
-                    transactionMode,
-                    description
-            );
-        } catch (Exception e) {
-            throw new Exception("Transaction failed: " + e.getMessage(), e);
-        }
+    // With the ledger on, Account trails the balances it holds by the projector's lag
+    private Money availableBalance(Account account) {
+        Money held = transactionRepository.heldBalance(account.getAccountNumber());
+        return held != null ? held : account.getBalance();
+    }
 
-        // Step 12: Send email notifications (async - don't fail transaction if email fails)
+    private void sendTransferAlerts(TransferContext context, Transaction transaction, Money amount,
+                                    String transactionMode, String description) {
+        Customer senderCustomer = context.getSenderCustomer();
+        Customer receiverCustomer = context.getReceiverCustomer();
         try {
             // Send email to sender
             notificationService.sendEmailAlertToSender(
                     senderCustomer.getEmail(),
                     senderCustomer.getName(),
                     receiverCustomer.getName(),
-                    receiverAccountNumber,
+                    context.getReceiverAccount().getAccountNumber(),
                     amount,
                     transaction.getTransactionId(),
                     transaction.getTransactionTime(),
@@ -146,7 +270,7 @@ public class TransactionServiceImpl implements TransactionService {
                     receiverCustomer.getEmail(),
                     receiverCustomer.getName(),
                     senderCustomer.getName(),
-                    senderAccountNumber,
+                    context.getSenderAccount().getAccountNumber(),
                     amount,
                     transaction.getTransactionId(),
                     transaction.getTransactionTime(),
@@ -154,18 +278,16 @@ public class TransactionServiceImpl implements TransactionService {
                     description
             );
 
-            System.out.println("Email notifications sent successfully");
+            System.out.println("Email notifications queued");
         } catch (Exception emailException) {
-            System.err.println("Failed to send email notifications: " + emailException.getMessage());
+            System.err.println("Failed to queue email notifications: " + emailException.getMessage());
             // Don't fail the transaction if email fails
         }
-
-        return transaction;
     }
 
     @Override
     public Transaction processTransaction(String senderAccountNumber, String receiverAccountNumber,
-                                          Double amount, String transactionMode, String description) throws Exception {
+                                          Money amount, String transactionMode, String description) throws Exception {
 
         // Validation 1: Account numbers must be different
         if (senderAccountNumber.equals(receiverAccountNumber)) {
@@ -193,16 +315,17 @@ public class TransactionServiceImpl implements TransactionService {
         }
 
         // Validation 4: Insufficient balance check
-        if (senderAccount.getBalance() < amount) {
-            throw new Exception("Insufficient balance. Available balance: " + senderAccount.getBalance());
+        Money available = availableBalance(senderAccount);
+        if (available.isLessThan(amount)) {
+            throw new Exception("Insufficient balance. Available balance: " + available);
         }
 
         // Validation 5: Amount must be positive
-        if (amount <= 0) {
+        if (!amount.isPositive()) {
             throw new Exception("Transaction amount must be greater than zero");
         }
 
-        try {
+        try (StripedLockManager.Held held = accountLocks.lock(senderAccountNumber, creditLock(receiverAccountNumber))) {
             // Delegate transaction processing to repository layer
             return transactionRepository.processMoneyTransfer(
                     senderAccountNumber,
@@ -250,4 +373,64 @@ public class TransactionServiceImpl implements TransactionService {
             throw new Exception("Failed to retrieve transactions: " + e.getMessage(), e);
         }
     }
+
+    @Override
+    public void streamAllTransactions(LocalDateTime from, LocalDateTime to, RowHandler<Transaction> handler)
+            throws Exception {
+        try {
+            transactionRepository.streamAll(from, to, handler);
+        } catch (Exception e) {
+            throw new Exception("Failed to export transactions: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void streamTransactions(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                   RowHandler<Transaction> handler) throws Exception {
+        try {
+            transactionRepository.streamByAccountNumber(accountNumber, from, to, handler);
+        } catch (Exception e) {
+            throw new Exception("Failed to export transactions: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Page<Transaction> getTransactionsPage(String accountNumber, KeysetCursor after, int limit) throws Exception {
+        try {
+            // Only the first page checks the account; a cursor implies it existed a moment ago
+            if (after == null && accountRepository.findByAccountNumber(accountNumber) == null) {
+                throw new Exception("Account not found: " + accountNumber);
+            }
+
+            return transactionRepository.findPageByAccountNumber(accountNumber, after, limit);
+        } catch (Exception e) {
+            throw new Exception("Failed to retrieve transactions: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Page<Transaction> getAllTransactionsPage(KeysetCursor after, int limit) throws Exception {
+        try {
+            return transactionRepository.findPage(after, limit);
+        } catch (Exception e) {
+            throw new Exception("Failed to retrieve transactions: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Page<Transaction> getCounterpartyTransactionsPage(String accountNumber, String counterpartyAccountNumber,
+                                                             CounterpartyDirection direction, KeysetCursor after,
+                                                             int limit) throws Exception {
+        try {
+            // As with getTransactionsPage, later pages skip the account check
+            if (after == null && accountRepository.findByAccountNumber(accountNumber) == null) {
+                throw new Exception("Account not found: " + accountNumber);
+            }
+
+            return transactionRepository.findPageWithCounterparty(accountNumber, counterpartyAccountNumber,
+                    direction, after, limit);
+        } catch (Exception e) {
+            throw new Exception("Failed to retrieve transactions: " + e.getMessage(), e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package org.banking.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * Size-bounded LRU cache with an optional time-to-live and hit/miss/eviction counters.
+ *
+ * Backed by an access-ordered LinkedHashMap under a single lock; entries are small and
+ * the critical sections are a few pointer swaps, so this is not where requests wait.
+ */
+public class BoundedLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> map;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttlMs entries older than this are treated as misses; 0 keeps them until evicted
+     */
+    public BoundedLruCache(int maxSize, long ttlMs) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.map = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedLruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key) {
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry != null && (ttlNanos == 0 || System.nanoTime() - entry.storedAtNanos < ttlNanos)) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                map.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        synchronized (map) {
+            map.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Drop every entry matching the predicate. Linear in the cache size; meant for rare writes.
+     */
+    public void invalidateIf(BiPredicate<K, V> predicate) {
+        synchronized (map) {
+            map.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().value()));
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + "/" + maxSize + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount();
+    }
+
+    private record Entry<V>(V value, long storedAtNanos) {}
+}
@@ -0,0 +1,149 @@
+package org.banking.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counting Bloom filter over strings: "definitely absent" or "maybe present", with removal.
+ *
+ * Each slot is a 4-bit counter, sixteen to a long, updated with CAS so readers never
+ * lock. A counter that reaches 15 sticks there: removing from it could otherwise
+ * produce a false "absent", which is the one answer this filter must never get wrong.
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final long COUNTER_MASK = 0xF;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+
+    private final AtomicLongArray words;
+    private final long slots;
+    private final int hashes;
+    private final LongAdder entries = new LongAdder();
+
+    /**
+     * @param expectedEntries     capacity the false-positive rate is computed for
+     * @param falsePositiveRate   target rate at that capacity, e.g. 0.01
+     */
+    public CountingBloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries < 1) {
+            throw new IllegalArgumentException("expectedEntries must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long wanted = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long wordCount = Math.max(1, (wanted + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter too large for " + expectedEntries + " entries");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.slots = wordCount * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round((double) slots / expectedEntries * Math.log(2)));
+    }
+
+    public void add(String value) {
+        long h1 = hash(value, 0x9E3779B97F4A7C15L);
+        long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashes; i++) {
+            adjust(slot(h1, h2, i), 1);
+        }
+        entries.increment();
+    }
+
+    /**
+     * Only call for values that were added. A value with an empty counter cannot have been,
+     * so it is left alone and false is returned: the caller has removed something it never
+     * added, and since such a value can still share every counter with added ones, it should
+     * stop trusting "absent" answers. False is also returned if a counter emptied mid-removal.
+     */
+    public boolean remove(String value) {
+        long h1 = hash(value, 0x9E3779B97F4A7C15L);
+        long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+        if (!mightContain(value)) {
+            return false;
+        }
+        boolean removed = true;
+        for (int i = 0; i < hashes; i++) {
+            removed &= adjust(slot(h1, h2, i), -1);
+        }
+        entries.decrement();
+        return removed;
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value, 0x9E3779B97F4A7C15L);
+        long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long slot = slot(h1, h2, i);
+            if (counter(words.get((int) (slot / COUNTERS_PER_WORD)), slot) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getEntryCount() {
+        return entries.sum();
+    }
+
+    public long getMemoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    /**
+     * False-positive rate at the current entry count, (1 - e^(-kn/m))^k.
+     */
+    public double getExpectedFalsePositiveRate() {
+        long n = Math.max(0, entries.sum());
+        return Math.pow(1 - Math.exp(-(double) hashes * n / slots), hashes);
+    }
+
+    @Override
+    public String toString() {
+        return "entries=" + getEntryCount() + ", slots=" + slots + ", hashes=" + hashes
+                + ", memory=" + getMemoryBytes() / 1024 + "KiB"
+                + String.format(", fpp=%.4f", getExpectedFalsePositiveRate());
+    }
+
+    // False only when asked to take from an empty counter
+    private boolean adjust(long slot, int delta) {
+        int index = (int) (slot / COUNTERS_PER_WORD);
+        int shift = (int) (slot % COUNTERS_PER_WORD) * COUNTER_BITS;
+        while (true) {
+            long word = words.get(index);
+            long count = (word >>> shift) & COUNTER_MASK;
+            // Saturated counters stay put; empty ones cannot go lower
+            if (count == COUNTER_MASK) {
+                return true;
+            }
+            if (delta < 0 && count == 0) {
+                return false;
+            }
+            long updated = (word & ~(COUNTER_MASK << shift)) | ((count + delta) << shift);
+            if (words.compareAndSet(index, word, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private static long counter(long word, long slot) {
+        return (word >>> ((slot % COUNTERS_PER_WORD) * COUNTER_BITS)) & COUNTER_MASK;
+    }
+
+    // Kirsch-Mitzenmacher: k slots from two hashes
+    private long slot(long h1, long h2, int i) {
+        return Math.floorMod(h1 + i * h2, slots);
+    }
+
+    private static long hash(String value, long seed) {
+        long h = seed;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        // Finalizer from SplitMix64 so short, similar keys spread over all slots
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,72 @@
+package org.banking.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered RFC 4180 CSV writer: CRLF row endings, and fields containing a comma, quote,
+ * CR or LF are wrapped in quotes with embedded quotes doubled. Nulls are written as
+ * empty fields. UTF-8 throughout.
+ */
+public class CsvWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+
+    public CsvWriter(OutputStream output) {
+        this.out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public void writeRow(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(fields[i]);
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Push buffered rows to the underlying stream without closing it.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null || field.isEmpty()) {
+            return;
+        }
+        if (!needsQuotes(field)) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < field.length(); i++) {
+            if (field.charAt(i) == '"') {
+                out.write(field, start, i - start + 1);
+                out.write('"');
+                start = i + 1;
+            }
+        }
+        out.write(field, start, field.length() - start);
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package org.banking.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimal HTML template with {{name}} placeholders, parsed once into literal and
+ * placeholder segments.
+ *
+ * Placeholder names are bound to argument positions at compile time, so rendering
+ * is a single pass that appends literals as-is and HTML-escapes each value. Nothing
+ * is allocated per render beyond what the caller's buffer needs to grow.
+ */
+public final class EmailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;     // literals[i] precedes slots[i]; one extra trailing literal
+    private final int[] slots;
+    private final int argumentCount;
+    private final int literalLength;
+
+    private EmailTemplate(String[] literals, int[] slots, int argumentCount) {
+        this.literals = literals;
+        this.slots = slots;
+        this.argumentCount = argumentCount;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse a template. placeholders gives the argument order for {@link #render};
+     * every {{name}} in the text must be one of them.
+     */
+    public static EmailTemplate compile(String text, String... placeholders) {
+        List<String> names = Arrays.asList(placeholders);
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        int position = 0;
+        while (true) {
+            int open = text.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = text.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+
+            String name = text.substring(open + OPEN.length(), close).trim();
+            int slot = names.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder: " + name);
+            }
+
+            literals.add(text.substring(position, open));
+            slots.add(slot);
+            position = close + CLOSE.length();
+        }
+        literals.add(text.substring(position));
+
+        return new EmailTemplate(literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), placeholders.length);
+    }
+
+    /**
+     * Load and compile a UTF-8 template from the classpath.
+     */
+    public static EmailTemplate fromClasspath(String resource, String... placeholders) {
+        try (InputStream input = EmailTemplate.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Template not found on classpath: " + resource);
+            }
+            return compile(new String(input.readAllBytes(), StandardCharsets.UTF_8), placeholders);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load template " + resource, e);
+        }
+    }
+
+    /**
+     * Append the rendered template to out. Values are HTML-escaped; null renders as empty.
+     */
+    public StringBuilder render(StringBuilder out, String... values) {
+        if (values.length != argumentCount) {
+            throw new IllegalArgumentException("Expected " + argumentCount + " values, got " + values.length);
+        }
+        out.ensureCapacity(out.length() + estimatedLength());
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            escapeHtml(out, values[slots[i]]);
+        }
+        out.append(literals[slots.length]);
+        return out;
+    }
+
+    public String render(String... values) {
+        return render(new StringBuilder(estimatedLength()), values).toString();
+    }
+
+    /**
+     * Literal text plus some headroom for values; a good initial buffer size.
+     */
+    public int estimatedLength() {
+        return literalLength + slots.length * 32;
+    }
+
+    public static void escapeHtml(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.banking.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a response envelope ({"success", "message", "timestamp", "data": [...]}) row by row,
+ * for results too large to build as a list first.
+ *
+ * The mapper picks up the same modules as Jersey's JSON provider, so rows serialise exactly
+ * as they do in ApiResponse. Output is left to the generator's buffer rather than flushed per
+ * row; once the response is committed an error can only cut the array short.
+ */
+public final class JsonStreaming {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final JsonGenerator generator;
+    private final ObjectWriter rowWriter;
+
+    private JsonStreaming(JsonGenerator generator, Class<?> rowType) {
+        this.generator = generator;
+        this.rowWriter = MAPPER.writerFor(rowType);
+    }
+
+    /**
+     * Open the envelope and its data array, and flush so the client sees bytes before the first row.
+     */
+    public static JsonStreaming start(OutputStream output, String message, Class<?> rowType) throws IOException {
+        JsonGenerator generator = MAPPER.getFactory().createGenerator(output);
+        // Jersey owns the servlet stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        generator.writeStartObject();
+        generator.writeBooleanField("success", true);
+        generator.writeStringField("message", message);
+        generator.writeStringField("timestamp", LocalDateTime.now().toString());
+        generator.writeArrayFieldStart("data");
+        generator.flush();
+        return new JsonStreaming(generator, rowType);
+    }
+
+    public void write(Object row) throws IOException {
+        rowWriter.writeValue(generator, row);
+    }
+
+    /**
+     * Close the array and envelope and flush what is left.
+     */
+    public void finish() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+}
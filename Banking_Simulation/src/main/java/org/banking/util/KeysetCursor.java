@@ -0,0 +1,100 @@
+package org.banking.util;
+
+import org.banking.config.AppConfig;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated list: the sort key and id of the last row on the previous
+ * page. The next page seeks past it on an index instead of skipping rows, so every page
+ * costs the same. Encoded as opaque URL-safe Base64; clients just echo it back.
+ *
+ * Each cursor carries a truncated HMAC of its position, so one a client edited or made up
+ * is rejected rather than seeking to wherever it points. The key comes from
+ * pagination.cursorKey; without it a random one is drawn per process, and cursors do not
+ * survive a restart or move between nodes.
+ *
+ * @param time sort timestamp of the last row, or null for lists ordered by id alone
+ * @param id   primary key of the last row, the tie-breaker for equal timestamps
+ */
+public record KeysetCursor(LocalDateTime time, String id) {
+
+    private static final char SEPARATOR = '|';
+    private static final char SIGNATURE_SEPARATOR = '.';
+    private static final int SIGNATURE_BYTES = 12;
+    private static final SecretKeySpec KEY = new SecretKeySpec(key(), "HmacSHA256");
+
+    public KeysetCursor {
+        if (id == null) {
+            throw new IllegalArgumentException("Cursor id is required");
+        }
+    }
+
+    public String encode() {
+        byte[] raw = ((time == null ? "" : time.toString()) + SEPARATOR + id).getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return base64.encodeToString(raw) + SIGNATURE_SEPARATOR + base64.encodeToString(sign(raw));
+    }
+
+    /**
+     * @return null for a null or blank cursor (first page)
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()} with this key
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String encoded = cursor.trim();
+            int signatureAt = encoded.lastIndexOf(SIGNATURE_SEPARATOR);
+            if (signatureAt < 0) {
+                throw new IllegalArgumentException("missing signature");
+            }
+            byte[] bytes = Base64.getUrlDecoder().decode(encoded.substring(0, signatureAt));
+            byte[] signature = Base64.getUrlDecoder().decode(encoded.substring(signatureAt + 1));
+            if (!MessageDigest.isEqual(sign(bytes), signature)) {
+                throw new IllegalArgumentException("bad signature");
+            }
+
+            String raw = new String(bytes, StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split < 0 || split == raw.length() - 1) {
+                throw new IllegalArgumentException("missing id");
+            }
+            LocalDateTime time = split == 0 ? null : LocalDateTime.parse(raw.substring(0, split));
+            return new KeysetCursor(time, raw.substring(split + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Bad Base64 or signature, missing separator or unparseable timestamp
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static byte[] sign(byte[] raw) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(KEY);
+            return Arrays.copyOf(mac.doFinal(raw), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] key() {
+        String configured = AppConfig.get("pagination.cursorKey", "");
+        if (!configured.isBlank()) {
+            return configured.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
@@ -0,0 +1,89 @@
+package org.banking.util;
+
+import jakarta.activation.DataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Per-thread render buffer that doubles as a mail DataSource.
+ *
+ * A template is rendered into a reused char buffer and encoded into a reused
+ * UTF-8 byte buffer, which MimeMessage then reads directly. The content stays
+ * valid until the same thread renders again, so render, build and send the
+ * message on one thread without interleaving.
+ */
+public final class RenderedHtml implements DataSource {
+
+    private static final String CONTENT_TYPE = "text/html; charset=utf-8";
+    private static final ThreadLocal<RenderedHtml> BUFFERS = ThreadLocal.withInitial(RenderedHtml::new);
+
+    private final StringBuilder chars = new StringBuilder(8192);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private char[] charArray = new char[8192];
+    private byte[] bytes = new byte[8192];
+    private int length;
+
+    private RenderedHtml() {}
+
+    public static RenderedHtml forCurrentThread() {
+        return BUFFERS.get();
+    }
+
+    public RenderedHtml render(EmailTemplate template, String... values) {
+        chars.setLength(0);
+        template.render(chars, values);
+
+        int charCount = chars.length();
+        if (charArray.length < charCount) {
+            charArray = new char[charCount];
+        }
+        // Array-backed buffers take the encoder's fast path; a wrapped StringBuilder does not
+        chars.getChars(0, charCount, charArray, 0);
+
+        int maxBytes = (int) Math.ceil(charCount * (double) encoder.maxBytesPerChar());
+        if (bytes.length < maxBytes) {
+            bytes = new byte[maxBytes];
+        }
+
+        ByteBuffer out = ByteBuffer.wrap(bytes);
+        encoder.reset();
+        // Sized for the worst case above, so this cannot overflow
+        encoder.encode(CharBuffer.wrap(charArray, 0, charCount), out, true);
+        encoder.flush(out);
+        length = out.position();
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(bytes, 0, length);
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        throw new UnsupportedOperationException("Rendered HTML is read-only");
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return "rendered-html";
+    }
+}
@@ -0,0 +1,91 @@
+package org.banking.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free queue for many producers and exactly one consumer.
+ *
+ * Slots are preallocated and each carries a sequence number: a producer claims the next
+ * position with a CAS on the tail, stores its element and then publishes the slot by
+ * advancing its sequence; the consumer reads slots strictly in claim order. Nothing is
+ * allocated per element and no thread ever blocks inside the buffer; callers decide how
+ * to wait when {@link #offer} reports it full or {@link #drainTo} finds nothing.
+ */
+public class RingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only ever touched by the consumer thread
+    private long head;
+
+    public RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, at least 2");
+        }
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Append an element; safe from any thread.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    // Publishes the element to the consumer
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (lag < 0) {
+                return false;
+            }
+            // Another producer claimed this position first; try the next one
+        }
+    }
+
+    /**
+     * Move up to max published elements into the list, oldest first. Consumer thread only.
+     *
+     * @return the number of elements moved
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(List<? super E> target, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            target.add((E) elements[index]);
+            elements[index] = null;
+            // Hands the slot back to producers one lap later
+            sequences.lazySet(index, head + elements.length);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+}
@@ -1,5 +1,7 @@
 package org.banking.util;
 
+import org.banking.model.Money;
+
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -84,8 +86,8 @@ public class ValidationUtil {
     /**
      * Validates amount - must be positive
      */
-    public static boolean isValidAmount(double amount) {
-        return amount > 0;
+    public static boolean isValidAmount(Money amount) {
+        return amount != null && amount.isPositive();
     }
 
     /**
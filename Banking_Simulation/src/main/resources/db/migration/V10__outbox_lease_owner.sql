@@ -0,0 +1,3 @@
+-- Which claim holds each IN_FLIGHT alert's lease. Settling an alert checks it, so a dispatcher whose
+-- lease expired cannot overwrite the outcome of the claim that took the alert over.
+ALTER TABLE notification_outbox ADD COLUMN locked_by VARCHAR(36);
@@ -0,0 +1,34 @@
+-- IDs issued before IdAllocator padded to 19 digits (e.g. TXN_000123) sort after the padded ones as
+-- strings, which breaks ORDER BY and keyset seeks on the ID. Rewrite them, and every column that holds
+-- them, to the padded width. Rows already padded are left alone, so the script is safe to re-run.
+-- Account and Transactions reference the rewritten keys without ON UPDATE CASCADE, so the checks are off
+-- for this session only. Stop the in-memory ledger with its journal fully projected before upgrading:
+-- journal entries still name the old account IDs.
+SET FOREIGN_KEY_CHECKS = 0;
+
+UPDATE Customer SET customer_id = CONCAT('CUST_', LPAD(SUBSTRING(customer_id, 6), 19, '0'))
+WHERE customer_id LIKE 'CUST\_%' AND CHAR_LENGTH(customer_id) < 24;
+
+UPDATE account SET customer_id = CONCAT('CUST_', LPAD(SUBSTRING(customer_id, 6), 19, '0'))
+WHERE customer_id LIKE 'CUST\_%' AND CHAR_LENGTH(customer_id) < 24;
+
+-- modified_at moves so a ledger snapshot taken before this picks up the new IDs on its next start
+UPDATE account SET account_id = CONCAT('ACC_', LPAD(SUBSTRING(account_id, 5), 19, '0')), modified_at = NOW()
+WHERE account_id LIKE 'ACC\_%' AND CHAR_LENGTH(account_id) < 23;
+
+UPDATE Transactions SET account_id = CONCAT('ACC_', LPAD(SUBSTRING(account_id, 5), 19, '0'))
+WHERE account_id LIKE 'ACC\_%' AND CHAR_LENGTH(account_id) < 23;
+
+UPDATE Transactions SET transaction_id = CONCAT('TXN_', LPAD(SUBSTRING(transaction_id, 5), 19, '0'))
+WHERE transaction_id LIKE 'TXN\_%' AND CHAR_LENGTH(transaction_id) < 23;
+
+UPDATE notification_outbox SET transaction_id = CONCAT('TXN_', LPAD(SUBSTRING(transaction_id, 5), 19, '0'))
+WHERE transaction_id LIKE 'TXN\_%' AND CHAR_LENGTH(transaction_id) < 23;
+
+UPDATE ledger_dead_letter SET debit_id = CONCAT('TXN_', LPAD(SUBSTRING(debit_id, 5), 19, '0'))
+WHERE debit_id LIKE 'TXN\_%' AND CHAR_LENGTH(debit_id) < 23;
+
+UPDATE ledger_dead_letter SET credit_id = CONCAT('TXN_', LPAD(SUBSTRING(credit_id, 5), 19, '0'))
+WHERE credit_id LIKE 'TXN\_%' AND CHAR_LENGTH(credit_id) < 23;
+
+SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,68 @@
+-- Tables as previously created by DBConfig.createTables; IF NOT EXISTS keeps this a no-op on older databases
+
+CREATE TABLE IF NOT EXISTS Customer (
+    customer_id VARCHAR(50) PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    phone_number VARCHAR(10) NOT NULL UNIQUE,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    address TEXT,
+    customer_pin VARCHAR(6) NOT NULL,
+    aadhar_number VARCHAR(12) NOT NULL UNIQUE,
+    dob DATE NOT NULL,
+    status VARCHAR(20) DEFAULT 'Active'
+);
+
+CREATE TABLE IF NOT EXISTS account (
+    account_id VARCHAR(50) PRIMARY KEY,
+    customer_id VARCHAR(50) NOT NULL,
+    created_at DATETIME NOT NULL,
+    modified_at DATETIME NOT NULL,
+    balance DECIMAL(15,2) DEFAULT 50.00,
+    account_type VARCHAR(20) NOT NULL,
+    account_name VARCHAR(100) NOT NULL,
+    account_number VARCHAR(20) UNIQUE NOT NULL,
+    phone_number_linked VARCHAR(15) NOT NULL,
+    ifsc_code VARCHAR(20) NOT NULL,
+    bank_name VARCHAR(100) NOT NULL,
+    status VARCHAR(20) DEFAULT 'ACTIVE',
+    CONSTRAINT fk_customer FOREIGN KEY (customer_id) REFERENCES customer(customer_id)
+);
+
+CREATE TABLE IF NOT EXISTS Transactions (
+    transaction_id VARCHAR(50) PRIMARY KEY,
+    account_id VARCHAR(50) NOT NULL,
+    transaction_amount DECIMAL(15,2) NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    transaction_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    transaction_mode VARCHAR(50) NOT NULL,
+    sender_account_number VARCHAR(20),
+    receiver_account_number VARCHAR(20),
+    description TEXT,
+    FOREIGN KEY (account_id) REFERENCES Account(account_id) ON DELETE CASCADE
+);
+
+-- ID block reservations, one row per table
+CREATE TABLE IF NOT EXISTS id_sequence (
+    sequence_name VARCHAR(50) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- Alerts written by the transfer transaction, drained by NotificationOutboxDispatcher
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    outbox_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(20) NOT NULL,
+    transaction_id VARCHAR(50) NOT NULL,
+    account_number VARCHAR(20) NOT NULL,
+    counterparty_account_number VARCHAR(20) NOT NULL,
+    amount DECIMAL(15,2) NOT NULL,
+    transaction_mode VARCHAR(50) NOT NULL,
+    description TEXT,
+    transaction_time DATETIME(3) NOT NULL,
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    available_at DATETIME(3) NOT NULL,
+    last_error VARCHAR(255),
+    created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    sent_at DATETIME(3),
+    INDEX idx_outbox_due (status, available_at)
+);
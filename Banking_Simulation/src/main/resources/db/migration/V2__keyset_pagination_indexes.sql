@@ -0,0 +1,9 @@
+-- Keyset pagination seeks (/transaction/all, /transaction/{account_number}, /account/all).
+-- Databases that booted an older build already have these; the runner skips duplicate index names.
+
+CREATE INDEX idx_txn_time_id ON Transactions (transaction_time, transaction_id);
+
+-- Also serves plain account_id lookups and the foreign key
+CREATE INDEX idx_txn_account_time_id ON Transactions (account_id, transaction_time, transaction_id);
+
+CREATE INDEX idx_account_created_id ON Account (created_at, account_id);
@@ -0,0 +1,7 @@
+-- Sent/received history by counterparty account number, newest first
+CREATE INDEX idx_txn_sender_time_id ON Transactions (sender_account_number, transaction_time, transaction_id);
+
+CREATE INDEX idx_txn_receiver_time_id ON Transactions (receiver_account_number, transaction_time, transaction_id);
+
+-- Accounts of a customer, newest first; replaces the implicit fk_customer index
+CREATE INDEX idx_account_customer_created ON Account (customer_id, created_at);
@@ -0,0 +1,5 @@
+-- Owning account's number on each ledger row, so history reads need no Account lookup.
+-- Left nullable: existing rows are filled in chunks by TransactionAccountNumberBackfill.
+ALTER TABLE Transactions ADD COLUMN account_number VARCHAR(20) NULL AFTER account_id;
+
+CREATE INDEX idx_txn_accnum_time_id ON Transactions (account_number, transaction_time, transaction_id);
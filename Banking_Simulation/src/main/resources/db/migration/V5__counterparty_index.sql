@@ -0,0 +1,4 @@
+-- Transfers between two accounts, one direction and leg type at a time, newest first.
+-- Every predicate is an equality on the prefix, so each page is a single range read.
+CREATE INDEX idx_txn_counterparty ON Transactions
+    (sender_account_number, receiver_account_number, transaction_type, transaction_time, transaction_id);
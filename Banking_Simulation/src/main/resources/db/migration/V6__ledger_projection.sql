@@ -0,0 +1,7 @@
+-- How far the in-memory ledger's projector has copied each journal into Account and Transactions.
+-- Updated in the same transaction as the rows it covers, so every entry is projected exactly once.
+CREATE TABLE IF NOT EXISTS ledger_projection (
+    journal_id VARCHAR(36) PRIMARY KEY,
+    position BIGINT NOT NULL,
+    updated_at DATETIME(3) NOT NULL
+);
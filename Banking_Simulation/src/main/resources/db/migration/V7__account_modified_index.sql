@@ -0,0 +1,2 @@
+-- Lets the in-memory ledger reread only accounts changed since its snapshot when it starts
+CREATE INDEX idx_account_modified ON Account (modified_at);
@@ -0,0 +1,9 @@
+-- Credit sub-rows for hot accounts. An account's balance is Account.balance plus the sum of its
+-- slots; the consolidator folds them back into the row. Accounts that were never flagged have none.
+CREATE TABLE IF NOT EXISTS account_balance_slot (
+    account_number VARCHAR(20) NOT NULL,
+    slot SMALLINT NOT NULL,
+    balance DECIMAL(15,2) NOT NULL,
+    PRIMARY KEY (account_number, slot),
+    CONSTRAINT fk_balance_slot_account FOREIGN KEY (account_number) REFERENCES Account(account_number) ON DELETE CASCADE
+);
@@ -0,0 +1,16 @@
+-- Ledger entries MySQL rejected for good, e.g. because an account was deleted while the entry
+-- was in flight. The projector moves past them; each one needs reconciling by hand.
+CREATE TABLE IF NOT EXISTS ledger_dead_letter (
+    dead_letter_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    journal_id VARCHAR(36) NOT NULL,
+    debit_id VARCHAR(50) NOT NULL,
+    credit_id VARCHAR(50) NOT NULL,
+    sender_account_number VARCHAR(20) NOT NULL,
+    receiver_account_number VARCHAR(20) NOT NULL,
+    amount DECIMAL(15,2) NOT NULL,
+    transaction_mode VARCHAR(50) NOT NULL,
+    description TEXT,
+    transaction_time DATETIME(3) NOT NULL,
+    error VARCHAR(255),
+    created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
@@ -0,0 +1,175 @@
+package org.banking.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdAllocatorTest {
+
+    private DataSource database;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        database = TestDatabase.start();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        TestDatabase.stop();
+    }
+
+    private static IdAllocator customerIds(int blockSize) {
+        return new IdAllocator("customer", "Customer", "customer_id", IdAllocator.CUSTOMER_PREFIX, blockSize);
+    }
+
+    @Test
+    void testFormat_FixedWidthSortsNumerically() {
+        String last = IdAllocator.format("TXN_", 999_999);
+        String next = IdAllocator.format("TXN_", 1_000_000);
+
+        assertEquals("TXN_0000000000000999999", last);
+        assertEquals(last.length(), next.length());
+        assertTrue(last.compareTo(next) < 0);
+        assertEquals("TXN_".length() + 19, IdAllocator.format("TXN_", Long.MAX_VALUE).length());
+    }
+
+    @Test
+    void testNext_SeededAfterExistingIdsOfEitherWidth() throws SQLException {
+        TestDatabase.insertCustomer("CUST_000005");
+        TestDatabase.insertCustomer(IdAllocator.format(IdAllocator.CUSTOMER_PREFIX, 7));
+
+        assertEquals(8, customerIds(3).next());
+    }
+
+    @Test
+    void testMigration_LegacyIdsPaddedAndSortedWithNewOnes() throws SQLException {
+        TestDatabase.insertCustomer("CUST_000005");
+        TestDatabase.insertAccount("CUST_000005", "000012", "100.00");
+        String newId = IdAllocator.format(IdAllocator.TRANSACTION_PREFIX, 124);
+        for (String transactionId : List.of("TXN_000123", newId)) {
+            TestDatabase.update("INSERT INTO Transactions (transaction_id, account_id, transaction_amount, " +
+                    "transaction_type, transaction_mode) VALUES (?, 'ACC_000012', 1.00, 'DEBIT', 'IMPS')", transactionId);
+        }
+        TestDatabase.update("INSERT INTO notification_outbox (event_type, transaction_id, account_number, " +
+                "counterparty_account_number, amount, transaction_mode, transaction_time, available_at) " +
+                "VALUES ('DEBIT', 'TXN_000123', '000012', '000013', 1.00, 'IMPS', NOW(), NOW())");
+        // As strings the old ID sorts after the newer one
+        assertEquals(newId, TestDatabase.queryString("SELECT MIN(transaction_id) FROM Transactions"));
+
+        // Run V11 again over the legacy rows
+        TestDatabase.update("DELETE FROM schema_version WHERE version = 11");
+        assertEquals(1, new MigrationRunner(database).migrate());
+
+        String oldId = IdAllocator.format(IdAllocator.TRANSACTION_PREFIX, 123);
+        assertEquals(oldId, TestDatabase.queryString("SELECT MIN(transaction_id) FROM Transactions"));
+        assertEquals(newId, TestDatabase.queryString("SELECT MAX(transaction_id) FROM Transactions"));
+        assertEquals(oldId, TestDatabase.queryString("SELECT transaction_id FROM notification_outbox"));
+        String accountId = IdAllocator.format(IdAllocator.ACCOUNT_PREFIX, 12);
+        assertEquals(2, TestDatabase.queryLong("SELECT COUNT(*) FROM Transactions WHERE account_id = ?", accountId));
+        assertEquals(IdAllocator.format(IdAllocator.CUSTOMER_PREFIX, 5),
+                TestDatabase.queryString("SELECT c.customer_id FROM Customer c JOIN Account a " +
+                        "ON a.customer_id = c.customer_id WHERE a.account_id = ?", accountId));
+
+        // Allocated IDs keep sorting after both
+        IdAllocator transactionIds = new IdAllocator("transaction", "Transactions", "transaction_id",
+                IdAllocator.TRANSACTION_PREFIX, 3);
+        assertTrue(transactionIds.nextFormatted().compareTo(newId) > 0);
+    }
+
+    @Test
+    void testNext_RollsOverToANewBlock() throws SQLException {
+        IdAllocator ids = customerIds(3);
+
+        List<Long> issued = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            issued.add(ids.next());
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), issued);
+        // Two blocks of three reserved
+        assertEquals(7, TestDatabase.queryLong(
+                "SELECT next_value FROM id_sequence WHERE sequence_name = 'customer'"));
+    }
+
+    @Test
+    void testNext_ConcurrentFirstUseOnTwoNodes() throws Exception {
+        // Each allocator stands in for a node starting up with an empty sequence table
+        IdAllocator[] nodes = {customerIds(5), customerIds(5)};
+        Set<Long> issued = ConcurrentHashMap.newKeySet();
+        List<Throwable> failures = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            IdAllocator ids = nodes[t % 2];
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        assertTrue(issued.add(ids.next()));
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of(), failures);
+        assertEquals(200, issued.size());
+        assertEquals(1, TestDatabase.queryLong("SELECT COUNT(*) FROM id_sequence"));
+    }
+
+    @Test
+    void testNext_RetriedAfterDeadlock() throws SQLException {
+        customerIds(3).next();
+        // The next reservation's locking read is chosen as a deadlock victim once
+        DataSource database = DBConfig.getDataSource();
+        AtomicBoolean deadlocked = new AtomicBoolean();
+        DBConfig.useDataSource(proxy(DataSource.class, database, deadlocked));
+        IdAllocator ids = customerIds(3);
+
+        assertEquals(4, ids.next());
+        assertTrue(deadlocked.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, AtomicBoolean deadlocked) {
+        return (T) Proxy.newProxyInstance(IdAllocatorTest.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    if (method.getName().equals("prepareStatement") && ((String) args[0]).endsWith("FOR UPDATE")
+                            && deadlocked.compareAndSet(false, true)) {
+                        throw new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213);
+                    }
+                    try {
+                        Object result = method.invoke(target, args);
+                        return method.getReturnType() == Connection.class
+                                ? proxy(Connection.class, (Connection) result, deadlocked) : result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,156 @@
+package org.banking.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fresh in-memory H2 database in MySQL mode, migrated with the real scripts and installed
+ * as DBConfig's data source, for tests that need the repositories to run real SQL.
+ */
+public final class TestDatabase {
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Create, migrate and install a new empty database.
+     */
+    public static JdbcDataSource start() throws SQLException {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:banking" + COUNTER.incrementAndGet() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;NON_KEYWORDS=VALUE,POSITION;DB_CLOSE_DELAY=-1");
+        ds.setUser("sa");
+
+        // MySQL's named locks, which MigrationRunner takes; one runner per database here
+        update(ds, "CREATE ALIAS GET_LOCK FOR 'org.banking.config.TestDatabase.getLock'");
+        update(ds, "CREATE ALIAS RELEASE_LOCK FOR 'org.banking.config.TestDatabase.releaseLock'");
+        // CAST(... AS UNSIGNED), as IdAllocator seeds a sequence with
+        update(ds, "CREATE DOMAIN UNSIGNED AS BIGINT");
+        new MigrationRunner(ds).migrate();
+
+        DBConfig.useDataSource(withoutMySqlOnlySyntax(ds));
+        return ds;
+    }
+
+    // H2 rejects MySQL's row-streaming hint, a fetch size of Integer.MIN_VALUE, so drop it; it has no
+    // shared row locks either, so FOR SHARE is taken as FOR UPDATE
+    private static DataSource withoutMySqlOnlySyntax(DataSource ds) {
+        return proxy(DataSource.class, ds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(TestDatabase.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (method.getName().equals("setFetchSize") && Integer.valueOf(Integer.MIN_VALUE).equals(args[0])) {
+                return null;
+            }
+            if (method.getName().equals("prepareStatement") && ((String) args[0]).endsWith(" FOR SHARE")) {
+                args[0] = ((String) args[0]).replaceAll(" FOR SHARE$", " FOR UPDATE");
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            Class<?> returned = method.getReturnType();
+            if (result != null && (returned == Connection.class || returned == Statement.class
+                    || returned == PreparedStatement.class)) {
+                return proxy((Class<Object>) returned, result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Drop the installed database.
+     */
+    public static void stop() throws SQLException {
+        try (Connection conn = DBConfig.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        } finally {
+            DBConfig.useDataSource(null);
+        }
+    }
+
+    public static int getLock(String name, int timeoutSeconds) {
+        return 1;
+    }
+
+    public static int releaseLock(String name) {
+        return 1;
+    }
+
+    public static void insertCustomer(String customerId) throws SQLException {
+        String suffix = String.format("%010d", Math.abs((long) customerId.hashCode()) % 10_000_000_000L);
+        update(DBConfig.getDataSource(), "INSERT INTO Customer (customer_id, name, phone_number, email, address, " +
+                        "customer_pin, aadhar_number, dob, status) VALUES (?, ?, ?, ?, 'Street', '1234', ?, '1990-01-01', 'Active')",
+                customerId, "Customer " + customerId, suffix, customerId + "@example.com", "00" + suffix);
+    }
+
+    public static void insertAccount(String customerId, String accountNumber, String balance) throws SQLException {
+        update(DBConfig.getDataSource(), "INSERT INTO Account (account_id, customer_id, created_at, modified_at, balance, " +
+                        "account_type, account_name, account_number, phone_number_linked, ifsc_code, bank_name, status) " +
+                        "VALUES (?, ?, NOW(), NOW(), ?, 'SAVINGS', 'Test', ?, '9876543210', 'IFSC0001', 'Test Bank', 'ACTIVE')",
+                "ACC_" + accountNumber, customerId, new BigDecimal(balance), accountNumber);
+    }
+
+    /**
+     * The Account row's own balance, without any balance slots.
+     */
+    public static BigDecimal rowBalance(String accountNumber) throws SQLException {
+        return queryDecimal("SELECT balance FROM Account WHERE account_number = ?", accountNumber);
+    }
+
+    public static BigDecimal queryDecimal(String sql, Object... params) throws SQLException {
+        try (Connection conn = DBConfig.getConnection(); PreparedStatement ps = prepare(conn, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getBigDecimal(1) : null;
+        }
+    }
+
+    public static String queryString(String sql, Object... params) throws SQLException {
+        try (Connection conn = DBConfig.getConnection(); PreparedStatement ps = prepare(conn, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    public static long queryLong(String sql, Object... params) throws SQLException {
+        try (Connection conn = DBConfig.getConnection(); PreparedStatement ps = prepare(conn, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    public static int update(String sql, Object... params) throws SQLException {
+        return update(DBConfig.getDataSource(), sql, params);
+    }
+
+    private static int update(DataSource ds, String sql, Object... params) throws SQLException {
+        try (Connection conn = ds.getConnection(); PreparedStatement ps = prepare(conn, sql, params)) {
+            return ps.executeUpdate();
+        }
+    }
+
+    private static PreparedStatement prepare(Connection conn, String sql, Object... params) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+        return ps;
+    }
+}
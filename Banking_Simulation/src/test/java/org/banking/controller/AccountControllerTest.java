@@ -2,7 +2,10 @@ package org.banking.controller;
 
 import org.banking.model.Account;
 import org.banking.model.ApiResponse;
+import org.banking.model.Money;
+import org.banking.model.Page;
 import org.banking.service.AccountService;
+import org.banking.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -16,6 +19,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -43,7 +47,7 @@ class AccountControllerTest {
         validAccount.setPhoneNumberLinked("9876543210");
         validAccount.setIfscCode("BANK0001234");
         validAccount.setBankName("Test Bank");
-        validAccount.setBalance(1000.00);
+        validAccount.setBalance(Money.parse("1000.00"));
         validAccount.setStatus("Active");
         validAccount.setCreatedAt(LocalDateTime.now());
         validAccount.setModifiedAt(LocalDateTime.now());
@@ -415,13 +419,23 @@ class AccountControllerTest {
     @Test
     void testGetAllAccounts_Success() throws Exception {
         List<Account> accounts = Arrays.asList(validAccount);
-        when(accountService.getAllAccounts()).thenReturn(accounts);
+        when(accountService.getAccountsPage(null, 100)).thenReturn(new Page<>(accounts, null));
 
-        Response response = accountController.getAllAccounts();
+        Response response = accountController.getAllAccounts(null, null, null);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         ApiResponse apiResponse = (ApiResponse) response.getEntity();
         assertTrue(apiResponse.isSuccess());
         assertNotNull(apiResponse.getData());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetAllAccounts_CustomerCursorRejected() throws Exception {
+        String idOnlyCursor = new KeysetCursor(null, "ACC_000001").encode();
+
+        Response response = accountController.getAllAccounts(10, idOnlyCursor, null);
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        verify(accountService, never()).getAccountsPage(any(), anyInt());
+    }
+}
@@ -2,6 +2,8 @@ package org.banking.controller;
 
 import org.banking.model.ApiResponse;
 import org.banking.model.Customer;
+import org.banking.model.Page;
+import org.banking.model.UniqueCustomerField;
 import org.banking.service.CustomerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,7 @@ import jakarta.ws.rs.core.Response;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,9 +58,7 @@ class CustomerControllerTest {
 
     @Test
     void testCreateCustomer_Success() throws Exception {
-        when(customerService.isPhoneNumberExists(anyString())).thenReturn(false);
-        when(customerService.isEmailExists(anyString())).thenReturn(false);
-        when(customerService.isAadharExists(anyString())).thenReturn(false);
+        when(customerService.findDuplicateFields(any(Customer.class))).thenReturn(EnumSet.noneOf(UniqueCustomerField.class));
         when(customerService.createCustomer(any(Customer.class))).thenReturn(validCustomer);
 
         Response response = customerController.createCustomer(validCustomer);
@@ -179,7 +180,8 @@ class CustomerControllerTest {
 
     @Test
     void testCreateCustomer_DuplicatePhoneNumber() throws Exception {
-        when(customerService.isPhoneNumberExists(anyString())).thenReturn(true);
+        when(customerService.findDuplicateFields(any(Customer.class)))
+                .thenReturn(EnumSet.of(UniqueCustomerField.PHONE_NUMBER));
 
         Response response = customerController.createCustomer(validCustomer);
 
@@ -191,8 +193,8 @@ class CustomerControllerTest {
 
     @Test
     void testCreateCustomer_DuplicateEmail() throws Exception {
-        when(customerService.isPhoneNumberExists(anyString())).thenReturn(false);
-        when(customerService.isEmailExists(anyString())).thenReturn(true);
+        when(customerService.findDuplicateFields(any(Customer.class)))
+                .thenReturn(EnumSet.of(UniqueCustomerField.EMAIL));
 
         Response response = customerController.createCustomer(validCustomer);
 
@@ -204,9 +206,8 @@ class CustomerControllerTest {
 
     @Test
     void testCreateCustomer_DuplicateAadhar() throws Exception {
-        when(customerService.isPhoneNumberExists(anyString())).thenReturn(false);
-        when(customerService.isEmailExists(anyString())).thenReturn(false);
-        when(customerService.isAadharExists(anyString())).thenReturn(true);
+        when(customerService.findDuplicateFields(any(Customer.class)))
+                .thenReturn(EnumSet.of(UniqueCustomerField.AADHAR_NUMBER));
 
         Response response = customerController.createCustomer(validCustomer);
 
@@ -216,6 +217,19 @@ class CustomerControllerTest {
         assertEquals("Aadhar number already exists", apiResponse.getMessage());
     }
 
+    @Test
+    void testCreateCustomer_SeveralDuplicates_ReportsFirstField() throws Exception {
+        when(customerService.findDuplicateFields(any(Customer.class)))
+                .thenReturn(EnumSet.of(UniqueCustomerField.AADHAR_NUMBER, UniqueCustomerField.PHONE_NUMBER));
+
+        Response response = customerController.createCustomer(validCustomer);
+
+        assertEquals(Response.Status.CONFLICT.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("Phone number already exists", apiResponse.getMessage());
+        verify(customerService, never()).createCustomer(any(Customer.class));
+    }
+
     // ========== GET CUSTOMER TESTS ==========
 
     @Test
@@ -299,9 +313,9 @@ class CustomerControllerTest {
     @Test
     void testGetAllCustomers_Success() throws Exception {
         List<Customer> customers = Arrays.asList(validCustomer);
-        when(customerService.getAllCustomers()).thenReturn(customers);
+        when(customerService.getCustomersPage(null, 100)).thenReturn(new Page<>(customers, "next"));
 
-        Response response = customerController.getAllCustomers();
+        Response response = customerController.getAllCustomers(null, null, null);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         ApiResponse apiResponse = (ApiResponse) response.getEntity();
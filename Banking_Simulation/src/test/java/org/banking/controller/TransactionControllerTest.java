@@ -1,17 +1,33 @@
 package org.banking.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.banking.model.ApiResponse;
+import org.banking.model.CounterpartyDirection;
+import org.banking.model.Money;
+import org.banking.model.Page;
 import org.banking.model.Transaction;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.banking.repository.RowHandler;
+import org.banking.service.StripedLockManager;
 import org.banking.service.TransactionService;
+import org.banking.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,7 +51,7 @@ class TransactionControllerTest {
         Transaction transaction = new Transaction();
         transaction.setTransactionId("TXN_000001");
         transaction.setAccountId("ACC_000001");
-        transaction.setTransactionAmount(100.0);
+        transaction.setTransactionAmount(Money.parse("100.00"));
         transaction.setTransactionType("DEBITED");
         transaction.setTransactionTime(LocalDateTime.now());
         transaction.setTransactionMode("UPI");
@@ -60,7 +76,7 @@ class TransactionControllerTest {
 
         Transaction mockTransaction = createMockTransaction();
         when(transactionService.processTransactionWithPin(
-                anyString(), anyString(), anyString(), anyDouble(), anyString(), anyString()))
+                anyString(), anyString(), anyString(), any(Money.class), anyString(), anyString()))
                 .thenReturn(mockTransaction);
 
         // Act
@@ -70,14 +86,14 @@ class TransactionControllerTest {
         assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
         ApiResponse apiResponse = (ApiResponse) response.getEntity();
         assertTrue(apiResponse.isSuccess());
-        assertTrue(apiResponse.getMessage().contains("Transaction processed successfully"));
+        assertEquals("Transaction processed successfully.", apiResponse.getMessage());
         assertNotNull(apiResponse.getData());
 
         verify(transactionService, times(1)).processTransactionWithPin(
                 eq("1234567890"),
                 eq("123456"),
                 eq("9876543210"),
-                eq(100.0),
+                eq(Money.parse("100.00")),
                 eq("UPI"),
                 eq("Test payment")
         );
@@ -102,7 +118,7 @@ class TransactionControllerTest {
         assertEquals("Sender PIN is required", apiResponse.getMessage());
 
         verify(transactionService, never()).processTransactionWithPin(
-                anyString(), anyString(), anyString(), anyDouble(), anyString(), anyString());
+                anyString(), anyString(), anyString(), any(Money.class), anyString(), anyString());
     }
 
     @Test
@@ -201,6 +217,26 @@ class TransactionControllerTest {
         assertEquals("Invalid amount format", apiResponse.getMessage());
     }
 
+    @Test
+    void testProcessTransaction_FractionalPaiseRejected() {
+        // Arrange
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("senderAccountNumber", "1234567890");
+        requestBody.put("senderPin", "123456");
+        requestBody.put("receiverAccountNumber", "9876543210");
+        requestBody.put("amount", 100.125);
+        requestBody.put("transactionMode", "UPI");
+
+        // Act
+        Response response = transactionController.processTransaction(requestBody);
+
+        // Assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("Invalid amount format", apiResponse.getMessage());
+        verifyNoInteractions(transactionService);
+    }
+
     @Test
     void testProcessTransaction_InvalidPin_TooShort() {
         // Arrange
@@ -358,7 +394,7 @@ class TransactionControllerTest {
 
         Transaction mockTransaction = createMockTransaction();
         when(transactionService.processTransactionWithPin(
-                anyString(), anyString(), anyString(), anyDouble(), anyString(), isNull()))
+                anyString(), anyString(), anyString(), any(Money.class), anyString(), isNull()))
                 .thenReturn(mockTransaction);
 
         // Act
@@ -370,12 +406,89 @@ class TransactionControllerTest {
                 eq("1234567890"),
                 eq("123456"),
                 eq("9876543210"),
-                eq(100.0),
+                eq(Money.parse("100.00")),
                 eq("UPI"),
                 isNull()
         );
     }
 
+    // ==================== BATCH TRANSACTION TESTS ====================
+
+    private TransferInstruction createInstruction(String sender, String receiver, Money amount) {
+        TransferInstruction instruction = new TransferInstruction(sender, receiver, amount, "upi", "Batch payment");
+        instruction.setSenderPin("123456");
+        return instruction;
+    }
+
+    @Test
+    void testProcessTransactionBatch_Success() throws Exception {
+        // Arrange
+        List<TransferInstruction> instructions = Arrays.asList(
+                createInstruction("1234567890", "9876543210", Money.parse("100.00")),
+                createInstruction("1234567890", "5555555555", Money.parse("50.00"))
+        );
+
+        when(transactionService.processTransactionBatch(anyList())).thenReturn(Arrays.asList(
+                TransferResult.success(0, createMockTransaction()),
+                TransferResult.success(1, createMockTransaction())
+        ));
+
+        // Act
+        Response response = transactionController.processTransactionBatch(instructions);
+
+        // Assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertTrue(apiResponse.isSuccess());
+        assertEquals("Batch processed: 2 succeeded, 0 failed", apiResponse.getMessage());
+        assertEquals("UPI", instructions.get(0).getTransactionMode());
+
+        verify(transactionService, times(1)).processTransactionBatch(instructions);
+    }
+
+    @Test
+    void testProcessTransactionBatch_InvalidInstructionFailsAlone() throws Exception {
+        // Arrange
+        List<TransferInstruction> instructions = Arrays.asList(
+                createInstruction("1234567890", "9876543210", Money.parse("100.00")),
+                createInstruction("1234567890", "98765", Money.parse("50.00"))
+        );
+
+        when(transactionService.processTransactionBatch(anyList())).thenReturn(
+                Collections.singletonList(TransferResult.success(0, createMockTransaction())));
+
+        // Act
+        Response response = transactionController.processTransactionBatch(instructions);
+
+        // Assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("Batch processed: 1 succeeded, 1 failed", apiResponse.getMessage());
+
+        @SuppressWarnings("unchecked")
+        List<TransferResult> results = (List<TransferResult>) apiResponse.getData();
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals("Invalid receiver account number. Must be 10-18 digits", results.get(1).getMessage());
+
+        verify(transactionService, times(1)).processTransactionBatch(
+                Collections.singletonList(instructions.get(0)));
+    }
+
+    @Test
+    void testProcessTransactionBatch_EmptyRequest() throws Exception {
+        // Act
+        Response response = transactionController.processTransactionBatch(new ArrayList<>());
+
+        // Assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("At least one transfer instruction is required", apiResponse.getMessage());
+
+        verify(transactionService, never()).processTransactionBatch(anyList());
+    }
+
     // ==================== GET TRANSACTIONS BY ACCOUNT NUMBER TESTS ====================
 
     @Test
@@ -387,11 +500,11 @@ class TransactionControllerTest {
                 createMockTransaction()
         );
 
-        when(transactionService.getTransactionsByAccountNumber(accountNumber))
-                .thenReturn(mockTransactions);
+        when(transactionService.getTransactionsPage(accountNumber, null, 100))
+                .thenReturn(new Page<>(mockTransactions, null));
 
         // Act
-        Response response = transactionController.getTransactionsByAccountNumber(accountNumber, "json");
+        Response response = transactionController.getTransactionsByAccountNumber(accountNumber, "json", null, null, null, null, null, null);
 
         // Assert
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
@@ -399,8 +512,54 @@ class TransactionControllerTest {
         assertTrue(apiResponse.isSuccess());
         assertEquals("Transactions retrieved successfully", apiResponse.getMessage());
         assertNotNull(apiResponse.getData());
+        assertNull(apiResponse.getNextCursor());
 
-        verify(transactionService, times(1)).getTransactionsByAccountNumber(accountNumber);
+        verify(transactionService, times(1)).getTransactionsPage(accountNumber, null, 100);
+    }
+
+    @Test
+    void testGetTransactionsByAccountNumber_FollowsCursor() throws Exception {
+        // Arrange
+        String accountNumber = "1234567890";
+        KeysetCursor after = new KeysetCursor(LocalDateTime.of(2024, 1, 15, 10, 30), "TXN_000050");
+        when(transactionService.getTransactionsPage(accountNumber, after, 2))
+                .thenReturn(new Page<>(Arrays.asList(createMockTransaction(), createMockTransaction()), "next-page"));
+
+        // Act
+        Response response = transactionController.getTransactionsByAccountNumber(
+                accountNumber, "json", 2, after.encode(), null, null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("next-page", apiResponse.getNextCursor());
+        assertEquals(2, ((List<?>) apiResponse.getData()).size());
+    }
+
+    @Test
+    void testGetTransactionsByAccountNumber_InvalidCursor() throws Exception {
+        // Act
+        Response response = transactionController.getTransactionsByAccountNumber("1234567890", "json", null, "not-a-cursor", null, null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("Invalid cursor", apiResponse.getMessage());
+
+        verify(transactionService, never()).getTransactionsPage(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void testGetTransactionsByAccountNumber_LimitOutOfRange() throws Exception {
+        // Act
+        Response response = transactionController.getTransactionsByAccountNumber("1234567890", "json", 0, null, null, null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertTrue(apiResponse.getMessage().contains("Invalid limit"));
+
+        verify(transactionService, never()).getTransactionsPage(anyString(), any(), anyInt());
     }
 
     @Test
@@ -409,7 +568,7 @@ class TransactionControllerTest {
         String invalidAccountNumber = "123"; // Too short
 
         // Act
-        Response response = transactionController.getTransactionsByAccountNumber(invalidAccountNumber, "json");
+        Response response = transactionController.getTransactionsByAccountNumber(invalidAccountNumber, "json", null, null, null, null, null, null);
 
         // Assert
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
@@ -418,17 +577,18 @@ class TransactionControllerTest {
         assertTrue(apiResponse.getMessage().contains("Invalid account number"));
 
         verify(transactionService, never()).getTransactionsByAccountNumber(anyString());
+        verify(transactionService, never()).getTransactionsPage(anyString(), any(), anyInt());
     }
 
     @Test
     void testGetTransactionsByAccountNumber_NoTransactionsFound() throws Exception {
         // Arrange
         String accountNumber = "1234567890";
-        when(transactionService.getTransactionsByAccountNumber(accountNumber))
-                .thenReturn(new ArrayList<>());
+        when(transactionService.getTransactionsPage(accountNumber, null, 100))
+                .thenReturn(new Page<>(new ArrayList<>(), null));
 
         // Act
-        Response response = transactionController.getTransactionsByAccountNumber(accountNumber, "json");
+        Response response = transactionController.getTransactionsByAccountNumber(accountNumber, "json", null, null, null, null, null, null);
 
         // Assert
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
@@ -436,26 +596,336 @@ class TransactionControllerTest {
         assertFalse(apiResponse.isSuccess());
         assertEquals("No transactions found for this account", apiResponse.getMessage());
 
-        verify(transactionService, times(1)).getTransactionsByAccountNumber(accountNumber);
+        verify(transactionService, times(1)).getTransactionsPage(accountNumber, null, 100);
     }
 
     @Test
     void testGetTransactionsByAccountNumber_CSVExport() throws Exception {
         // Arrange
         String accountNumber = "1234567890";
-        List<Transaction> mockTransactions = Arrays.asList(createMockTransaction());
-
-        when(transactionService.getTransactionsByAccountNumber(accountNumber))
-                .thenReturn(mockTransactions);
+        Transaction transaction = createMockTransaction();
+        transaction.setTransactionTime(LocalDateTime.of(2024, 1, 15, 10, 30));
+        transaction.setDescription("Rent, \"January\"");
+
+        when(transactionService.getTransactionsPage(accountNumber, null, 1))
+                .thenReturn(new Page<>(Arrays.asList(transaction), null));
+        doAnswer(invocation -> {
+            RowHandler<Transaction> handler = invocation.getArgument(3);
+            handler.handle(transaction);
+            return null;
+        }).when(transactionService).streamTransactions(eq(accountNumber), isNull(), isNull(), any());
 
         // Act
-        Response response = transactionController.getTransactionsByAccountNumber(accountNumber, "csv");
+        Response response = transactionController.getTransactionsByAccountNumber(
+                accountNumber, "csv", null, null, null, null, null, null);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(body);
 
         // Assert
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals("text/csv", response.getMediaType().toString());
-        assertNotNull(response.getEntity());
+        assertNull(response.getHeaderString("Content-Encoding"));
+        assertEquals("Transaction ID,SenderAccountNumber,ReceiverAccountNumber,Amount,Type,Description,Date & Time\r\n"
+                        + "TXN_000001,1234567890,9876543210,100.00,DEBITED,\"Rent, \"\"January\"\"\",2024-01-15T10:30\r\n",
+                body.toString(StandardCharsets.UTF_8));
+
+        verify(transactionService, never()).getTransactionsByAccountNumber(anyString());
+    }
+
+    @Test
+    void testGetTransactionsByAccountNumber_CSVExportGzipWithDateRange() throws Exception {
+        // Arrange
+        String accountNumber = "1234567890";
+        when(transactionService.getTransactionsPage(accountNumber, null, 1))
+                .thenReturn(new Page<>(Arrays.asList(createMockTransaction()), null));
+        doAnswer(invocation -> {
+            RowHandler<Transaction> handler = invocation.getArgument(3);
+            handler.handle(createMockTransaction());
+            return null;
+        }).when(transactionService).streamTransactions(eq(accountNumber),
+                eq(LocalDateTime.of(2024, 1, 1, 0, 0)), eq(LocalDateTime.of(2024, 2, 1, 0, 0)), any());
+
+        // Act
+        Response response = transactionController.getTransactionsByAccountNumber(
+                accountNumber, "csv", null, null, "2024-01-01", "2024-01-31", "gzip, deflate", null);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(body);
+
+        // Assert
+        assertEquals("gzip", response.getHeaderString("Content-Encoding"));
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(body.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("Transaction ID,"));
+        assertTrue(csv.contains("\r\nTXN_000001,1234567890,9876543210,100.00,DEBITED,Test payment,"));
+    }
+
+    @Test
+    void testGetTransactionsByAccountNumber_CSVExportNoTransactions() throws Exception {
+        // Arrange
+        String accountNumber = "1234567890";
+        when(transactionService.getTransactionsPage(accountNumber, null, 1))
+                .thenReturn(new Page<>(new ArrayList<>(), null));
+
+        // Act
+        Response response = transactionController.getTransactionsByAccountNumber(
+                accountNumber, "csv", null, null, null, null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+        verify(transactionService, never()).streamTransactions(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void testGetTransactionsByAccountNumber_CSVExportInvalidDateRange() throws Exception {
+        // Act
+        Response response = transactionController.getTransactionsByAccountNumber(
+                "1234567890", "csv", null, null, "2024-02-01", "2024-01-01", null, null);
+
+        // Assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertTrue(apiResponse.getMessage().contains("Invalid date range"));
+
+        verifyNoInteractions(transactionService);
+    }
+
+    // ==================== GET ALL TRANSACTIONS TESTS ====================
 
-        verify(transactionService, times(1)).getTransactionsByAccountNumber(accountNumber);
+    @Test
+    void testGetAllTransactions_ReturnsFirstPage() throws Exception {
+        // Arrange
+        when(transactionService.getAllTransactionsPage(null, 50))
+                .thenReturn(new Page<>(Arrays.asList(createMockTransaction()), "cursor-2"));
+
+        // Act
+        Response response = transactionController.getAllTransactions("json", 50, null, null, null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertTrue(apiResponse.isSuccess());
+        assertEquals("cursor-2", apiResponse.getNextCursor());
+    }
+
+    @Test
+    void testGetAllTransactions_CSVExportRefusedGzip() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            RowHandler<Transaction> handler = invocation.getArgument(2);
+            handler.handle(createMockTransaction());
+            return null;
+        }).when(transactionService).streamAllTransactions(eq(LocalDateTime.of(2024, 1, 1, 9, 0)), isNull(), any());
+
+        // Act
+        Response response = transactionController.getAllTransactions(
+                "csv", null, null, "2024-01-01T09:00:00", null, "gzip;q=0", null);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(body);
+
+        // Assert
+        assertEquals("attachment; filename=transactions_all.csv", response.getHeaderString("Content-Disposition"));
+        assertNull(response.getHeaderString("Content-Encoding"));
+        assertEquals(2, body.toString(StandardCharsets.UTF_8).split("\r\n").length);
+        verify(transactionService, never()).getAllTransactionsPage(any(), anyInt());
+    }
+
+    @Test
+    void testAcceptsGzip_QValues() {
+        assertTrue(TransactionController.acceptsGzip("gzip"));
+        assertTrue(TransactionController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(TransactionController.acceptsGzip("gzip; q=0.001"));
+        assertFalse(TransactionController.acceptsGzip("gzip;q=0"));
+        assertFalse(TransactionController.acceptsGzip("gzip;q=0.000"));
+        assertFalse(TransactionController.acceptsGzip("gzip;q=0.0, deflate"));
+        assertFalse(TransactionController.acceptsGzip("gzip;q=abc"));
+        assertFalse(TransactionController.acceptsGzip("deflate, br"));
+        assertFalse(TransactionController.acceptsGzip(null));
+    }
+
+    @Test
+    void testAcceptsGzip_ExplicitEntryBeatsWildcard() {
+        assertFalse(TransactionController.acceptsGzip("*, gzip;q=0"));
+        assertFalse(TransactionController.acceptsGzip("*;q=1, gzip;q=0"));
+        assertTrue(TransactionController.acceptsGzip("*;q=0, gzip;q=0.8"));
+        assertTrue(TransactionController.acceptsGzip("deflate, *"));
+        assertFalse(TransactionController.acceptsGzip("deflate, *;q=0"));
+    }
+
+    @Test
+    void testGetAllTransactions_CSVExportFailureMidStreamAborts() throws Exception {
+        // Arrange
+        doThrow(new Exception("Failed to export transactions: connection lost"))
+                .when(transactionService).streamAllTransactions(isNull(), isNull(), any());
+
+        // Act
+        Response response = transactionController.getAllTransactions("csv", null, null, null, null, null, null);
+        StreamingOutput stream = (StreamingOutput) response.getEntity();
+
+        // Assert
+        IOException exception = assertThrows(IOException.class, () -> stream.write(new ByteArrayOutputStream()));
+        assertTrue(exception.getMessage().contains("connection lost"));
+    }
+
+    // ==================== COUNTERPARTY TESTS ====================
+
+    @Test
+    void testGetCounterpartyTransactions_Success() throws Exception {
+        // Arrange
+        when(transactionService.getCounterpartyTransactionsPage("1234567890", "9876543210",
+                CounterpartyDirection.SENT, null, 100))
+                .thenReturn(new Page<>(Arrays.asList(createMockTransaction()), "cursor-2"));
+
+        // Act
+        Response response = transactionController.getCounterpartyTransactions(
+                "1234567890", "9876543210", "sent", null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertTrue(apiResponse.isSuccess());
+        assertEquals("cursor-2", apiResponse.getNextCursor());
+    }
+
+    @Test
+    void testGetCounterpartyTransactions_DefaultsToBothDirections() throws Exception {
+        // Arrange
+        when(transactionService.getCounterpartyTransactionsPage("1234567890", "9876543210",
+                CounterpartyDirection.BOTH, null, 100))
+                .thenReturn(new Page<>(new ArrayList<>(), null));
+
+        // Act
+        Response response = transactionController.getCounterpartyTransactions(
+                "1234567890", "9876543210", null, null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("No transactions found between these accounts", apiResponse.getMessage());
+    }
+
+    @Test
+    void testGetCounterpartyTransactions_InvalidDirection() throws Exception {
+        // Act
+        Response response = transactionController.getCounterpartyTransactions(
+                "1234567890", "9876543210", "sideways", null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("Invalid direction. Use sent, received or both", apiResponse.getMessage());
+
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void testGetCounterpartyTransactions_SameAccount() throws Exception {
+        // Act
+        Response response = transactionController.getCounterpartyTransactions(
+                "1234567890", "1234567890", null, null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void testGetCounterpartyTransactions_InvalidCounterparty() throws Exception {
+        // Act
+        Response response = transactionController.getCounterpartyTransactions(
+                "1234567890", "12AB", null, null, null, null);
+
+        // Assert
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertTrue(apiResponse.getMessage().contains("Invalid account number"));
+        verifyNoInteractions(transactionService);
+    }
+
+    // ==================== STREAMING EXPORT TESTS ====================
+
+    @Test
+    void testExportAllTransactions_StreamsEnvelopeAndRows() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            RowHandler<Transaction> handler = invocation.getArgument(2);
+            handler.handle(createMockTransaction());
+            handler.handle(createMockTransaction());
+            return null;
+        }).when(transactionService).streamAllTransactions(isNull(), isNull(), any());
+
+        // Act
+        Response response = transactionController.exportAllTransactions(null, null);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(body);
+
+        // Assert
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        JsonNode json = new ObjectMapper().readTree(body.toByteArray());
+        assertTrue(json.get("success").asBoolean());
+        assertEquals("Transactions exported successfully", json.get("message").asText());
+        assertEquals(2, json.get("data").size());
+        assertEquals("TXN_000001", json.get("data").get(0).get("transactionId").asText());
+    }
+
+    @Test
+    void testExportAllTransactions_FailureMidStreamAborts() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            RowHandler<Transaction> handler = invocation.getArgument(2);
+            handler.handle(createMockTransaction());
+            throw new Exception("Failed to export transactions: connection lost");
+        }).when(transactionService).streamAllTransactions(isNull(), isNull(), any());
+
+        // Act
+        Response response = transactionController.exportAllTransactions(null, null);
+        StreamingOutput stream = (StreamingOutput) response.getEntity();
+
+        // Assert
+        IOException exception = assertThrows(IOException.class, () -> stream.write(new ByteArrayOutputStream()));
+        assertTrue(exception.getMessage().contains("connection lost"));
+    }
+
+    // ==================== ACCOUNT LOCK STATS TESTS ====================
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetAccountLockStats_BusiestStripesUpToLimit() throws Exception {
+        // Arrange
+        StripedLockManager locks = new StripedLockManager(16, 50);
+        for (String accountNumber : List.of("1001", "1002", "1003", "1004", "1005")) {
+            locks.lock(accountNumber).close();
+        }
+        TransactionController controller = new TransactionController(transactionService, locks);
+
+        // Act
+        Response response = controller.getAccountLockStats(2);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        List<StripedLockManager.StripeStats> stats =
+                (List<StripedLockManager.StripeStats>) ((ApiResponse) response.getEntity()).getData();
+        assertEquals(2, stats.size());
+        assertEquals(1, stats.get(0).acquisitions());
+    }
+
+    @Test
+    void testGetAccountLockStats_DisabledLocksReportNothing() {
+        // Act
+        Response response = transactionController.getAccountLockStats(20);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        ApiResponse apiResponse = (ApiResponse) response.getEntity();
+        assertEquals("Account locks are disabled", apiResponse.getMessage());
+        assertEquals(List.of(), apiResponse.getData());
+    }
+
+    @Test
+    void testGetAccountLockStats_InvalidLimit() {
+        // Act
+        Response response = transactionController.getAccountLockStats(0);
+
+        // Assert
+        assertEquals(400, response.getStatus());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package org.banking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void testParse_WholeAndFractionalRupees() {
+        assertEquals(125050, Money.parse("1250.5").toPaise());
+        assertEquals(125050, Money.parse("1250.50").toPaise());
+        assertEquals(100000, Money.parse("1e3").toPaise());
+        assertEquals(1, Money.parse("0.010").toPaise());
+        assertEquals(-250, Money.parse("-2.5").toPaise());
+    }
+
+    @Test
+    void testParse_SubPaisaRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("100.125"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("0.001"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1e-3"));
+    }
+
+    @Test
+    void testParse_HugeExponentsRejectedQuickly() {
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            assertThrows(IllegalArgumentException.class, () -> Money.parse("1e99999999"));
+            assertThrows(IllegalArgumentException.class, () -> Money.parse("-1e99999999"));
+            assertThrows(IllegalArgumentException.class, () -> Money.parse("1e-99999999"));
+            assertThrows(IllegalArgumentException.class, () -> Money.parse("123e-2147483647"));
+            assertSame(Money.ZERO, Money.parse("0e-99999999"));
+            assertSame(Money.ZERO, Money.parse("0e99999999"));
+        });
+    }
+
+    @Test
+    void testOf_OverflowRejected() {
+        // Long.MAX_VALUE paise is 92233720368547758.07 rupees
+        assertEquals(Long.MAX_VALUE, Money.of(new BigDecimal("92233720368547758.07")).toPaise());
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("92233720368547758.08")));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1e17")));
+        assertThrows(ArithmeticException.class, () -> Money.ofPaise(Long.MAX_VALUE).plus(Money.ofPaise(1)));
+    }
+
+    @Test
+    void testParse_NotANumberRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("12abc"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse(""));
+    }
+
+    @Test
+    void testOf_NullStaysNull() {
+        assertNull(Money.of(null));
+    }
+
+    @Test
+    void testRoundTrip_ThroughBigDecimalAndString() {
+        for (String rupees : new String[]{"0.00", "0.01", "1250.50", "-99.99", "92233720368547758.07"}) {
+            Money money = Money.parse(rupees);
+            assertEquals(rupees, money.toString());
+            assertEquals(money, Money.of(money.toBigDecimal()));
+            assertEquals(money, Money.ofPaise(money.toPaise()));
+        }
+    }
+
+    @Test
+    void testArithmeticAndComparison() {
+        Money a = Money.parse("10.25");
+        Money b = Money.parse("0.75");
+
+        assertEquals(Money.parse("11.00"), a.plus(b));
+        assertEquals(Money.parse("9.50"), a.minus(b));
+        assertTrue(b.isLessThan(a));
+        assertTrue(a.compareTo(b) > 0);
+        assertFalse(Money.ZERO.isPositive());
+        assertEquals(a.hashCode(), Money.parse("10.250").hashCode());
+    }
+}
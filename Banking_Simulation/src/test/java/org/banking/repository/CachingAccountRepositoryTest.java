@@ -0,0 +1,130 @@
+package org.banking.repository;
+
+import org.banking.model.Account;
+import org.banking.model.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CachingAccountRepositoryTest {
+
+    private AccountRepository delegate;
+    private CachingAccountRepository repository;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        delegate = mock(AccountRepository.class);
+        repository = new CachingAccountRepository(delegate, 2, 0);
+        when(delegate.findByAccountNumber("1001")).thenAnswer(invocation -> account("ACC_1001", "1001", "100.00"));
+        when(delegate.findByAccountNumber("1002")).thenAnswer(invocation -> account("ACC_1002", "1002", "200.00"));
+        when(delegate.findByAccountNumber("1003")).thenAnswer(invocation -> account("ACC_1003", "1003", "300.00"));
+    }
+
+    private static Account account(String accountId, String accountNumber, String balance) {
+        Account account = new Account();
+        account.setAccountId(accountId);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(Money.parse(balance));
+        return account;
+    }
+
+    @Test
+    void testFindByAccountNumber_LoadedOnceThenServedFromCache() throws SQLException {
+        Account first = repository.findByAccountNumber("1001");
+        Account second = repository.findByAccountNumber("1001");
+
+        assertEquals(Money.parse("100.00"), second.getBalance());
+        assertNotSame(first, second);
+        verify(delegate, times(1)).findByAccountNumber("1001");
+    }
+
+    @Test
+    void testFindByAccountNumber_CallersCannotChangeTheCachedCopy() throws SQLException {
+        repository.findByAccountNumber("1001").setBalance(Money.parse("0.00"));
+
+        assertEquals(Money.parse("100.00"), repository.findByAccountNumber("1001").getBalance());
+    }
+
+    @Test
+    void testFindByAccountNumber_LeastRecentlyUsedEvicted() throws SQLException {
+        repository.findByAccountNumber("1001");
+        repository.findByAccountNumber("1002");
+        repository.findByAccountNumber("1001");
+
+        repository.findByAccountNumber("1003");
+        repository.findByAccountNumber("1001");
+        repository.findByAccountNumber("1002");
+
+        verify(delegate, times(1)).findByAccountNumber("1001");
+        verify(delegate, times(2)).findByAccountNumber("1002");
+        assertEquals(2, repository.getAccountCache().getEvictionCount());
+    }
+
+    @Test
+    void testFindById_SharesTheAccountNumberEntry() throws SQLException {
+        repository.findByAccountNumber("1001");
+        when(delegate.findById("ACC_1001")).thenReturn(account("ACC_1001", "1001", "100.00"));
+
+        repository.findById("ACC_1001");
+        assertEquals(Money.parse("100.00"), repository.findById("ACC_1001").getBalance());
+
+        // The id index was filled by the lookup by number
+        verify(delegate, never()).findById(any());
+    }
+
+    @Test
+    void testUpdate_InvalidatesEntry() throws SQLException {
+        repository.findByAccountNumber("1001");
+        when(delegate.findByAccountNumber("1001")).thenReturn(account("ACC_1001", "1001", "150.00"));
+
+        repository.update("1001", account("ACC_1001", "1001", "150.00"));
+
+        assertEquals(Money.parse("150.00"), repository.findByAccountNumber("1001").getBalance());
+        verify(delegate, times(2)).findByAccountNumber("1001");
+    }
+
+    @Test
+    void testDelete_InvalidatesEntryEvenWhenDeleteFails() throws SQLException {
+        repository.findByAccountNumber("1001");
+        when(delegate.deleteByAccountNumber("1001")).thenThrow(new SQLException("lock wait timeout"));
+
+        assertThrows(SQLException.class, () -> repository.deleteByAccountNumber("1001"));
+        repository.findByAccountNumber("1001");
+
+        verify(delegate, times(2)).findByAccountNumber("1001");
+    }
+
+    @Test
+    void testAccountsChanged_InvalidatesTransferredAccounts() throws SQLException {
+        repository.findByAccountNumber("1001");
+        repository.findByAccountNumber("1002");
+
+        repository.accountsChanged(List.of("1001"));
+        repository.findByAccountNumber("1001");
+        repository.findByAccountNumber("1002");
+
+        verify(delegate, times(2)).findByAccountNumber("1001");
+        verify(delegate, times(1)).findByAccountNumber("1002");
+    }
+
+    @Test
+    void testFindByAccountNumber_LoadRacingAnInvalidationNotCached() throws SQLException {
+        // A transfer commits while the old row is being read
+        when(delegate.findByAccountNumber("1001")).thenAnswer(invocation -> {
+            repository.accountsChanged(List.of("1001"));
+            return account("ACC_1001", "1001", "100.00");
+        });
+
+        repository.findByAccountNumber("1001");
+        repository.findByAccountNumber("1001");
+
+        verify(delegate, times(2)).findByAccountNumber("1001");
+        assertEquals(0, repository.getAccountCache().size());
+    }
+}
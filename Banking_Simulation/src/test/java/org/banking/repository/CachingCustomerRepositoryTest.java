@@ -0,0 +1,154 @@
+package org.banking.repository;
+
+import org.banking.model.Account;
+import org.banking.model.Customer;
+import org.banking.model.TransferContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CachingCustomerRepositoryTest {
+
+    private CustomerRepository delegate;
+    private CachingCustomerRepository repository;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        delegate = mock(CustomerRepository.class);
+        repository = new CachingCustomerRepository(delegate, 100, 0);
+        when(delegate.findByAccountNumber("1001")).thenAnswer(invocation -> customer("CUST_1", "Asha", "1234"));
+        when(delegate.findByAccountNumber("1002")).thenAnswer(invocation -> customer("CUST_1", "Asha", "1234"));
+        when(delegate.findByAccountNumber("2001")).thenAnswer(invocation -> customer("CUST_2", "Ravi", "9999"));
+    }
+
+    private static Customer customer(String customerId, String name, String pin) {
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setName(name);
+        customer.setCustomerPin(pin);
+        return customer;
+    }
+
+    private static Account account(String accountNumber, String customerId) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setCustomerId(customerId);
+        return account;
+    }
+
+    @Test
+    void testVerifyPin_CheckedAgainstCachedDigest() throws SQLException {
+        assertTrue(repository.verifyPin("1001", "1234"));
+        assertFalse(repository.verifyPin("1001", "4321"));
+        assertFalse(repository.verifyPin("1001", null));
+        assertTrue(repository.verifyPin("1001", "1234"));
+
+        verify(delegate, times(1)).findByAccountNumber("1001");
+        verify(delegate, never()).verifyPin(any(), any());
+    }
+
+    @Test
+    void testVerifyPin_UnknownAccount() throws SQLException {
+        assertFalse(repository.verifyPin("9999", "1234"));
+        assertEquals(0, repository.getCustomerCache().size());
+    }
+
+    @Test
+    void testFindByAccountNumber_PinNeverCached() throws SQLException {
+        repository.findByAccountNumber("1001");
+        Customer customer = repository.findByAccountNumber("1001");
+
+        assertEquals("Asha", customer.getName());
+        assertNull(customer.getCustomerPin());
+        assertNull(repository.getCustomerCache().get("1001").customer().getCustomerPin());
+        verify(delegate, times(1)).findByAccountNumber("1001");
+    }
+
+    @Test
+    void testUpdate_InvalidatesEveryAccountOfTheCustomer() throws SQLException {
+        repository.verifyPin("1001", "1234");
+        repository.verifyPin("1002", "1234");
+        repository.verifyPin("2001", "9999");
+        when(delegate.findByAccountNumber("1001")).thenReturn(customer("CUST_1", "Asha", "5678"));
+
+        repository.update("CUST_1", customer("CUST_1", "Asha", "5678"));
+
+        assertEquals(1, repository.getCustomerCache().size());
+        assertTrue(repository.verifyPin("1001", "5678"));
+        assertFalse(repository.verifyPin("1001", "1234"));
+    }
+
+    @Test
+    void testDelete_InvalidatesEvenWhenDeleteFails() throws SQLException {
+        repository.verifyPin("2001", "9999");
+        when(delegate.deleteById("CUST_2")).thenThrow(new SQLException("foreign key constraint fails"));
+
+        assertThrows(SQLException.class, () -> repository.deleteById("CUST_2"));
+
+        assertNull(repository.getCustomerCache().get("2001"));
+    }
+
+    @Test
+    void testAccountsChanged_InvalidatesRelinkedAccount() throws SQLException {
+        repository.verifyPin("1002", "1234");
+        when(delegate.findByAccountNumber("1002")).thenReturn(customer("CUST_2", "Ravi", "9999"));
+
+        repository.accountsChanged(List.of("1002"));
+
+        assertEquals("CUST_2", repository.findByAccountNumber("1002").getCustomerId());
+    }
+
+    @Test
+    void testLoadTransferContext_WarmCacheReadsOnlyAccounts() throws SQLException {
+        repository.verifyPin("1001", "1234");
+        repository.verifyPin("2001", "9999");
+        when(delegate.findAccountsByNumbers("1001", "2001"))
+                .thenReturn(List.of(account("1001", "CUST_1"), account("2001", "CUST_2")));
+
+        TransferContext context = repository.loadTransferContext("1001", "1234", "2001");
+
+        assertTrue(context.isPinValid());
+        assertEquals("Asha", context.getSenderCustomer().getName());
+        assertEquals("Ravi", context.getReceiverCustomer().getName());
+        assertEquals("2001", context.getReceiverAccount().getAccountNumber());
+        assertNull(context.getSenderCustomer().getCustomerPin());
+        verify(delegate, never()).loadTransferContext(any(), any(), any());
+    }
+
+    @Test
+    void testLoadTransferContext_WrongPinRejected() throws SQLException {
+        when(delegate.findAccountsByNumbers("1001", "2001"))
+                .thenReturn(List.of(account("1001", "CUST_1"), account("2001", "CUST_2")));
+
+        assertFalse(repository.loadTransferContext("1001", "0000", "2001").isPinValid());
+    }
+
+    @Test
+    void testLoadTransferContext_AccountMovedFallsBackToJoinedQuery() throws SQLException {
+        repository.verifyPin("1001", "1234");
+        repository.verifyPin("2001", "9999");
+        // 2001 now belongs to another customer than the one cached for it
+        when(delegate.findAccountsByNumbers("1001", "2001"))
+                .thenReturn(List.of(account("1001", "CUST_1"), account("2001", "CUST_3")));
+        TransferContext fresh = new TransferContext();
+        when(delegate.loadTransferContext("1001", "1234", "2001")).thenReturn(fresh);
+
+        assertSame(fresh, repository.loadTransferContext("1001", "1234", "2001"));
+        assertEquals(0, repository.getCustomerCache().size());
+    }
+
+    @Test
+    void testLoadTransferContext_UnknownAccountLeftToJoinedQuery() throws SQLException {
+        TransferContext missing = new TransferContext();
+        when(delegate.loadTransferContext("1001", "1234", "9999")).thenReturn(missing);
+
+        assertSame(missing, repository.loadTransferContext("1001", "1234", "9999"));
+        verify(delegate, never()).findAccountsByNumbers(any(String[].class));
+    }
+}
@@ -0,0 +1,94 @@
+package org.banking.repository;
+
+import org.banking.config.DBConfig;
+import org.banking.config.TestDatabase;
+import org.banking.model.Money;
+import org.banking.model.TransferContext;
+import org.banking.model.TransferInstruction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerRepositoryImplTest {
+
+    private final CustomerRepositoryImpl repository = new CustomerRepositoryImpl();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.start();
+        TestDatabase.insertCustomer("CUST_1");
+        TestDatabase.insertCustomer("CUST_2");
+        TestDatabase.insertAccount("CUST_1", "1001", "1000.00");
+        TestDatabase.insertAccount("CUST_1", "1002", "20.00");
+        TestDatabase.insertAccount("CUST_2", "2001", "500.00");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        TestDatabase.stop();
+    }
+
+    private static TransferInstruction transfer(String from, String pin, String to) {
+        TransferInstruction instruction = new TransferInstruction(from, to, Money.parse("1.00"), "IMPS", "test");
+        instruction.setSenderPin(pin);
+        return instruction;
+    }
+
+    @Test
+    void testLoadTransferContexts_InInstructionOrder() throws SQLException {
+        List<TransferContext> contexts = repository.loadTransferContexts(List.of(
+                transfer("1001", "1234", "2001"), transfer("2001", "9999", "1002"),
+                transfer("1002", "1234", "3001"), transfer("3001", "1234", "1001")));
+
+        assertEquals(4, contexts.size());
+
+        TransferContext first = contexts.get(0);
+        assertTrue(first.isPinValid());
+        assertEquals("CUST_1", first.getSenderCustomer().getCustomerId());
+        assertEquals(Money.parse("1000.00"), first.getSenderAccount().getBalance());
+        assertEquals("2001", first.getReceiverAccount().getAccountNumber());
+        assertEquals("CUST_2", first.getReceiverCustomer().getCustomerId());
+
+        TransferContext wrongPin = contexts.get(1);
+        assertFalse(wrongPin.isPinValid());
+        assertEquals("CUST_2", wrongPin.getSenderCustomer().getCustomerId());
+        assertEquals("CUST_1", wrongPin.getReceiverCustomer().getCustomerId());
+
+        // Unknown receiver: context without its side; unknown sender: no context, like the single load
+        assertEquals(Money.parse("20.00"), contexts.get(2).getSenderAccount().getBalance());
+        assertNull(contexts.get(2).getReceiverAccount());
+        assertNull(contexts.get(2).getReceiverCustomer());
+        assertNull(contexts.get(3));
+    }
+
+    @Test
+    void testLoadTransferContexts_OneQueryPerTable() throws SQLException {
+        AtomicInteger connections = new AtomicInteger();
+        DataSource database = DBConfig.getDataSource();
+        DBConfig.useDataSource((DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    connections.incrementAndGet();
+                    return method.invoke(database, args);
+                }));
+
+        List<TransferContext> contexts = repository.loadTransferContexts(List.of(
+                transfer("1001", "1234", "2001"), transfer("2001", "1234", "1001"),
+                transfer("1002", "1234", "2001"), transfer("1001", "1234", "1002")));
+
+        assertEquals(4, contexts.size());
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    void testLoadTransferContexts_EmptyBatch() throws SQLException {
+        assertTrue(repository.loadTransferContexts(List.of()).isEmpty());
+    }
+}
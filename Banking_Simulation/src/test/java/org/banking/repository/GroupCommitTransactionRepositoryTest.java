@@ -0,0 +1,170 @@
+package org.banking.repository;
+
+import org.banking.model.Money;
+import org.banking.model.Transaction;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class GroupCommitTransactionRepositoryTest {
+
+    private static final long LONG_WINDOW_MICROS = TimeUnit.SECONDS.toMicros(30);
+
+    private TransactionRepository delegate;
+    private GroupCommitTransactionRepository repository;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(TransactionRepository.class);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+        callers.shutdownNow();
+    }
+
+    // Every instruction succeeds, with a transaction carrying its description back
+    private void delegateSucceeds() throws SQLException {
+        when(delegate.processMoneyTransfers(anyList())).thenAnswer(invocation -> {
+            List<TransferInstruction> instructions = invocation.getArgument(0);
+            List<TransferResult> results = new ArrayList<>();
+            for (int i = 0; i < instructions.size(); i++) {
+                Transaction transaction = new Transaction();
+                transaction.setDescription(instructions.get(i).getDescription());
+                results.add(TransferResult.success(i, transaction));
+            }
+            return results;
+        });
+    }
+
+    private Future<Transaction> transfer(String description) {
+        return callers.submit(() -> repository.processMoneyTransfer("1001", "1002", null, null,
+                Money.parse("10.00"), "IMPS", description));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<TransferInstruction>> batches() throws SQLException {
+        ArgumentCaptor<List<TransferInstruction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(delegate, atLeastOnce()).processMoneyTransfers(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void testProcessMoneyTransfer_FullBatchFlushedWithoutWaitingForWindow() throws Exception {
+        delegateSucceeds();
+        repository = new GroupCommitTransactionRepository(delegate, LONG_WINDOW_MICROS, 3, 1);
+
+        List<Future<Transaction>> pending = List.of(transfer("a"), transfer("b"), transfer("c"));
+
+        // Well inside the 30s window, as the third transfer filled the batch; each caller gets its own result
+        assertEquals("a", pending.get(0).get(10, TimeUnit.SECONDS).getDescription());
+        assertEquals("b", pending.get(1).get(10, TimeUnit.SECONDS).getDescription());
+        assertEquals("c", pending.get(2).get(10, TimeUnit.SECONDS).getDescription());
+        List<List<TransferInstruction>> batches = batches();
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+    }
+
+    @Test
+    void testProcessMoneyTransfer_PartialBatchFlushedWhenWindowCloses() throws Exception {
+        delegateSucceeds();
+        repository = new GroupCommitTransactionRepository(delegate, TimeUnit.MILLISECONDS.toMicros(100), 64, 1);
+
+        long start = System.nanoTime();
+        Transaction transaction = transfer("alone").get(10, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals("alone", transaction.getDescription());
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(100), "flushed before the window closed");
+        assertEquals(1, batches().get(0).size());
+    }
+
+    @Test
+    void testProcessMoneyTransfer_BatchFailureReachesEveryCaller() throws Exception {
+        SQLException deadlock = new SQLException("Deadlock found when trying to get lock");
+        when(delegate.processMoneyTransfers(anyList())).thenThrow(deadlock);
+        repository = new GroupCommitTransactionRepository(delegate, LONG_WINDOW_MICROS, 2, 1);
+
+        Future<Transaction> first = transfer("a");
+        Future<Transaction> second = transfer("b");
+
+        ExecutionException firstFailure = assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+        ExecutionException secondFailure = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+        assertSame(deadlock, firstFailure.getCause());
+        assertSame(deadlock, secondFailure.getCause());
+        verify(delegate, times(1)).processMoneyTransfers(anyList());
+    }
+
+    @Test
+    void testProcessMoneyTransfer_UncheckedFailureWrapped() throws Exception {
+        when(delegate.processMoneyTransfers(anyList())).thenThrow(new IllegalStateException("pool closed"));
+        repository = new GroupCommitTransactionRepository(delegate, 0, 64, 1);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> transfer("a").get(10, TimeUnit.SECONDS));
+
+        SQLException cause = assertInstanceOf(SQLException.class, failure.getCause());
+        assertEquals("Transaction failed: pool closed", cause.getMessage());
+        assertInstanceOf(IllegalStateException.class, cause.getCause());
+    }
+
+    @Test
+    void testProcessMoneyTransfer_FailedInstructionOnlyFailsItsCaller() throws Exception {
+        when(delegate.processMoneyTransfers(anyList())).thenAnswer(invocation -> {
+            List<TransferInstruction> instructions = invocation.getArgument(0);
+            List<TransferResult> results = new ArrayList<>();
+            for (int i = 0; i < instructions.size(); i++) {
+                results.add("poor".equals(instructions.get(i).getDescription())
+                        ? TransferResult.failure(i, "Insufficient balance")
+                        : TransferResult.success(i, new Transaction()));
+            }
+            return results;
+        });
+        repository = new GroupCommitTransactionRepository(delegate, LONG_WINDOW_MICROS, 2, 1);
+
+        Future<Transaction> rich = transfer("rich");
+        Future<Transaction> poor = transfer("poor");
+
+        assertNotNull(rich.get(10, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> poor.get(10, TimeUnit.SECONDS));
+        assertEquals("Transaction failed: Insufficient balance", failure.getCause().getMessage());
+    }
+
+    @Test
+    void testClose_QueuedAndLaterTransfersRefused() throws Exception {
+        repository = new GroupCommitTransactionRepository(delegate, LONG_WINDOW_MICROS, 64, 1);
+
+        // Whether still queued or already held by the dispatcher for the window, it is never committed
+        Future<Transaction> stranded = transfer("a");
+        Thread.sleep(50);
+        repository.close();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> stranded.get(10, TimeUnit.SECONDS));
+        assertEquals("Transfer dispatcher is shut down", failure.getCause().getMessage());
+        SQLException refused = assertThrows(SQLException.class, () -> repository.processMoneyTransfer("1001", "1002",
+                null, null, Money.parse("1.00"), "IMPS", "late"));
+        assertEquals("Transfer dispatcher is shut down", refused.getMessage());
+        verify(delegate, never()).processMoneyTransfers(anyList());
+    }
+}
@@ -0,0 +1,214 @@
+package org.banking.repository;
+
+import org.banking.config.DBConfig;
+import org.banking.config.TestDatabase;
+import org.banking.model.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotAccountBalancesTest {
+
+    private static final String MERCHANT = "2001";
+
+    private final TransactionRepositoryImpl transactions = new TransactionRepositoryImpl();
+    private final CustomerRepositoryImpl customers = new CustomerRepositoryImpl();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.start();
+        TestDatabase.insertCustomer("CUST_1");
+        TestDatabase.insertCustomer("CUST_2");
+        TestDatabase.insertAccount("CUST_1", "1001", "1000.00");
+        TestDatabase.insertAccount("CUST_2", MERCHANT, "100.00");
+        HotAccountBalances.configure(true, Set.of(MERCHANT));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        // As shipped in application.properties
+        HotAccountBalances.configure(false, Set.of());
+        TestDatabase.stop();
+    }
+
+    private void transfer(String from, String to, String amount) throws SQLException {
+        transactions.processMoneyTransfer(from, to, null, null, Money.parse(amount), "UPI", "test");
+    }
+
+    private static BigDecimal slotTotal() throws SQLException {
+        return TestDatabase.queryDecimal(
+                "SELECT COALESCE(SUM(balance), 0) FROM account_balance_slot WHERE account_number = ?", MERCHANT);
+    }
+
+    private static long slotRows() throws SQLException {
+        return TestDatabase.queryLong("SELECT COUNT(*) FROM account_balance_slot WHERE account_number = ?", MERCHANT);
+    }
+
+    private Money readBalance(String accountNumber) throws SQLException {
+        return customers.findAccountsByNumbers(accountNumber).get(0).getBalance();
+    }
+
+    // Records each Account row lock the transfers take, as "SHARE 2001" or "UPDATE 3001", in the order taken
+    private static List<String> recordRowLocks() throws SQLException {
+        List<String> locks = Collections.synchronizedList(new ArrayList<>());
+        DataSource database = DBConfig.getDataSource();
+        DBConfig.useDataSource(recording(DataSource.class, database, null, locks));
+        return locks;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T recording(Class<T> type, T target, String sql, List<String> locks) {
+        return (T) Proxy.newProxyInstance(HotAccountBalancesTest.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    if (sql != null && method.getName().equals("setString") && sql.startsWith("SELECT account_id")) {
+                        locks.add((sql.endsWith("FOR SHARE") ? "SHARE " : "UPDATE ") + args[1]);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getReturnType() == Connection.class) {
+                        return recording(Connection.class, (Connection) result, null, locks);
+                    }
+                    if (method.getReturnType() == PreparedStatement.class) {
+                        return recording(PreparedStatement.class, (PreparedStatement) result, (String) args[0], locks);
+                    }
+                    return result;
+                });
+    }
+
+    @Test
+    void testCredit_ReaderSeesRowPlusSlots() throws SQLException {
+        transfer("1001", MERCHANT, "30.00");
+        transfer("1001", MERCHANT, "20.00");
+
+        // The row is untouched; the credits sit in the slots
+        assertEquals(new BigDecimal("100.00"), TestDatabase.rowBalance(MERCHANT));
+        assertEquals(0, new BigDecimal("50.00").compareTo(slotTotal()));
+        assertEquals(Money.parse("150.00"), readBalance(MERCHANT));
+        assertEquals(Money.parse("950.00"), readBalance("1001"));
+    }
+
+    @Test
+    void testDebit_HotSenderSweepsSlotsWhenRowShort() throws SQLException {
+        transfer("1001", MERCHANT, "500.00");
+
+        transfer(MERCHANT, "1001", "550.00");
+
+        assertEquals(new BigDecimal("50.00"), TestDatabase.rowBalance(MERCHANT));
+        assertEquals(0, BigDecimal.ZERO.compareTo(slotTotal()));
+        assertEquals(new BigDecimal("1050.00"), TestDatabase.rowBalance("1001"));
+
+        // Nothing left to sweep, so the row's own balance decides
+        assertThrows(SQLException.class, () -> transfer(MERCHANT, "1001", "50.01"));
+        assertEquals(Money.parse("50.00"), readBalance(MERCHANT));
+    }
+
+    @Test
+    void testDebit_RowCoversItWithoutSweeping() throws SQLException {
+        transfer("1001", MERCHANT, "40.00");
+
+        transfer(MERCHANT, "1001", "60.00");
+
+        assertEquals(new BigDecimal("40.00"), TestDatabase.rowBalance(MERCHANT));
+        assertEquals(0, new BigDecimal("40.00").compareTo(slotTotal()));
+    }
+
+    @Test
+    void testTransfer_HotRowLockedInAccountOrderBothWays() throws Exception {
+        // A sender numbered above the merchant, so the merchant's row comes first either way
+        String sender = "3001";
+        TestDatabase.insertAccount("CUST_1", sender, "1000.00");
+        List<String> locks = recordRowLocks();
+
+        transfer(sender, MERCHANT, "10.00");
+        assertEquals(List.of("SHARE " + MERCHANT, "UPDATE " + sender), locks);
+        locks.clear();
+        transfer(MERCHANT, sender, "10.00");
+        assertEquals(List.of("UPDATE " + MERCHANT, "UPDATE " + sender), locks);
+
+        // Both directions at once, as the deadlock needed
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (String[] pair : List.of(new String[]{sender, MERCHANT}, new String[]{MERCHANT, sender})) {
+                pending.add(callers.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        transfer(pair[0], pair[1], "1.00");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(Money.parse("1000.00"), readBalance(sender));
+        assertEquals(Money.parse("100.00"), readBalance(MERCHANT));
+    }
+
+    @Test
+    void testConsolidation_Idempotent() throws SQLException {
+        transfer("1001", MERCHANT, "10.00");
+        transfer("1001", MERCHANT, "15.50");
+        transfer("1001", MERCHANT, "4.50");
+        long rows = slotRows();
+
+        HotAccountBalances.consolidateAll();
+        HotAccountBalances.consolidateAll();
+
+        assertEquals(new BigDecimal("130.00"), TestDatabase.rowBalance(MERCHANT));
+        assertEquals(0, BigDecimal.ZERO.compareTo(slotTotal()));
+        // A flagged account keeps its slot rows for the next credit
+        assertEquals(rows, slotRows());
+        assertEquals(Money.parse("130.00"), readBalance(MERCHANT));
+    }
+
+    @Test
+    void testStartShared_LeftoverSlotsFoldedAfterFlagTurnedOff() throws SQLException {
+        transfer("1001", MERCHANT, "25.00");
+        assertTrue(slotRows() > 0);
+
+        HotAccountBalances.configure(false, Set.of());
+        assertNull(HotAccountBalances.startShared());
+
+        assertEquals(new BigDecimal("125.00"), TestDatabase.rowBalance(MERCHANT));
+        assertEquals(0, slotRows());
+        assertFalse(HotAccountBalances.isHot(MERCHANT));
+    }
+
+    @Test
+    void testConsolidation_UnflaggedAccountSlotsDeleted() throws SQLException {
+        transfer("1001", MERCHANT, "25.00");
+
+        // Still enabled, but the merchant was taken off the list
+        HotAccountBalances.configure(true, Set.of());
+        HotAccountBalances.consolidateAll();
+
+        assertEquals(new BigDecimal("125.00"), TestDatabase.rowBalance(MERCHANT));
+        assertEquals(0, slotRows());
+    }
+}
@@ -0,0 +1,266 @@
+package org.banking.repository;
+
+import org.banking.config.DBConfig;
+import org.banking.config.TestDatabase;
+import org.banking.model.Money;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+class InMemoryLedgerTransactionRepositoryTest {
+
+    private static final int REGION_SIZE = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final List<InMemoryLedgerTransactionRepository> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.start();
+        TestDatabase.insertCustomer("CUST_1");
+        TestDatabase.insertAccount("CUST_1", "1001", "1000.00");
+        TestDatabase.insertAccount("CUST_1", "1002", "500.00");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        opened.forEach(InMemoryLedgerTransactionRepository::close);
+        TestDatabase.stop();
+    }
+
+    private InMemoryLedgerTransactionRepository open(LedgerJournal journal) throws SQLException {
+        return open(journal, null);
+    }
+
+    private InMemoryLedgerTransactionRepository open(LedgerJournal journal, LedgerSnapshotStore snapshots)
+            throws SQLException {
+        InMemoryLedgerTransactionRepository ledger = new InMemoryLedgerTransactionRepository(
+                mock(TransactionRepository.class), AccountChangeListener.NONE, journal, false,
+                1024, 64, 1000, 100, 1, snapshots);
+        opened.add(ledger);
+        return ledger;
+    }
+
+    private LedgerJournal journal() throws IOException {
+        return LedgerJournal.open(dir.resolve("ledger.journal"), REGION_SIZE);
+    }
+
+    private static TransferInstruction transfer(String from, String to, String amount) {
+        return new TransferInstruction(from, to, Money.parse(amount), "IMPS", "test");
+    }
+
+    private long journalSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("ledger.journal.")).count();
+        }
+    }
+
+    @Test
+    void testTransfer_ProjectedIntoAccount() throws Exception {
+        InMemoryLedgerTransactionRepository ledger = open(journal());
+
+        List<TransferResult> results = ledger.processMoneyTransfers(List.of(transfer("1001", "1002", "250.00")));
+
+        assertTrue(results.get(0).isSuccess());
+        ledger.close();
+        assertEquals(new BigDecimal("750.00"), TestDatabase.rowBalance("1001"));
+        assertEquals(new BigDecimal("750.00"), TestDatabase.rowBalance("1002"));
+    }
+
+    @Test
+    void testHeldBalance_MovedAsSoonAsAcknowledged() throws Exception {
+        InMemoryLedgerTransactionRepository ledger = open(journal());
+
+        assertTrue(succeeds(ledger, "1001", "1002", "250.00"));
+
+        // Whether or not the projector has caught up with Account yet
+        assertEquals(Money.parse("750.00"), ledger.heldBalance("1001"));
+        assertEquals(Money.parse("750.00"), ledger.heldBalance("1002"));
+        assertNull(ledger.heldBalance("9999"));
+    }
+
+    private LedgerSnapshotStore snapshots() {
+        return new LedgerSnapshotStore(dir.resolve("snapshots"), 2, TimeUnit.HOURS.toMillis(1));
+    }
+
+    private static boolean succeeds(InMemoryLedgerTransactionRepository ledger, String from, String to, String amount)
+            throws SQLException {
+        return ledger.processMoneyTransfers(List.of(transfer(from, to, amount))).get(0).isSuccess();
+    }
+
+    @Test
+    void testRecovery_SnapshotPlusJournalAfterIt() throws Exception {
+        InMemoryLedgerTransactionRepository first = open(journal(), snapshots());
+        assertTrue(succeeds(first, "1001", "1002", "100.00"));
+        // Closing writes a snapshot covering this transfer
+        first.close();
+        assertNotNull(snapshots().loadLatest(journalId()));
+
+        // Journaled after the snapshot and never projected, as if the node died right after acknowledging it
+        try (LedgerJournal journal = journal()) {
+            journal.recover(LedgerProjector.projectedPosition(journal.id()), (entry, position) -> {});
+            journal.append(new LedgerEntry("TXN_900", "TXN_901", "1002", "ACC_1002", "1001", "ACC_1001",
+                    25_000, LocalDateTime.now(), "IMPS", "after snapshot"));
+            journal.force(true);
+        }
+        // MySQL also knows nothing of the snapshot's transfer if the projector never ran
+        TestDatabase.update("UPDATE ledger_projection SET position = 0");
+        TestDatabase.update("UPDATE Account SET balance = 1000.00 WHERE account_number = '1001'");
+        TestDatabase.update("UPDATE Account SET balance = 500.00 WHERE account_number = '1002'");
+        TestDatabase.update("DELETE FROM Transactions");
+
+        InMemoryLedgerTransactionRepository second = open(journal(), snapshots());
+
+        // 1002 holds 500 + 100 - 250 = 350.00: each entry counted exactly once
+        assertFalse(succeeds(second, "1002", "1001", "350.01"));
+        assertTrue(succeeds(second, "1002", "1001", "350.00"));
+        second.close();
+        assertEquals(new BigDecimal("1500.00"), TestDatabase.rowBalance("1001"));
+        assertEquals(new BigDecimal("0.00"), TestDatabase.rowBalance("1002"));
+    }
+
+    @Test
+    void testRecovery_AccountDeletedSinceSnapshotDropped() throws Exception {
+        TestDatabase.insertAccount("CUST_1", "1003", "0.00");
+        InMemoryLedgerTransactionRepository first = open(journal(), snapshots());
+        assertTrue(succeeds(first, "1001", "1003", "10.00"));
+        assertTrue(succeeds(first, "1003", "1001", "10.00"));
+        first.close();
+
+        TestDatabase.update("DELETE FROM Transactions WHERE account_number = '1003'");
+        TestDatabase.update("DELETE FROM Account WHERE account_number = '1003'");
+        InMemoryLedgerTransactionRepository second = open(journal(), snapshots());
+
+        List<TransferResult> results = second.processMoneyTransfers(List.of(transfer("1001", "1003", "5.00")));
+        assertEquals("Receiver account not found: 1003", results.get(0).getMessage());
+        assertTrue(succeeds(second, "1001", "1002", "5.00"));
+        second.close();
+
+        // The dropped account is no longer in the snapshot written since
+        LedgerSnapshot latest = snapshots().loadLatest(journalId());
+        assertFalse(List.of(latest.accountNumbers()).contains("1003"));
+    }
+
+    private String journalId() throws IOException {
+        try (LedgerJournal journal = journal()) {
+            return journal.id();
+        }
+    }
+
+    @Test
+    void testTransfer_AccountOpenedAfterStartLoadedOffTheWriter() throws Exception {
+        InMemoryLedgerTransactionRepository ledger = open(journal());
+        TestDatabase.insertAccount("CUST_1", "1003", "50.00");
+
+        // Every connection borrowed from here on records its thread
+        Set<String> borrowers = ConcurrentHashMap.newKeySet();
+        DataSource database = DBConfig.getDataSource();
+        DBConfig.useDataSource((DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    borrowers.add(Thread.currentThread().getName());
+                    return method.invoke(database, args);
+                }));
+
+        List<TransferResult> results = ledger.processMoneyTransfers(List.of(
+                transfer("1001", "1003", "100.00"), transfer("1003", "1002", "120.00"), transfer("1001", "1004", "1.00")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals("Receiver account not found: 1004", results.get(2).getMessage());
+        assertFalse(borrowers.contains("ledger-writer"));
+        ledger.close();
+        assertEquals(new BigDecimal("30.00"), TestDatabase.rowBalance("1003"));
+    }
+
+    @Test
+    void testJournal_SegmentsReleasedOnceProjected() throws Exception {
+        LedgerJournal journal = journal();
+        InMemoryLedgerTransactionRepository ledger = open(journal);
+        String description = "x".repeat(500);
+        for (int i = 0; i < 300; i++) {
+            ledger.processMoneyTransfers(List.of(
+                    new TransferInstruction("1001", "1002", Money.parse("1.00"), "IMPS", description)));
+        }
+        assertTrue(journal.durablePosition() > 2L * REGION_SIZE);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (journalSegments() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(1, journalSegments());
+        assertEquals(2L * REGION_SIZE, journal.firstPosition());
+        ledger.close();
+        assertEquals(new BigDecimal("700.00"), TestDatabase.rowBalance("1001"));
+    }
+
+    @Test
+    void testForceFailure_DrainRolledBackAndLedgerStops() throws Exception {
+        LedgerJournal journal = spy(journal());
+        doThrow(new UncheckedIOException(new IOException("device gone"))).when(journal).force(anyBoolean());
+        InMemoryLedgerTransactionRepository ledger = open(journal);
+        long start = journal.durablePosition();
+
+        SQLException failed = assertThrows(SQLException.class,
+                () -> ledger.processMoneyTransfers(List.of(transfer("1001", "1002", "250.00"))));
+        assertTrue(failed.getMessage().contains("could not be flushed"));
+
+        // Refused without appending or flushing again, so nothing can publish the first drain later
+        List<TransferResult> after = ledger.processMoneyTransfers(List.of(transfer("1001", "1002", "1.00")));
+        assertFalse(after.get(0).isSuccess());
+        verify(journal, times(1)).force(anyBoolean());
+        assertEquals(start, journal.appendPosition());
+        assertEquals(start, journal.durablePosition());
+
+        ledger.close();
+        assertEquals(new BigDecimal("1000.00"), TestDatabase.rowBalance("1001"));
+        assertEquals(new BigDecimal("500.00"), TestDatabase.rowBalance("1002"));
+
+        // The rolled-back entry was wiped from the file, so a restart does not replay it
+        try (LedgerJournal reopened = journal()) {
+            List<LedgerEntry> replayed = new ArrayList<>();
+            reopened.recover(LedgerJournal.start(), (entry, position) -> replayed.add(entry));
+            assertTrue(replayed.isEmpty());
+        }
+    }
+
+    @Test
+    void testForceFailure_EarlierDrainsKept() throws Exception {
+        LedgerJournal journal = spy(journal());
+        InMemoryLedgerTransactionRepository ledger = open(journal);
+        assertTrue(ledger.processMoneyTransfers(List.of(transfer("1001", "1002", "100.00"))).get(0).isSuccess());
+
+        doThrow(new UncheckedIOException(new IOException("device gone"))).when(journal).force(anyBoolean());
+        assertThrows(SQLException.class,
+                () -> ledger.processMoneyTransfers(List.of(transfer("1001", "1002", "900.00"))));
+
+        ledger.close();
+        assertEquals(new BigDecimal("900.00"), TestDatabase.rowBalance("1001"));
+        assertEquals(new BigDecimal("600.00"), TestDatabase.rowBalance("1002"));
+    }
+}
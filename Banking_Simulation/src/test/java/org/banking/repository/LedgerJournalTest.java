@@ -0,0 +1,226 @@
+package org.banking.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalTest {
+
+    private static final int REGION_SIZE = 64 * 1024;
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6_000_000);
+
+    @TempDir
+    Path dir;
+
+    private LedgerJournal open() throws IOException {
+        return LedgerJournal.open(dir.resolve("ledger.journal"), REGION_SIZE);
+    }
+
+    // About 1 KB, so a region holds a few dozen
+    private static LedgerEntry entry(int n) {
+        return new LedgerEntry("TXN_" + (2 * n), "TXN_" + (2 * n + 1), "1001", "ACC_1", "1002", "ACC_2",
+                100L + n, TIME, "IMPS", "x".repeat(1000));
+    }
+
+    private static void append(LedgerJournal journal, int from, int to) throws IOException {
+        for (int n = from; n < to; n++) {
+            journal.append(entry(n));
+        }
+        journal.force(false);
+    }
+
+    private static List<LedgerEntry> readAll(LedgerJournal journal, long from) throws IOException {
+        List<LedgerEntry> entries = new ArrayList<>();
+        long position = from;
+        while (position < journal.durablePosition()) {
+            position = journal.read(position, 10, entries);
+        }
+        return entries;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().matches("ledger\\.journal\\.\\d{10}")).count();
+        }
+    }
+
+    @Test
+    void testAppend_ReadBackAcrossRegions() throws IOException {
+        try (LedgerJournal journal = open()) {
+            journal.recover(LedgerJournal.start(), (entry, position) -> fail("new journal has entries"));
+            append(journal, 0, 200);
+
+            List<LedgerEntry> entries = readAll(journal, LedgerJournal.start());
+
+            assertEquals(200, entries.size());
+            assertEquals(entry(0), entries.get(0));
+            assertEquals(entry(199), entries.get(199));
+            assertTrue(journal.durablePosition() > 3L * REGION_SIZE);
+            assertEquals(4, segmentCount());
+        }
+    }
+
+    @Test
+    void testAppend_NotVisibleUntilForced() throws IOException {
+        try (LedgerJournal journal = open()) {
+            journal.recover(LedgerJournal.start(), (entry, position) -> {});
+            journal.append(entry(0));
+
+            assertTrue(readAll(journal, LedgerJournal.start()).isEmpty());
+            journal.force(false);
+            assertEquals(List.of(entry(0)), readAll(journal, LedgerJournal.start()));
+        }
+    }
+
+    @Test
+    void testRecover_TornTailDroppedAndOverwritten() throws IOException {
+        long tornAt;
+        try (LedgerJournal journal = open()) {
+            journal.recover(LedgerJournal.start(), (entry, position) -> {});
+            append(journal, 0, 2);
+            tornAt = journal.appendPosition();
+            append(journal, 2, 3);
+        }
+        // A crash left the last record's length on disk but not all of its payload
+        try (RandomAccessFile segment = new RandomAccessFile(dir.resolve("ledger.journal.0000000000").toFile(), "rw")) {
+            segment.seek(tornAt + 8 + 500);
+            segment.write(0);
+        }
+
+        try (LedgerJournal journal = open()) {
+            List<Long> positions = new ArrayList<>();
+            List<LedgerEntry> replayed = new ArrayList<>();
+            long end = journal.recover(LedgerJournal.start(), (entry, position) -> {
+                replayed.add(entry);
+                positions.add(position);
+            });
+
+            assertEquals(List.of(entry(0), entry(1)), replayed);
+            assertEquals(LedgerJournal.start(), positions.get(0));
+            assertEquals(tornAt, end);
+            assertEquals(tornAt, journal.durablePosition());
+
+            append(journal, 10, 11);
+        }
+
+        try (LedgerJournal journal = open()) {
+            List<LedgerEntry> replayed = new ArrayList<>();
+            journal.recover(LedgerJournal.start(), (entry, position) -> replayed.add(entry));
+            assertEquals(List.of(entry(0), entry(1), entry(10)), replayed);
+        }
+    }
+
+    @Test
+    void testRecover_FromMidJournal() throws IOException {
+        long from;
+        try (LedgerJournal journal = open()) {
+            journal.recover(LedgerJournal.start(), (entry, position) -> {});
+            append(journal, 0, 3);
+            from = journal.appendPosition();
+            append(journal, 3, 5);
+        }
+
+        try (LedgerJournal journal = open()) {
+            List<LedgerEntry> replayed = new ArrayList<>();
+            journal.recover(from, (entry, position) -> replayed.add(entry));
+            assertEquals(List.of(entry(3), entry(4)), replayed);
+        }
+    }
+
+    @Test
+    void testTruncate_DropsUnpublishedRecords() throws IOException {
+        try (LedgerJournal journal = open()) {
+            journal.recover(LedgerJournal.start(), (entry, position) -> {});
+            append(journal, 0, 2);
+            long published = journal.durablePosition();
+            for (int n = 2; n < 100; n++) {
+                journal.append(entry(n));
+            }
+
+            assertThrows(IllegalArgumentException.class, () -> journal.truncate(LedgerJournal.start()));
+            journal.truncate(published);
+            append(journal, 7, 8);
+
+            assertEquals(List.of(entry(0), entry(1), entry(7)), readAll(journal, LedgerJournal.start()));
+        }
+        try (LedgerJournal journal = open()) {
+            List<LedgerEntry> replayed = new ArrayList<>();
+            journal.recover(LedgerJournal.start(), (entry, position) -> replayed.add(entry));
+            assertEquals(List.of(entry(0), entry(1), entry(7)), replayed);
+        }
+    }
+
+    @Test
+    void testOpen_ForeignFileRejected() throws IOException {
+        Files.write(dir.resolve("ledger.journal"), new byte[64]);
+        assertThrows(IOException.class, this::open);
+    }
+
+    @Test
+    void testRelease_DeletesWholeSegmentsBehindPosition() throws IOException {
+        long releasedTo;
+        try (LedgerJournal journal = open()) {
+            journal.recover(LedgerJournal.start(), (entry, position) -> {});
+            append(journal, 0, 200);
+
+            // Two and a half regions in: only the first two lie wholly before it
+            assertEquals(2, journal.release(2L * REGION_SIZE + REGION_SIZE / 2));
+            assertEquals(2L * REGION_SIZE, journal.firstPosition());
+            assertEquals(2, segmentCount());
+            assertThrows(IOException.class, () -> journal.read(LedgerJournal.start(), 1, new ArrayList<>()));
+
+            List<LedgerEntry> rest = readAll(journal, journal.firstPosition());
+            assertFalse(rest.isEmpty());
+            assertEquals(entry(199), rest.get(rest.size() - 1));
+            releasedTo = journal.firstPosition();
+        }
+
+        try (LedgerJournal reopened = open()) {
+            assertEquals(releasedTo, reopened.firstPosition());
+            assertThrows(IOException.class, () -> reopened.recover(LedgerJournal.start(), (entry, position) -> {}));
+            List<LedgerEntry> replayed = new ArrayList<>();
+            reopened.recover(releasedTo, (entry, position) -> replayed.add(entry));
+            assertEquals(entry(199), replayed.get(replayed.size() - 1));
+        }
+    }
+
+    @Test
+    void testRelease_NeverTheSegmentBeingAppendedTo() throws IOException {
+        try (LedgerJournal journal = open()) {
+            journal.recover(LedgerJournal.start(), (entry, position) -> {});
+            append(journal, 0, 10);
+
+            assertEquals(0, journal.release(Long.MAX_VALUE));
+            assertEquals(1, segmentCount());
+            assertEquals(10, readAll(journal, LedgerJournal.start()).size());
+        }
+    }
+
+    @Test
+    void testRecover_DeletesSegmentsAfterTheEnd() throws IOException {
+        try (LedgerJournal journal = open()) {
+            journal.recover(LedgerJournal.start(), (entry, position) -> {});
+            append(journal, 0, 10);
+        }
+        // A later segment the OS wrote out, whose predecessor never made it
+        Files.write(dir.resolve("ledger.journal.0000000003"), new byte[REGION_SIZE]);
+
+        try (LedgerJournal journal = open()) {
+            List<LedgerEntry> replayed = new ArrayList<>();
+            journal.recover(LedgerJournal.start(), (entry, position) -> replayed.add(entry));
+
+            assertEquals(10, replayed.size());
+            assertFalse(Files.exists(dir.resolve("ledger.journal.0000000003")));
+        }
+    }
+}
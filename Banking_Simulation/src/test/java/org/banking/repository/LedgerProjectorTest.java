@@ -0,0 +1,103 @@
+package org.banking.repository;
+
+import org.banking.config.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerProjectorTest {
+
+    @TempDir
+    Path dir;
+
+    private LedgerJournal journal;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        TestDatabase.start();
+        TestDatabase.insertCustomer("CUST_1");
+        TestDatabase.insertAccount("CUST_1", "1001", "1000.00");
+        TestDatabase.insertAccount("CUST_1", "1002", "500.00");
+        journal = LedgerJournal.open(dir.resolve("ledger.journal"), 64 * 1024);
+        journal.recover(LedgerJournal.start(), (entry, position) -> {});
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException, IOException {
+        journal.close();
+        TestDatabase.stop();
+    }
+
+    private void append(int n, String from, String to, long paise) throws IOException {
+        journal.append(new LedgerEntry("TXN_" + (2 * n), "TXN_" + (2 * n + 1), from, "ACC_" + from, to, "ACC_" + to,
+                paise, LocalDateTime.of(2024, 1, 1, 10, 0), "IMPS", "entry " + n));
+    }
+
+    private static void awaitCaughtUp(LedgerProjector projector) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (projector.lag() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, projector.lag());
+    }
+
+    @Test
+    void testProject_BatchCopiedWithPosition() throws Exception {
+        append(1, "1001", "1002", 10_000);
+        append(2, "1002", "1001", 2_500);
+        journal.force(false);
+
+        LedgerProjector projector = new LedgerProjector(journal, LedgerJournal.start(), AccountChangeListener.NONE, 100, 1);
+        awaitCaughtUp(projector);
+        projector.close();
+
+        assertEquals(new BigDecimal("925.00"), TestDatabase.rowBalance("1001"));
+        assertEquals(new BigDecimal("575.00"), TestDatabase.rowBalance("1002"));
+        assertEquals(4, TestDatabase.queryLong("SELECT COUNT(*) FROM Transactions"));
+        assertEquals(journal.durablePosition(), LedgerProjector.projectedPosition(journal.id()));
+    }
+
+    @Test
+    void testProject_EntryForDeletedAccountDeadLettered() throws Exception {
+        append(1, "1001", "1002", 10_000);
+        // Its receiver was deleted while the entry was in flight
+        append(2, "1001", "9999", 5_000);
+        append(3, "1002", "1001", 2_500);
+        journal.force(false);
+
+        LedgerProjector projector = new LedgerProjector(journal, LedgerJournal.start(), AccountChangeListener.NONE, 100, 1);
+        awaitCaughtUp(projector);
+        projector.close();
+
+        // The others still land, and the rejected one is neither half-applied nor retried forever
+        assertEquals(new BigDecimal("925.00"), TestDatabase.rowBalance("1001"));
+        assertEquals(new BigDecimal("575.00"), TestDatabase.rowBalance("1002"));
+        assertEquals(4, TestDatabase.queryLong("SELECT COUNT(*) FROM Transactions"));
+        assertEquals(1, TestDatabase.queryLong("SELECT COUNT(*) FROM ledger_dead_letter WHERE debit_id = 'TXN_4' "
+                + "AND receiver_account_number = '9999' AND amount = 50.00"));
+        assertEquals(journal.durablePosition(), LedgerProjector.projectedPosition(journal.id()));
+    }
+
+    @Test
+    void testIsConstraintViolation() {
+        assertTrue(LedgerProjector.isConstraintViolation(new SQLIntegrityConstraintViolationException("fk")));
+        assertTrue(LedgerProjector.isConstraintViolation(new BatchUpdateException("dup", "23000", 1062, new int[0])));
+        assertTrue(LedgerProjector.isConstraintViolation(
+                new SQLException("wrapped", new SQLIntegrityConstraintViolationException("fk"))));
+        assertFalse(LedgerProjector.isConstraintViolation(new SQLTransientConnectionException("pool empty")));
+        assertFalse(LedgerProjector.isConstraintViolation(new SQLException("deadlock", "40001", 1213)));
+    }
+}
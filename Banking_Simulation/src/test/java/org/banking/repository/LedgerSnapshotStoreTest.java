@@ -0,0 +1,107 @@
+package org.banking.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerSnapshotStoreTest {
+
+    private static final LocalDateTime TAKEN_AT = LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_000_000);
+
+    @TempDir
+    Path dir;
+
+    private static LedgerSnapshot snapshot(String journalId, long position, long firstBalance) {
+        return new LedgerSnapshot(journalId, position, TAKEN_AT,
+                new String[]{"1001", "1002"}, new String[]{"ACC_1", null},
+                new boolean[]{true, false}, new long[]{firstBalance, -5});
+    }
+
+    private Path file(long position) {
+        return dir.resolve(String.format("snapshot-%020d.bin", position));
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testWriteAndLoad_RoundTrip() throws IOException {
+        LedgerSnapshotStore store = new LedgerSnapshotStore(dir, 2, 1000);
+        store.write(snapshot("journal-a", 4096, 100_000));
+
+        LedgerSnapshot loaded = store.loadLatest("journal-a");
+
+        assertEquals("journal-a", loaded.journalId());
+        assertEquals(4096, loaded.journalPosition());
+        assertEquals(TAKEN_AT, loaded.takenAt());
+        assertArrayEquals(new String[]{"1001", "1002"}, loaded.accountNumbers());
+        assertArrayEquals(new String[]{"ACC_1", null}, loaded.accountIds());
+        assertArrayEquals(new boolean[]{true, false}, loaded.active());
+        assertArrayEquals(new long[]{100_000, -5}, loaded.balances());
+    }
+
+    @Test
+    void testLoadLatest_NewestWinsAndOldOnesArePruned() throws IOException {
+        LedgerSnapshotStore store = new LedgerSnapshotStore(dir, 2, 1000);
+        store.write(snapshot("journal-a", 100, 1));
+        store.write(snapshot("journal-a", 300, 3));
+        store.write(snapshot("journal-a", 200, 2));
+
+        assertEquals(300, store.loadLatest("journal-a").journalPosition());
+        assertEquals(2, fileCount());
+        assertFalse(Files.exists(file(100)));
+    }
+
+    @Test
+    void testLoadLatest_CorruptNewestFallsBackToOlder() throws IOException {
+        LedgerSnapshotStore store = new LedgerSnapshotStore(dir, 2, 1000);
+        store.write(snapshot("journal-a", 100, 1));
+        store.write(snapshot("journal-a", 200, 2));
+        try (RandomAccessFile file = new RandomAccessFile(file(200).toFile(), "rw")) {
+            file.seek(file.length() - 10);
+            file.write(0x7F);
+        }
+
+        LedgerSnapshot loaded = store.loadLatest("journal-a");
+
+        assertEquals(100, loaded.journalPosition());
+        assertEquals(1, loaded.balances()[0]);
+    }
+
+    @Test
+    void testLoadLatest_TruncatedFileIgnored() throws IOException {
+        LedgerSnapshotStore store = new LedgerSnapshotStore(dir, 2, 1000);
+        store.write(snapshot("journal-a", 100, 1));
+        try (RandomAccessFile file = new RandomAccessFile(file(100).toFile(), "rw")) {
+            file.setLength(file.length() / 2);
+        }
+
+        assertNull(store.loadLatest("journal-a"));
+    }
+
+    @Test
+    void testLoadLatest_OtherJournalsIgnored() throws IOException {
+        LedgerSnapshotStore store = new LedgerSnapshotStore(dir, 3, 1000);
+        store.write(snapshot("journal-a", 100, 1));
+        store.write(snapshot("journal-b", 200, 2));
+
+        assertEquals(100, store.loadLatest("journal-a").journalPosition());
+        assertNull(store.loadLatest("journal-c"));
+    }
+
+    @Test
+    void testLoadLatest_MissingDirectory() {
+        assertNull(new LedgerSnapshotStore(dir.resolve("absent"), 2, 1000).loadLatest("journal-a"));
+    }
+}
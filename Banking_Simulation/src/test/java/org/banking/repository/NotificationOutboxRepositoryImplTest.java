@@ -0,0 +1,76 @@
+package org.banking.repository;
+
+import org.banking.config.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationOutboxRepositoryImplTest {
+
+    private final NotificationOutboxRepositoryImpl repository = new NotificationOutboxRepositoryImpl();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.start();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        TestDatabase.stop();
+    }
+
+    // An alert as a claim leaves it: IN_FLIGHT under the claim's lease
+    private static long leased(long outboxId, String lockedBy) throws SQLException {
+        TestDatabase.update("INSERT INTO notification_outbox (outbox_id, event_type, transaction_id, account_number, " +
+                "counterparty_account_number, amount, transaction_mode, transaction_time, status, attempts, " +
+                "available_at, locked_by) VALUES (?, 'DEBIT_ALERT', 'TXN_1', '1001', '1002', 10.00, 'IMPS', NOW(), " +
+                "'IN_FLIGHT', 1, NOW(), ?)", outboxId, lockedBy);
+        return outboxId;
+    }
+
+    private static String status(long outboxId) throws SQLException {
+        return TestDatabase.queryString("SELECT status FROM notification_outbox WHERE outbox_id = ?", outboxId);
+    }
+
+    @Test
+    void testMarkSent_OnlyRowsStillLeasedToTheCaller() throws SQLException {
+        long mine = leased(1, "lease-a");
+        long takenOver = leased(2, "lease-b");
+
+        int settled = repository.markSent("lease-a", List.of(mine, takenOver));
+
+        assertEquals(1, settled);
+        assertEquals("SENT", status(mine));
+        assertEquals("IN_FLIGHT", status(takenOver));
+    }
+
+    @Test
+    void testMarkSent_AlreadySettledRowLeftAlone() throws SQLException {
+        long alert = leased(1, "lease-a");
+        assertTrue(repository.markFailed(alert, "lease-a", "550 mailbox unavailable", 0, true));
+
+        assertEquals(0, repository.markSent("lease-a", List.of(alert)));
+        assertEquals("FAILED", status(alert));
+    }
+
+    @Test
+    void testMarkFailed_LostLeaseLeavesRowToNewClaim() throws SQLException {
+        long alert = leased(1, "lease-b");
+
+        assertFalse(repository.markFailed(alert, "lease-a", "421 try again later", 1000, false));
+        assertEquals("IN_FLIGHT", status(alert));
+
+        assertTrue(repository.markFailed(alert, "lease-b", "421 try again later", 1000, false));
+        assertEquals("PENDING", status(alert));
+    }
+
+    @Test
+    void testMarkSent_NothingToSettle() throws SQLException {
+        assertEquals(0, repository.markSent("lease-a", List.of()));
+    }
+}
@@ -0,0 +1,96 @@
+package org.banking.repository;
+
+import org.banking.config.DBConfig;
+import org.banking.config.IdAllocator;
+import org.banking.config.TestDatabase;
+import org.banking.model.Money;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRepositoryImplTest {
+
+    private final TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.start();
+        TestDatabase.insertCustomer("CUST_1");
+        TestDatabase.insertAccount("CUST_1", "1001", "0.00");
+        TestDatabase.insertAccount("CUST_1", "1002", "500.00");
+        TestDatabase.insertAccount("CUST_1", "1003", "0.00");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        TestDatabase.stop();
+    }
+
+    private static TransferInstruction transfer(String from, String to, String amount) {
+        return new TransferInstruction(from, to, Money.parse(amount), "IMPS", "test");
+    }
+
+    // Counts connections borrowed from here on, with the ID block already reserved
+    private AtomicInteger countConnections() throws SQLException {
+        AtomicInteger connections = new AtomicInteger();
+        DataSource database = DBConfig.getDataSource();
+        DBConfig.useDataSource((DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    connections.incrementAndGet();
+                    return method.invoke(database, args);
+                }));
+        DBConfig.getIdAllocator("Transactions", "transaction_id", IdAllocator.TRANSACTION_PREFIX).nextFormatted();
+        connections.set(0);
+        return connections;
+    }
+
+    @Test
+    void testProcessMoneyTransfers_ChainedTransfersCommittedAsOneGroup() throws SQLException {
+        AtomicInteger connections = countConnections();
+
+        // 1001 starts empty and only has the 100.00 the first transfer brings it
+        List<TransferResult> results = repository.processMoneyTransfers(List.of(
+                transfer("1002", "1001", "100.00"), transfer("1001", "1003", "100.00")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(1, connections.get(), "batch was rolled back and replayed one by one");
+        assertEquals(new BigDecimal("0.00"), TestDatabase.rowBalance("1001"));
+        assertEquals(new BigDecimal("400.00"), TestDatabase.rowBalance("1002"));
+        assertEquals(new BigDecimal("100.00"), TestDatabase.rowBalance("1003"));
+        assertEquals(4, TestDatabase.queryLong("SELECT COUNT(*) FROM Transactions"));
+    }
+
+    @Test
+    void testProcessMoneyTransfers_SpendingBeforeTheCreditRejected() throws SQLException {
+        List<TransferResult> results = repository.processMoneyTransfers(List.of(
+                transfer("1001", "1003", "100.00"), transfer("1002", "1001", "100.00")));
+
+        assertEquals("Insufficient balance in account 1001", results.get(0).getMessage());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(new BigDecimal("100.00"), TestDatabase.rowBalance("1001"));
+        assertEquals(new BigDecimal("0.00"), TestDatabase.rowBalance("1003"));
+    }
+
+    @Test
+    void testProcessMoneyTransfers_NetZeroAccountStillWritten() throws SQLException {
+        List<TransferResult> results = repository.processMoneyTransfers(List.of(
+                transfer("1002", "1001", "50.00"), transfer("1001", "1002", "50.00")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(new BigDecimal("500.00"), TestDatabase.rowBalance("1002"));
+        assertEquals(new BigDecimal("0.00"), TestDatabase.rowBalance("1001"));
+    }
+}
@@ -0,0 +1,66 @@
+package org.banking.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UniquenessIndexTest {
+
+    @Test
+    void testAccountAdded_MightHaveAccountNumber() {
+        UniquenessIndex index = new UniquenessIndex(100, 100, 0.01);
+
+        index.accountAdded("1001");
+
+        assertTrue(index.mightHaveAccountNumber("1001"));
+        assertFalse(index.mightHaveAccountNumber("1002"));
+    }
+
+    @Test
+    void testCustomerAdded_NormalizedLikeTheColumnCollation() {
+        UniquenessIndex index = new UniquenessIndex(100, 100, 0.01);
+
+        index.customerAdded("9876543210", "John@Example.com", "123456789012");
+
+        assertTrue(index.mightHaveEmail(" john@example.COM "));
+        assertTrue(index.mightHavePhoneNumber("9876543210"));
+        assertTrue(index.mightHaveAadharNumber("123456789012"));
+        assertFalse(index.mightHaveEmail("jane@example.com"));
+    }
+
+    @Test
+    void testCustomerRemoved_DefinitelyAbsentAgain() {
+        UniquenessIndex index = new UniquenessIndex(100, 100, 0.01);
+        index.customerAdded("9876543210", "john@example.com", "123456789012");
+
+        index.customerRemoved("9876543210", "john@example.com", "123456789012");
+
+        assertFalse(index.mightHavePhoneNumber("9876543210"));
+        assertFalse(index.mightHaveEmail("john@example.com"));
+        assertFalse(index.mightHaveAadharNumber("123456789012"));
+    }
+
+    @Test
+    void testAccountRemoved_NeverAddedFallsBackToDatabase() {
+        UniquenessIndex index = new UniquenessIndex(100, 100, 0.01);
+        index.accountAdded("1001");
+
+        // Inserted by another node after this one loaded its filters, deleted through this one
+        index.accountRemoved("2002");
+
+        assertTrue(index.mightHaveAccountNumber("1001"));
+        assertTrue(index.mightHaveAccountNumber("3003"));
+        assertTrue(index.toString().contains("bypassed"));
+        // The other columns are unaffected
+        assertFalse(index.mightHaveEmail("john@example.com"));
+    }
+
+    @Test
+    void testDisabled_AlwaysMaybe() {
+        UniquenessIndex.DISABLED.accountRemoved("1001");
+
+        assertFalse(UniquenessIndex.DISABLED.isEnabled());
+        assertTrue(UniquenessIndex.DISABLED.mightHaveAccountNumber("1001"));
+        assertTrue(UniquenessIndex.DISABLED.mightHaveEmail("john@example.com"));
+    }
+}
@@ -1,6 +1,7 @@
 package org.banking.service;
 
 import org.banking.model.Account;
+import org.banking.model.Money;
 import org.banking.repository.AccountRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -46,16 +47,16 @@ class AccountServiceImplTest {
     @Test
     void testCreateAccount_Success() throws Exception {
         when(accountRepository.getCustomerIdByAadhar("123456789123")).thenReturn("CUST_000001");
-        when(accountRepository.getNextId()).thenReturn(1);
+        when(accountRepository.getNextId()).thenReturn(1L);
         when(accountRepository.save(any(Account.class))).thenReturn(validAccount);
 
         Account result = accountService.createAccount(validAccount);
 
         assertNotNull(result);
-        assertEquals("ACC_000001", result.getAccountId());
+        assertEquals("ACC_0000000000000000001", result.getAccountId());
         assertEquals("CUST_000001", result.getCustomerId());
         assertEquals("Active", result.getStatus());
-        assertEquals(50.00, result.getBalance());
+        assertEquals(Money.parse("50.00"), result.getBalance());
         assertNotNull(result.getCreatedAt());
         assertNotNull(result.getModifiedAt());
         verify(accountRepository, times(1)).save(any(Account.class));
@@ -75,31 +76,31 @@ class AccountServiceImplTest {
     @Test
     void testCreateAccount_GeneratesCorrectId() throws Exception {
         when(accountRepository.getCustomerIdByAadhar(anyString())).thenReturn("CUST_000001");
-        when(accountRepository.getNextId()).thenReturn(25);
+        when(accountRepository.getNextId()).thenReturn(25L);
         when(accountRepository.save(any(Account.class))).thenReturn(validAccount);
 
         Account result = accountService.createAccount(validAccount);
 
-        assertEquals("ACC_000025", result.getAccountId());
+        assertEquals("ACC_0000000000000000025", result.getAccountId());
     }
 
     @Test
     void testCreateAccount_PreservesBalance() throws Exception {
-        validAccount.setBalance(1000.00);
+        validAccount.setBalance(Money.parse("1000.00"));
         when(accountRepository.getCustomerIdByAadhar(anyString())).thenReturn("CUST_000001");
-        when(accountRepository.getNextId()).thenReturn(1);
+        when(accountRepository.getNextId()).thenReturn(1L);
         when(accountRepository.save(any(Account.class))).thenReturn(validAccount);
 
         Account result = accountService.createAccount(validAccount);
 
-        assertEquals(1000.00, result.getBalance());
+        assertEquals(Money.parse("1000.00"), result.getBalance());
     }
 
     @Test
     void testCreateAccount_PreservesStatus() throws Exception {
         validAccount.setStatus("Inactive");
         when(accountRepository.getCustomerIdByAadhar(anyString())).thenReturn("CUST_000001");
-        when(accountRepository.getNextId()).thenReturn(1);
+        when(accountRepository.getNextId()).thenReturn(1L);
         when(accountRepository.save(any(Account.class))).thenReturn(validAccount);
 
         Account result = accountService.createAccount(validAccount);
@@ -110,7 +111,7 @@ class AccountServiceImplTest {
     @Test
     void testCreateAccount_RepositoryException() throws Exception {
         when(accountRepository.getCustomerIdByAadhar(anyString())).thenReturn("CUST_000001");
-        when(accountRepository.getNextId()).thenReturn(1);
+        when(accountRepository.getNextId()).thenReturn(1L);
         when(accountRepository.save(any(Account.class)))
                 .thenThrow(new SQLException("Database error"));
 
@@ -1,6 +1,7 @@
 package org.banking.service;
 
 import org.banking.model.Customer;
+import org.banking.model.UniqueCustomerField;
 import org.banking.repository.CustomerRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,7 +12,9 @@ import org.mockito.MockitoAnnotations;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -51,31 +54,31 @@ class CustomerServiceImplTest {
 
     @Test
     void testCreateCustomer_Success() throws Exception {
-        when(customerRepository.getNextId()).thenReturn(1);
+        when(customerRepository.getNextId()).thenReturn(1L);
         when(customerRepository.save(any(Customer.class))).thenReturn(validCustomer);
 
         Customer result = customerService.createCustomer(validCustomer);
 
         assertNotNull(result);
-        assertEquals("CUST_000001", result.getCustomerId());
+        assertEquals("CUST_0000000000000000001", result.getCustomerId());
         assertEquals("Inactive", result.getStatus());
         verify(customerRepository, times(1)).save(any(Customer.class));
     }
 
     @Test
     void testCreateCustomer_GeneratesCorrectId() throws Exception {
-        when(customerRepository.getNextId()).thenReturn(42);
+        when(customerRepository.getNextId()).thenReturn(42L);
         when(customerRepository.save(any(Customer.class))).thenReturn(validCustomer);
 
         Customer result = customerService.createCustomer(validCustomer);
 
-        assertEquals("CUST_000042", result.getCustomerId());
+        assertEquals("CUST_0000000000000000042", result.getCustomerId());
     }
 
     @Test
     void testCreateCustomer_PreservesExistingStatus() throws Exception {
         validCustomer.setStatus("Active");
-        when(customerRepository.getNextId()).thenReturn(1);
+        when(customerRepository.getNextId()).thenReturn(1L);
         when(customerRepository.save(any(Customer.class))).thenReturn(validCustomer);
 
         Customer result = customerService.createCustomer(validCustomer);
@@ -85,7 +88,7 @@ class CustomerServiceImplTest {
 
     @Test
     void testCreateCustomer_RepositoryException() throws Exception {
-        when(customerRepository.getNextId()).thenReturn(1);
+        when(customerRepository.getNextId()).thenReturn(1L);
         when(customerRepository.save(any(Customer.class)))
                 .thenThrow(new SQLException("Database connection failed"));
 
@@ -297,4 +300,27 @@ class CustomerServiceImplTest {
 
         assertTrue(exception.getMessage().contains("Failed to check phone number"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindDuplicateFields_ChecksAllThreeColumnsAtOnce() throws Exception {
+        when(customerRepository.findTakenUniqueFields("9123456789", "jane.smith@example.com", validCustomer.getAadharNumber()))
+                .thenReturn(EnumSet.of(UniqueCustomerField.EMAIL));
+
+        Set<UniqueCustomerField> result = customerService.findDuplicateFields(validCustomer);
+
+        assertEquals(EnumSet.of(UniqueCustomerField.EMAIL), result);
+        verify(customerRepository, never()).existsByPhoneNumber(anyString());
+        verify(customerRepository, never()).existsByEmail(anyString());
+        verify(customerRepository, never()).existsByAadharNumber(anyString());
+    }
+
+    @Test
+    void testFindDuplicateFields_Exception() throws Exception {
+        when(customerRepository.findTakenUniqueFields(any(), any(), any()))
+                .thenThrow(new SQLException("Database error"));
+
+        Exception exception = assertThrows(Exception.class, () -> customerService.findDuplicateFields(validCustomer));
+
+        assertTrue(exception.getMessage().contains("Failed to check duplicate customer details"));
+    }
+}
@@ -0,0 +1,131 @@
+package org.banking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationDispatcherTest {
+
+    private static final long WAIT_MS = 10_000;
+
+    private NotificationMetrics metrics;
+    private NotificationDispatcher dispatcher;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        metrics = mock(NotificationMetrics.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    private NotificationDispatcher dispatcher(int queueCapacity, int maxAttempts) {
+        dispatcher = new NotificationDispatcher(1, queueCapacity, maxAttempts, 1, 4, 0, metrics);
+        return dispatcher;
+    }
+
+    // Fails the first failures attempts, then succeeds
+    private static NotificationDispatcher.Delivery failing(int failures, AtomicInteger attempts) {
+        return () -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new IOException("421 try again later");
+            }
+        };
+    }
+
+    @Test
+    void testSubmit_Delivered() {
+        NotificationDispatcher dispatcher = dispatcher(10, 3);
+
+        assertTrue(dispatcher.submit("welcome", () -> {}));
+
+        verify(metrics, timeout(WAIT_MS)).onSent(anyLong(), eq(1));
+        assertEquals(1, dispatcher.getSentCount());
+        assertEquals(0, dispatcher.getRetriedCount());
+    }
+
+    @Test
+    void testSubmit_RetriedUntilDelivered() {
+        NotificationDispatcher dispatcher = dispatcher(10, 3);
+        AtomicInteger attempts = new AtomicInteger();
+
+        dispatcher.submit("debit alert", failing(2, attempts));
+
+        verify(metrics, timeout(WAIT_MS)).onSent(anyLong(), eq(3));
+        verify(metrics).onRetry(eq(1), longThat(backoff -> backoff >= 0 && backoff <= 1), any(IOException.class));
+        verify(metrics).onRetry(eq(2), longThat(backoff -> backoff >= 1 && backoff <= 2), any(IOException.class));
+        assertEquals(3, attempts.get());
+        assertEquals(2, dispatcher.getRetriedCount());
+        assertEquals(0, dispatcher.getFailedCount());
+    }
+
+    @Test
+    void testSubmit_GivenUpAfterMaxAttempts() {
+        NotificationDispatcher dispatcher = dispatcher(10, 3);
+        AtomicInteger attempts = new AtomicInteger();
+
+        dispatcher.submit("credit alert", failing(Integer.MAX_VALUE, attempts));
+
+        verify(metrics, timeout(WAIT_MS)).onFailed(eq(3), any(IOException.class));
+        assertEquals(3, attempts.get());
+        assertEquals(1, dispatcher.getFailedCount());
+        assertEquals(0, dispatcher.getSentCount());
+        verify(metrics, never()).onSent(anyLong(), anyInt());
+    }
+
+    @Test
+    void testSubmit_DroppedWhenQueueFull() throws InterruptedException {
+        NotificationDispatcher dispatcher = dispatcher(1, 3);
+        CountDownLatch busy = new CountDownLatch(1);
+
+        // The only worker is held by the first, the second fills the queue
+        assertTrue(dispatcher.submit("first", () -> {
+            busy.countDown();
+            release.await();
+        }));
+        assertTrue(busy.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(dispatcher.submit("second", () -> {}));
+
+        assertFalse(dispatcher.submit("third", () -> {}));
+        assertEquals(1, dispatcher.getDroppedCount());
+        verify(metrics).onDropped("queue full");
+
+        release.countDown();
+        verify(metrics, timeout(WAIT_MS).times(2)).onSent(anyLong(), eq(1));
+    }
+
+    @Test
+    void testClose_QueuedDroppedAndLaterRefused() throws InterruptedException {
+        NotificationDispatcher dispatcher = dispatcher(10, 3);
+        CountDownLatch busy = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        dispatcher.submit("first", () -> {
+            busy.countDown();
+            release.await();
+        });
+        assertTrue(busy.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        dispatcher.submit("second", delivered::incrementAndGet);
+
+        dispatcher.close();
+
+        assertFalse(dispatcher.submit("third", delivered::incrementAndGet));
+        assertEquals(2, dispatcher.getDroppedCount());
+        verify(metrics, times(2)).onDropped("dispatcher shut down");
+        assertEquals(0, delivered.get());
+    }
+}
@@ -0,0 +1,89 @@
+package org.banking.service;
+
+import org.banking.model.OutboxMessage;
+import org.banking.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationOutboxDispatcherTest {
+
+    private static final long WAIT_MS = 10_000;
+
+    private NotificationOutboxRepository outboxRepository;
+    private NotificationService notificationService;
+    private NotificationOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(NotificationOutboxRepository.class);
+        notificationService = mock(NotificationService.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    private static OutboxMessage alert(long outboxId, String email) {
+        OutboxMessage alert = new OutboxMessage();
+        alert.setOutboxId(outboxId);
+        alert.setTransactionId("TXN_" + outboxId);
+        alert.setAccountNumber("1001");
+        alert.setRecipientEmail(email);
+        alert.setAttempts(1);
+        alert.setLockedBy("lease-a");
+        return alert;
+    }
+
+    // One pass over the given batch on the dispatcher's own thread, then nothing more is due
+    private void dispatch(List<OutboxMessage> batch) throws Exception {
+        when(outboxRepository.claimBatch(anyInt(), anyLong())).thenReturn(batch).thenReturn(List.of());
+        dispatcher = new NotificationOutboxDispatcher(outboxRepository, notificationService,
+                1, 50, 120_000, 60_000, 3, 500, 10_000);
+    }
+
+    @Test
+    void testDispatchBatch_SentAlertsSettledUnderTheirLease() throws Exception {
+        OutboxMessage first = alert(1, "a@example.com");
+        OutboxMessage second = alert(2, "b@example.com");
+
+        dispatch(List.of(first, second));
+
+        verify(outboxRepository, timeout(WAIT_MS)).markSent("lease-a", List.of(1L, 2L));
+        verify(notificationService).deliverAlert(first);
+        verify(notificationService).deliverAlert(second);
+    }
+
+    @Test
+    void testDispatchBatch_FailedSendReleasedUnderItsLease() throws Exception {
+        OutboxMessage failing = alert(1, "a@example.com");
+        OutboxMessage delivered = alert(2, "b@example.com");
+        doThrow(new RuntimeException("421 try again later")).when(notificationService).deliverAlert(failing);
+        when(outboxRepository.markFailed(anyLong(), any(), any(), anyLong(), anyBoolean())).thenReturn(true);
+
+        dispatch(List.of(failing, delivered));
+
+        verify(outboxRepository, timeout(WAIT_MS)).markSent("lease-a", List.of(2L));
+        verify(outboxRepository).markFailed(1L, "lease-a", "421 try again later", 500, false);
+    }
+
+    @Test
+    void testDispatchBatch_MissingEmailParkedWithoutSending() throws Exception {
+        OutboxMessage noEmail = alert(1, null);
+
+        dispatch(List.of(noEmail));
+
+        verify(outboxRepository, timeout(WAIT_MS))
+                .markFailed(1L, "lease-a", "No customer email for account 1001", 0, true);
+        verify(notificationService, never()).deliverAlert(any());
+        verify(outboxRepository, never()).markSent(any(), anyList());
+    }
+}
@@ -0,0 +1,139 @@
+package org.banking.service;
+
+import org.banking.model.Money;
+import org.banking.util.EmailTemplate;
+import org.banking.util.RenderedHtml;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debit alert rendering: the old String.formatted implementation against the
+ * precompiled template, both to a String and into the reusable UTF-8 buffer.
+ *
+ * Not a unit test; run it with
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main NotificationTemplateBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationTemplateBenchmark {
+
+    private final LocalDateTime transactionTime = LocalDateTime.of(2025, 3, 14, 15, 9, 26);
+    private final Money amount = Money.parse("1234.50");
+    private final StringBuilder buffer = new StringBuilder(8192);
+
+    @Benchmark
+    public String legacyFormatted() {
+        return legacySenderEmail("John Doe", "Jane Smith", "9876543210", 1234.5,
+                "TXN_000042", transactionTime, "UPI", "Rent for March");
+    }
+
+    @Benchmark
+    public String templateToString() {
+        return NotificationService.DEBIT_ALERT_TEMPLATE.render(alertValues());
+    }
+
+    @Benchmark
+    public int templateReusedBuffer() {
+        buffer.setLength(0);
+        return NotificationService.DEBIT_ALERT_TEMPLATE.render(buffer, alertValues()).length();
+    }
+
+    @Benchmark
+    public void templateToMimeBytes(Blackhole blackhole) {
+        EmailTemplate template = NotificationService.DEBIT_ALERT_TEMPLATE;
+        blackhole.consume(RenderedHtml.forCurrentThread().render(template, alertValues()).length());
+    }
+
+    private String[] alertValues() {
+        return NotificationService.alertValues("John Doe", amount, "TXN_000042", transactionTime,
+                "UPI", "Jane Smith", "9876543210", "Rent for March");
+    }
+
+    /**
+     * The previous implementation: String.formatted over the text block, new formatter per call
+     */
+    private static String legacySenderEmail(String senderName, String receiverName,
+                                            String receiverAccountNumber, double amount,
+                                            String transactionId, LocalDateTime transactionTime,
+                                            String transactionMode, String description) {
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MMM-yyyy hh:mm:ss a");
+        String formattedTime = transactionTime.format(formatter);
+
+        return """
+        <!DOCTYPE html>
+        <html>
+        <head>
+            <style>
+                body { font-family: Arial, sans-serif; background-color: #f4f4f4; margin: 0; padding: 20px; }
+                .container { max-width: 600px; margin: 0 auto; background-color: #ffffff; padding: 20px; border-radius: 8px; box-shadow: 0 2px 4px rgba(0,0,0,0.1); }
+                .header { background-color: rgb(16, 134, 231); color: white; padding: 20px; text-align: center; border-radius: 8px 8px 0 0; }
+                .content { padding: 20px; }
+                .transaction-details { background-color: #f9f9f9; padding: 15px; border-radius: 5px; margin: 20px 0; }
+                .detail-row { display: flex; justify-content: space-between; padding: 8px 0; border-bottom: 1px solid #e0e0e0; }
+                .label { font-weight: bold; color: #555; }
+                .value { color: #333; }
+                .amount { font-size: 24px; color: #d32f2f; font-weight: bold; text-align: center; margin: 20px 0; }
+                .footer { text-align: center; color: #888; font-size: 12px; margin-top: 20px; padding-top: 20px; border-top: 1px solid #e0e0e0; }
+            </style>
+        </head>
+        <body>
+            <div class="container">
+                <div class="header">
+                    <h2>💸 Money Debited</h2>
+                </div>
+                <div class="content">
+                    <p>Dear <strong>%s</strong>,</p>
+                    <p>Your transaction has been processed successfully. Money has been debited from your account.</p>
+                    
+                    <div class="amount">- ₹ %.2f</div>
+                    
+                    <div class="transaction-details">
+                        <div class="detail-row">
+                            <span class="label">Transaction ID:</span>
+                            <span class="value">%s</span>
+                        </div>
+                        <div class="detail-row">
+                            <span class="label">Date & Time:</span>
+                            <span class="value">%s</span>
+                        </div>
+                        <div class="detail-row">
+                            <span class="label">Transaction Mode:</span>
+                            <span class="value">%s</span>
+                        </div>
+                        <div class="detail-row">
+                            <span class="label">Receiver Name:</span>
+                            <span class="value">%s</span>
+                        </div>
+                        <div class="detail-row">
+                            <span class="label">Receiver Account:</span>
+                            <span class="value">%s</span>
+                        </div>
+                        <div class="detail-row">
+                            <span class="label">Description:</span>
+                            <span class="value">%s</span>
+                        </div>
+                    </div>
+                    
+                    <p style="color: #888; font-size: 14px;">If you did not authorize this transaction, please contact customer support immediately.</p>
+                </div>
+                <div class="footer">
+                    <p>This is an automated email. Please do not reply.</p>
+                    <p>&copy; 2025 Banking Simulation System. All rights reserved.</p>
+                </div>
+            </div>
+        </body>
+        </html>
+        """.formatted(senderName, amount, transactionId, formattedTime, transactionMode,
+                receiverName, receiverAccountNumber, description);
+    }
+}
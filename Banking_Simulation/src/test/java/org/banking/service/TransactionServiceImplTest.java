@@ -1,11 +1,19 @@
 package org.banking.service;
 
 import org.banking.model.Account;
+import org.banking.model.CounterpartyDirection;
 import org.banking.model.Customer;
+import org.banking.model.Money;
+import org.banking.model.Page;
 import org.banking.model.Transaction;
+import org.banking.model.TransferContext;
+import org.banking.model.TransferInstruction;
+import org.banking.model.TransferResult;
 import org.banking.repository.AccountRepository;
 import org.banking.repository.CustomerRepository;
+import org.banking.repository.RowHandler;
 import org.banking.repository.TransactionRepository;
+import org.banking.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +23,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -77,7 +88,7 @@ class TransactionServiceImplTest {
         account.setCustomerId("CUST_000001");
         account.setAccountNumber("1234567890");
         account.setAccountName("John Doe");
-        account.setBalance(1000.0);
+        account.setBalance(Money.parse("1000.00"));
         account.setStatus("Active");
         account.setAccountType("SAVINGS");
         account.setCreatedAt(LocalDateTime.now());
@@ -91,7 +102,7 @@ class TransactionServiceImplTest {
         account.setCustomerId("CUST_000002");
         account.setAccountNumber("9876543210");
         account.setAccountName("Jane Smith");
-        account.setBalance(500.0);
+        account.setBalance(Money.parse("500.00"));
         account.setStatus("Active");
         account.setAccountType("SAVINGS");
         account.setCreatedAt(LocalDateTime.now());
@@ -103,7 +114,7 @@ class TransactionServiceImplTest {
         Transaction transaction = new Transaction();
         transaction.setTransactionId("TXN_000001");
         transaction.setAccountId("ACC_000001");
-        transaction.setTransactionAmount(100.0);
+        transaction.setTransactionAmount(Money.parse("100.00"));
         transaction.setTransactionType("DEBITED");
         transaction.setTransactionTime(LocalDateTime.now());
         transaction.setTransactionMode("UPI");
@@ -113,6 +124,16 @@ class TransactionServiceImplTest {
         return transaction;
     }
 
+    private TransferContext createMockTransferContext(boolean pinValid) {
+        TransferContext context = new TransferContext();
+        context.setPinValid(pinValid);
+        context.setSenderCustomer(createMockSenderCustomer());
+        context.setSenderAccount(createMockSenderAccount());
+        context.setReceiverAccount(createMockReceiverAccount());
+        context.setReceiverCustomer(createMockReceiverCustomer());
+        return context;
+    }
+
     // ==================== PROCESS TRANSACTION WITH PIN TESTS ====================
 
     @Test
@@ -121,25 +142,18 @@ class TransactionServiceImplTest {
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
         String receiverAccountNumber = "9876543210";
-        Double amount = 100.0;
+        Money amount = Money.parse("100.00");
         String transactionMode = "UPI";
         String description = "Test payment";
 
-        Customer senderCustomer = createMockSenderCustomer();
-        Customer receiverCustomer = createMockReceiverCustomer();
-        Account senderAccount = createMockSenderAccount();
-        Account receiverAccount = createMockReceiverAccount();
+        TransferContext context = createMockTransferContext(true);
         Transaction mockTransaction = createMockTransaction();
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(receiverAccount);
-        when(customerRepository.findById(receiverAccount.getCustomerId())).thenReturn(receiverCustomer);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(context);
         when(transactionRepository.processMoneyTransfer(
                 anyString(), anyString(), any(Account.class), any(Account.class),
-                anyDouble(), anyString(), anyString()))
+                any(Money.class), anyString(), anyString()))
                 .thenReturn(mockTransaction);
 
         // Act
@@ -150,110 +164,188 @@ class TransactionServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals("TXN_000001", result.getTransactionId());
-        assertEquals(100.0, result.getTransactionAmount());
+        assertEquals(Money.parse("100.00"), result.getTransactionAmount());
 
-        verify(customerRepository, times(1)).verifyPin(senderAccountNumber, senderPin);
+        // Everything is validated from the single context load
+        verify(customerRepository, times(1))
+                .loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber);
+        verifyNoMoreInteractions(customerRepository);
+        verifyNoInteractions(accountRepository);
         verify(transactionRepository, times(1)).processMoneyTransfer(
-                eq(senderAccountNumber), eq(receiverAccountNumber), eq(senderAccount),
-                eq(receiverAccount), eq(amount), eq(transactionMode), eq(description)
+                eq(senderAccountNumber), eq(receiverAccountNumber), eq(context.getSenderAccount()),
+                eq(context.getReceiverAccount()), eq(amount), eq(transactionMode), eq(description)
         );
         verify(notificationService, times(1)).sendEmailAlertToSender(
-                eq(senderCustomer.getEmail()), anyString(), anyString(), anyString(),
+                eq(context.getSenderCustomer().getEmail()), anyString(), anyString(), anyString(),
                 eq(amount), anyString(), any(LocalDateTime.class), eq(transactionMode), eq(description)
         );
         verify(notificationService, times(1)).sendEmailAlertToReceiver(
-                eq(receiverCustomer.getEmail()), anyString(), anyString(), anyString(),
+                eq(context.getReceiverCustomer().getEmail()), anyString(), anyString(), anyString(),
                 eq(amount), anyString(), any(LocalDateTime.class), eq(transactionMode), eq(description)
         );
     }
 
     @Test
-    void testProcessTransactionWithPin_InvalidPin() throws Exception {
+    void testProcessTransactionWithPin_AlertsViaOutboxNotSentDirectly() throws Exception {
         // Arrange
-        String senderAccountNumber = "1234567890";
-        String senderPin = "999999"; // Wrong PIN
-        String receiverAccountNumber = "9876543210";
+        TransactionServiceImpl outboxService = new TransactionServiceImpl(
+                transactionRepository, accountRepository, customerRepository, notificationService, true);
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(false);
+        when(customerRepository.loadTransferContext("1234567890", "123456", "9876543210"))
+                .thenReturn(createMockTransferContext(true));
+        when(transactionRepository.processMoneyTransfer(
+                anyString(), anyString(), any(Account.class), any(Account.class),
+                any(Money.class), anyString(), anyString()))
+                .thenReturn(createMockTransaction());
 
-        // Act & Assert
-        Exception exception = assertThrows(Exception.class, () ->
-                transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, receiverAccountNumber, 100.0, "UPI", "Test"
-                )
-        );
+        // Act
+        Transaction result = outboxService.processTransactionWithPin(
+                "1234567890", "123456", "9876543210", Money.parse("100.00"), "UPI", "Test payment");
 
-        assertTrue(exception.getMessage().contains("Invalid PIN"));
-        verify(customerRepository, times(1)).verifyPin(senderAccountNumber, senderPin);
+        // Assert
+        assertEquals("TXN_000001", result.getTransactionId());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void testProcessTransactionWithPin_AccountLockedTimesOut() throws Exception {
+        // Arrange
+        StripedLockManager locks = new StripedLockManager(16, 50);
+        TransactionServiceImpl lockingService = new TransactionServiceImpl(
+                transactionRepository, accountRepository, customerRepository, notificationService, false, locks);
+
+        when(customerRepository.loadTransferContext("1234567890", "123456", "9876543210"))
+                .thenReturn(createMockTransferContext(true));
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try (StripedLockManager.Held h = locks.lock("9876543210")) {
+                held.countDown();
+                release.await();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        holder.start();
+        held.await();
+
+        // Act & Assert
+        try {
+            Exception exception = assertThrows(Exception.class, () ->
+                    lockingService.processTransactionWithPin(
+                            "1234567890", "123456", "9876543210", Money.parse("100.00"), "UPI", "Test"));
+            assertTrue(exception.getMessage().startsWith("Transaction failed: Timed out"));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
         verify(transactionRepository, never()).processMoneyTransfer(
-                anyString(), anyString(), any(), any(), anyDouble(), anyString(), anyString()
-        );
+                anyString(), anyString(), any(), any(), any(Money.class), anyString(), anyString());
+        verifyNoInteractions(notificationService);
+
+        StripedLockManager.StripeStats stats = locks.stats().get(0);
+        assertEquals(1, stats.timeouts());
+        assertEquals(1, stats.contended());
+        assertTrue(stats.totalWaitNanos() > 0);
+    }
+
+    @Test
+    void testProcessTransactionWithPin_AccountLocksReleasedAfterFailure() throws Exception {
+        // Arrange
+        StripedLockManager locks = new StripedLockManager(16, 50);
+        TransactionServiceImpl lockingService = new TransactionServiceImpl(
+                transactionRepository, accountRepository, customerRepository, notificationService, false, locks);
+
+        when(customerRepository.loadTransferContext("1234567890", "123456", "9876543210"))
+                .thenReturn(createMockTransferContext(true));
+        when(transactionRepository.processMoneyTransfer(
+                anyString(), anyString(), any(), any(), any(Money.class), anyString(), anyString()))
+                .thenThrow(new SQLException("Database error"))
+                .thenReturn(createMockTransaction());
+
+        // Act
+        assertThrows(Exception.class, () -> lockingService.processTransactionWithPin(
+                "1234567890", "123456", "9876543210", Money.parse("100.00"), "UPI", "Test"));
+        Transaction result = lockingService.processTransactionWithPin(
+                "1234567890", "123456", "9876543210", Money.parse("100.00"), "UPI", "Test");
+
+        // Assert: a second thread can take the stripes straight away
+        assertEquals("TXN_000001", result.getTransactionId());
+        CompletableFuture.runAsync(() -> {
+            try (StripedLockManager.Held h = locks.lock("1234567890", "9876543210")) {
+                // Nothing to do
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }).get(5, TimeUnit.SECONDS);
+        assertTrue(locks.stats().stream().allMatch(s -> s.contended() == 0));
     }
 
     @Test
-    void testProcessTransactionWithPin_SenderCustomerNotFound() throws Exception {
+    void testProcessTransactionWithPin_InvalidPin() throws Exception {
         // Arrange
         String senderAccountNumber = "1234567890";
-        String senderPin = "123456";
+        String senderPin = "999999"; // Wrong PIN
+        String receiverAccountNumber = "9876543210";
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(null);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(createMockTransferContext(false));
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, "9876543210", 100.0, "UPI", "Test"
+                        senderAccountNumber, senderPin, receiverAccountNumber, Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
-        assertTrue(exception.getMessage().contains("Sender customer not found"));
-        verify(customerRepository, times(1)).findByAccountNumber(senderAccountNumber);
+        assertTrue(exception.getMessage().contains("Invalid PIN"));
+        verify(transactionRepository, never()).processMoneyTransfer(
+                anyString(), anyString(), any(), any(), any(Money.class), anyString(), anyString()
+        );
     }
 
     @Test
-    void testProcessTransactionWithPin_NoAccountsForSender() throws Exception {
+    void testProcessTransactionWithPin_UnknownSenderAccount() throws Exception {
         // Arrange
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
-        Customer senderCustomer = createMockSenderCustomer();
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(new ArrayList<>());
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, "9876543210"))
+                .thenReturn(null);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, "9876543210", 100.0, "UPI", "Test"
+                        senderAccountNumber, senderPin, "9876543210", Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
-        assertTrue(exception.getMessage().contains("No accounts found for sender"));
+        assertTrue(exception.getMessage().contains("Invalid PIN"));
+        verify(transactionRepository, never()).processMoneyTransfer(
+                anyString(), anyString(), any(), any(), any(Money.class), anyString(), anyString()
+        );
     }
 
     @Test
-    void testProcessTransactionWithPin_NoActiveAccountForSender() throws Exception {
+    void testProcessTransactionWithPin_SenderAccountNotActive() throws Exception {
         // Arrange
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
-        Customer senderCustomer = createMockSenderCustomer();
-        Account inactiveAccount = createMockSenderAccount();
-        inactiveAccount.setStatus("Inactive");
+        TransferContext context = createMockTransferContext(true);
+        context.getSenderAccount().setStatus("Inactive");
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(inactiveAccount));
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, "9876543210"))
+                .thenReturn(context);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, "9876543210", 100.0, "UPI", "Test"
+                        senderAccountNumber, senderPin, "9876543210", Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
-        assertTrue(exception.getMessage().contains("No active account found for sender"));
+        assertTrue(exception.getMessage().contains("Sender account is not active"));
     }
 
     @Test
@@ -261,18 +353,16 @@ class TransactionServiceImplTest {
         // Arrange
         String accountNumber = "1234567890";
         String senderPin = "123456";
-        Customer senderCustomer = createMockSenderCustomer();
-        Account senderAccount = createMockSenderAccount();
+        TransferContext context = createMockTransferContext(true);
+        context.setReceiverAccount(context.getSenderAccount());
+        context.setReceiverCustomer(context.getSenderCustomer());
 
-        when(customerRepository.verifyPin(accountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(accountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
+        when(customerRepository.loadTransferContext(accountNumber, senderPin, accountNumber)).thenReturn(context);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        accountNumber, senderPin, accountNumber, 100.0, "UPI", "Test"
+                        accountNumber, senderPin, accountNumber, Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
@@ -285,19 +375,17 @@ class TransactionServiceImplTest {
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
         String receiverAccountNumber = "9876543210";
-        Customer senderCustomer = createMockSenderCustomer();
-        Account senderAccount = createMockSenderAccount();
+        TransferContext context = createMockTransferContext(true);
+        context.setReceiverAccount(null);
+        context.setReceiverCustomer(null);
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(null);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(context);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, receiverAccountNumber, 100.0, "UPI", "Test"
+                        senderAccountNumber, senderPin, receiverAccountNumber, Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
@@ -310,21 +398,16 @@ class TransactionServiceImplTest {
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
         String receiverAccountNumber = "9876543210";
-        Customer senderCustomer = createMockSenderCustomer();
-        Account senderAccount = createMockSenderAccount();
-        Account receiverAccount = createMockReceiverAccount();
+        TransferContext context = createMockTransferContext(true);
+        context.setReceiverCustomer(null);
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(receiverAccount);
-        when(customerRepository.findById(receiverAccount.getCustomerId())).thenReturn(null);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(context);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, receiverAccountNumber, 100.0, "UPI", "Test"
+                        senderAccountNumber, senderPin, receiverAccountNumber, Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
@@ -337,23 +420,16 @@ class TransactionServiceImplTest {
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
         String receiverAccountNumber = "9876543210";
-        Customer senderCustomer = createMockSenderCustomer();
-        Account senderAccount = createMockSenderAccount();
-        Account receiverAccount = createMockReceiverAccount();
-        receiverAccount.setStatus("Blocked");
-        Customer receiverCustomer = createMockReceiverCustomer();
+        TransferContext context = createMockTransferContext(true);
+        context.getReceiverAccount().setStatus("Blocked");
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(receiverAccount);
-        when(customerRepository.findById(receiverAccount.getCustomerId())).thenReturn(receiverCustomer);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(context);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, receiverAccountNumber, 100.0, "UPI", "Test"
+                        senderAccountNumber, senderPin, receiverAccountNumber, Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
@@ -366,51 +442,58 @@ class TransactionServiceImplTest {
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
         String receiverAccountNumber = "9876543210";
-        Customer senderCustomer = createMockSenderCustomer();
-        Account senderAccount = createMockSenderAccount();
-        senderAccount.setBalance(50.0); // Less than transaction amount
-        Account receiverAccount = createMockReceiverAccount();
-        Customer receiverCustomer = createMockReceiverCustomer();
+        TransferContext context = createMockTransferContext(true);
+        context.getSenderAccount().setBalance(Money.parse("50.00")); // Less than transaction amount
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(receiverAccount);
-        when(customerRepository.findById(receiverAccount.getCustomerId())).thenReturn(receiverCustomer);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(context);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, receiverAccountNumber, 100.0, "UPI", "Test"
+                        senderAccountNumber, senderPin, receiverAccountNumber, Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
         assertTrue(exception.getMessage().contains("Insufficient balance"));
     }
 
+    @Test
+    void testProcessTransactionWithPin_HeldBalanceUsedOverAccountRow() throws Exception {
+        // Arrange: the row still shows 1000.00, but the ledger has already moved most of it
+        String senderAccountNumber = "1234567890";
+        String senderPin = "123456";
+        String receiverAccountNumber = "9876543210";
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(createMockTransferContext(true));
+        when(transactionRepository.heldBalance(senderAccountNumber)).thenReturn(Money.parse("40.00"));
+
+        // Act & Assert
+        Exception exception = assertThrows(Exception.class, () ->
+                transactionService.processTransactionWithPin(
+                        senderAccountNumber, senderPin, receiverAccountNumber, Money.parse("100.00"), "UPI", "Test"
+                )
+        );
+
+        assertEquals("Insufficient balance. Available balance: 40.00", exception.getMessage());
+        verify(transactionRepository, never()).processMoneyTransfer(
+                anyString(), anyString(), any(), any(), any(Money.class), anyString(), anyString());
+    }
+
     @Test
     void testProcessTransactionWithPin_ZeroAmount() throws Exception {
         // Arrange
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
         String receiverAccountNumber = "9876543210";
-        Customer senderCustomer = createMockSenderCustomer();
-        Account senderAccount = createMockSenderAccount();
-        Account receiverAccount = createMockReceiverAccount();
-        Customer receiverCustomer = createMockReceiverCustomer();
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(receiverAccount);
-        when(customerRepository.findById(receiverAccount.getCustomerId())).thenReturn(receiverCustomer);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(createMockTransferContext(true));
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransactionWithPin(
-                        senderAccountNumber, senderPin, receiverAccountNumber, 0.0, "UPI", "Test"
+                        senderAccountNumber, senderPin, receiverAccountNumber, Money.parse("0.00"), "UPI", "Test"
                 )
         );
 
@@ -423,20 +506,12 @@ class TransactionServiceImplTest {
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
         String receiverAccountNumber = "9876543210";
-        Double amount = 100.0;
-        Customer senderCustomer = createMockSenderCustomer();
-        Customer receiverCustomer = createMockReceiverCustomer();
-        Account senderAccount = createMockSenderAccount();
-        Account receiverAccount = createMockReceiverAccount();
+        Money amount = Money.parse("100.00");
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(receiverAccount);
-        when(customerRepository.findById(receiverAccount.getCustomerId())).thenReturn(receiverCustomer);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(createMockTransferContext(true));
         when(transactionRepository.processMoneyTransfer(
-                anyString(), anyString(), any(), any(), anyDouble(), anyString(), anyString()))
+                anyString(), anyString(), any(), any(), any(Money.class), anyString(), anyString()))
                 .thenThrow(new SQLException("Database error"));
 
         // Act & Assert
@@ -455,27 +530,19 @@ class TransactionServiceImplTest {
         String senderAccountNumber = "1234567890";
         String senderPin = "123456";
         String receiverAccountNumber = "9876543210";
-        Double amount = 100.0;
-        Customer senderCustomer = createMockSenderCustomer();
-        Customer receiverCustomer = createMockReceiverCustomer();
-        Account senderAccount = createMockSenderAccount();
-        Account receiverAccount = createMockReceiverAccount();
+        Money amount = Money.parse("100.00");
         Transaction mockTransaction = createMockTransaction();
 
-        when(customerRepository.verifyPin(senderAccountNumber, senderPin)).thenReturn(true);
-        when(customerRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderCustomer);
-        when(accountRepository.findByCustomerId(senderCustomer.getCustomerId()))
-                .thenReturn(Arrays.asList(senderAccount));
-        when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(receiverAccount);
-        when(customerRepository.findById(receiverAccount.getCustomerId())).thenReturn(receiverCustomer);
+        when(customerRepository.loadTransferContext(senderAccountNumber, senderPin, receiverAccountNumber))
+                .thenReturn(createMockTransferContext(true));
         when(transactionRepository.processMoneyTransfer(
-                anyString(), anyString(), any(), any(), anyDouble(), anyString(), anyString()))
+                anyString(), anyString(), any(), any(), any(Money.class), anyString(), anyString()))
                 .thenReturn(mockTransaction);
 
         doThrow(new RuntimeException("Email service down"))
                 .when(notificationService).sendEmailAlertToSender(
                         anyString(), anyString(), anyString(), anyString(),
-                        anyDouble(), anyString(), any(), anyString(), anyString()
+                        any(Money.class), anyString(), any(), anyString(), anyString()
                 );
 
         // Act - should not throw exception even if email fails
@@ -495,7 +562,7 @@ class TransactionServiceImplTest {
         // Arrange
         String senderAccountNumber = "1234567890";
         String receiverAccountNumber = "9876543210";
-        Double amount = 100.0;
+        Money amount = Money.parse("100.00");
         Account senderAccount = createMockSenderAccount();
         Account receiverAccount = createMockReceiverAccount();
         Transaction mockTransaction = createMockTransaction();
@@ -503,7 +570,7 @@ class TransactionServiceImplTest {
         when(accountRepository.findByAccountNumber(senderAccountNumber)).thenReturn(senderAccount);
         when(accountRepository.findByAccountNumber(receiverAccountNumber)).thenReturn(receiverAccount);
         when(transactionRepository.processMoneyTransfer(
-                anyString(), anyString(), any(), any(), anyDouble(), anyString(), anyString()))
+                anyString(), anyString(), any(), any(), any(Money.class), anyString(), anyString()))
                 .thenReturn(mockTransaction);
 
         // Act
@@ -525,7 +592,7 @@ class TransactionServiceImplTest {
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransaction(
-                        "1234567890", "1234567890", 100.0, "UPI", "Test"
+                        "1234567890", "1234567890", Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
@@ -540,7 +607,7 @@ class TransactionServiceImplTest {
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransaction(
-                        "1234567890", "9876543210", 100.0, "UPI", "Test"
+                        "1234567890", "9876543210", Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
@@ -557,7 +624,7 @@ class TransactionServiceImplTest {
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransaction(
-                        "1234567890", "9876543210", 100.0, "UPI", "Test"
+                        "1234567890", "9876543210", Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
@@ -568,7 +635,7 @@ class TransactionServiceImplTest {
     void testProcessTransaction_InsufficientBalance() throws Exception {
         // Arrange
         Account senderAccount = createMockSenderAccount();
-        senderAccount.setBalance(50.0);
+        senderAccount.setBalance(Money.parse("50.00"));
         Account receiverAccount = createMockReceiverAccount();
 
         when(accountRepository.findByAccountNumber("1234567890")).thenReturn(senderAccount);
@@ -577,13 +644,122 @@ class TransactionServiceImplTest {
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () ->
                 transactionService.processTransaction(
-                        "1234567890", "9876543210", 100.0, "UPI", "Test"
+                        "1234567890", "9876543210", Money.parse("100.00"), "UPI", "Test"
                 )
         );
 
         assertTrue(exception.getMessage().contains("Insufficient balance"));
     }
 
+    // ==================== PROCESS TRANSACTION BATCH TESTS ====================
+
+    @Test
+    void testProcessTransactionBatch_PartialFailure() throws Exception {
+        // Arrange
+        TransferInstruction good = new TransferInstruction("1234567890", "9876543210", Money.parse("100.00"), "UPI", "Rent");
+        good.setSenderPin("123456");
+        TransferInstruction badPin = new TransferInstruction("1234567890", "9876543210", Money.parse("50.00"), "UPI", "Bills");
+        badPin.setSenderPin("000000");
+
+        when(customerRepository.loadTransferContexts(Arrays.asList(badPin, good)))
+                .thenReturn(Arrays.asList(createMockTransferContext(false), createMockTransferContext(true)));
+        when(transactionRepository.processMoneyTransfers(anyList()))
+                .thenReturn(Collections.singletonList(TransferResult.success(0, createMockTransaction())));
+
+        // Act
+        List<TransferResult> results = transactionService.processTransactionBatch(Arrays.asList(badPin, good));
+
+        // Assert
+        assertEquals(2, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("Invalid PIN. Transaction denied.", results.get(0).getMessage());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(1, results.get(1).getIndex());
+
+        verify(transactionRepository, times(1)).processMoneyTransfers(Collections.singletonList(good));
+        verify(customerRepository, never()).loadTransferContext(anyString(), anyString(), anyString());
+        verify(notificationService, times(1)).sendEmailAlertToSender(
+                anyString(), anyString(), anyString(), anyString(),
+                eq(Money.parse("100.00")), anyString(), any(LocalDateTime.class), eq("UPI"), eq("Rent")
+        );
+    }
+
+    @Test
+    void testProcessTransactionBatch_RepositoryFailureFailsChunk() throws Exception {
+        // Arrange
+        TransferInstruction instruction = new TransferInstruction("1234567890", "9876543210", Money.parse("100.00"), "UPI", "Rent");
+        instruction.setSenderPin("123456");
+
+        when(customerRepository.loadTransferContexts(Collections.singletonList(instruction)))
+                .thenReturn(Collections.singletonList(createMockTransferContext(true)));
+        when(transactionRepository.processMoneyTransfers(anyList()))
+                .thenThrow(new SQLException("Database connection failed"));
+
+        // Act
+        List<TransferResult> results = transactionService.processTransactionBatch(
+                Collections.singletonList(instruction));
+
+        // Assert
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("Transaction failed: Database connection failed", results.get(0).getMessage());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void testProcessTransactionBatch_SmallerChunksUnderAccountLocks() throws Exception {
+        // Arrange
+        StripedLockManager locks = new StripedLockManager(1024, 50);
+        TransactionServiceImpl lockingService = new TransactionServiceImpl(
+                transactionRepository, accountRepository, customerRepository, notificationService, true, locks);
+        List<TransferInstruction> instructions = new ArrayList<>();
+        List<TransferContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TransferInstruction t = new TransferInstruction("1234567890", "9876543210", Money.parse("1.00"), "UPI", "Rent");
+            t.setSenderPin("123456");
+            instructions.add(t);
+            contexts.add(createMockTransferContext(true));
+        }
+        when(customerRepository.loadTransferContexts(instructions)).thenReturn(contexts);
+        when(transactionRepository.processMoneyTransfers(anyList())).thenAnswer(invocation -> {
+            List<TransferInstruction> chunk = invocation.getArgument(0);
+            List<TransferResult> results = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(TransferResult.success(i, createMockTransaction()));
+            }
+            return results;
+        });
+
+        // Act
+        List<TransferResult> results = lockingService.processTransactionBatch(instructions);
+
+        // Assert: 16 and then 4, each holding only its own stripes
+        assertTrue(results.stream().allMatch(TransferResult::isSuccess));
+        verify(transactionRepository).processMoneyTransfers(instructions.subList(0, 16));
+        verify(transactionRepository).processMoneyTransfers(instructions.subList(16, 20));
+    }
+
+    @Test
+    void testProcessTransactionBatch_ContextLoadFailureFailsEveryInstruction() throws Exception {
+        // Arrange
+        TransferInstruction first = new TransferInstruction("1234567890", "9876543210", Money.parse("100.00"), "UPI", "Rent");
+        TransferInstruction second = new TransferInstruction("9876543210", "1234567890", Money.parse("10.00"), "UPI", "Back");
+        when(customerRepository.loadTransferContexts(anyList()))
+                .thenThrow(new SQLException("Database connection failed"));
+
+        // Act
+        List<TransferResult> results = transactionService.processTransactionBatch(Arrays.asList(first, second));
+
+        // Assert
+        assertEquals(2, results.size());
+        for (int i = 0; i < 2; i++) {
+            assertFalse(results.get(i).isSuccess());
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals("Transaction failed: Database connection failed", results.get(i).getMessage());
+        }
+        verifyNoInteractions(notificationService);
+        verify(transactionRepository, never()).processMoneyTransfers(anyList());
+    }
+
     // ==================== GET TRANSACTION BY ID TESTS ====================
 
     @Test
@@ -730,4 +906,97 @@ class TransactionServiceImplTest {
 
         assertTrue(exception.getMessage().contains("Failed to retrieve transactions"));
     }
-}
\ No newline at end of file
+
+    // ==================== PAGINATION TESTS ====================
+
+    @Test
+    void testGetTransactionsPage_FirstPageChecksAccount() throws Exception {
+        // Arrange
+        when(accountRepository.findByAccountNumber("9999999999")).thenReturn(null);
+
+        // Act & Assert
+        Exception exception = assertThrows(Exception.class, () ->
+                transactionService.getTransactionsPage("9999999999", null, 20)
+        );
+
+        assertTrue(exception.getMessage().contains("Account not found"));
+        verify(transactionRepository, never()).findPageByAccountNumber(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void testGetTransactionsPage_LaterPageSeeksWithoutAccountLookup() throws Exception {
+        // Arrange
+        KeysetCursor after = new KeysetCursor(LocalDateTime.of(2024, 1, 15, 10, 30), "TXN_000050");
+        Page<Transaction> page = new Page<>(Arrays.asList(createMockTransaction()), null);
+        when(transactionRepository.findPageByAccountNumber("1234567890", after, 20)).thenReturn(page);
+
+        // Act
+        Page<Transaction> result = transactionService.getTransactionsPage("1234567890", after, 20);
+
+        // Assert
+        assertSame(page, result);
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    // ==================== COUNTERPARTY TESTS ====================
+
+    @Test
+    void testGetCounterpartyTransactionsPage_FirstPageChecksAccount() throws Exception {
+        // Arrange
+        when(accountRepository.findByAccountNumber("9999999999")).thenReturn(null);
+
+        // Act & Assert
+        Exception exception = assertThrows(Exception.class, () ->
+                transactionService.getCounterpartyTransactionsPage("9999999999", "1234567890",
+                        CounterpartyDirection.BOTH, null, 20)
+        );
+
+        assertTrue(exception.getMessage().contains("Account not found"));
+        verify(transactionRepository, never()).findPageWithCounterparty(anyString(), anyString(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testGetCounterpartyTransactionsPage_Success() throws Exception {
+        // Arrange
+        Page<Transaction> page = new Page<>(Arrays.asList(createMockTransaction()), null);
+        when(accountRepository.findByAccountNumber("1234567890")).thenReturn(createMockSenderAccount());
+        when(transactionRepository.findPageWithCounterparty("1234567890", "9876543210",
+                CounterpartyDirection.RECEIVED, null, 20)).thenReturn(page);
+
+        // Act
+        Page<Transaction> result = transactionService.getCounterpartyTransactionsPage("1234567890", "9876543210",
+                CounterpartyDirection.RECEIVED, null, 20);
+
+        // Assert
+        assertSame(page, result);
+    }
+
+    // ==================== STREAMING EXPORT TESTS ====================
+
+    @Test
+    void testStreamAllTransactions_RepositoryThrowsException() throws Exception {
+        // Arrange
+        doThrow(new SQLException("Database error")).when(transactionRepository).streamAll(isNull(), isNull(), any());
+
+        // Act & Assert
+        Exception exception = assertThrows(Exception.class, () ->
+                transactionService.streamAllTransactions(null, null, row -> {})
+        );
+
+        assertTrue(exception.getMessage().contains("Failed to export transactions"));
+    }
+
+    @Test
+    void testStreamTransactions_PassesRangeToRepository() throws Exception {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        RowHandler<Transaction> handler = row -> {};
+
+        // Act
+        transactionService.streamTransactions("1234567890", from, to, handler);
+
+        // Assert
+        verify(transactionRepository, times(1)).streamByAccountNumber("1234567890", from, to, handler);
+    }
+}
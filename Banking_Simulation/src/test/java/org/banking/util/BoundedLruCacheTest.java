@@ -0,0 +1,77 @@
+package org.banking.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedLruCacheTest {
+
+    @Test
+    void testPut_LeastRecentlyUsedEvictedFirst() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(3, 0);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        // Reading a makes b the eldest
+        assertEquals(1, cache.get("a"));
+        cache.put("d", 4);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(4, cache.get("d"));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void testPut_OverwriteRefreshesWithoutEvicting() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(2, 0);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        cache.put("a", 10);
+        cache.put("c", 3);
+
+        assertEquals(10, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void testGet_ExpiredEntryIsAMissAndRemoved() throws InterruptedException {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(10, 20);
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+
+        Thread.sleep(40);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void testInvalidate_SingleAndMatchingEntries() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(10, 0);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        cache.invalidate("a");
+        cache.invalidateIf((key, value) -> value % 2 == 0);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void testConstructor_NonPositiveSizeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedLruCache<String, Integer>(0, 0));
+    }
+}
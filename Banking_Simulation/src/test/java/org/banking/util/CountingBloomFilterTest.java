@@ -0,0 +1,102 @@
+package org.banking.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingBloomFilterTest {
+
+    @Test
+    void testAdd_AddedValuesAlwaysMightBePresent() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("value-" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("value-" + i));
+        }
+        assertEquals(1000, filter.getEntryCount());
+    }
+
+    @Test
+    void testMightContain_FalsePositivesNearTheTargetRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("value-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testRemove_ValueGoneOthersKept() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+        filter.add("kept");
+        filter.add("removed");
+
+        assertTrue(filter.remove("removed"));
+
+        assertFalse(filter.mightContain("removed"));
+        assertTrue(filter.mightContain("kept"));
+        assertEquals(1, filter.getEntryCount());
+    }
+
+    @Test
+    void testRemove_AddedTwiceNeedsTwoRemovals() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+        filter.add("twice");
+        filter.add("twice");
+
+        assertTrue(filter.remove("twice"));
+        assertTrue(filter.mightContain("twice"));
+        assertTrue(filter.remove("twice"));
+        assertFalse(filter.mightContain("twice"));
+    }
+
+    @Test
+    void testRemove_NeverAddedValueLeavesCountersAlone() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+        for (int i = 0; i < 500; i++) {
+            filter.add("value-" + i);
+        }
+
+        int refused = 0;
+        for (int i = 0; i < 500; i++) {
+            if (!filter.remove("other-" + i)) {
+                refused++;
+            }
+        }
+
+        // Only a false positive gets past the check and takes from the counters
+        assertTrue(refused > 450, "refused: " + refused);
+        int accepted = 500 - refused;
+        assertEquals(500 - accepted, filter.getEntryCount());
+        for (int i = 0; i < 500; i++) {
+            assertTrue(filter.mightContain("value-" + i));
+        }
+    }
+
+    @Test
+    void testRemove_FromEmptyFilterRefused() {
+        CountingBloomFilter filter = new CountingBloomFilter(10, 0.01);
+
+        assertFalse(filter.remove("never"));
+        filter.add("later");
+        assertTrue(filter.mightContain("later"));
+        assertEquals(1, filter.getEntryCount());
+    }
+
+    @Test
+    void testConstructor_InvalidArgumentsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(10, 1));
+    }
+}
@@ -0,0 +1,68 @@
+package org.banking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTest {
+
+    private static String write(String[]... rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter csv = new CsvWriter(out);
+        for (String[] row : rows) {
+            csv.writeRow(row);
+        }
+        csv.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testWriteRow_PlainFieldsUnquoted() throws IOException {
+        assertEquals("TXN_1,1001,250.00\r\n", write(new String[]{"TXN_1", "1001", "250.00"}));
+    }
+
+    @Test
+    void testWriteRow_CommaQuoted() throws IOException {
+        assertEquals("\"Rent, March\",x\r\n", write(new String[]{"Rent, March", "x"}));
+    }
+
+    @Test
+    void testWriteRow_QuotesDoubled() throws IOException {
+        assertEquals("\"say \"\"hi\"\"\",\"\"\"\"\r\n", write(new String[]{"say \"hi\"", "\""}));
+    }
+
+    @Test
+    void testWriteRow_NewlinesQuoted() throws IOException {
+        assertEquals("\"line 1\nline 2\",\"a\r\nb\",\"\r\"\r\n", write(new String[]{"line 1\nline 2", "a\r\nb", "\r"}));
+    }
+
+    @Test
+    void testWriteRow_NullAndEmptyAreEmptyFields() throws IOException {
+        assertEquals(",,x,\r\n", write(new String[]{null, "", "x", null}));
+    }
+
+    @Test
+    void testWriteRow_Utf8AndRowEndings() throws IOException {
+        String written = write(new String[]{"₹500", "नमस्ते"}, new String[]{"second"});
+
+        assertEquals("₹500,नमस्ते\r\nsecond\r\n", written);
+    }
+
+    @Test
+    void testFlush_LeavesStreamUsable() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter csv = new CsvWriter(out);
+        csv.writeRow("a");
+        assertEquals(0, out.size());
+
+        csv.flush();
+        csv.writeRow("b");
+        csv.flush();
+
+        assertEquals("a\r\nb\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package org.banking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 1, 15, 10, 30, 5, 123_000_000);
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEncode_DecodesToSamePosition() {
+        KeysetCursor cursor = new KeysetCursor(TIME, "TXN_0000000000000000050");
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testEncode_IdOnlyCursor() {
+        KeysetCursor cursor = new KeysetCursor(null, "CUST_0000000000000000007");
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertNull(decoded.time());
+        assertEquals("CUST_0000000000000000007", decoded.id());
+    }
+
+    @Test
+    void testEncode_UrlSafe() {
+        // An id with a separator of its own still splits at the first one
+        String encoded = new KeysetCursor(TIME, "a|b/c+d?").encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_.-]+"), encoded);
+        assertEquals("a|b/c+d?", KeysetCursor.decode(encoded).id());
+    }
+
+    @Test
+    void testDecode_BlankIsFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode("  "));
+    }
+
+    @Test
+    void testDecode_EditedPositionRejected() {
+        String encoded = new KeysetCursor(TIME, "TXN_0000000000000000050").encode();
+        String signature = encoded.substring(encoded.lastIndexOf('.'));
+
+        // Same signature over another id
+        String forged = base64(TIME + "|TXN_0000000000000000001") + signature;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(forged));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+
+    @Test
+    void testDecode_EditedSignatureRejected() {
+        String encoded = new KeysetCursor(TIME, "TXN_0000000000000000050").encode();
+        char last = encoded.charAt(encoded.length() - 1);
+        String tampered = encoded.substring(0, encoded.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(tampered));
+    }
+
+    @Test
+    void testDecode_UnsignedOrMalformedRejected() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(base64(TIME + "|TXN_1")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not base64!.xx"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("."));
+    }
+
+    @Test
+    void testConstructor_IdRequired() {
+        assertThrows(IllegalArgumentException.class, () -> new KeysetCursor(TIME, null));
+    }
+}
@@ -0,0 +1,95 @@
+package org.banking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    void testCapacity_MustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<String>(0));
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<String>(1));
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<String>(6));
+        assertEquals(8, new RingBuffer<String>(8).capacity());
+    }
+
+    @Test
+    void testOffer_FullUntilDrained() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, ring.drainTo(drained, 2));
+        assertTrue(ring.offer(4));
+        assertTrue(ring.offer(5));
+        assertFalse(ring.offer(6));
+
+        assertEquals(4, ring.drainTo(drained, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), drained);
+        assertEquals(0, ring.drainTo(drained, 10));
+    }
+
+    @Test
+    void testOffer_NullRejected() {
+        assertThrows(NullPointerException.class, () -> new RingBuffer<String>(2).offer(null));
+    }
+
+    @Test
+    void testManyProducers_EveryElementOnceInEachProducersOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 5_000;
+        RingBuffer<long[]> ring = new RingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    // Yield rather than spin, so the consumer gets a turn on a single core
+                    while (!ring.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        long[] next = new long[producers];
+        List<long[]> drained = new ArrayList<>();
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (received < producers * perProducer && System.nanoTime() < deadline) {
+            drained.clear();
+            if (ring.drainTo(drained, 32) == 0) {
+                Thread.yield();
+            }
+            for (long[] element : drained) {
+                assertEquals(next[(int) element[0]]++, element[1]);
+            }
+            received += drained.size();
+        }
+        assertEquals(producers * perProducer, received);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, ring.drainTo(drained, 1));
+    }
+}